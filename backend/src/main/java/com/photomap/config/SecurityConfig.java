@@ -1,6 +1,7 @@
 package com.photomap.config;
 
 import com.photomap.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -40,8 +41,11 @@ public class SecurityConfig {
         } else {
             http
                     .authorizeHttpRequests(auth -> auth
+                            // Streaming responses finish on an async dispatch; the request was authorized already
+                            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                             .requestMatchers("/api/auth/**").permitAll()
                             .requestMatchers("/api/public/**").permitAll()
+                            .requestMatchers("/actuator/metrics/**").hasRole("ADMIN")
                             .requestMatchers("/actuator/**").permitAll()
                             .requestMatchers("/swagger-ui/**").permitAll()
                             .requestMatchers("/v3/api-docs/**").permitAll()
@@ -0,0 +1,72 @@
+package com.photomap.config;
+
+import com.photomap.storage.LocalPhotoStorage;
+import com.photomap.storage.PhotoPathResolver;
+import com.photomap.storage.PhotoStorage;
+import com.photomap.storage.S3PhotoStorage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * Selects the photo storage backend: {@code local} directories (default) or an S3-compatible bucket.
+ */
+@Configuration
+@Slf4j
+public class StorageConfig {
+
+    private static final int BYTES_PER_MB = 1024 * 1024;
+
+    @Bean
+    @ConditionalOnProperty(name = "photo.storage.type", havingValue = "local", matchIfMissing = true)
+    public PhotoStorage localPhotoStorage(
+            final PhotoPathResolver photoPathResolver,
+            @Value("${photo.upload.directory.original}") final String originalDirectory,
+            @Value("${photo.upload.directory.medium}") final String mediumDirectory) throws IOException {
+        final LocalPhotoStorage storage = new LocalPhotoStorage(photoPathResolver, originalDirectory, mediumDirectory);
+        storage.init();
+        log.info("Using local photo storage: original={}, medium={}", originalDirectory, mediumDirectory);
+        return storage;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "photo.storage.type", havingValue = "s3")
+    public PhotoStorage s3PhotoStorage(
+            @Value("${photo.storage.s3.endpoint:}") final String endpoint,
+            @Value("${photo.storage.s3.region:us-east-1}") final String region,
+            @Value("${photo.storage.s3.bucket}") final String bucket,
+            @Value("${photo.storage.s3.access-key:}") final String accessKey,
+            @Value("${photo.storage.s3.secret-key:}") final String secretKey,
+            @Value("${photo.storage.s3.path-style-access:true}") final boolean pathStyleAccess,
+            @Value("${photo.storage.s3.multipart-threshold-mb:16}") final int multipartThresholdMb,
+            @Value("${photo.storage.s3.part-size-mb:8}") final int partSizeMb,
+            @Value("${photo.storage.s3.range-parallelism:4}") final int rangeParallelism,
+            @Value("${photo.storage.s3.concurrent-readers:8}") final int concurrentReaders) {
+        final S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyleAccess);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        builder.credentialsProvider(accessKey.isBlank()
+                ? DefaultCredentialsProvider.builder().build()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+
+        final S3PhotoStorage storage = new S3PhotoStorage(builder.build(), bucket,
+                (long) multipartThresholdMb * BYTES_PER_MB, partSizeMb * BYTES_PER_MB, rangeParallelism, concurrentReaders);
+        storage.ensureBucket();
+        log.info("Using S3 photo storage: bucket={}, endpoint={}", bucket, endpoint.isBlank() ? "AWS" : endpoint);
+        return storage;
+    }
+}
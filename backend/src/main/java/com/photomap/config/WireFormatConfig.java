@@ -0,0 +1,70 @@
+package com.photomap.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Binary encodings of every JSON response, chosen by the Accept header: CBOR
+ * ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}). Both are
+ * self-describing and carry the same fields as JSON, so the OpenAPI schemas and the client's
+ * models describe them as well. Decimal coordinates are written as doubles, since few
+ * decoders understand CBOR decimal fractions.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    /**
+     * Filters such as {@link com.photomap.dto.PhotoResponse#FIELD_FILTER} are supplied per
+     * response; when none is, every property is written.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer propertyFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(final Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binaryMapper(builder, new CBORFactory()));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(final Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binaryMapper(builder, new SmileFactory()));
+    }
+
+    /**
+     * Mapper with the application's Jackson settings writing through the given factory.
+     */
+    static ObjectMapper binaryMapper(final Jackson2ObjectMapperBuilder builder, final JsonFactory factory) {
+        return builder.factory(factory)
+                .serializerByType(BigDecimal.class, new DecimalAsDoubleSerializer())
+                .build();
+    }
+
+    private static final class DecimalAsDoubleSerializer extends StdSerializer<BigDecimal> {
+
+        DecimalAsDoubleSerializer() {
+            super(BigDecimal.class);
+        }
+
+        @Override
+        public void serialize(final BigDecimal value, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+            generator.writeNumber(value.doubleValue());
+        }
+    }
+}
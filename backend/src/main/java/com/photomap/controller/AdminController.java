@@ -2,21 +2,26 @@ package com.photomap.controller;
 
 import com.photomap.dto.*;
 import com.photomap.model.Photo;
-import com.photomap.model.Rating;
 import com.photomap.model.User;
 import com.photomap.repository.PhotoRepository;
+import com.photomap.service.PhotoExportService;
 import com.photomap.service.PhotoService;
+import com.photomap.service.RatingReconciliationService;
 import com.photomap.service.SettingsService;
+import com.photomap.service.StorageLayoutMigrationService;
 import com.photomap.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -33,13 +38,22 @@ public class AdminController {
     private final PhotoService photoService;
     private final SettingsService settingsService;
     private final PhotoRepository photoRepository;
+    private final StorageLayoutMigrationService storageLayoutMigrationService;
+    private final RatingReconciliationService ratingReconciliationService;
+    private final PhotoExportService photoExportService;
 
     public AdminController(final UserService userService, final PhotoService photoService,
-                           final SettingsService settingsService, final PhotoRepository photoRepository) {
+                           final SettingsService settingsService, final PhotoRepository photoRepository,
+                           final StorageLayoutMigrationService storageLayoutMigrationService,
+                           final RatingReconciliationService ratingReconciliationService,
+                           final PhotoExportService photoExportService) {
         this.userService = userService;
         this.photoService = photoService;
         this.settingsService = settingsService;
         this.photoRepository = photoRepository;
+        this.storageLayoutMigrationService = storageLayoutMigrationService;
+        this.ratingReconciliationService = ratingReconciliationService;
+        this.photoExportService = photoExportService;
     }
 
     @GetMapping("/users")
@@ -116,6 +130,21 @@ public class AdminController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Streams the metadata of all photos, with owner email and rating aggregates, as NDJSON or CSV.
+     */
+    @GetMapping("/photos/export")
+    public ResponseEntity<StreamingResponseBody> exportPhotos(@RequestParam(defaultValue = "ndjson") final String format) {
+        final PhotoExportService.Format exportFormat = PhotoExportService.Format.parse(format);
+        final StreamingResponseBody body = out -> photoExportService.export(exportFormat, out);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("photos." + exportFormat.extension()).build().toString())
+                .body(body);
+    }
+
     @DeleteMapping("/photos/{id}")
     public ResponseEntity<Void> deletePhoto(@PathVariable final Long id) throws IOException {
         photoService.deletePhotoByAdmin(id);
@@ -123,12 +152,7 @@ public class AdminController {
     }
 
     private PhotoAdminResponse mapToPhotoAdminResponse(final Photo photo) {
-        final String thumbnailUrl = photo.getThumbnailFilename() != null
-                ? "/api/photos/" + photo.getId() + "/thumbnail"
-                : null;
-
-        final Double averageRating = calculateAverageRating(photo);
-        final Integer totalRatings = photo.getRatings() != null ? photo.getRatings().size() : 0;
+        final String thumbnailUrl = "/api/photos/" + photo.getId() + "/thumbnail";
 
         final Long userId = photo.getUser() != null ? photo.getUser().getId() : null;
         final String userEmail = photo.getUser() != null ? photo.getUser().getEmail() : null;
@@ -144,24 +168,15 @@ public class AdminController {
                 photo.getGpsLongitude(),
                 photo.getTakenAt(),
                 photo.getUploadedAt(),
-                averageRating,
-                totalRatings,
+                photo.getRatingAvg(),
+                photo.getRatingCount(),
+                List.of(photo.getRating1Count(), photo.getRating2Count(), photo.getRating3Count(),
+                        photo.getRating4Count(), photo.getRating5Count()),
                 userId,
                 userEmail
         );
     }
 
-    private Double calculateAverageRating(final Photo photo) {
-        if (photo.getRatings() == null || photo.getRatings().isEmpty()) {
-            return null;
-        }
-
-        return photo.getRatings().stream()
-                .mapToInt(Rating::getRatingValue)
-                .average()
-                .orElse(0.0);
-    }
-
     @GetMapping("/users/inactive")
     public ResponseEntity<List<UserSummaryDTO>> getInactiveUsers() {
         final List<User> inactiveUsers = userService.getInactiveUsers();
@@ -213,4 +228,24 @@ public class AdminController {
 
         return ResponseEntity.ok(new BulkDeleteResponse(deletedCount, orphanedPhotos.size()));
     }
+
+    @PostMapping("/storage/layout-migration")
+    public ResponseEntity<StorageMigrationStatus> startStorageLayoutMigration() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(storageLayoutMigrationService.start());
+    }
+
+    @GetMapping("/storage/layout-migration")
+    public ResponseEntity<StorageMigrationStatus> getStorageLayoutMigrationStatus() {
+        return ResponseEntity.ok(storageLayoutMigrationService.getStatus());
+    }
+
+    @PostMapping("/ratings/reconciliation")
+    public ResponseEntity<RatingReconciliationStatus> startRatingReconciliation() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ratingReconciliationService.start());
+    }
+
+    @GetMapping("/ratings/reconciliation")
+    public ResponseEntity<RatingReconciliationStatus> getRatingReconciliationStatus() {
+        return ResponseEntity.ok(ratingReconciliationService.getStatus());
+    }
 }
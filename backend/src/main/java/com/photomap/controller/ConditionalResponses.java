@@ -0,0 +1,30 @@
+package com.photomap.controller;
+
+import com.photomap.config.VaryAcceptAdvice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Bodiless responses for conditional GETs of JSON resources, once
+ * {@link org.springframework.web.context.request.WebRequest#checkNotModified(String)} has matched
+ * the {@code If-None-Match} header.
+ */
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * A 304 carrying the headers the full response would have; {@link VaryAcceptAdvice} only sees
+     * responses with a body, so {@code Vary: Accept} is added here.
+     */
+    static <T> ResponseEntity<T> notModified(final String eTag, final CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+    }
+}
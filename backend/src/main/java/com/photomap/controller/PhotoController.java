@@ -1,32 +1,52 @@
 package com.photomap.controller;
 
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.photomap.dto.BatchRatingRequest;
+import com.photomap.dto.MapPoints;
+import com.photomap.dto.PhotoClusterResponse;
 import com.photomap.dto.PhotoResponse;
+import com.photomap.dto.PhotoSliceResponse;
+import com.photomap.dto.PhotoTimelineResponse;
 import com.photomap.dto.RatingRequest;
 import com.photomap.dto.RatingResponse;
 import com.photomap.model.Photo;
-import com.photomap.model.Rating;
 import com.photomap.model.Role;
 import com.photomap.model.User;
+import com.photomap.repository.BoundingBox;
+import com.photomap.repository.GeoPoint;
+import com.photomap.repository.PhotoCursor;
+import com.photomap.repository.PhotoFields;
 import com.photomap.repository.PhotoRepository;
+import com.photomap.repository.TimelineBucket;
 import com.photomap.repository.UserRepository;
+import com.photomap.service.DerivedImageService;
+import com.photomap.service.PhotoProcessingService;
 import com.photomap.service.PhotoService;
+import com.photomap.service.ThumbnailBatchService;
+import com.photomap.storage.PhotoStorage;
+import com.photomap.storage.StorageArea;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springdoc.core.annotations.ParameterObject;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -34,7 +54,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -46,6 +69,10 @@ public class PhotoController {
     private static final String ERROR_PHOTO_NOT_FOUND_OR_ACCESS_DENIED = "Photo not found or access denied";
 
     private final PhotoService photoService;
+    private final ThumbnailBatchService thumbnailBatchService;
+    private final DerivedImageService derivedImageService;
+    private final PhotoProcessingService photoProcessingService;
+    private final PhotoStorage photoStorage;
     private final PhotoRepository photoRepository;
     private final UserRepository userRepository;
 
@@ -55,12 +82,6 @@ public class PhotoController {
     @Value("${photo.upload.directory.input}")
     private String inputDirectory;
 
-    @Value("${photo.upload.directory.original}")
-    private String originalDirectory;
-
-    @Value("${photo.upload.directory.medium}")
-    private String mediumDirectory;
-
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Map<String, String>> uploadPhoto(
             @RequestParam("file") final MultipartFile file,
@@ -100,115 +121,299 @@ public class PhotoController {
                 ));
     }
 
+    /**
+     * Paged listing. Besides the date, rating and GPS filters it accepts spatial filters:
+     * {@code bbox} ({@code west,south,east,north}), {@code near} ({@code lat,lng}) with
+     * {@code radius} in meters, and {@code sort=distance} (requires {@code near}) for the
+     * nearest photos first. With {@code ids} it returns just those photos, in that order, as a
+     * single page. {@code fields} limits the properties of every photo, e.g.
+     * {@code fields=thumbnailUrl,averageRating}.
+     */
     @GetMapping
-    public ResponseEntity<Page<PhotoResponse>> getPhotos(
+    public ResponseEntity<MappingJacksonValue> getPhotos(
             @RequestParam(required = false) final String dateFrom,
             @RequestParam(required = false) final String dateTo,
             @RequestParam(required = false) final Integer minRating,
             @RequestParam(required = false) final Boolean hasGps,
+            @RequestParam(required = false) final String bbox,
+            @RequestParam(required = false) final String near,
+            @RequestParam(required = false) final Double radius,
+            @RequestParam(required = false) final List<Long> ids,
+            @RequestParam(required = false) final String fields,
             @ParameterObject @PageableDefault(size = 20, sort = "uploadedAt", direction = Sort.Direction.DESC) final Pageable pageable,
+            final WebRequest webRequest,
             final Authentication authentication) {
 
+        final PhotoFields photoFields = PhotoFields.parse(fields);
+        if (ids != null && (dateFrom != null || dateTo != null || minRating != null || hasGps != null
+                || bbox != null || near != null || radius != null)) {
+            throw new IllegalArgumentException("Photo ids cannot be combined with filters");
+        }
+
         final User currentUser = getCurrentUser(authentication);
 
         if (!currentUser.isCanViewPhotos()) {
             throw new IllegalArgumentException("User does not have permission to view photos");
         }
 
+        final String eTag = photoService.getViewerETag(currentUser.getId());
+        if (webRequest.checkNotModified(eTag)) {
+            return ConditionalResponses.notModified(eTag, CacheControl.noCache().cachePrivate());
+        }
+
+        if (ids != null) {
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .body(withFields(new PageImpl<>(photoService.getPhotoResponses(currentUser.getId(), ids, photoFields)), photoFields));
+        }
+
         // Parse date parameters
         final LocalDateTime dateFromParsed = dateFrom != null ? LocalDateTime.parse(dateFrom + "T00:00:00") : null;
         final LocalDateTime dateToParsed = dateTo != null ? LocalDateTime.parse(dateTo + "T23:59:59") : null;
 
-        final Page<Photo> photos = photoService.getPhotos(currentUser.getId(), pageable, dateFromParsed, dateToParsed, minRating, hasGps);
+        final BoundingBox bounds = bbox != null ? BoundingBox.parse(bbox) : null;
+        final GeoPoint nearPoint = near != null ? GeoPoint.parse(near) : null;
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(withFields(photoService.getPhotos(currentUser.getId(), pageable, dateFromParsed, dateToParsed, minRating, hasGps,
+                        bounds, nearPoint, radius, photoFields), photoFields));
+    }
+
+    /**
+     * Keyset-paginated listing for infinite scroll: pass the returned {@code nextCursor} as
+     * {@code after} to fetch the next slice. No total count is computed.
+     */
+    @GetMapping("/scroll")
+    public ResponseEntity<PhotoSliceResponse> scrollPhotos(
+            @RequestParam(required = false) final String dateFrom,
+            @RequestParam(required = false) final String dateTo,
+            @RequestParam(required = false) final Integer minRating,
+            @RequestParam(required = false) final Boolean hasGps,
+            @RequestParam(defaultValue = PhotoCursor.SORT_UPLOADED_AT) final String sort,
+            @RequestParam(required = false) final String after,
+            @RequestParam(defaultValue = "20") final int size,
+            final Authentication authentication) {
+
+        final User currentUser = getCurrentUser(authentication);
+
+        if (!currentUser.isCanViewPhotos()) {
+            throw new IllegalArgumentException("User does not have permission to view photos");
+        }
+
+        final LocalDateTime dateFromParsed = dateFrom != null ? LocalDateTime.parse(dateFrom + "T00:00:00") : null;
+        final LocalDateTime dateToParsed = dateTo != null ? LocalDateTime.parse(dateTo + "T23:59:59") : null;
+        final PhotoCursor cursor = after != null ? PhotoCursor.decode(after) : null;
+
+        final Slice<PhotoResponse> photos = photoService.scrollPhotos(currentUser.getId(), sort, cursor, size,
+                dateFromParsed, dateToParsed, minRating, hasGps);
+
+        final String nextCursor = photos.hasNext()
+                ? PhotoCursor.of(sort, photos.getContent().get(photos.getNumberOfElements() - 1)).encode()
+                : null;
+        return ResponseEntity.ok(new PhotoSliceResponse(photos.getContent(), size, photos.hasNext(), nextCursor));
+    }
+
+    /**
+     * Marker data for all geotagged photos matching the filters, as columnar arrays
+     * ({@code id}, {@code lat}, {@code lng}, {@code takenAt} in epoch millis, {@code ratingAvg}).
+     */
+    @GetMapping("/map-points")
+    public ResponseEntity<MapPoints> getMapPoints(
+            @RequestParam(required = false) final String dateFrom,
+            @RequestParam(required = false) final String dateTo,
+            @RequestParam(required = false) final Integer minRating,
+            final Authentication authentication) {
+
+        final User currentUser = getCurrentUser(authentication);
+
+        if (!currentUser.isCanViewPhotos()) {
+            throw new IllegalArgumentException("User does not have permission to view photos");
+        }
+
+        final LocalDateTime dateFromParsed = dateFrom != null ? LocalDateTime.parse(dateFrom + "T00:00:00") : null;
+        final LocalDateTime dateToParsed = dateTo != null ? LocalDateTime.parse(dateTo + "T23:59:59") : null;
+
+        return ResponseEntity.ok(photoService.getMapPoints(dateFromParsed, dateToParsed, minRating));
+    }
+
+    /**
+     * Photos clustered server-side for the visible map area.
+     *
+     * @param bbox {@code west,south,east,north} in degrees
+     * @param zoom map zoom level; cells shrink as it grows until clusters are single photos
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<List<PhotoClusterResponse>> getClusters(
+            @RequestParam final String bbox,
+            @RequestParam final int zoom,
+            @RequestParam(required = false) final String dateFrom,
+            @RequestParam(required = false) final String dateTo,
+            @RequestParam(required = false) final Integer minRating,
+            final Authentication authentication) {
+
+        final User currentUser = getCurrentUser(authentication);
+
+        if (!currentUser.isCanViewPhotos()) {
+            throw new IllegalArgumentException("User does not have permission to view photos");
+        }
+
+        final LocalDateTime dateFromParsed = dateFrom != null ? LocalDateTime.parse(dateFrom + "T00:00:00") : null;
+        final LocalDateTime dateToParsed = dateTo != null ? LocalDateTime.parse(dateTo + "T23:59:59") : null;
 
-        final Page<PhotoResponse> response = photos.map(photo -> mapToPhotoResponse(photo, currentUser.getId()));
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(photoService.getClusters(BoundingBox.parse(bbox), zoom, dateFromParsed, dateToParsed, minRating));
     }
 
+    /**
+     * Photo counts per {@code day}, {@code month} or {@code year} of the capture time under the
+     * listing filters. Revalidated with the ETag, which changes whenever photos or ratings do.
+     */
+    @GetMapping("/timeline")
+    public ResponseEntity<PhotoTimelineResponse> getTimeline(
+            @RequestParam(defaultValue = "month") final String bucket,
+            @RequestParam(required = false) final String dateFrom,
+            @RequestParam(required = false) final String dateTo,
+            @RequestParam(required = false) final Integer minRating,
+            @RequestParam(required = false) final Boolean hasGps,
+            @RequestParam(required = false) final String bbox,
+            final WebRequest webRequest,
+            final Authentication authentication) {
+
+        final User currentUser = getCurrentUser(authentication);
+
+        if (!currentUser.isCanViewPhotos()) {
+            throw new IllegalArgumentException("User does not have permission to view photos");
+        }
+
+        final TimelineBucket timelineBucket = TimelineBucket.parse(bucket);
+        final String eTag = photoService.getDataETag();
+        if (webRequest.checkNotModified(eTag)) {
+            return ConditionalResponses.notModified(eTag, CacheControl.noCache().cachePrivate());
+        }
+
+        final LocalDateTime dateFromParsed = dateFrom != null ? LocalDateTime.parse(dateFrom + "T00:00:00") : null;
+        final LocalDateTime dateToParsed = dateTo != null ? LocalDateTime.parse(dateTo + "T23:59:59") : null;
+        final BoundingBox bounds = bbox != null ? BoundingBox.parse(bbox) : null;
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(photoService.getTimeline(timelineBucket, dateFromParsed, dateToParsed, minRating, hasGps, bounds));
+    }
+
+    /**
+     * Single photo; {@code fields} limits its properties as in the listing.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<PhotoResponse> getPhotoById(
+    public ResponseEntity<MappingJacksonValue> getPhotoById(
             @PathVariable final Long id,
+            @RequestParam(required = false) final String fields,
+            final WebRequest webRequest,
             final Authentication authentication) {
 
+        final PhotoFields photoFields = PhotoFields.parse(fields);
         final User currentUser = getCurrentUser(authentication);
 
         if (!currentUser.isCanViewPhotos()) {
             throw new IllegalArgumentException("User does not have permission to view photos");
         }
 
-        final Photo photo = photoService.getPhotoById(id, currentUser.getId())
+        final String eTag = photoService.getViewerETag(currentUser.getId());
+        if (webRequest.checkNotModified(eTag)) {
+            return ConditionalResponses.notModified(eTag, CacheControl.noCache().cachePrivate());
+        }
+
+        final PhotoResponse photo = photoService.getPhotoResponses(currentUser.getId(), List.of(id), photoFields).stream()
+                .findFirst()
                 .orElseThrow(() -> new IllegalArgumentException(ERROR_PHOTO_NOT_FOUND_OR_ACCESS_DENIED));
 
-        return ResponseEntity.ok(mapToPhotoResponse(photo, currentUser.getId()));
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(withFields(photo, photoFields));
     }
 
     @GetMapping("/{id}/thumbnail")
     public ResponseEntity<Resource> getThumbnail(@PathVariable final Long id, final Authentication authentication) throws IOException {
-        final Photo photo;
-        if (!securityEnabled) {
-            photo = photoRepository.findById(id)
-                    .orElseThrow(() -> new IllegalArgumentException("Photo not found"));
-        } else {
-            final User currentUser = getCurrentUser(authentication);
+        final Photo photo = getViewablePhoto(id, authentication);
 
-            if (!currentUser.isCanViewPhotos()) {
-                throw new IllegalArgumentException("User does not have permission to view photos");
-            }
-
-            photo = photoService.getPhotoById(id, currentUser.getId())
-                    .orElseThrow(() -> new IllegalArgumentException(ERROR_PHOTO_NOT_FOUND_OR_ACCESS_DENIED));
+        final Optional<Resource> thumbnail = photoProcessingService.loadThumbnail(photo);
+        if (thumbnail.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
 
-        String thumbnailFilename = photo.getThumbnailFilename();
-        if (thumbnailFilename == null) {
-            thumbnailFilename = photo.getFilename();
-        }
+        // Thumbnails keep the format of the original
+        final String contentType = photo.getMimeType() != null ? photo.getMimeType() : MediaType.IMAGE_JPEG_VALUE;
 
-        final Path filePath = Paths.get(mediumDirectory, thumbnailFilename);
-        final Resource resource = new FileSystemResource(filePath);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .body(thumbnail.get());
+    }
 
-        if (!resource.exists()) {
-            return ResponseEntity.notFound().build();
+    /**
+     * Returns thumbnails of many photos in one multipart/mixed response.
+     * Every part carries the photo id in the X-Photo-Id header; photos whose thumbnail cannot be produced are skipped.
+     */
+    @GetMapping("/thumbnails")
+    public ResponseEntity<StreamingResponseBody> getThumbnails(
+            @RequestParam final List<Long> ids,
+            final Authentication authentication) {
+
+        if (ids.isEmpty() || ids.size() > ThumbnailBatchService.MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Between 1 and " + ThumbnailBatchService.MAX_BATCH_SIZE + " photo ids are required");
         }
 
-        String contentType = Files.probeContentType(filePath);
-        if (contentType == null) {
-            contentType = MediaType.IMAGE_JPEG_VALUE;
+        final User currentUser = getCurrentUser(authentication);
+
+        if (securityEnabled && !currentUser.isCanViewPhotos()) {
+            throw new IllegalArgumentException("User does not have permission to view photos");
         }
 
+        final List<Photo> photos = photoService.getPhotosByIds(ids, currentUser.getId());
+        final String boundary = UUID.randomUUID().toString();
+
+        final StreamingResponseBody body = out -> thumbnailBatchService.writeMultipart(photos, boundary, out);
+
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .body(resource);
+                .contentType(new MediaType("multipart", "mixed", Map.of("boundary", boundary)))
+                .body(body);
     }
 
     @GetMapping("/{id}/full")
     public ResponseEntity<Resource> getFullImage(@PathVariable final Long id, final Authentication authentication) throws IOException {
-        final Photo photo;
-        if (!securityEnabled) {
-            photo = photoRepository.findById(id)
-                    .orElseThrow(() -> new IllegalArgumentException("Photo not found"));
-        } else {
-            final User currentUser = getCurrentUser(authentication);
+        final Photo photo = getViewablePhoto(id, authentication);
 
-            if (!currentUser.isCanViewPhotos()) {
-                throw new IllegalArgumentException("User does not have permission to view photos");
-            }
-
-            photo = photoService.getPhotoById(id, currentUser.getId())
-                    .orElseThrow(() -> new IllegalArgumentException(ERROR_PHOTO_NOT_FOUND_OR_ACCESS_DENIED));
+        final Optional<Resource> original = photoStorage.get(StorageArea.ORIGINAL, photo.getFilename());
+        if (original.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
 
-        final Path filePath = Paths.get(originalDirectory, photo.getFilename());
-        final Resource resource = new FileSystemResource(filePath);
+        final String contentType = photo.getMimeType() != null ? photo.getMimeType() : MediaType.IMAGE_JPEG_VALUE;
 
-        if (!resource.exists()) {
-            return ResponseEntity.notFound().build();
-        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .body(original.get());
+    }
 
-        String contentType = Files.probeContentType(filePath);
-        if (contentType == null) {
-            contentType = MediaType.IMAGE_JPEG_VALUE;
-        }
+    /**
+     * Returns a resized variant of the photo. Requested sizes are snapped to the allowed set;
+     * missing variants are rendered on first request and cached on disk.
+     */
+    @GetMapping("/{id}/image")
+    public ResponseEntity<Resource> getImage(
+            @PathVariable final Long id,
+            @RequestParam(required = false) final Integer w,
+            @RequestParam(required = false) final Integer h,
+            @RequestParam(defaultValue = "contain") final String fit,
+            final Authentication authentication) throws IOException {
+
+        final DerivedImageService.Fit fitMode = DerivedImageService.Fit.fromParameter(fit);
+        final Photo photo = getViewablePhoto(id, authentication);
+
+        final Resource resource = derivedImageService.getRendition(photo, w, h, fitMode);
+        final String contentType = photo.getMimeType() != null ? photo.getMimeType() : MediaType.IMAGE_JPEG_VALUE;
 
         return ResponseEntity.ok()
                 .contentType(MediaType.parseMediaType(contentType))
@@ -227,9 +432,28 @@ public class PhotoController {
             throw new IllegalArgumentException("User does not have permission to rate photos");
         }
 
-        final Rating rating = photoService.ratePhoto(id, currentUser.getId(), request.rating());
+        return ResponseEntity.ok(photoService.ratePhoto(id, currentUser.getId(), request.rating()));
+    }
+
+    /**
+     * Applies many of the user's ratings at once, e.g. when culling a trip's photos. Either all
+     * ratings are applied or none; a photo listed twice gets the later value.
+     */
+    @PutMapping("/ratings")
+    public ResponseEntity<List<RatingResponse>> ratePhotos(
+            @Valid @RequestBody final BatchRatingRequest request,
+            final Authentication authentication) {
+
+        final User currentUser = getCurrentUser(authentication);
+
+        if (!currentUser.isCanRate()) {
+            throw new IllegalArgumentException("User does not have permission to rate photos");
+        }
+
+        final Map<Long, Integer> ratings = new LinkedHashMap<>();
+        request.ratings().forEach(item -> ratings.put(item.photoId(), item.rating()));
 
-        return ResponseEntity.ok(mapToRatingResponse(rating));
+        return ResponseEntity.ok(photoService.ratePhotos(currentUser.getId(), ratings));
     }
 
     @DeleteMapping("/{id}/rating")
@@ -259,84 +483,41 @@ public class PhotoController {
         return ResponseEntity.noContent().build();
     }
 
-    private User getCurrentUser(final Authentication authentication) {
-        if (authentication == null) {
-            return userRepository.findFirstByRole(Role.ADMIN)
-                    .orElseThrow(() -> new IllegalArgumentException("Admin user not found"));
+    private Photo getViewablePhoto(final Long id, final Authentication authentication) {
+        if (!securityEnabled) {
+            return photoRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Photo not found"));
         }
-        final String email = authentication.getName();
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-    }
-
-    private PhotoResponse mapToPhotoResponse(final Photo photo, final Long currentUserId) {
-        final String thumbnailUrl = photo.getThumbnailFilename() != null
-                ? "/api/photos/" + photo.getId() + "/thumbnail"
-                : null;
 
-        final Integer userRating = currentUserId != null ? getUserRating(photo, currentUserId) : null;
-        final Double displayRating = calculateDisplayRating(photo);
-        final Integer totalRatings = photo.getRatings() != null ? photo.getRatings().size() : 0;
-
-        return new PhotoResponse(
-                photo.getId(),
-                photo.getFilename(),
-                photo.getOriginalFilename(),
-                thumbnailUrl,
-                photo.getFileSize(),
-                photo.getMimeType(),
-                photo.getGpsLatitude(),
-                photo.getGpsLongitude(),
-                photo.getTakenAt(),
-                photo.getUploadedAt(),
-                displayRating,
-                totalRatings,
-                userRating
-        );
-    }
-
-    private RatingResponse mapToRatingResponse(final Rating rating) {
-        return new RatingResponse(
-                rating.getId(),
-                rating.getPhoto().getId(),
-                rating.getUser().getId(),
-                rating.getRatingValue(),
-                rating.getCreatedAt()
-        );
-    }
+        final User currentUser = getCurrentUser(authentication);
 
-    private Double calculateAverageRating(final Photo photo) {
-        if (photo.getRatings() == null || photo.getRatings().isEmpty()) {
-            return null;
+        if (!currentUser.isCanViewPhotos()) {
+            throw new IllegalArgumentException("User does not have permission to view photos");
         }
 
-        return photo.getRatings().stream()
-                .mapToInt(Rating::getRatingValue)
-                .average()
-                .orElse(0.0);
+        return photoService.getPhotoById(id, currentUser.getId())
+                .orElseThrow(() -> new IllegalArgumentException(ERROR_PHOTO_NOT_FOUND_OR_ACCESS_DENIED));
     }
 
     /**
-     * Calculates overall average rating from all users.
-     * This matches the database filter logic (hasMinimumRating) to ensure consistency
-     * between displayed rating and rating filter behavior.
-     *
-     * @param photo The photo to calculate rating for
-     * @return Average rating from all users, or null if no ratings exist
+     * Serializes only the requested {@link PhotoResponse} properties.
      */
-    private Double calculateDisplayRating(final Photo photo) {
-        return calculateAverageRating(photo);
+    private static MappingJacksonValue withFields(final Object body, final PhotoFields fields) {
+        final MappingJacksonValue value = new MappingJacksonValue(body);
+        if (!fields.isAll()) {
+            value.setFilters(new SimpleFilterProvider().addFilter(PhotoResponse.FIELD_FILTER,
+                    SimpleBeanPropertyFilter.filterOutAllExcept(fields.names())));
+        }
+        return value;
     }
 
-    private Integer getUserRating(final Photo photo, final Long userId) {
-        if (photo.getRatings() == null) {
-            return null;
+    private User getCurrentUser(final Authentication authentication) {
+        if (authentication == null) {
+            return userRepository.findFirstByRole(Role.ADMIN)
+                    .orElseThrow(() -> new IllegalArgumentException("Admin user not found"));
         }
-
-        return photo.getRatings().stream()
-                .filter(r -> r.getUser().getId().equals(userId))
-                .map(Rating::getRatingValue)
-                .findFirst()
-                .orElse(null);
+        final String email = authentication.getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
     }
 }
@@ -1,11 +1,17 @@
 package com.photomap.controller;
 
 import com.photomap.dto.AppSettingsResponse;
+import com.photomap.model.AppSettings;
 import com.photomap.service.SettingsService;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/public")
@@ -17,9 +23,21 @@ public class PublicController {
         this.settingsService = settingsService;
     }
 
+    /**
+     * Public settings, revalidated with a weak ETag from the setting's last update; settings are
+     * the same for every user, so shared caches may keep them too.
+     */
     @GetMapping("/settings")
-    public ResponseEntity<AppSettingsResponse> getPublicSettings() {
-        final String adminContactEmail = settingsService.getSetting("admin_contact_email");
-        return ResponseEntity.ok(new AppSettingsResponse(adminContactEmail));
+    public ResponseEntity<AppSettingsResponse> getPublicSettings(final WebRequest webRequest) {
+        final Optional<AppSettings> setting = settingsService.findSetting("admin_contact_email");
+        final String eTag = "W/\"" + setting.map(AppSettings::getUpdatedAt).map(Instant::toEpochMilli).orElse(0L) + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return ConditionalResponses.notModified(eTag, CacheControl.noCache());
+        }
+        final String adminContactEmail = setting.map(AppSettings::getSettingValue).orElse(null);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(new AppSettingsResponse(adminContactEmail));
     }
 }
@@ -0,0 +1,82 @@
+package com.photomap.controller;
+
+import com.photomap.model.Role;
+import com.photomap.model.User;
+import com.photomap.repository.MapTile;
+import com.photomap.repository.UserRepository;
+import com.photomap.service.PhotoService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/tiles")
+@RequiredArgsConstructor
+public class TileController {
+
+    public static final MediaType VECTOR_TILE = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    private final PhotoService photoService;
+    private final UserRepository userRepository;
+
+    /**
+     * Photo points on one map tile as a Mapbox Vector Tile (layer {@code photos}, attributes
+     * {@code id}, {@code rating}, {@code takenAt} in epoch millis). Browsers keep tiles and
+     * revalidate them with the ETag, which only changes when photos around the tile change.
+     */
+    @GetMapping(value = "/{z}/{x}/{y}.mvt")
+    public ResponseEntity<byte[]> getTile(
+            @PathVariable final int z,
+            @PathVariable final int x,
+            @PathVariable final int y,
+            @RequestParam(required = false) final String dateFrom,
+            @RequestParam(required = false) final String dateTo,
+            @RequestParam(required = false) final Integer minRating,
+            final WebRequest webRequest,
+            final Authentication authentication) {
+
+        final User currentUser = getCurrentUser(authentication);
+
+        if (!currentUser.isCanViewPhotos()) {
+            throw new IllegalArgumentException("User does not have permission to view photos");
+        }
+
+        final MapTile tile = new MapTile(z, x, y);
+        final String eTag = photoService.getTileETag(tile);
+        // Tiles depend on the user's permission, so shared caches must not keep them
+        final CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+
+        final LocalDateTime dateFromParsed = dateFrom != null ? LocalDateTime.parse(dateFrom + "T00:00:00") : null;
+        final LocalDateTime dateToParsed = dateTo != null ? LocalDateTime.parse(dateTo + "T23:59:59") : null;
+
+        return ResponseEntity.ok()
+                .contentType(VECTOR_TILE)
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .body(photoService.getTile(tile, dateFromParsed, dateToParsed, minRating));
+    }
+
+    private User getCurrentUser(final Authentication authentication) {
+        if (authentication == null) {
+            return userRepository.findFirstByRole(Role.ADMIN)
+                    .orElseThrow(() -> new IllegalArgumentException("Admin user not found"));
+        }
+        final String email = authentication.getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+    }
+}
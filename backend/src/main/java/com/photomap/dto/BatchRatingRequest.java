@@ -0,0 +1,27 @@
+package com.photomap.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record BatchRatingRequest(
+    @NotNull(message = "{validation.ratings.size}")
+    @Size(min = 1, max = 500, message = "{validation.ratings.size}")
+    List<@Valid @NotNull Item> ratings
+) {
+
+    public record Item(
+        @NotNull(message = "{validation.rating.photo.required}")
+        Long photoId,
+
+        @NotNull(message = "{validation.rating.required}")
+        @Min(value = 1, message = "{validation.rating.min}")
+        @Max(value = 5, message = "{validation.rating.max}")
+        Integer rating
+    ) {
+    }
+}
@@ -0,0 +1,124 @@
+package com.photomap.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Map markers in columnar form: one primitive array per attribute, index {@code i} of every
+ * array describing the same photo. Serialized as parallel JSON arrays, so field names are
+ * written once per response instead of once per photo.
+ */
+@JsonSerialize(using = MapPoints.Serializer.class)
+public final class MapPoints {
+
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private int count;
+    private long[] ids;
+    private double[] latitudes;
+    private double[] longitudes;
+    private long[] takenAt;
+    private double[] ratingAvg;
+
+    public MapPoints(final int expectedSize) {
+        final int capacity = Math.max(expectedSize, 16);
+        ids = new long[capacity];
+        latitudes = new double[capacity];
+        longitudes = new double[capacity];
+        takenAt = new long[capacity];
+        ratingAvg = new double[capacity];
+    }
+
+    public void add(final long id, final double latitude, final double longitude, final Instant taken, final Double rating) {
+        if (count == ids.length) {
+            final int capacity = count * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            takenAt = Arrays.copyOf(takenAt, capacity);
+            ratingAvg = Arrays.copyOf(ratingAvg, capacity);
+        }
+        ids[count] = id;
+        latitudes[count] = latitude;
+        longitudes[count] = longitude;
+        takenAt[count] = taken != null ? taken.toEpochMilli() : NO_TIMESTAMP;
+        ratingAvg[count] = rating != null ? rating : Double.NaN;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long id(final int index) {
+        return ids[index];
+    }
+
+    public double latitude(final int index) {
+        return latitudes[index];
+    }
+
+    public double longitude(final int index) {
+        return longitudes[index];
+    }
+
+    /**
+     * @return epoch milliseconds, or null when the photo has no capture time
+     */
+    public Long takenAt(final int index) {
+        return takenAt[index] != NO_TIMESTAMP ? takenAt[index] : null;
+    }
+
+    public Double ratingAvg(final int index) {
+        return Double.isNaN(ratingAvg[index]) ? null : ratingAvg[index];
+    }
+
+    static final class Serializer extends StdSerializer<MapPoints> {
+
+        Serializer() {
+            super(MapPoints.class);
+        }
+
+        @Override
+        public void serialize(final MapPoints points, final JsonGenerator generator, final SerializerProvider provider) throws IOException {
+            final int size = points.count;
+            generator.writeStartObject();
+            generator.writeNumberField("count", size);
+
+            generator.writeFieldName("id");
+            generator.writeArray(points.ids, 0, size);
+            generator.writeFieldName("lat");
+            generator.writeArray(points.latitudes, 0, size);
+            generator.writeFieldName("lng");
+            generator.writeArray(points.longitudes, 0, size);
+
+            generator.writeArrayFieldStart("takenAt");
+            for (int i = 0; i < size; i++) {
+                if (points.takenAt[i] == NO_TIMESTAMP) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(points.takenAt[i]);
+                }
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("ratingAvg");
+            for (int i = 0; i < size; i++) {
+                if (Double.isNaN(points.ratingAvg[i])) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(points.ratingAvg[i]);
+                }
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+}
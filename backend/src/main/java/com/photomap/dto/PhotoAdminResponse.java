@@ -2,6 +2,7 @@ package com.photomap.dto;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.List;
 
 public record PhotoAdminResponse(
     Long id,
@@ -16,6 +17,7 @@ public record PhotoAdminResponse(
     Instant uploadedAt,
     Double averageRating,
     Integer totalRatings,
+    List<Integer> ratingHistogram,
     Long userId,
     String userEmail
 ) {
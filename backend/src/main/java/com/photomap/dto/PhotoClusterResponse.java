@@ -0,0 +1,14 @@
+package com.photomap.dto;
+
+/**
+ * Photos sharing one grid cell of the map: centroid, size and the most recently uploaded
+ * photo as representative. A cluster with {@code count == 1} is an individual photo at its
+ * exact position.
+ */
+public record PhotoClusterResponse(
+        Double latitude,
+        Double longitude,
+        Long count,
+        Long photoId
+) {
+}
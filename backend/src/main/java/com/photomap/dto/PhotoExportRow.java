@@ -0,0 +1,26 @@
+package com.photomap.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record PhotoExportRow(
+        Long id,
+        String filename,
+        String originalFilename,
+        Long fileSize,
+        String mimeType,
+        BigDecimal gpsLatitude,
+        BigDecimal gpsLongitude,
+        Instant takenAt,
+        Instant uploadedAt,
+        Double ratingAvg,
+        Integer ratingCount,
+        Integer rating1Count,
+        Integer rating2Count,
+        Integer rating3Count,
+        Integer rating4Count,
+        Integer rating5Count,
+        Long userId,
+        String userEmail
+) {
+}
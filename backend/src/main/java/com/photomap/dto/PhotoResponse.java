@@ -1,8 +1,11 @@
 package com.photomap.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 import java.math.BigDecimal;
 import java.time.Instant;
 
+@JsonFilter(PhotoResponse.FIELD_FILTER)
 public record PhotoResponse(
     Long id,
     String filename,
@@ -18,4 +21,25 @@ public record PhotoResponse(
     Integer totalRatings,
     Integer userRating
 ) {
+
+    /**
+     * Jackson filter that narrows responses to a sparse fieldset; without one every property is written.
+     */
+    public static final String FIELD_FILTER = "photoFields";
+
+    /**
+     * Constructor used by query projections; the thumbnail URL is derived from the id.
+     */
+    public PhotoResponse(final Long id, final String filename, final String originalFilename, final Long fileSize,
+                         final String mimeType, final BigDecimal gpsLatitude, final BigDecimal gpsLongitude,
+                         final Instant takenAt, final Instant uploadedAt, final Double averageRating,
+                         final Integer totalRatings, final Integer userRating) {
+        this(id, filename, originalFilename, "/api/photos/" + id + "/thumbnail", fileSize, mimeType,
+                gpsLatitude, gpsLongitude, takenAt, uploadedAt, averageRating, totalRatings, userRating);
+    }
+
+    public PhotoResponse withUserRating(final Integer rating) {
+        return new PhotoResponse(id, filename, originalFilename, thumbnailUrl, fileSize, mimeType, gpsLatitude, gpsLongitude,
+                takenAt, uploadedAt, averageRating, totalRatings, rating);
+    }
 }
@@ -0,0 +1,11 @@
+package com.photomap.dto;
+
+import java.util.List;
+
+public record PhotoSliceResponse(
+    List<PhotoResponse> content,
+    int size,
+    boolean hasNext,
+    String nextCursor
+) {
+}
@@ -0,0 +1,21 @@
+package com.photomap.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Photo counts per calendar period of the capture time, oldest first. Periods without photos
+ * are left out; photos without a capture time are only counted in {@code undatedCount}.
+ */
+public record PhotoTimelineResponse(
+        String bucket,
+        List<Bucket> buckets,
+        long undatedCount
+) {
+
+    /**
+     * @param start first day of the period
+     */
+    public record Bucket(LocalDate start, long count) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.photomap.dto;
+
+import java.time.Instant;
+
+public record RatingReconciliationStatus(
+        boolean running,
+        long lastScannedId,
+        long correctedPhotos,
+        Instant startedAt,
+        Instant finishedAt
+) {
+}
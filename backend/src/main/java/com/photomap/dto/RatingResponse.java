@@ -2,11 +2,16 @@ package com.photomap.dto;
 
 import java.time.Instant;
 
+/**
+ * A user's rating of a photo together with the photo's rating aggregates after the change.
+ */
 public record RatingResponse(
     Long id,
     Long photoId,
     Long userId,
     Integer rating,
-    Instant createdAt
+    Instant createdAt,
+    Double averageRating,
+    Integer totalRatings
 ) {
 }
@@ -0,0 +1,13 @@
+package com.photomap.dto;
+
+import java.time.Instant;
+
+public record StorageMigrationStatus(
+        boolean running,
+        long scannedPhotos,
+        long movedFiles,
+        long failedFiles,
+        Instant startedAt,
+        Instant finishedAt
+) {
+}
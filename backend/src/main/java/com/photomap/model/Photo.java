@@ -5,7 +5,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
+import org.locationtech.jts.geom.Point;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -15,8 +18,9 @@ import java.util.List;
 @Entity
 @Table(name = "photos", indexes = {
     @Index(name = "photos_gps_idx", columnList = "gps_latitude, gps_longitude"),
-    @Index(name = "photos_taken_at_idx", columnList = "taken_at"),
-    @Index(name = "photos_uploaded_at_idx", columnList = "uploaded_at")
+    @Index(name = "photos_taken_at_id_idx", columnList = "taken_at DESC, id DESC"),
+    @Index(name = "photos_uploaded_at_id_idx", columnList = "uploaded_at DESC, id DESC"),
+    @Index(name = "photos_rating_avg_idx", columnList = "rating_avg")
 })
 @Data
 @NoArgsConstructor
@@ -55,6 +59,11 @@ public class Photo {
     @Column(name = "taken_at")
     private Instant takenAt;
 
+    // geography(Point, 4326) generated by PostgreSQL from the GPS columns; only used in spatial predicates
+    @JdbcTypeCode(SqlTypes.GEOGRAPHY)
+    @Column(name = "location", insertable = false, updatable = false)
+    private Point location;
+
     @CreationTimestamp
     @Column(name = "uploaded_at", nullable = false, updatable = false)
     private Instant uploadedAt;
@@ -63,6 +72,32 @@ public class Photo {
     @Column(name = "updated_at", nullable = false)
     private Instant updatedAt;
 
+    // Rating aggregates are maintained by atomic UPDATE statements in PhotoRepository,
+    // never written from the entity, so a stale loaded Photo cannot overwrite them
+    @Column(name = "rating_sum", nullable = false, updatable = false)
+    private Long ratingSum = 0L;
+
+    @Column(name = "rating_count", nullable = false, updatable = false)
+    private Integer ratingCount = 0;
+
+    @Column(name = "rating_avg", updatable = false)
+    private Double ratingAvg;
+
+    @Column(name = "rating_1_count", nullable = false, updatable = false)
+    private Integer rating1Count = 0;
+
+    @Column(name = "rating_2_count", nullable = false, updatable = false)
+    private Integer rating2Count = 0;
+
+    @Column(name = "rating_3_count", nullable = false, updatable = false)
+    private Integer rating3Count = 0;
+
+    @Column(name = "rating_4_count", nullable = false, updatable = false)
+    private Integer rating4Count = 0;
+
+    @Column(name = "rating_5_count", nullable = false, updatable = false)
+    private Integer rating5Count = 0;
+
     @OneToMany(mappedBy = "photo", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Rating> ratings = new ArrayList<>();
 }
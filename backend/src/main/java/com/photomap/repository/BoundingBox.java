@@ -0,0 +1,87 @@
+package com.photomap.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geographic rectangle in degrees. {@code west > east} denotes a box crossing the antimeridian.
+ */
+public record BoundingBox(double west, double south, double east, double north) {
+
+    public BoundingBox {
+        if (!isFinite(west, south, east, north)) {
+            throw new IllegalArgumentException("Bounding box coordinates must be numbers");
+        }
+        if (south < -90 || north > 90 || south > north) {
+            throw new IllegalArgumentException("Bounding box latitudes must satisfy -90 <= south <= north <= 90");
+        }
+        if (west < -180 || west > 180 || east < -180 || east > 180) {
+            throw new IllegalArgumentException("Bounding box longitudes must be between -180 and 180");
+        }
+    }
+
+    /**
+     * Parses the {@code west,south,east,north} form used by map clients.
+     */
+    public static BoundingBox parse(final String bbox) {
+        if (bbox == null || bbox.isBlank()) {
+            throw new IllegalArgumentException("Bounding box is required");
+        }
+        final String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Bounding box must be west,south,east,north");
+        }
+        try {
+            return new BoundingBox(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()),
+                    Double.parseDouble(parts[2].trim()), Double.parseDouble(parts[3].trim()));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Bounding box coordinates must be numbers", e);
+        }
+    }
+
+    public boolean crossesAntimeridian() {
+        return west > east;
+    }
+
+    public double width() {
+        return crossesAntimeridian() ? 360 - west + east : east - west;
+    }
+
+    public double height() {
+        return north - south;
+    }
+
+    /**
+     * Longitude ranges covering the box, split at the antimeridian and into pieces no wider
+     * than {@code maxWidth} degrees.
+     *
+     * @return {@code [west, east]} pairs
+     */
+    public List<double[]> longitudeRanges(final double maxWidth) {
+        final List<double[]> ranges = new ArrayList<>();
+        if (crossesAntimeridian()) {
+            split(west, 180, maxWidth, ranges);
+            split(-180, east, maxWidth, ranges);
+        } else {
+            split(west, east, maxWidth, ranges);
+        }
+        return ranges;
+    }
+
+    private static void split(final double from, final double to, final double maxWidth, final List<double[]> ranges) {
+        final int pieces = Math.max(1, (int) Math.ceil((to - from) / maxWidth));
+        final double step = (to - from) / pieces;
+        for (int i = 0; i < pieces; i++) {
+            ranges.add(new double[]{from + i * step, i == pieces - 1 ? to : from + (i + 1) * step});
+        }
+    }
+
+    private static boolean isFinite(final double... values) {
+        for (final double value : values) {
+            if (!Double.isFinite(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
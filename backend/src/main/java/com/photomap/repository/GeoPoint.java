@@ -0,0 +1,34 @@
+package com.photomap.repository;
+
+/**
+ * WGS 84 position in degrees.
+ */
+public record GeoPoint(double latitude, double longitude) {
+
+    public GeoPoint {
+        if (!Double.isFinite(latitude) || latitude < -90 || latitude > 90) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90");
+        }
+        if (!Double.isFinite(longitude) || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180");
+        }
+    }
+
+    /**
+     * Parses the {@code lat,lng} form.
+     */
+    public static GeoPoint parse(final String point) {
+        if (point == null || point.isBlank()) {
+            throw new IllegalArgumentException("Point is required");
+        }
+        final String[] parts = point.split(",");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Point must be lat,lng");
+        }
+        try {
+            return new GeoPoint(Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim()));
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Point coordinates must be numbers", e);
+        }
+    }
+}
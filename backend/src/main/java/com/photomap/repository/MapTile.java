@@ -0,0 +1,78 @@
+package com.photomap.repository;
+
+/**
+ * Web Mercator map tile in the {@code z/x/y} scheme used by slippy maps: {@code x} grows
+ * eastwards from the antimeridian, {@code y} southwards from the northern edge of the map.
+ */
+public record MapTile(int z, int x, int y) {
+
+    public static final int MAX_ZOOM = 22;
+    // Latitude at which the square Mercator map ends
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    public MapTile {
+        if (z < 0 || z > MAX_ZOOM) {
+            throw new IllegalArgumentException("Tile zoom must be between 0 and " + MAX_ZOOM);
+        }
+        if (x < 0 || y < 0 || x >= 1 << z || y >= 1 << z) {
+            throw new IllegalArgumentException("Tile coordinates must be between 0 and " + ((1 << z) - 1));
+        }
+    }
+
+    /**
+     * Tile at zoom {@code z} containing the given point. Latitudes beyond the Mercator limit
+     * fall into the top or bottom row.
+     */
+    public static MapTile containing(final double latitude, final double longitude, final int z) {
+        final int tiles = 1 << z;
+        final int x = (int) Math.floor(tileX(longitude, z));
+        final int y = (int) Math.floor(tileY(Math.max(-MAX_LATITUDE, Math.min(latitude, MAX_LATITUDE)), z));
+        return new MapTile(z, Math.min(Math.max(x, 0), tiles - 1), Math.min(Math.max(y, 0), tiles - 1));
+    }
+
+    /**
+     * Fractional tile column of a longitude at zoom {@code z}.
+     */
+    public static double tileX(final double longitude, final int z) {
+        return (longitude + 180) / 360 * (1 << z);
+    }
+
+    /**
+     * Fractional tile row of a latitude at zoom {@code z}.
+     */
+    public static double tileY(final double latitude, final int z) {
+        final double radians = Math.toRadians(latitude);
+        return (1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2 * (1 << z);
+    }
+
+    /**
+     * Geographic extent of the tile grown by {@code buffer} tile widths on every side. A buffer
+     * reaching past the antimeridian wraps around; at zoom levels where the buffered tile spans
+     * the whole world the longitudes are clamped to it.
+     */
+    public BoundingBox bounds(final double buffer) {
+        final int tiles = 1 << z;
+        final double north = Math.min(latitude(y - buffer, tiles), 90);
+        final double south = Math.max(latitude(y + 1 + buffer, tiles), -90);
+        final double width = (1 + 2 * buffer) * 360.0 / tiles;
+        if (width >= 360) {
+            return new BoundingBox(-180, south, 180, north);
+        }
+        return new BoundingBox(wrap(longitude(x - buffer, tiles)), south, wrap(longitude(x + 1 + buffer, tiles)), north);
+    }
+
+    private static double longitude(final double tileX, final int tiles) {
+        return tileX / tiles * 360 - 180;
+    }
+
+    private static double latitude(final double tileY, final int tiles) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * tileY / tiles))));
+    }
+
+    private static double wrap(final double longitude) {
+        if (longitude < -180) {
+            return longitude + 360;
+        }
+        return longitude > 180 ? longitude - 360 : longitude;
+    }
+}
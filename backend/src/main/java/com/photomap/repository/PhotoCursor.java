@@ -0,0 +1,67 @@
+package com.photomap.repository;
+
+import com.photomap.dto.PhotoResponse;
+import com.photomap.model.Photo;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated photo listing: the sort value and id of the last
+ * photo returned. Listings are ordered by the sort column descending (nulls last),
+ * then by id descending. Clients receive it as an opaque token.
+ */
+public record PhotoCursor(String sortKey, Instant value, Long id) {
+
+    public static final String SORT_UPLOADED_AT = "uploadedAt";
+    public static final String SORT_TAKEN_AT = "takenAt";
+
+    private static final String SEPARATOR = "|";
+
+    public PhotoCursor {
+        requireSortKey(sortKey);
+        // Timestamp columns keep microseconds; an unflushed entity may still hold nanoseconds
+        value = value != null ? value.truncatedTo(ChronoUnit.MICROS) : null;
+        if (id == null) {
+            throw new IllegalArgumentException("Cursor id is required");
+        }
+    }
+
+    public static PhotoCursor of(final String sortKey, final Photo photo) {
+        final Instant value = SORT_TAKEN_AT.equals(sortKey) ? photo.getTakenAt() : photo.getUploadedAt();
+        return new PhotoCursor(sortKey, value, photo.getId());
+    }
+
+    public static PhotoCursor of(final String sortKey, final PhotoResponse photo) {
+        final Instant value = SORT_TAKEN_AT.equals(sortKey) ? photo.takenAt() : photo.uploadedAt();
+        return new PhotoCursor(sortKey, value, photo.id());
+    }
+
+    public static void requireSortKey(final String sortKey) {
+        if (!SORT_UPLOADED_AT.equals(sortKey) && !SORT_TAKEN_AT.equals(sortKey)) {
+            throw new IllegalArgumentException("Unsupported cursor sort: " + sortKey);
+        }
+    }
+
+    public String encode() {
+        final String raw = sortKey + SEPARATOR + (value != null ? value.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PhotoCursor decode(final String token) {
+        try {
+            final String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            final String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            final Instant value = parts[1].isEmpty() ? null : Instant.parse(parts[1]);
+            return new PhotoCursor(parts[0], value, Long.parseLong(parts[2]));
+        } catch (final DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
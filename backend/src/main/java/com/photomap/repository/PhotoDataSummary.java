@@ -0,0 +1,11 @@
+package com.photomap.repository;
+
+import java.time.Instant;
+
+/**
+ * Summary of the photos table that moves with practically every write: uploads and deletes
+ * change the count and id sum, entity updates the latest update time and rating changes the
+ * rating totals. Nodes compare it between polls to notice writes made through other nodes.
+ */
+public record PhotoDataSummary(long count, long idSum, Instant lastUpdate, long ratingCount, long ratingSum) {
+}
@@ -0,0 +1,51 @@
+package com.photomap.repository;
+
+import com.photomap.dto.PhotoResponse;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sparse fieldset of {@link PhotoResponse}: the properties a client asked for with
+ * {@code fields=}. Columns outside the set are neither selected nor serialized; {@code id} is
+ * always included.
+ */
+public record PhotoFields(Set<String> names) {
+
+    static final List<String> ALL_NAMES = List.of("id", "filename", "originalFilename", "thumbnailUrl", "fileSize",
+            "mimeType", "gpsLatitude", "gpsLongitude", "takenAt", "uploadedAt", "averageRating", "totalRatings", "userRating");
+
+    public static final PhotoFields ALL = new PhotoFields(Set.copyOf(ALL_NAMES));
+
+    public PhotoFields {
+        names = Set.copyOf(names);
+    }
+
+    /**
+     * Parses a comma-separated list of property names; null or blank selects every property.
+     */
+    public static PhotoFields parse(final String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        final Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        for (final String part : fields.split(",")) {
+            final String name = part.trim();
+            if (!ALL_NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name + "; allowed fields are " + String.join(",", ALL_NAMES));
+            }
+            names.add(name);
+        }
+        return new PhotoFields(names);
+    }
+
+    public boolean contains(final String name) {
+        return names.contains(name);
+    }
+
+    public boolean isAll() {
+        return names.size() == ALL_NAMES.size();
+    }
+}
@@ -0,0 +1,72 @@
+package com.photomap.repository;
+
+import com.photomap.dto.MapPoints;
+import com.photomap.dto.PhotoClusterResponse;
+import com.photomap.dto.PhotoExportRow;
+import com.photomap.dto.PhotoResponse;
+import com.photomap.dto.PhotoTimelineResponse;
+import com.photomap.model.Photo;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read model for photo listings: selects only the response columns, with the stored rating
+ * aggregates and the viewer's own rating joined in the same statement. Rows are plain
+ * DTOs, never managed entities.
+ */
+public interface PhotoReadRepository {
+
+    /**
+     * Receives the rows of {@link #scanCatalog}.
+     */
+    @FunctionalInterface
+    interface CatalogRowConsumer {
+        void accept(long id, Instant takenAt, Double ratingAvg, boolean hasGps);
+    }
+
+    /**
+     * Fetches one slice of listing rows; reads one row beyond the page size to detect a next slice.
+     *
+     * @param spec     filters and, for an unsorted pageable, ordering
+     * @param viewerId user whose rating is returned as {@code userRating}
+     * @param fields   columns to select; the others are returned as null, and the viewer's
+     *                 rating is only joined when {@code userRating} is requested
+     */
+    Slice<PhotoResponse> findPhotoResponses(Specification<Photo> spec, Long viewerId, Pageable pageable, PhotoFields fields);
+
+    /**
+     * Streams the marker columns of all matching photos (which must have coordinates)
+     * straight into primitive arrays, ordered by id.
+     */
+    MapPoints findMapPoints(Specification<Photo> spec);
+
+    /**
+     * Groups matching photos (which must have coordinates) into square grid cells with a
+     * single {@code GROUP BY}.
+     *
+     * @param cellSize cell edge in degrees
+     */
+    List<PhotoClusterResponse> findClusters(Specification<Photo> spec, double cellSize);
+
+    /**
+     * Counts matching photos per calendar period of their capture time with a single
+     * {@code GROUP BY}.
+     */
+    PhotoTimelineResponse findTimeline(Specification<Photo> spec, TimelineBucket bucket);
+
+    /**
+     * Streams the filterable columns of every photo, ordered by upload time, then id.
+     */
+    void scanCatalog(CatalogRowConsumer consumer);
+
+    /**
+     * Streams every photo with its owner's email and the stored rating aggregates, ordered by
+     * id, through a server-side cursor; must run inside a transaction.
+     */
+    void scanExport(Consumer<PhotoExportRow> consumer);
+}
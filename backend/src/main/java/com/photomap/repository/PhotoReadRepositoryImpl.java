@@ -0,0 +1,240 @@
+package com.photomap.repository;
+
+import com.photomap.dto.MapPoints;
+import com.photomap.dto.PhotoClusterResponse;
+import com.photomap.dto.PhotoExportRow;
+import com.photomap.dto.PhotoResponse;
+import com.photomap.dto.PhotoTimelineResponse;
+import com.photomap.model.Photo;
+import com.photomap.model.Rating;
+import com.photomap.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class PhotoReadRepositoryImpl implements PhotoReadRepository {
+
+    private static final int MAP_POINTS_FETCH_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<PhotoResponse> findPhotoResponses(final Specification<Photo> spec, final Long viewerId, final Pageable pageable,
+                                                   final PhotoFields fields) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<PhotoResponse> query = criteriaBuilder.createQuery(PhotoResponse.class);
+        final Root<Photo> photo = query.from(Photo.class);
+
+        final Expression<Integer> userRating;
+        if (fields.contains("userRating")) {
+            final Join<Photo, Rating> viewerRating = photo.join("ratings", JoinType.LEFT);
+            viewerRating.on(criteriaBuilder.equal(viewerRating.get("user").get("id"), viewerId));
+            userRating = viewerRating.get("ratingValue");
+        } else {
+            userRating = criteriaBuilder.nullLiteral(Integer.class);
+        }
+
+        query.select(criteriaBuilder.construct(PhotoResponse.class,
+                photo.get("id"),
+                column(photo, fields, "filename", "filename", String.class),
+                column(photo, fields, "originalFilename", "originalFilename", String.class),
+                column(photo, fields, "fileSize", "fileSize", Long.class),
+                column(photo, fields, "mimeType", "mimeType", String.class),
+                column(photo, fields, "gpsLatitude", "gpsLatitude", BigDecimal.class),
+                column(photo, fields, "gpsLongitude", "gpsLongitude", BigDecimal.class),
+                column(photo, fields, "takenAt", "takenAt", Instant.class),
+                column(photo, fields, "uploadedAt", "uploadedAt", Instant.class),
+                column(photo, fields, "averageRating", "ratingAvg", Double.class),
+                column(photo, fields, "totalRatings", "ratingCount", Integer.class),
+                userRating));
+
+        query.where(spec.toPredicate(photo, query, criteriaBuilder));
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), photo, criteriaBuilder));
+        }
+
+        final List<PhotoResponse> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        final boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public MapPoints findMapPoints(final Specification<Photo> spec) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        final Root<Photo> photo = query.from(Photo.class);
+
+        query.multiselect(
+                photo.get("id"),
+                criteriaBuilder.toDouble(photo.get("gpsLatitude")),
+                criteriaBuilder.toDouble(photo.get("gpsLongitude")),
+                photo.get("takenAt"),
+                photo.get("ratingAvg"));
+        query.where(spec.toPredicate(photo, query, criteriaBuilder));
+        query.orderBy(criteriaBuilder.asc(photo.get("id")));
+
+        final MapPoints points = new MapPoints(MAP_POINTS_FETCH_SIZE);
+        try (Stream<Object[]> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, MAP_POINTS_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            rows.forEach(row -> points.add((Long) row[0], (Double) row[1], (Double) row[2], (Instant) row[3], (Double) row[4]));
+        }
+        return points;
+    }
+
+    @Override
+    public List<PhotoClusterResponse> findClusters(final Specification<Photo> spec, final double cellSize) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<PhotoClusterResponse> query = criteriaBuilder.createQuery(PhotoClusterResponse.class);
+        final Root<Photo> photo = query.from(Photo.class);
+
+        final Expression<Double> latitude = criteriaBuilder.toDouble(photo.get("gpsLatitude"));
+        final Expression<Double> longitude = criteriaBuilder.toDouble(photo.get("gpsLongitude"));
+
+        query.select(criteriaBuilder.construct(PhotoClusterResponse.class,
+                criteriaBuilder.avg(latitude),
+                criteriaBuilder.avg(longitude),
+                criteriaBuilder.count(photo),
+                criteriaBuilder.max(photo.get("id"))));
+        query.where(spec.toPredicate(photo, query, criteriaBuilder));
+        // Cell indexes are only grouped on, never selected, so PostgreSQL accepts them with bound parameters
+        query.groupBy(
+                criteriaBuilder.floor(criteriaBuilder.quot(latitude, cellSize)),
+                criteriaBuilder.floor(criteriaBuilder.quot(longitude, cellSize)));
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public PhotoTimelineResponse findTimeline(final Specification<Photo> spec, final TimelineBucket bucket) {
+        // Its year/month/day render as EXTRACT, which every dialect supports
+        final HibernateCriteriaBuilder criteriaBuilder = (HibernateCriteriaBuilder) entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        final Root<Photo> photo = query.from(Photo.class);
+        final Expression<Instant> takenAt = photo.get("takenAt");
+
+        // year, then month and day as the bucket requires; undated photos form one null group
+        final List<Expression<?>> period = new ArrayList<>();
+        period.add(criteriaBuilder.year(takenAt));
+        if (bucket != TimelineBucket.YEAR) {
+            period.add(criteriaBuilder.month(takenAt));
+        }
+        if (bucket == TimelineBucket.DAY) {
+            period.add(criteriaBuilder.day(takenAt));
+        }
+        final List<Selection<?>> selections = new ArrayList<>(period);
+        selections.add(criteriaBuilder.count(photo));
+        query.multiselect(selections);
+        query.where(spec.toPredicate(photo, query, criteriaBuilder));
+        query.groupBy(period);
+
+        final List<PhotoTimelineResponse.Bucket> buckets = new ArrayList<>();
+        long undated = 0;
+        for (final Object[] row : entityManager.createQuery(query).getResultList()) {
+            final long count = (Long) row[row.length - 1];
+            if (row[0] == null) {
+                undated = count;
+            } else {
+                final int month = period.size() > 1 ? ((Number) row[1]).intValue() : 1;
+                final int day = period.size() > 2 ? ((Number) row[2]).intValue() : 1;
+                buckets.add(new PhotoTimelineResponse.Bucket(LocalDate.of(((Number) row[0]).intValue(), month, day), count));
+            }
+        }
+        buckets.sort(Comparator.comparing(PhotoTimelineResponse.Bucket::start));
+        return new PhotoTimelineResponse(bucket.toString(), buckets, undated);
+    }
+
+    @Override
+    public void scanCatalog(final CatalogRowConsumer consumer) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        final Root<Photo> photo = query.from(Photo.class);
+
+        query.multiselect(
+                photo.get("id"),
+                photo.get("takenAt"),
+                photo.get("ratingAvg"),
+                criteriaBuilder.<Boolean>selectCase()
+                        .when(criteriaBuilder.and(
+                                criteriaBuilder.isNotNull(photo.get("gpsLatitude")),
+                                criteriaBuilder.isNotNull(photo.get("gpsLongitude"))), true)
+                        .otherwise(false));
+        query.orderBy(criteriaBuilder.asc(photo.get("uploadedAt")), criteriaBuilder.asc(photo.get("id")));
+
+        try (Stream<Object[]> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, MAP_POINTS_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            rows.forEach(row -> consumer.accept((Long) row[0], (Instant) row[1], (Double) row[2], (Boolean) row[3]));
+        }
+    }
+
+    @Override
+    public void scanExport(final Consumer<PhotoExportRow> consumer) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<PhotoExportRow> query = criteriaBuilder.createQuery(PhotoExportRow.class);
+        final Root<Photo> photo = query.from(Photo.class);
+        final Join<Photo, User> owner = photo.join("user", JoinType.LEFT);
+
+        query.select(criteriaBuilder.construct(PhotoExportRow.class,
+                photo.get("id"),
+                photo.get("filename"),
+                photo.get("originalFilename"),
+                photo.get("fileSize"),
+                photo.get("mimeType"),
+                photo.get("gpsLatitude"),
+                photo.get("gpsLongitude"),
+                photo.get("takenAt"),
+                photo.get("uploadedAt"),
+                photo.get("ratingAvg"),
+                photo.get("ratingCount"),
+                photo.get("rating1Count"),
+                photo.get("rating2Count"),
+                photo.get("rating3Count"),
+                photo.get("rating4Count"),
+                photo.get("rating5Count"),
+                owner.get("id"),
+                owner.get("email")));
+        query.orderBy(criteriaBuilder.asc(photo.get("id")));
+
+        try (Stream<PhotoExportRow> rows = entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, MAP_POINTS_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            rows.forEach(consumer);
+        }
+    }
+
+    private Expression<?> column(final Root<Photo> photo, final PhotoFields fields, final String field,
+                                 final String attribute, final Class<?> type) {
+        return fields.contains(field) ? photo.get(attribute) : entityManager.getCriteriaBuilder().nullLiteral(type);
+    }
+}
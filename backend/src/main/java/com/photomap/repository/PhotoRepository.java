@@ -3,14 +3,21 @@ package com.photomap.repository;
 import com.photomap.model.Photo;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface PhotoRepository extends JpaRepository<Photo, Long>, JpaSpecificationExecutor<Photo> {
+public interface PhotoRepository extends JpaRepository<Photo, Long>, JpaSpecificationExecutor<Photo>, PhotoReadRepository {
 
     List<Photo> findByUserId(Long userId);
 
@@ -20,5 +27,112 @@ public interface PhotoRepository extends JpaRepository<Photo, Long>, JpaSpecific
 
     Page<Photo> findByUserIdIsNull(Pageable pageable);
 
+    @EntityGraph(attributePaths = "user")
+    Slice<Photo> findAllBy(Pageable pageable);
+
     List<Photo> findByUserIdIsNull();
+
+    List<Photo> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Photo p SET p.thumbnailFilename = :thumbnailFilename WHERE p.id = :id")
+    int updateThumbnailFilename(@Param("id") Long id, @Param("thumbnailFilename") String thumbnailFilename);
+
+    @Query("""
+            SELECT new com.photomap.repository.PhotoDataSummary(COUNT(p), COALESCE(SUM(p.id), 0), MAX(p.updatedAt),
+                COALESCE(SUM(p.ratingCount), 0), COALESCE(SUM(p.ratingSum), 0))
+            FROM Photo p
+            """)
+    PhotoDataSummary summarize();
+
+    /**
+     * Count and id sum of the geotagged photos, for checking the in-memory spatial index.
+     */
+    @Query("""
+            SELECT COUNT(p) AS count, COALESCE(SUM(p.id), 0) AS idSum FROM Photo p
+            WHERE p.gpsLatitude IS NOT NULL AND p.gpsLongitude IS NOT NULL
+            """)
+    IdSummary summarizeGeotagged();
+
+    /**
+     * Applies one rating change to the stored aggregates in a single statement.
+     *
+     * @param added   star value of the rating added, or 0
+     * @param removed star value of the rating removed, or 0
+     */
+    @Modifying
+    @Query("""
+            UPDATE Photo p SET
+                p.ratingSum = p.ratingSum + :sumDelta,
+                p.ratingCount = p.ratingCount + :countDelta,
+                p.ratingAvg = CASE WHEN p.ratingCount + :countDelta = 0 THEN NULL
+                    ELSE CAST(p.ratingSum + :sumDelta AS Double) / (p.ratingCount + :countDelta) END,
+                p.rating1Count = p.rating1Count + CASE WHEN :added = 1 THEN 1 ELSE 0 END - CASE WHEN :removed = 1 THEN 1 ELSE 0 END,
+                p.rating2Count = p.rating2Count + CASE WHEN :added = 2 THEN 1 ELSE 0 END - CASE WHEN :removed = 2 THEN 1 ELSE 0 END,
+                p.rating3Count = p.rating3Count + CASE WHEN :added = 3 THEN 1 ELSE 0 END - CASE WHEN :removed = 3 THEN 1 ELSE 0 END,
+                p.rating4Count = p.rating4Count + CASE WHEN :added = 4 THEN 1 ELSE 0 END - CASE WHEN :removed = 4 THEN 1 ELSE 0 END,
+                p.rating5Count = p.rating5Count + CASE WHEN :added = 5 THEN 1 ELSE 0 END - CASE WHEN :removed = 5 THEN 1 ELSE 0 END
+            WHERE p.id = :id
+            """)
+    int applyRatingChange(@Param("id") Long id, @Param("sumDelta") long sumDelta, @Param("countDelta") int countDelta,
+                          @Param("added") int added, @Param("removed") int removed);
+
+    /**
+     * Takes one user's ratings out of the aggregates of every photo they rated, ahead of deleting
+     * the user (which cascades their ratings away). A user rates a photo at most once, so each
+     * photo loses one rating of the stored value.
+     */
+    @Modifying
+    @Query("""
+            UPDATE Photo p SET
+                p.ratingSum = p.ratingSum - (SELECT r.ratingValue FROM Rating r WHERE r.photo.id = p.id AND r.user.id = :userId),
+                p.ratingCount = p.ratingCount - 1,
+                p.ratingAvg = CASE WHEN p.ratingCount = 1 THEN NULL
+                    ELSE CAST(p.ratingSum - (SELECT r.ratingValue FROM Rating r WHERE r.photo.id = p.id AND r.user.id = :userId) AS Double)
+                        / (p.ratingCount - 1) END,
+                p.rating1Count = p.rating1Count - CASE WHEN (SELECT r.ratingValue FROM Rating r WHERE r.photo.id = p.id AND r.user.id = :userId) = 1 THEN 1 ELSE 0 END,
+                p.rating2Count = p.rating2Count - CASE WHEN (SELECT r.ratingValue FROM Rating r WHERE r.photo.id = p.id AND r.user.id = :userId) = 2 THEN 1 ELSE 0 END,
+                p.rating3Count = p.rating3Count - CASE WHEN (SELECT r.ratingValue FROM Rating r WHERE r.photo.id = p.id AND r.user.id = :userId) = 3 THEN 1 ELSE 0 END,
+                p.rating4Count = p.rating4Count - CASE WHEN (SELECT r.ratingValue FROM Rating r WHERE r.photo.id = p.id AND r.user.id = :userId) = 4 THEN 1 ELSE 0 END,
+                p.rating5Count = p.rating5Count - CASE WHEN (SELECT r.ratingValue FROM Rating r WHERE r.photo.id = p.id AND r.user.id = :userId) = 5 THEN 1 ELSE 0 END
+            WHERE p.id IN (SELECT r.photo.id FROM Rating r WHERE r.user.id = :userId)
+            """)
+    int removeUserRatings(@Param("userId") Long userId);
+
+    /**
+     * Recomputes the rating aggregates of photos in an id range from the ratings table,
+     * touching only rows whose stored count or sum has drifted.
+     *
+     * @return number of corrected photos
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE Photo p SET
+                p.ratingSum = (SELECT COALESCE(SUM(r.ratingValue), 0) FROM Rating r WHERE r.photo.id = p.id),
+                p.ratingCount = (SELECT COUNT(r) FROM Rating r WHERE r.photo.id = p.id),
+                p.ratingAvg = (SELECT AVG(CAST(r.ratingValue AS Double)) FROM Rating r WHERE r.photo.id = p.id),
+                p.rating1Count = (SELECT COUNT(r) FROM Rating r WHERE r.photo.id = p.id AND r.ratingValue = 1),
+                p.rating2Count = (SELECT COUNT(r) FROM Rating r WHERE r.photo.id = p.id AND r.ratingValue = 2),
+                p.rating3Count = (SELECT COUNT(r) FROM Rating r WHERE r.photo.id = p.id AND r.ratingValue = 3),
+                p.rating4Count = (SELECT COUNT(r) FROM Rating r WHERE r.photo.id = p.id AND r.ratingValue = 4),
+                p.rating5Count = (SELECT COUNT(r) FROM Rating r WHERE r.photo.id = p.id AND r.ratingValue = 5)
+            WHERE p.id BETWEEN :fromId AND :toId
+                AND (p.ratingCount <> (SELECT COUNT(r) FROM Rating r WHERE r.photo.id = p.id)
+                    OR p.ratingSum <> (SELECT COALESCE(SUM(r.ratingValue), 0) FROM Rating r WHERE r.photo.id = p.id))
+            """)
+    int reconcileRatingAggregates(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT p.ratingAvg FROM Photo p WHERE p.id = :id")
+    Optional<Double> findRatingAvg(@Param("id") Long id);
+
+    @Query("SELECT MAX(p.id) FROM Photo p")
+    Long findMaxId();
+
+    interface IdSummary {
+        long getCount();
+
+        long getIdSum();
+    }
 }
@@ -1,16 +1,23 @@
 package com.photomap.repository;
 
 import com.photomap.model.Photo;
-import com.photomap.model.Rating;
 import jakarta.persistence.criteria.*;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.locationtech.jts.geom.Point;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Collection;
 
 public class PhotoSpecification {
 
+    private static final int WGS84 = 4326;
+    private static final double MAX_ENVELOPE_WIDTH = 90;
+
     private PhotoSpecification() {
         throw new UnsupportedOperationException("Utility class");
     }
@@ -21,14 +28,8 @@ public class PhotoSpecification {
                 return criteriaBuilder.conjunction();
             }
 
-            // Join with ratings table
-            final Subquery<Double> ratingSubquery = query.subquery(Double.class);
-            final Root<Rating> ratingRoot = ratingSubquery.from(Rating.class);
-            ratingSubquery.select(criteriaBuilder.avg(ratingRoot.get("ratingValue")))
-                    .where(criteriaBuilder.equal(ratingRoot.get("photo").get("id"), root.get("id")));
-
-            // Return photos with average rating >= minRating
-            return criteriaBuilder.greaterThanOrEqualTo(ratingSubquery, minRating.doubleValue());
+            // Stored average (null for unrated photos, which never match)
+            return criteriaBuilder.greaterThanOrEqualTo(root.get("ratingAvg"), minRating.doubleValue());
         };
     }
 
@@ -71,4 +72,143 @@ public class PhotoSpecification {
             }
         };
     }
+
+    /**
+     * Photos with the given ids; no ids match nothing.
+     */
+    public static Specification<Photo> hasIdIn(final Collection<Long> ids) {
+        return (root, query, criteriaBuilder) -> ids.isEmpty()
+                ? criteriaBuilder.disjunction()
+                : root.get("id").in(ids);
+    }
+
+    public static Specification<Photo> withinBounds(final BoundingBox bounds) {
+        return (root, query, criteriaBuilder) -> {
+            if (bounds == null) {
+                return criteriaBuilder.conjunction();
+            }
+            final Path<BigDecimal> latitude = root.get("gpsLatitude");
+            final Path<BigDecimal> longitude = root.get("gpsLongitude");
+            final Predicate latitudeInRange = criteriaBuilder.between(latitude,
+                    BigDecimal.valueOf(bounds.south()), BigDecimal.valueOf(bounds.north()));
+
+            if (bounds.crossesAntimeridian()) {
+                return criteriaBuilder.and(latitudeInRange, criteriaBuilder.or(
+                        criteriaBuilder.greaterThanOrEqualTo(longitude, BigDecimal.valueOf(bounds.west())),
+                        criteriaBuilder.lessThanOrEqualTo(longitude, BigDecimal.valueOf(bounds.east()))));
+            }
+            return criteriaBuilder.and(latitudeInRange,
+                    criteriaBuilder.between(longitude, BigDecimal.valueOf(bounds.west()), BigDecimal.valueOf(bounds.east())));
+        };
+    }
+
+    /**
+     * Photos inside the box, answered by the GiST index on the PostGIS {@code location} column.
+     * Box edges are geodesics, which for map-viewport sized boxes is indistinguishable from
+     * lines of constant latitude; wide boxes are split so no piece spans more than 90°.
+     */
+    public static Specification<Photo> locatedIn(final BoundingBox bounds) {
+        return (root, query, criteriaBuilder) -> {
+            if (bounds == null) {
+                return criteriaBuilder.conjunction();
+            }
+            final Path<Point> location = root.get("location");
+            final Predicate[] pieces = bounds.longitudeRanges(MAX_ENVELOPE_WIDTH).stream()
+                    .map(range -> criteriaBuilder.isTrue(criteriaBuilder.function("ST_Covers", Boolean.class,
+                            geography(criteriaBuilder, criteriaBuilder.function("ST_MakeEnvelope", Object.class,
+                                    criteriaBuilder.literal(range[0]), criteriaBuilder.literal(bounds.south()),
+                                    criteriaBuilder.literal(range[1]), criteriaBuilder.literal(bounds.north()),
+                                    criteriaBuilder.literal(WGS84))),
+                            location)))
+                    .toArray(Predicate[]::new);
+            return criteriaBuilder.or(pieces);
+        };
+    }
+
+    /**
+     * Photos within {@code meters} of {@code center} (great-circle distance on the sphere, as used
+     * by {@code <->} and the in-memory spatial index), via the GiST index.
+     */
+    public static Specification<Photo> withinRadius(final GeoPoint center, final Double meters) {
+        return (root, query, criteriaBuilder) -> {
+            if (center == null || meters == null) {
+                return criteriaBuilder.conjunction();
+            }
+            return criteriaBuilder.isTrue(criteriaBuilder.function("ST_DWithin", Boolean.class,
+                    root.get("location"), geographyPoint(criteriaBuilder, center), criteriaBuilder.literal(meters),
+                    criteriaBuilder.literal(false)));
+        };
+    }
+
+    /**
+     * Orders geotagged photos by distance from {@code center}, then id. Uses the index-assisted
+     * {@code <->} operator, so the first N rows of a limited query are the N nearest photos.
+     * Combine with an unsorted pageable.
+     */
+    public static Specification<Photo> nearestTo(final GeoPoint center) {
+        return (root, query, criteriaBuilder) -> {
+            final Expression<Double> distance = criteriaBuilder.function("distance_2d", Double.class,
+                    root.get("location"), geographyPoint(criteriaBuilder, center));
+            query.orderBy(criteriaBuilder.asc(distance), criteriaBuilder.asc(root.get("id")));
+            return criteriaBuilder.isNotNull(root.get("location"));
+        };
+    }
+
+    private static Expression<Point> geographyPoint(final CriteriaBuilder criteriaBuilder, final GeoPoint point) {
+        return geography(criteriaBuilder, criteriaBuilder.function("ST_SetSRID", Object.class,
+                criteriaBuilder.function("ST_MakePoint", Object.class,
+                        criteriaBuilder.literal(point.longitude()), criteriaBuilder.literal(point.latitude())),
+                criteriaBuilder.literal(WGS84)));
+    }
+
+    private static Expression<Point> geography(final CriteriaBuilder criteriaBuilder, final Expression<?> geometry) {
+        // Typed as a spatial value so Hibernate Spatial accepts it as an operand of its PostGIS operators
+        return criteriaBuilder.function("geography", Point.class, geometry);
+    }
+
+    /**
+     * Restricts a listing ordered by the cursor's sort column descending (nulls last), then id
+     * descending, to the rows after the cursor.
+     */
+    public static Specification<Photo> after(final PhotoCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            if (cursor == null) {
+                return criteriaBuilder.conjunction();
+            }
+            final Path<Instant> sortValue = root.get(cursor.sortKey());
+            final Path<Long> id = root.get("id");
+
+            if (cursor.value() == null) {
+                return criteriaBuilder.and(criteriaBuilder.isNull(sortValue), criteriaBuilder.lessThan(id, cursor.id()));
+            }
+            // The leading "sort <= value" bound lets the (sort DESC, id DESC) index seek to the cursor
+            final Predicate seek = criteriaBuilder.and(
+                    criteriaBuilder.lessThanOrEqualTo(sortValue, cursor.value()),
+                    criteriaBuilder.or(criteriaBuilder.lessThan(sortValue, cursor.value()), criteriaBuilder.lessThan(id, cursor.id())));
+            // Undated photos follow every dated one; uploaded_at is never null
+            return PhotoCursor.SORT_TAKEN_AT.equals(cursor.sortKey())
+                    ? criteriaBuilder.or(seek, criteriaBuilder.isNull(sortValue))
+                    : seek;
+        };
+    }
+
+    /**
+     * Orders the query itself so that null handling is honoured (Spring Data rejects
+     * {@link Sort.NullHandling} for criteria queries). Combine with an unsorted pageable.
+     */
+    public static Specification<Photo> orderedBy(final Sort sort) {
+        return (root, query, criteriaBuilder) -> {
+            final HibernateCriteriaBuilder builder = (HibernateCriteriaBuilder) criteriaBuilder;
+            query.orderBy(sort.stream().map(order -> toOrder(builder, root.get(order.getProperty()), order)).toList());
+            return criteriaBuilder.conjunction();
+        };
+    }
+
+    private static Order toOrder(final HibernateCriteriaBuilder builder, final Expression<?> property, final Sort.Order order) {
+        if (order.getNullHandling() == Sort.NullHandling.NATIVE) {
+            return order.isAscending() ? builder.asc(property) : builder.desc(property);
+        }
+        final boolean nullsFirst = order.getNullHandling() == Sort.NullHandling.NULLS_FIRST;
+        return order.isAscending() ? builder.asc(property, nullsFirst) : builder.desc(property, nullsFirst);
+    }
 }
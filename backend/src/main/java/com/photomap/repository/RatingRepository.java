@@ -1,9 +1,17 @@
 package com.photomap.repository;
 
 import com.photomap.model.Rating;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +22,90 @@ public interface RatingRepository extends JpaRepository<Rating, Long> {
 
     List<Rating> findByUserId(Long userId);
 
+    // Locked so concurrent changes of one user's rating apply their aggregate deltas in order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<Rating> findByPhotoIdAndUserId(Long photoId, Long userId);
 
     void deleteByPhotoIdAndUserId(Long photoId, Long userId);
+
+    /**
+     * Returns one user's ratings for a set of photos in a single query.
+     */
+    @Query("SELECT r.photo.id AS photoId, r.ratingValue AS ratingValue FROM Rating r "
+            + "WHERE r.user.id = :userId AND r.photo.id IN :photoIds")
+    List<PhotoRatingValue> findRatingValues(@Param("userId") Long userId, @Param("photoIds") Collection<Long> photoIds);
+
+    /**
+     * Inserts or updates one user's ratings of several photos and applies each change to the
+     * photo's rating aggregates, all in one PostgreSQL statement. The user's existing ratings are
+     * locked first, so concurrent changes apply their aggregate deltas in order.
+     * <p>
+     * A photo is missing from the result when it does not exist, or when another transaction
+     * inserted the user's first rating of it concurrently. The conflicting row is then left
+     * untouched, and calling again updates it as an existing rating.
+     *
+     * @param photoIds distinct photo ids
+     * @param ratings  star values in the order of {@code photoIds}
+     */
+    @Transactional
+    @Query(nativeQuery = true, value = """
+            WITH input AS (
+                SELECT i.photo_id, i.rating
+                FROM unnest(CAST(:photoIds AS BIGINT[]), CAST(:ratings AS INTEGER[])) AS i(photo_id, rating)
+            ), previous AS (
+                SELECT r.photo_id, r.rating FROM ratings r JOIN input i ON i.photo_id = r.photo_id
+                WHERE r.user_id = :userId
+                FOR UPDATE OF r
+            ), upserted AS (
+                INSERT INTO ratings AS r (photo_id, user_id, rating, created_at)
+                SELECT i.photo_id, :userId, i.rating, LOCALTIMESTAMP FROM input i JOIN photos p ON p.id = i.photo_id
+                ON CONFLICT (photo_id, user_id) DO UPDATE SET rating = EXCLUDED.rating
+                    WHERE EXISTS (SELECT 1 FROM previous pr WHERE pr.photo_id = r.photo_id)
+                RETURNING r.id, r.photo_id, r.rating, r.created_at
+            )
+            UPDATE photos p SET
+                rating_sum = p.rating_sum + u.rating - COALESCE(pr.rating, 0),
+                rating_count = p.rating_count + CASE WHEN pr.rating IS NULL THEN 1 ELSE 0 END,
+                rating_avg = CAST(p.rating_sum + u.rating - COALESCE(pr.rating, 0) AS DOUBLE PRECISION)
+                    / (p.rating_count + CASE WHEN pr.rating IS NULL THEN 1 ELSE 0 END),
+                rating_1_count = p.rating_1_count + CASE WHEN u.rating = 1 THEN 1 ELSE 0 END - CASE WHEN pr.rating = 1 THEN 1 ELSE 0 END,
+                rating_2_count = p.rating_2_count + CASE WHEN u.rating = 2 THEN 1 ELSE 0 END - CASE WHEN pr.rating = 2 THEN 1 ELSE 0 END,
+                rating_3_count = p.rating_3_count + CASE WHEN u.rating = 3 THEN 1 ELSE 0 END - CASE WHEN pr.rating = 3 THEN 1 ELSE 0 END,
+                rating_4_count = p.rating_4_count + CASE WHEN u.rating = 4 THEN 1 ELSE 0 END - CASE WHEN pr.rating = 4 THEN 1 ELSE 0 END,
+                rating_5_count = p.rating_5_count + CASE WHEN u.rating = 5 THEN 1 ELSE 0 END - CASE WHEN pr.rating = 5 THEN 1 ELSE 0 END
+            FROM upserted u LEFT JOIN previous pr ON pr.photo_id = u.photo_id
+            WHERE p.id = u.photo_id
+            RETURNING u.id AS "id", u.photo_id AS "photoId", u.rating AS "rating", u.created_at AS "createdAt",
+                pr.rating AS "previousRating", p.rating_avg AS "averageRating", p.rating_count AS "totalRatings",
+                p.gps_latitude AS "gpsLatitude", p.gps_longitude AS "gpsLongitude"
+            """)
+    List<RatingUpsert> upsertRatings(@Param("userId") Long userId, @Param("photoIds") Long[] photoIds,
+                                     @Param("ratings") Integer[] ratings);
+
+    interface PhotoRatingValue {
+        Long getPhotoId();
+
+        Integer getRatingValue();
+    }
+
+    interface RatingUpsert {
+        Long getId();
+
+        Long getPhotoId();
+
+        Integer getRating();
+
+        Instant getCreatedAt();
+
+        // Null when the rating was inserted
+        Integer getPreviousRating();
+
+        Double getAverageRating();
+
+        Integer getTotalRatings();
+
+        BigDecimal getGpsLatitude();
+
+        BigDecimal getGpsLongitude();
+    }
 }
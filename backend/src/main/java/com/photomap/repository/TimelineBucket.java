@@ -0,0 +1,31 @@
+package com.photomap.repository;
+
+import java.util.Locale;
+
+/**
+ * Granularity of the photo timeline; buckets are calendar periods of the capture time.
+ */
+public enum TimelineBucket {
+    DAY,
+    MONTH,
+    YEAR;
+
+    /**
+     * Parses the lower-case form used in request parameters.
+     */
+    public static TimelineBucket parse(final String bucket) {
+        if (bucket == null || bucket.isBlank()) {
+            throw new IllegalArgumentException("Bucket is required");
+        }
+        try {
+            return valueOf(bucket.trim().toUpperCase(Locale.ROOT));
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalArgumentException("Bucket must be day, month or year", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -5,6 +5,8 @@ import com.photomap.model.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,7 +23,31 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findFirstByRole(Role role);
 
-    Page<User> findByEmailContainingIgnoreCase(String email, Pageable pageable);
+    /**
+     * Users whose lower-cased email matches {@code pattern} (a LIKE pattern with a leading
+     * wildcard), most similar to {@code term} first. Uses the {@code pg_trgm} GIN index.
+     */
+    @Query(value = """
+            SELECT * FROM users
+            WHERE lower(email) LIKE :pattern
+            ORDER BY similarity(lower(email), :term) DESC, id
+            """,
+            countQuery = "SELECT count(*) FROM users WHERE lower(email) LIKE :pattern",
+            nativeQuery = true)
+    Page<User> searchByEmailSimilarity(@Param("term") String term, @Param("pattern") String pattern, Pageable pageable);
+
+    /**
+     * Users whose lower-cased email matches {@code pattern} (a LIKE pattern ending in a
+     * wildcard), in email order. Uses the C-collated prefix index, so a page stops early.
+     */
+    @Query(value = """
+            SELECT * FROM users
+            WHERE lower(email) COLLATE "C" LIKE :pattern
+            ORDER BY lower(email) COLLATE "C"
+            """,
+            countQuery = "SELECT count(*) FROM users WHERE lower(email) COLLATE \"C\" LIKE :pattern",
+            nativeQuery = true)
+    Page<User> searchByEmailPrefix(@Param("pattern") String pattern, Pageable pageable);
 
     List<User> findByIsActive(boolean isActive);
 }
@@ -0,0 +1,232 @@
+package com.photomap.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded, least-recently-used store of derived image variants on disk.
+ * Entry names are prefixed with the photo id ({@code <photoId>_...}) so all
+ * variants of a photo can be evicted together. Entries are handed out as files opened
+ * under the cache lock, so an eviction racing a reader cannot pull the file away from it.
+ */
+@Component
+@Slf4j
+public class DerivedImageCache {
+
+    private static final String TEMP_PREFIX = ".tmp-";
+
+    @Value("${photo.upload.directory.derived}")
+    private String derivedDirectory;
+
+    @Value("${photo.derived.cache.max-size-mb:512}")
+    private long maxSizeMb;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    @PostConstruct
+    public void init() throws IOException {
+        final Path directory = Paths.get(derivedDirectory);
+        Files.createDirectories(directory);
+
+        final List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(Files::isRegularFile).toList();
+        }
+
+        final List<Path> ordered = new ArrayList<>();
+        for (final Path file : files) {
+            if (file.getFileName().toString().startsWith(TEMP_PREFIX)) {
+                // Leftover from a render interrupted by shutdown
+                deleteQuietly(file);
+            } else {
+                ordered.add(file);
+            }
+        }
+        ordered.sort(Comparator.comparingLong(file -> file.toFile().lastModified()));
+
+        synchronized (this) {
+            for (final Path file : ordered) {
+                register(file.getFileName().toString(), file.toFile().length());
+            }
+            evictOverflow();
+        }
+        log.info("Derived image cache initialized: {} entries, {} bytes in {}", entries.size(), totalBytes, directory.toAbsolutePath());
+    }
+
+    /**
+     * Opens a cached variant; the caller reads the returned resource once, which closes it.
+     */
+    public synchronized Optional<CachedImage> get(final String name) throws IOException {
+        if (entries.get(name) == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(open(name));
+        } catch (final NoSuchFileException e) {
+            totalBytes -= entries.remove(name);
+            return Optional.empty();
+        }
+    }
+
+    public synchronized boolean contains(final String name) {
+        return entries.containsKey(name);
+    }
+
+    /**
+     * Returns a fresh temporary file in the cache directory; pass it to {@link #put} once written.
+     */
+    public Path newTempFile(final String name) {
+        return resolve(TEMP_PREFIX + UUID.randomUUID() + "-" + name);
+    }
+
+    /**
+     * Stores a rendered variant and opens it, before a later write can evict it.
+     */
+    public CachedImage put(final String name, final Path tempFile) throws IOException {
+        final Path target = resolve(name);
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        final long size = Files.size(target);
+
+        synchronized (this) {
+            final Long previous = entries.remove(name);
+            if (previous != null) {
+                totalBytes -= previous;
+            }
+            register(name, size);
+            evictOverflow();
+            return open(name);
+        }
+    }
+
+    public synchronized void evictPhoto(final Long photoId) {
+        final String prefix = photoId + "_";
+        final Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                deleteQuietly(resolve(entry.getKey()));
+                totalBytes -= entry.getValue();
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private void register(final String name, final long size) {
+        entries.put(name, size);
+        totalBytes += size;
+    }
+
+    private void evictOverflow() {
+        final long maxBytes = maxSizeMb * 1024 * 1024;
+        final Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            final Map.Entry<String, Long> eldest = iterator.next();
+            deleteQuietly(resolve(eldest.getKey()));
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            log.debug("Evicted derived image: {}", eldest.getKey());
+        }
+    }
+
+    private CachedImage open(final String name) throws IOException {
+        final FileChannel channel = FileChannel.open(resolve(name), StandardOpenOption.READ);
+        return new CachedImage(name, channel, channel.size());
+    }
+
+    private Path resolve(final String name) {
+        return Paths.get(derivedDirectory, name);
+    }
+
+    private void deleteQuietly(final Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (final IOException e) {
+            log.warn("Failed to delete derived image {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * An open cached variant. Deleting its file (eviction) does not affect a handle already
+     * open; the file's space is released when the handle is closed.
+     */
+    public static final class CachedImage extends AbstractResource implements Closeable {
+
+        private final String name;
+        private final FileChannel channel;
+        private final long size;
+
+        CachedImage(final String name, final FileChannel channel, final long size) {
+            this.name = name;
+            this.channel = channel;
+            this.size = size;
+        }
+
+        @Override
+        public String getFilename() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return "derived image " + name;
+        }
+
+        @Override
+        public long contentLength() {
+            return size;
+        }
+
+        /**
+         * Reads the variant from the start; closing the stream closes the handle.
+         */
+        @Override
+        public InputStream getInputStream() {
+            return Channels.newInputStream(channel);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
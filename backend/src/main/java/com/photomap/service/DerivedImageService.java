@@ -0,0 +1,190 @@
+package com.photomap.service;
+
+import com.photomap.model.Photo;
+import com.photomap.storage.PhotoStorage;
+import com.photomap.storage.StorageArea;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.geometry.Positions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Produces resized variants of a photo on demand. Requested sizes are snapped to
+ * a fixed set so the number of variants per photo stays small; variants are kept
+ * in the {@link DerivedImageCache} and concurrent identical requests render once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DerivedImageService {
+
+    public enum Fit {
+        CONTAIN,
+        COVER;
+
+        public static Fit fromParameter(final String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (final IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported fit: " + value + " (allowed: contain, cover)");
+            }
+        }
+    }
+
+    private static final double RENDITION_QUALITY = 0.85;
+
+    private final DerivedImageCache derivedImageCache;
+    private final PhotoStorage photoStorage;
+    private final PackedThumbnailStore packedThumbnailStore;
+    private final SingleFlight<String, Boolean> renders = new SingleFlight<>();
+
+    @Value("${photo.derived.allowed-sizes:64,128,256,512,1024,2048}")
+    private int[] allowedSizes;
+
+    /**
+     * Opens the variant for the requested box, rendering it first when it is not cached.
+     * The returned resource is read once.
+     */
+    public Resource getRendition(final Photo photo, final Integer width, final Integer height, final Fit fit) throws IOException {
+        if (width == null && height == null) {
+            throw new IllegalArgumentException("Width or height is required");
+        }
+        if ((width != null && width < 1) || (height != null && height < 1)) {
+            throw new IllegalArgumentException("Width and height must be positive");
+        }
+
+        final int targetWidth = snapToAllowedSize(width != null ? width : height);
+        final int targetHeight = snapToAllowedSize(height != null ? height : width);
+        final String name = variantName(photo, targetWidth, targetHeight, fit);
+
+        final Optional<DerivedImageCache.CachedImage> cached = derivedImageCache.get(name);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // Concurrent requests share one render, then each opens its own handle
+        renders.execute(name, () -> {
+            // A render for the same variant may have finished between the lookup and here
+            if (!derivedImageCache.contains(name)) {
+                render(photo, name, targetWidth, targetHeight, fit).close();
+            }
+            return Boolean.TRUE;
+        });
+        final Optional<DerivedImageCache.CachedImage> rendered = derivedImageCache.get(name);
+        // Evicted again already only when the cache is smaller than the renders in flight
+        return rendered.isPresent() ? rendered.get() : render(photo, name, targetWidth, targetHeight, fit);
+    }
+
+    int snapToAllowedSize(final int requested) {
+        final int[] sizes = Arrays.stream(allowedSizes).sorted().toArray();
+        for (final int size : sizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    private DerivedImageCache.CachedImage render(final Photo photo, final String name, final int width, final int height,
+                                                 final Fit fit) throws IOException {
+        final Resource source = selectSource(photo, width, height, fit);
+        final Path tempFile = derivedImageCache.newTempFile(name);
+
+        try (InputStream in = source.getInputStream()) {
+            final Thumbnails.Builder<?> builder = Thumbnails.of(in)
+                    .size(width, height)
+                    .outputQuality(RENDITION_QUALITY)
+                    .outputFormat(formatOf(name));
+            if (fit == Fit.COVER) {
+                builder.crop(Positions.CENTER);
+            } else {
+                builder.keepAspectRatio(true);
+            }
+            builder.toFile(tempFile.toFile());
+
+            log.info("Rendered variant {} from {}", name, source.getDescription());
+            return derivedImageCache.put(name, tempFile);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Picks the smallest existing rendition that does not need upscaling for the target box,
+     * falling back to the original.
+     */
+    private Resource selectSource(final Photo photo, final int width, final int height, final Fit fit) throws IOException {
+        final Optional<Resource> medium = findMedium(photo);
+        final Optional<int[]> dimensions = medium.isPresent() ? readDimensions(medium.get()) : Optional.empty();
+        if (dimensions.isPresent()) {
+            final double scaleX = (double) width / dimensions.get()[0];
+            final double scaleY = (double) height / dimensions.get()[1];
+            final double scale = fit == Fit.COVER ? Math.max(scaleX, scaleY) : Math.min(scaleX, scaleY);
+            if (scale <= 1.0) {
+                return medium.get();
+            }
+        }
+
+        return photoStorage.get(StorageArea.ORIGINAL, photo.getFilename())
+                .orElseThrow(() -> new IllegalArgumentException("Photo file not found"));
+    }
+
+    /**
+     * The medium thumbnail, which packed storage may have moved out of the MEDIUM area.
+     */
+    private Optional<Resource> findMedium(final Photo photo) throws IOException {
+        if (packedThumbnailStore.isEnabled() && photo.getId() != null) {
+            final Optional<Resource> packed = packedThumbnailStore.get(photo.getId());
+            if (packed.isPresent()) {
+                return packed;
+            }
+        }
+        return photo.getThumbnailFilename() != null
+                ? photoStorage.get(StorageArea.MEDIUM, photo.getThumbnailFilename())
+                : Optional.empty();
+    }
+
+    private Optional<int[]> readDimensions(final Resource image) throws IOException {
+        try (InputStream in = image.getInputStream();
+             ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return Optional.empty();
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return Optional.of(new int[]{reader.getWidth(0), reader.getHeight(0)});
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private String variantName(final Photo photo, final int width, final int height, final Fit fit) {
+        final String filename = photo.getFilename();
+        final String extension = filename.contains(".")
+                ? filename.substring(filename.lastIndexOf('.')).toLowerCase(Locale.ROOT)
+                : ".jpg";
+        return photo.getId() + "_" + width + "x" + height + "_" + fit.name().toLowerCase(Locale.ROOT) + extension;
+    }
+
+    private String formatOf(final String name) {
+        return name.endsWith(".png") ? "png" : "jpg";
+    }
+}
@@ -0,0 +1,284 @@
+package com.photomap.service;
+
+import com.photomap.service.PhotoSpatialIndex.PointVisitor;
+
+import java.util.PriorityQueue;
+
+/**
+ * Static KD-tree over points stored in three parallel primitive arrays, 24 bytes per point and
+ * no per-node objects: the arrays are reordered so that every range {@code [left, right]} has
+ * its median at {@code (left + right) / 2}, splitting alternately by longitude and latitude.
+ * Nearest-neighbour search ranks by great-circle distance and handles the antimeridian.
+ */
+final class KdTree {
+
+    // Ranges this small are scanned instead of split further
+    private static final int NODE_SIZE = 64;
+    static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private final long[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final int size;
+
+    /**
+     * Builds the tree over the first {@code size} entries of the arrays, which are taken over
+     * and reordered.
+     */
+    KdTree(final long[] ids, final double[] latitudes, final double[] longitudes, final int size) {
+        this.ids = ids;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.size = size;
+        sort(0, size - 1, 0);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Visits the points inside the rectangle, edges included, in no particular order.
+     *
+     * @return false if the visitor stopped the search
+     */
+    boolean range(final double south, final double west, final double north, final double east, final PointVisitor visitor) {
+        if (size == 0) {
+            return true;
+        }
+        final int[] stack = new int[3 * 64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = size - 1;
+        stack[top++] = 0;
+
+        while (top > 0) {
+            final int axis = stack[--top];
+            final int right = stack[--top];
+            final int left = stack[--top];
+
+            if (right - left <= NODE_SIZE) {
+                for (int i = left; i <= right; i++) {
+                    if (contains(i, south, west, north, east) && !visitor.visit(ids[i], latitudes[i], longitudes[i])) {
+                        return false;
+                    }
+                }
+                continue;
+            }
+
+            final int m = (left + right) >>> 1;
+            if (contains(m, south, west, north, east) && !visitor.visit(ids[m], latitudes[m], longitudes[m])) {
+                return false;
+            }
+            final double split = axis == 0 ? longitudes[m] : latitudes[m];
+            if (axis == 0 ? west <= split : south <= split) {
+                stack[top++] = left;
+                stack[top++] = m - 1;
+                stack[top++] = 1 - axis;
+            }
+            if (axis == 0 ? east >= split : north >= split) {
+                stack[top++] = m + 1;
+                stack[top++] = right;
+                stack[top++] = 1 - axis;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits points by increasing great-circle distance from the given point, up to
+     * {@code maxMeters} away.
+     *
+     * @return false if the visitor stopped the search
+     */
+    boolean nearest(final double latitude, final double longitude, final double maxMeters, final PointVisitor visitor) {
+        if (size == 0) {
+            return true;
+        }
+        final double cosLatitude = Math.cos(Math.toRadians(latitude));
+        final double maxHaverSin = haverSin(Math.min(maxMeters / EARTH_RADIUS_METERS, Math.PI));
+        final PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(0, size - 1, 0, -90, -180, 90, 180, 0));
+
+        while (!queue.isEmpty()) {
+            final Candidate candidate = queue.poll();
+            if (candidate.distance() > maxHaverSin) {
+                return true;
+            }
+            if (candidate.isPoint()) {
+                final int i = candidate.left();
+                if (!visitor.visit(ids[i], latitudes[i], longitudes[i])) {
+                    return false;
+                }
+                continue;
+            }
+
+            final int left = candidate.left();
+            final int right = candidate.right();
+            if (right - left <= NODE_SIZE) {
+                for (int i = left; i <= right; i++) {
+                    queue.add(Candidate.point(i, pointDistance(latitude, longitude, cosLatitude, i)));
+                }
+                continue;
+            }
+
+            final int m = (left + right) >>> 1;
+            queue.add(Candidate.point(m, pointDistance(latitude, longitude, cosLatitude, m)));
+            final int axis = 1 - candidate.axis();
+            if (candidate.axis() == 0) {
+                final double split = longitudes[m];
+                queue.add(node(left, m - 1, axis, candidate.south(), candidate.west(), candidate.north(), split, latitude, longitude, cosLatitude));
+                queue.add(node(m + 1, right, axis, candidate.south(), split, candidate.north(), candidate.east(), latitude, longitude, cosLatitude));
+            } else {
+                final double split = latitudes[m];
+                queue.add(node(left, m - 1, axis, candidate.south(), candidate.west(), split, candidate.east(), latitude, longitude, cosLatitude));
+                queue.add(node(m + 1, right, axis, split, candidate.west(), candidate.north(), candidate.east(), latitude, longitude, cosLatitude));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Great-circle distance in meters.
+     */
+    static double distanceMeters(final double latitude1, final double longitude1, final double latitude2, final double longitude2) {
+        final double h = haverSinDistance(haverSin(Math.toRadians(longitude1 - longitude2)), Math.cos(Math.toRadians(latitude1)), latitude1, latitude2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(Math.min(h, 1)));
+    }
+
+    private boolean contains(final int i, final double south, final double west, final double north, final double east) {
+        return latitudes[i] >= south && latitudes[i] <= north && longitudes[i] >= west && longitudes[i] <= east;
+    }
+
+    private double pointDistance(final double latitude, final double longitude, final double cosLatitude, final int i) {
+        return haverSinDistance(haverSin(Math.toRadians(longitude - longitudes[i])), cosLatitude, latitude, latitudes[i]);
+    }
+
+    private static Candidate node(final int left, final int right, final int axis, final double south, final double west,
+                                  final double north, final double east, final double latitude, final double longitude,
+                                  final double cosLatitude) {
+        return new Candidate(left, right, axis, south, west, north, east,
+                boxDistance(latitude, longitude, cosLatitude, south, west, north, east));
+    }
+
+    /**
+     * Lower bound of the haversine of the angular distance from a point to any point of the box.
+     */
+    private static double boxDistance(final double latitude, final double longitude, final double cosLatitude,
+                                      final double south, final double west, final double north, final double east) {
+        if (longitude >= west && longitude <= east) {
+            if (latitude < south) {
+                return haverSin(Math.toRadians(latitude - south));
+            }
+            if (latitude > north) {
+                return haverSin(Math.toRadians(latitude - north));
+            }
+            return 0;
+        }
+        // The closer meridian edge, going either way around the globe
+        final double haverSinDLng = Math.min(haverSin(Math.toRadians(longitude - west)), haverSin(Math.toRadians(longitude - east)));
+        // Latitude where the great circle to that meridian is closest, if the edge reaches it
+        final double cosDLng = 1 - 2 * haverSinDLng;
+        final double extremumLatitude = cosDLng <= 0
+                ? (latitude > 0 ? 90 : -90)
+                : Math.toDegrees(Math.atan(Math.tan(Math.toRadians(latitude)) / cosDLng));
+        if (extremumLatitude > south && extremumLatitude < north) {
+            return haverSinDistance(haverSinDLng, cosLatitude, latitude, extremumLatitude);
+        }
+        return Math.min(haverSinDistance(haverSinDLng, cosLatitude, latitude, south),
+                haverSinDistance(haverSinDLng, cosLatitude, latitude, north));
+    }
+
+    private static double haverSinDistance(final double haverSinDLng, final double cosLatitude1, final double latitude1, final double latitude2) {
+        return cosLatitude1 * Math.cos(Math.toRadians(latitude2)) * haverSinDLng + haverSin(Math.toRadians(latitude1 - latitude2));
+    }
+
+    private static double haverSin(final double radians) {
+        final double s = Math.sin(radians / 2);
+        return s * s;
+    }
+
+    private void sort(final int left, final int right, final int axis) {
+        if (right - left <= NODE_SIZE) {
+            return;
+        }
+        final int m = (left + right) >>> 1;
+        select(m, left, right, axis == 0 ? longitudes : latitudes);
+        sort(left, m - 1, 1 - axis);
+        sort(m + 1, right, 1 - axis);
+    }
+
+    /**
+     * Moves the {@code k}-th smallest value of {@code keys} within {@code [left, right]} to
+     * index {@code k}, smaller values before it and larger after (quickselect).
+     */
+    private void select(final int k, final int left, final int right, final double[] keys) {
+        int from = left;
+        int to = right;
+        while (to > from) {
+            // Median of three keeps sorted input from degrading to quadratic time
+            final int mid = (from + to) >>> 1;
+            if (keys[mid] < keys[from]) {
+                swap(mid, from);
+            }
+            if (keys[to] < keys[from]) {
+                swap(to, from);
+            }
+            if (keys[to] < keys[mid]) {
+                swap(to, mid);
+            }
+            final double pivot = keys[mid];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                to = j;
+            } else if (k >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(final int i, final int j) {
+        final long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        final double latitude = latitudes[i];
+        latitudes[i] = latitudes[j];
+        latitudes[j] = latitude;
+        final double longitude = longitudes[i];
+        longitudes[i] = longitudes[j];
+        longitudes[j] = longitude;
+    }
+
+    private record Candidate(int left, int right, int axis, double south, double west, double north, double east,
+                             double distance) implements Comparable<Candidate> {
+
+        static Candidate point(final int index, final double distance) {
+            return new Candidate(index, -1, 0, 0, 0, 0, 0, distance);
+        }
+
+        boolean isPoint() {
+            return right < 0;
+        }
+
+        @Override
+        public int compareTo(final Candidate other) {
+            return Double.compare(distance, other.distance());
+        }
+    }
+}
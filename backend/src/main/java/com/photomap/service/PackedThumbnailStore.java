@@ -0,0 +1,379 @@
+package com.photomap.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Optional thumbnail storage engine that appends renditions into large segment files
+ * instead of keeping one small file per photo.
+ * <p>
+ * Every write is appended to the active segment and recorded in an append-only index
+ * log ({@code photo id -> segment, offset, length}) which is replayed on startup.
+ * Reads are served as slices of a memory-mapped segment. Deleting an entry only
+ * marks its bytes dead; once a sealed segment is mostly dead its live entries are
+ * copied into the active segment and the file is removed.
+ */
+@Component
+@Slf4j
+public class PackedThumbnailStore {
+
+    public static final String STORAGE_PACKED = "packed";
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String INDEX_FILE = "index.log";
+    private static final byte OP_PUT = 1;
+    private static final byte OP_DELETE = 2;
+    // op (1) + photo id (8) + segment (4) + offset (8) + length (4)
+    private static final int INDEX_RECORD_SIZE = 25;
+    private static final long MAX_SEGMENT_SIZE_MB = 1024;
+
+    record Entry(int segment, long offset, int length) {
+    }
+
+    @Value("${photo.thumbnail.storage:files}")
+    private String storageMode;
+
+    @Value("${photo.upload.directory.packed}")
+    private String packedDirectory;
+
+    @Value("${photo.thumbnail.packed.segment-size-mb:256}")
+    private long segmentSizeMb;
+
+    @Value("${photo.thumbnail.packed.compaction-threshold:0.5}")
+    private double compactionThreshold;
+
+    private final Map<Long, Entry> index = new HashMap<>();
+    private final Map<Integer, Long> deadBytes = new HashMap<>();
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor();
+
+    private FileChannel activeChannel;
+    private int activeSegment;
+    private FileChannel indexChannel;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        if (segmentSizeMb < 1 || segmentSizeMb > MAX_SEGMENT_SIZE_MB) {
+            throw new IllegalArgumentException("Segment size must be between 1 and " + MAX_SEGMENT_SIZE_MB + " MB");
+        }
+
+        final Path directory = Paths.get(packedDirectory);
+        Files.createDirectories(directory);
+
+        synchronized (this) {
+            replayIndex(directory.resolve(INDEX_FILE));
+            activeSegment = Math.max(1, highestSegmentNumber(directory));
+            activeChannel = FileChannel.open(segmentPath(activeSegment),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            computeDeadBytes(directory);
+            writeIndexSnapshot(directory.resolve(INDEX_FILE));
+            indexChannel = FileChannel.open(directory.resolve(INDEX_FILE), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        log.info("Packed thumbnail store initialized: {} entries, active segment {}", index.size(), activeSegment);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        compactor.shutdown();
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+        if (indexChannel != null) {
+            indexChannel.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return STORAGE_PACKED.equalsIgnoreCase(storageMode);
+    }
+
+    public synchronized void put(final long photoId, final byte[] data) throws IOException {
+        if (activeChannel.size() > 0 && activeChannel.size() + data.length > segmentSizeMb * 1024 * 1024) {
+            rollSegment();
+        }
+
+        final long offset = activeChannel.size();
+        activeChannel.write(ByteBuffer.wrap(data), offset);
+
+        final Entry entry = new Entry(activeSegment, offset, data.length);
+        appendIndexRecord(OP_PUT, photoId, entry);
+        final Entry previous = index.put(photoId, entry);
+        if (previous != null) {
+            markDead(previous);
+        }
+    }
+
+    public Optional<Resource> get(final long photoId) throws IOException {
+        final Entry entry;
+        final MappedByteBuffer mapped;
+        // Resolved together so compaction cannot remove the segment in between; mapping is cached,
+        // the lock only covers file I/O when the active segment has grown past its mapping
+        synchronized (this) {
+            entry = index.get(photoId);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            mapped = mapping(entry);
+        }
+
+        final ByteBuffer slice = mapped.slice((int) entry.offset(), entry.length());
+        return Optional.of(new MappedSliceResource(photoId, slice));
+    }
+
+    public synchronized void delete(final long photoId) throws IOException {
+        final Entry entry = index.remove(photoId);
+        if (entry == null) {
+            return;
+        }
+        appendIndexRecord(OP_DELETE, photoId, entry);
+        markDead(entry);
+
+        final int segment = entry.segment();
+        if (segment != activeSegment && deadRatio(segment) >= compactionThreshold) {
+            compactor.submit(() -> compactQuietly(segment));
+        }
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized Optional<Entry> entry(final long photoId) {
+        return Optional.ofNullable(index.get(photoId));
+    }
+
+    /**
+     * Copies the live entries of a sealed segment into the active segment and removes it.
+     */
+    synchronized void compact(final int segment) throws IOException {
+        if (segment == activeSegment) {
+            return;
+        }
+        final List<Map.Entry<Long, Entry>> live = index.entrySet().stream()
+                .filter(e -> e.getValue().segment() == segment)
+                .toList();
+
+        for (final Map.Entry<Long, Entry> e : live) {
+            final ByteBuffer slice = mapping(e.getValue()).slice((int) e.getValue().offset(), e.getValue().length());
+            final byte[] data = new byte[e.getValue().length()];
+            slice.get(data);
+            put(e.getKey(), data);
+        }
+
+        // Readers holding a slice keep the old mapping alive until they finish
+        mappings.remove(segment);
+        deadBytes.remove(segment);
+        Files.deleteIfExists(segmentPath(segment));
+        log.info("Compacted segment {}: moved {} live thumbnails", segment, live.size());
+    }
+
+    private void compactQuietly(final int segment) {
+        try {
+            compact(segment);
+        } catch (final IOException e) {
+            log.error("Failed to compact thumbnail segment {}", segment, e);
+        }
+    }
+
+    private MappedByteBuffer mapping(final Entry entry) throws IOException {
+        final long end = entry.offset() + entry.length();
+        final MappedByteBuffer current = mappings.get(entry.segment());
+        if (current != null && current.capacity() >= end) {
+            return current;
+        }
+
+        // The active segment grows after it was mapped; map it again to cover the new entry
+        try (FileChannel channel = FileChannel.open(segmentPath(entry.segment()), StandardOpenOption.READ)) {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mappings.put(entry.segment(), mapped);
+            return mapped;
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        activeChannel.close();
+        activeSegment++;
+        activeChannel = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log.info("Started thumbnail segment {}", activeSegment);
+    }
+
+    private void markDead(final Entry entry) {
+        deadBytes.merge(entry.segment(), (long) entry.length(), Long::sum);
+    }
+
+    private double deadRatio(final int segment) throws IOException {
+        final long size = Files.size(segmentPath(segment));
+        return size == 0 ? 1.0 : (double) deadBytes.getOrDefault(segment, 0L) / size;
+    }
+
+    private void appendIndexRecord(final byte op, final long photoId, final Entry entry) throws IOException {
+        final ByteBuffer record = ByteBuffer.allocate(INDEX_RECORD_SIZE);
+        writeRecord(record, op, photoId, entry);
+        record.flip();
+        while (record.hasRemaining()) {
+            indexChannel.write(record);
+        }
+    }
+
+    private void replayIndex(final Path indexPath) throws IOException {
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        final ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+        while (records.remaining() >= INDEX_RECORD_SIZE) {
+            final byte op = records.get();
+            final long photoId = records.getLong();
+            final Entry entry = new Entry(records.getInt(), records.getLong(), records.getInt());
+            if (op == OP_PUT) {
+                index.put(photoId, entry);
+            } else {
+                index.remove(photoId);
+            }
+        }
+        // Entries whose segment disappeared (e.g. crash during compaction) are dropped and regenerated on demand
+        index.values().removeIf(entry -> !Files.exists(segmentPath(entry.segment())));
+    }
+
+    private void writeIndexSnapshot(final Path indexPath) throws IOException {
+        final ByteBuffer snapshot = ByteBuffer.allocate(index.size() * INDEX_RECORD_SIZE);
+        for (final Map.Entry<Long, Entry> e : index.entrySet()) {
+            writeRecord(snapshot, OP_PUT, e.getKey(), e.getValue());
+        }
+        final Path tempPath = indexPath.resolveSibling(INDEX_FILE + ".tmp");
+        Files.write(tempPath, snapshot.array());
+        Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void computeDeadBytes(final Path directory) throws IOException {
+        final Map<Integer, Long> liveBytes = new HashMap<>();
+        for (final Entry entry : index.values()) {
+            liveBytes.merge(entry.segment(), (long) entry.length(), Long::sum);
+        }
+        try (Stream<Path> segments = Files.list(directory)) {
+            for (final Path segment : segments.filter(this::isSegmentFile).toList()) {
+                final int number = segmentNumber(segment);
+                deadBytes.put(number, Files.size(segment) - liveBytes.getOrDefault(number, 0L));
+            }
+        }
+    }
+
+    private int highestSegmentNumber(final Path directory) throws IOException {
+        try (Stream<Path> segments = Files.list(directory)) {
+            return segments.filter(this::isSegmentFile)
+                    .mapToInt(this::segmentNumber)
+                    .max()
+                    .orElse(0);
+        }
+    }
+
+    private static void writeRecord(final ByteBuffer buffer, final byte op, final long photoId, final Entry entry) {
+        buffer.put(op)
+                .putLong(photoId)
+                .putInt(entry.segment())
+                .putLong(entry.offset())
+                .putInt(entry.length());
+    }
+
+    private boolean isSegmentFile(final Path path) {
+        final String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private int segmentNumber(final Path path) {
+        final String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private Path segmentPath(final int segment) {
+        return Paths.get(packedDirectory, String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Read-only view of one packed thumbnail, backed by the memory-mapped segment.
+     */
+    static final class MappedSliceResource extends AbstractResource {
+
+        private final long photoId;
+        private final ByteBuffer slice;
+
+        MappedSliceResource(final long photoId, final ByteBuffer slice) {
+            this.photoId = photoId;
+            this.slice = slice;
+        }
+
+        @Override
+        public String getDescription() {
+            return "packed thumbnail of photo " + photoId;
+        }
+
+        @Override
+        public long contentLength() {
+            return slice.remaining();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            final ByteBuffer buffer = slice.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(final byte[] bytes, final int offset, final int length) {
+                    if (!buffer.hasRemaining()) {
+                        return -1;
+                    }
+                    final int count = Math.min(length, buffer.remaining());
+                    buffer.get(bytes, offset, count);
+                    return count;
+                }
+
+                @Override
+                public int available() {
+                    return buffer.remaining();
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return this == other;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+    }
+}
@@ -0,0 +1,585 @@
+package com.photomap.service;
+
+import com.photomap.repository.PhotoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-memory mirror of the filterable photo attributes, so listing pages are selected
+ * without querying the database; only the ids of the selected page are then loaded.
+ *
+ * <p>Photos are stored in upload order, one primitive column per attribute: id, capture time
+ * as unsigned 32-bit seconds from a base picked at load time (a 136-year window), average
+ * rating as a float and the GPS and deleted flags as bitsets. A permutation of the rows by
+ * capture time turns date ranges into one binary search and serves the {@code takenAt} sort;
+ * the {@code uploadedAt} sort is the row order itself. A second permutation by id finds the row
+ * of a written photo. That is about 24 bytes per photo, under 120 MiB for five million photos.
+ * Rating sorts select the page with a bounded heap.
+ *
+ * <p>The catalog is loaded when the application is ready and kept current from the write paths
+ * of this node; {@link PhotoDataSync} reloads it when photo data has moved, which picks up
+ * writes made through other nodes. Lookups report no answer while it is disabled or loading, and for requests it
+ * cannot serve; callers then query the database.
+ */
+@Component
+@Slf4j
+public class PhotoCatalog {
+
+    /**
+     * Ids of one page in listing order, and the total number of matching photos.
+     */
+    public record Selection(List<Long> ids, long total) {
+    }
+
+    static final String SORT_UPLOADED_AT = "uploadedAt";
+    static final String SORT_TAKEN_AT = "takenAt";
+    static final String SORT_RATING = "rating";
+    // Deepest rating-sorted page end served from memory; the heap holds this many rows
+    private static final int MAX_RATING_WINDOW = 10_000;
+    private static final int NO_TIME = -1;
+    // Largest capture-time span that fits the unsigned offsets, one short of the null marker
+    private static final long MAX_TIME_OFFSET = 0xFFFF_FFFEL;
+    // Ids are packed with a row number into one sort key
+    private static final long MAX_ID = 0xFFFF_FFFFL;
+    private static final int MIN_COMPACTION_THRESHOLD = 1024;
+
+    private final PhotoRepository photoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${photo.catalog.enabled:false}")
+    private boolean enabled;
+
+    private volatile boolean ready;
+    private int size;
+    private int deletedCount;
+    private long[] ids = new long[0];
+    private long timeBase;
+    private int[] takenAt = new int[0];
+    private float[] ratings = new float[0];
+    private BitSet gps = new BitSet();
+    private BitSet deleted = new BitSet();
+    // Rows ordered by capture time then row; rows without one come last
+    private int[] byTakenAt = new int[0];
+    private int datedCount;
+    // Rows ordered by id, deleted rows included
+    private int[] byId = new int[0];
+
+    public PhotoCatalog(final PhotoRepository photoRepository, final PlatformTransactionManager transactionManager) {
+        this.photoRepository = photoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the catalog with the current database content.
+     */
+    public void reload() {
+        final long start = System.nanoTime();
+        // Writes wait for the load instead of racing it; lookups fall back to the database meanwhile
+        lock.writeLock().lock();
+        try {
+            final Columns columns = new Columns();
+            transactionTemplate.executeWithoutResult(status -> photoRepository.scanCatalog(columns::add));
+            load(columns);
+            log.info("Photo catalog loaded: {} photos in {} ms", columns.size, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a newly stored photo once the current transaction commits.
+     */
+    public void add(final long id, final Instant taken, final Double ratingAvg, final boolean hasGps) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            boolean rebase = false;
+            lock.writeLock().lock();
+            try {
+                // A load that started after the commit already has the photo
+                if (ready && rowOf(id) < 0) {
+                    rebase = !insert(id, taken, ratingAvg, hasGps);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (rebase) {
+                reload();
+            }
+        });
+    }
+
+    /**
+     * Drops a photo once the current transaction commits.
+     */
+    public void remove(final long id) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                final int row = rowOf(id);
+                if (row >= 0 && !deleted.get(row)) {
+                    deleted.set(row);
+                    deletedCount++;
+                    if (deletedCount > Math.max(MIN_COMPACTION_THRESHOLD, size / 8)) {
+                        compact();
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Re-reads a photo's average rating once the current transaction commits.
+     */
+    public void refreshRating(final long id) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> setRating(id, photoRepository.findRatingAvg(id).orElse(null)));
+    }
+
+    /**
+     * Sets a photo's average rating, already known to the caller, once the current transaction commits.
+     */
+    public void updateRating(final long id, final Double ratingAvg) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> setRating(id, ratingAvg));
+    }
+
+    /**
+     * Reloads a loaded catalog, for writes made through other nodes.
+     */
+    public void refresh() {
+        if (ready) {
+            reload();
+        }
+    }
+
+    /**
+     * Reloads the whole catalog once the current transaction commits, for writes that touch
+     * many photos at once.
+     */
+    public void invalidate() {
+        if (enabled) {
+            TransactionHooks.afterCommit(this::reload);
+        }
+    }
+
+    /**
+     * Selects one listing page.
+     *
+     * @return empty if the catalog is not loaded or cannot apply the sort
+     */
+    public Optional<Selection> find(final LocalDateTime dateFrom, final LocalDateTime dateTo, final Integer minRating,
+                                    final Boolean hasGps, final Pageable pageable) {
+        if (!ready || pageable.isUnpaged()) {
+            return Optional.empty();
+        }
+        final List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.size() != 1) {
+            return Optional.empty();
+        }
+        final Sort.Order order = orders.get(0);
+        final String property = order.getProperty();
+        if (!SORT_UPLOADED_AT.equals(property) && !SORT_TAKEN_AT.equals(property) && !SORT_RATING.equals(property)) {
+            return Optional.empty();
+        }
+        if (SORT_RATING.equals(property) && pageable.getOffset() + pageable.getPageSize() > MAX_RATING_WINDOW) {
+            return Optional.empty();
+        }
+
+        if (!lock.readLock().tryLock()) {
+            return Optional.empty();
+        }
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            final BitSet matches = match(dateFrom, dateTo, minRating, hasGps);
+            final long offset = pageable.getOffset();
+            final int limit = pageable.getPageSize();
+            final List<Long> page = switch (property) {
+                case SORT_UPLOADED_AT -> pageByRow(matches, order.isAscending(), offset, limit);
+                case SORT_TAKEN_AT -> pageByTakenAt(matches, order.isAscending(), offset, limit);
+                default -> pageByRating(matches, order.isAscending(), (int) offset, limit);
+            };
+            return Optional.of(new Selection(page, matches.cardinality()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet match(final LocalDateTime dateFrom, final LocalDateTime dateTo, final Integer minRating, final Boolean hasGps) {
+        final BitSet matches = new BitSet(size);
+        if (dateFrom != null || dateTo != null) {
+            final int from = dateFrom != null ? lowerBound(dateFrom.atZone(ZoneId.systemDefault()).toInstant().getEpochSecond()) : 0;
+            final int to = dateTo != null ? upperBound(dateTo.atZone(ZoneId.systemDefault()).toInstant().getEpochSecond()) : datedCount;
+            for (int i = from; i < to; i++) {
+                matches.set(byTakenAt[i]);
+            }
+        } else {
+            matches.set(0, size);
+        }
+        matches.andNot(deleted);
+        if (hasGps != null) {
+            if (hasGps) {
+                matches.and(gps);
+            } else {
+                matches.andNot(gps);
+            }
+        }
+        if (minRating != null) {
+            // Unrated photos (NaN) never match
+            for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+                if (!(ratings[row] >= minRating)) {
+                    matches.clear(row);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private List<Long> pageByRow(final BitSet matches, final boolean ascending, final long offset, final int limit) {
+        final List<Long> page = new ArrayList<>(limit);
+        long skipped = 0;
+        int row = ascending ? matches.nextSetBit(0) : matches.previousSetBit(size - 1);
+        while (row >= 0 && page.size() < limit) {
+            if (skipped++ >= offset) {
+                page.add(ids[row]);
+            }
+            row = ascending ? matches.nextSetBit(row + 1) : matches.previousSetBit(row - 1);
+        }
+        return page;
+    }
+
+    /**
+     * Photos without a capture time come last in both directions.
+     */
+    private List<Long> pageByTakenAt(final BitSet matches, final boolean ascending, final long offset, final int limit) {
+        final List<Long> page = new ArrayList<>(limit);
+        long skipped = 0;
+        for (int i = 0; i < size && page.size() < limit; i++) {
+            final int row = i < datedCount ? byTakenAt[ascending ? i : datedCount - 1 - i] : byTakenAt[i];
+            if (matches.get(row) && skipped++ >= offset) {
+                page.add(ids[row]);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Unrated photos come last in both directions, ties go to the newer upload.
+     */
+    private List<Long> pageByRating(final BitSet matches, final boolean ascending, final int offset, final int limit) {
+        final int window = offset + limit;
+        final PriorityQueue<Integer> best = new PriorityQueue<>(window + 1, (a, b) -> compareByRating(b, a, ascending));
+        for (int row = matches.nextSetBit(0); row >= 0; row = matches.nextSetBit(row + 1)) {
+            best.add(row);
+            if (best.size() > window) {
+                best.poll();
+            }
+        }
+        final Integer[] rows = best.toArray(new Integer[0]);
+        Arrays.sort(rows, (a, b) -> compareByRating(a, b, ascending));
+        final List<Long> page = new ArrayList<>(limit);
+        for (int i = offset; i < rows.length; i++) {
+            page.add(ids[rows[i]]);
+        }
+        return page;
+    }
+
+    /**
+     * Negative when row {@code a} is listed before row {@code b}.
+     */
+    private int compareByRating(final int a, final int b, final boolean ascending) {
+        final boolean aRated = !Float.isNaN(ratings[a]);
+        final boolean bRated = !Float.isNaN(ratings[b]);
+        if (aRated != bRated) {
+            return aRated ? -1 : 1;
+        }
+        if (aRated) {
+            final int byValue = ascending ? Float.compare(ratings[a], ratings[b]) : Float.compare(ratings[b], ratings[a]);
+            if (byValue != 0) {
+                return byValue;
+            }
+        }
+        return Integer.compare(b, a);
+    }
+
+    /**
+     * First index of {@link #byTakenAt} taken at or after the given second.
+     */
+    private int lowerBound(final long epochSecond) {
+        final long offset = epochSecond - timeBase;
+        if (offset <= 0) {
+            return 0;
+        }
+        if (offset > MAX_TIME_OFFSET) {
+            return datedCount;
+        }
+        int low = 0;
+        int high = datedCount;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (Integer.toUnsignedLong(takenAt[byTakenAt[mid]]) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First index of {@link #byTakenAt} taken after the given second.
+     */
+    private int upperBound(final long epochSecond) {
+        return epochSecond == Long.MAX_VALUE ? datedCount : lowerBound(epochSecond + 1);
+    }
+
+    private void setRating(final long id, final Double ratingAvg) {
+        lock.writeLock().lock();
+        try {
+            final int row = rowOf(id);
+            if (row >= 0) {
+                ratings[row] = ratingAvg != null ? ratingAvg.floatValue() : Float.NaN;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int rowOf(final long id) {
+        final int index = idBound(id);
+        return index > 0 && ids[byId[index - 1]] == id ? byId[index - 1] : -1;
+    }
+
+    /**
+     * First index of {@link #byId} with an id greater than the given one.
+     */
+    private int idBound(final long id) {
+        // Rows are in upload order, which follows id order closely: new ids almost always go last
+        if (size == 0 || ids[byId[size - 1]] <= id) {
+            return size;
+        }
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (ids[byId[mid]] <= id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return false if the capture time cannot be stored relative to the current base, or the id
+     * cannot be packed into a sort key
+     */
+    private boolean insert(final long id, final Instant taken, final Double ratingAvg, final boolean hasGps) {
+        final int encoded;
+        if (taken == null) {
+            encoded = NO_TIME;
+        } else {
+            final long offset = taken.getEpochSecond() - timeBase;
+            if (offset < 0 || offset > MAX_TIME_OFFSET) {
+                return false;
+            }
+            encoded = (int) offset;
+        }
+        if (id > MAX_ID) {
+            return false;
+        }
+        if (size == ids.length) {
+            final int capacity = grownCapacity(size);
+            ids = Arrays.copyOf(ids, capacity);
+            takenAt = Arrays.copyOf(takenAt, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            byTakenAt = Arrays.copyOf(byTakenAt, capacity);
+            byId = Arrays.copyOf(byId, capacity);
+        }
+        final int idIndex = idBound(id);
+        final int row = size++;
+        ids[row] = id;
+        takenAt[row] = encoded;
+        ratings[row] = ratingAvg != null ? ratingAvg.floatValue() : Float.NaN;
+        gps.set(row, hasGps);
+
+        // The new row is the last of its capture time: insert after all equal values
+        final int index;
+        if (encoded == NO_TIME) {
+            index = row;
+        } else {
+            index = lowerBound(timeBase + Integer.toUnsignedLong(encoded) + 1);
+            datedCount++;
+        }
+        System.arraycopy(byTakenAt, index, byTakenAt, index + 1, row - index);
+        byTakenAt[index] = row;
+        System.arraycopy(byId, idIndex, byId, idIndex + 1, row - idIndex);
+        byId[idIndex] = row;
+        return true;
+    }
+
+    /**
+     * Rewrites the columns without the deleted rows.
+     */
+    private void compact() {
+        final Columns columns = new Columns();
+        for (int row = 0; row < size; row++) {
+            if (!deleted.get(row)) {
+                columns.add(ids[row], takenAt[row] == NO_TIME ? null : Instant.ofEpochSecond(timeBase + Integer.toUnsignedLong(takenAt[row])),
+                        Float.isNaN(ratings[row]) ? null : (double) ratings[row], gps.get(row));
+            }
+        }
+        load(columns);
+    }
+
+    private void load(final Columns columns) {
+        final int count = columns.size;
+        long minSecond = Long.MAX_VALUE;
+        long maxSecond = Long.MIN_VALUE;
+        long maxId = 0;
+        for (int row = 0; row < count; row++) {
+            maxId = Math.max(maxId, columns.ids[row]);
+            if (columns.seconds[row] != Long.MIN_VALUE) {
+                minSecond = Math.min(minSecond, columns.seconds[row]);
+                maxSecond = Math.max(maxSecond, columns.seconds[row]);
+            }
+        }
+        if (minSecond != Long.MAX_VALUE && maxSecond - minSecond > MAX_TIME_OFFSET) {
+            log.warn("Photo catalog disabled: capture times span more than {} years", MAX_TIME_OFFSET / 31_556_952);
+            enabled = false;
+            ready = false;
+            return;
+        }
+        if (maxId > MAX_ID) {
+            log.warn("Photo catalog disabled: photo ids exceed {}", MAX_ID);
+            enabled = false;
+            ready = false;
+            return;
+        }
+        // Center the span in the representable range, leaving room for older and newer photos
+        timeBase = minSecond != Long.MAX_VALUE
+                ? minSecond - (MAX_TIME_OFFSET - (maxSecond - minSecond)) / 2
+                : Instant.now().getEpochSecond() - MAX_TIME_OFFSET / 2;
+
+        final int capacity = grownCapacity(count);
+        ids = Arrays.copyOf(columns.ids, capacity);
+        takenAt = new int[capacity];
+        ratings = Arrays.copyOf(columns.ratings, capacity);
+        gps = columns.gps;
+        deleted = new BitSet(capacity);
+        deletedCount = 0;
+        size = count;
+
+        // Sort (capture time, row) pairs packed into longs; undated rows stay in row order at the end
+        final long[] keys = new long[count];
+        int dated = 0;
+        for (int row = 0; row < count; row++) {
+            if (columns.seconds[row] == Long.MIN_VALUE) {
+                takenAt[row] = NO_TIME;
+            } else {
+                takenAt[row] = (int) (columns.seconds[row] - timeBase);
+                keys[dated++] = Integer.toUnsignedLong(takenAt[row]) << 31 | row;
+            }
+        }
+        Arrays.sort(keys, 0, dated);
+        byTakenAt = new int[capacity];
+        for (int i = 0; i < dated; i++) {
+            byTakenAt[i] = (int) (keys[i] & Integer.MAX_VALUE);
+        }
+        int index = dated;
+        for (int row = 0; row < count; row++) {
+            if (takenAt[row] == NO_TIME) {
+                byTakenAt[index++] = row;
+            }
+        }
+        datedCount = dated;
+
+        final long[] idKeys = new long[count];
+        for (int row = 0; row < count; row++) {
+            idKeys[row] = ids[row] << 31 | row;
+        }
+        Arrays.sort(idKeys);
+        byId = new int[capacity];
+        for (int i = 0; i < count; i++) {
+            byId[i] = (int) (idKeys[i] & Integer.MAX_VALUE);
+        }
+        ready = true;
+    }
+
+    /**
+     * Small headroom keeps the catalog within its memory budget; growth is rare next to reads.
+     */
+    private static int grownCapacity(final int count) {
+        return count + Math.max(1024, count >> 6);
+    }
+
+    /**
+     * Growable row buffer used while loading.
+     */
+    private static final class Columns {
+
+        private int size;
+        private long[] ids = new long[1024];
+        private long[] seconds = new long[1024];
+        private float[] ratings = new float[1024];
+        private final BitSet gps = new BitSet();
+
+        void add(final long id, final Instant taken, final Double ratingAvg, final boolean hasGps) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                seconds = Arrays.copyOf(seconds, size * 2);
+                ratings = Arrays.copyOf(ratings, size * 2);
+            }
+            ids[size] = id;
+            seconds[size] = taken != null ? taken.getEpochSecond() : Long.MIN_VALUE;
+            ratings[size] = ratingAvg != null ? ratingAvg.floatValue() : Float.NaN;
+            gps.set(size, hasGps);
+            size++;
+        }
+    }
+}
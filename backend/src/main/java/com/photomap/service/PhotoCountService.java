@@ -0,0 +1,112 @@
+package com.photomap.service;
+
+import com.photomap.dto.PhotoTimelineResponse;
+import com.photomap.model.Photo;
+import com.photomap.repository.PhotoRepository;
+import com.photomap.repository.TimelineBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Serves listing totals and timelines without running {@code COUNT(*)} on every request.
+ * Counts are cached per filter signature and dropped when {@link PhotoDataVersion} moves or the entry
+ * outlives its TTL (which bounds staleness from writes made on other nodes). An unfiltered
+ * count on a large PostgreSQL table falls back to the planner's row estimate.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoCountService {
+
+    static final String SIGNATURE_ALL = "all";
+    private static final int MAX_ENTRIES = 1024;
+
+    private final PhotoRepository photoRepository;
+    private final PhotoDataVersion photoDataVersion;
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabasePlatform databasePlatform;
+
+    @Value("${photo.count.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${photo.count.estimate-threshold:100000}")
+    private long estimateThreshold;
+
+    private final Map<String, Cached<Total>> totals = new ConcurrentHashMap<>();
+    private final Map<String, Cached<PhotoTimelineResponse>> timelines = new ConcurrentHashMap<>();
+
+    public record Total(long value, boolean exact) {
+    }
+
+    private record Cached<T>(long version, long createdAtNanos, T value) {
+    }
+
+    /**
+     * Exact total of photos matching {@code spec}, identified by {@code signature}.
+     */
+    public Total count(final String signature, final Specification<Photo> spec) {
+        return cached(totals, signature, () -> new Total(photoRepository.count(spec), true));
+    }
+
+    /**
+     * Counts of photos matching {@code spec} per capture period, identified by {@code signature}.
+     */
+    public PhotoTimelineResponse timeline(final String signature, final Specification<Photo> spec, final TimelineBucket bucket) {
+        return cached(timelines, bucket + ";" + signature, () -> photoRepository.findTimeline(spec, bucket));
+    }
+
+    /**
+     * Total of all photos; estimated once the table is above the estimate threshold.
+     */
+    public Total countAll() {
+        return cached(totals, SIGNATURE_ALL, () -> {
+            final long estimate = estimateAll();
+            if (estimate >= estimateThreshold) {
+                return new Total(estimate, false);
+            }
+            return new Total(photoRepository.count(), true);
+        });
+    }
+
+    private <T> T cached(final Map<String, Cached<T>> entries, final String signature, final Supplier<T> counter) {
+        final long version = photoDataVersion.current();
+        final long now = System.nanoTime();
+        final Cached<T> entry = entries.get(signature);
+        if (entry != null && entry.version() == version && now - entry.createdAtNanos() < ttlSeconds * 1_000_000_000L) {
+            return entry.value();
+        }
+
+        final T value = counter.get();
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        entries.put(signature, new Cached<>(version, now, value));
+        return value;
+    }
+
+    /**
+     * Planner row estimate of the photos table, or -1 when unavailable (not PostgreSQL, or never analyzed).
+     */
+    private long estimateAll() {
+        if (!databasePlatform.isPostgres()) {
+            return -1;
+        }
+        try {
+            final Long estimate = jdbcTemplate.queryForObject(
+                    "SELECT reltuples::bigint FROM pg_class WHERE oid = 'photos'::regclass", Long.class);
+            return estimate != null ? estimate : -1;
+        } catch (final DataAccessException e) {
+            log.warn("Photo count estimate unavailable: {}", e.getMessage());
+            return -1;
+        }
+    }
+}
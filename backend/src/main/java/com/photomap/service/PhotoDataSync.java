@@ -0,0 +1,45 @@
+package com.photomap.service;
+
+import com.photomap.repository.PhotoDataSummary;
+import com.photomap.repository.PhotoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Picks up writes made through other nodes sharing the database. {@link PhotoDataVersion} only
+ * counts the writes of this node, so ETags and version-keyed caches would never turn over for
+ * the others; this polls a {@link PhotoDataSummary} and bumps the version whenever it has moved
+ * since the previous poll. Staleness from other nodes is bounded by the interval; writes of this
+ * node move the summary as well and cost at most one extra bump per interval. A moved summary
+ * also has the {@link PhotoSpatialIndex} check itself against the database and reloads the
+ * {@link PhotoCatalog} when it is enabled.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PhotoDataSync {
+
+    private final PhotoRepository photoRepository;
+    private final PhotoDataVersion photoDataVersion;
+    private final PhotoSpatialIndex photoSpatialIndex;
+    private final PhotoCatalog photoCatalog;
+
+    private PhotoDataSummary last;
+
+    @Scheduled(fixedDelayString = "${photo.data-sync.interval-seconds:30}",
+            initialDelayString = "${photo.data-sync.interval-seconds:30}", timeUnit = TimeUnit.SECONDS)
+    public synchronized void poll() {
+        final PhotoDataSummary current = photoRepository.summarize();
+        if (last != null && !last.equals(current)) {
+            log.debug("Photo data changed since last poll: {}", current);
+            photoDataVersion.bump();
+            photoSpatialIndex.refresh();
+            photoCatalog.refresh();
+        }
+        last = current;
+    }
+}
@@ -0,0 +1,102 @@
+package com.photomap.service;
+
+import com.photomap.model.Photo;
+import com.photomap.repository.MapTile;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version of the photo catalog (photos and their ratings) on this node. Every write that can
+ * change a listing bumps it, so anything derived from the catalog can be cached per version.
+ * Writes made through other nodes are picked up by {@link PhotoDataSync}.
+ *
+ * <p>Map tiles are versioned more finely: writes to a single geotagged photo only move the
+ * version of the grid cell holding it, so tiles elsewhere keep their version (and ETag).
+ */
+@Component
+public class PhotoDataVersion {
+
+    // Tile versions are tracked per tile of this zoom level, 256 x 256 cells over the world
+    static final int GRID_ZOOM = 8;
+    private static final int GRID_SIZE = 1 << GRID_ZOOM;
+
+    // Distinguishes versions handed out before a restart from the ones counted after it
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+    // Version of the last write not tied to a location; every tile is at least this new
+    private final AtomicLong tileFloor = new AtomicLong();
+    private final AtomicLongArray cellVersions = new AtomicLongArray(GRID_SIZE * GRID_SIZE);
+
+    public long current() {
+        return version.get();
+    }
+
+    public long epoch() {
+        return epoch;
+    }
+
+    /**
+     * Bumps the version; inside a transaction only once it has completed, so readers cannot
+     * cache a result computed before the change became visible under the new version.
+     */
+    public void bump() {
+        TransactionHooks.afterCompletion(() -> {
+            final long next = version.incrementAndGet();
+            tileFloor.accumulateAndGet(next, Math::max);
+        });
+    }
+
+    /**
+     * Bumps the version for a write to one photo. Only tiles around the photo's location are
+     * invalidated; a photo without GPS data appears on no tile.
+     */
+    public void bump(final Photo photo) {
+        if (photo.getGpsLatitude() == null || photo.getGpsLongitude() == null) {
+            TransactionHooks.afterCompletion(version::incrementAndGet);
+            return;
+        }
+        final MapTile cell = MapTile.containing(photo.getGpsLatitude().doubleValue(), photo.getGpsLongitude().doubleValue(), GRID_ZOOM);
+        TransactionHooks.afterCompletion(() -> {
+            final long next = version.incrementAndGet();
+            cellVersions.accumulateAndGet(cell.y() * GRID_SIZE + cell.x(), next, Math::max);
+        });
+    }
+
+    /**
+     * Version of everything a tile may show. Tiles include a buffer past their edges, so the
+     * neighbouring grid cells are taken into account too.
+     */
+    public long tileVersion(final MapTile tile) {
+        final int minX;
+        final int maxX;
+        final int minY;
+        final int maxY;
+        if (tile.z() >= GRID_ZOOM) {
+            final int shift = tile.z() - GRID_ZOOM;
+            minX = (tile.x() >> shift) - 1;
+            maxX = (tile.x() >> shift) + 1;
+            minY = (tile.y() >> shift) - 1;
+            maxY = (tile.y() >> shift) + 1;
+        } else {
+            final int span = 1 << (GRID_ZOOM - tile.z());
+            // Covers buffers of up to 1/64 of the tile width
+            final int margin = 1 + span / 64;
+            minX = tile.x() * span - margin;
+            maxX = (tile.x() + 1) * span - 1 + margin;
+            minY = tile.y() * span - margin;
+            maxY = (tile.y() + 1) * span - 1 + margin;
+        }
+
+        long result = tileFloor.get();
+        final boolean wholeWidth = maxX - minX + 1 >= GRID_SIZE;
+        for (int y = Math.max(minY, 0); y <= Math.min(maxY, GRID_SIZE - 1); y++) {
+            for (int x = wholeWidth ? 0 : minX; x <= (wholeWidth ? GRID_SIZE - 1 : maxX); x++) {
+                // Columns wrap around the antimeridian
+                result = Math.max(result, cellVersions.get(y * GRID_SIZE + Math.floorMod(x, GRID_SIZE)));
+            }
+        }
+        return result;
+    }
+}
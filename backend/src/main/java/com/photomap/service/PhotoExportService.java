@@ -0,0 +1,160 @@
+package com.photomap.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.photomap.dto.PhotoExportRow;
+import com.photomap.repository.PhotoRepository;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes the metadata of every photo as NDJSON or CSV straight from a database cursor, so memory
+ * use does not grow with the table. Rows carry the owner's email and the stored rating aggregates
+ * from the same statement.
+ */
+@Service
+public class PhotoExportService {
+
+    static final String CSV_HEADER = "id,filename,originalFilename,fileSize,mimeType,gpsLatitude,gpsLongitude,takenAt,"
+            + "uploadedAt,ratingAvg,ratingCount,rating1Count,rating2Count,rating3Count,rating4Count,rating5Count,"
+            + "userId,userEmail";
+
+    public enum Format {
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+        CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(final MediaType mediaType, final String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public static Format parse(final String value) {
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT));
+            } catch (final IllegalArgumentException e) {
+                throw new IllegalArgumentException("Format must be ndjson or csv");
+            }
+        }
+
+        public MediaType mediaType() {
+            return mediaType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private final PhotoRepository photoRepository;
+    private final ObjectWriter rowWriter;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public PhotoExportService(final PhotoRepository photoRepository, final ObjectMapper objectMapper,
+                              final PlatformTransactionManager transactionManager) {
+        this.photoRepository = photoRepository;
+        this.objectMapper = objectMapper;
+        // The servlet stream is flushed once it fills up, not after every row
+        this.rowWriter = objectMapper.writerFor(PhotoExportRow.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Writes all photos in the given format; the stream is flushed but not closed.
+     */
+    public void export(final Format format, final OutputStream out) throws IOException {
+        try {
+            if (format == Format.NDJSON) {
+                writeNdjson(out);
+            } else {
+                writeCsv(out);
+            }
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeNdjson(final OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            transactionTemplate.executeWithoutResult(status -> photoRepository.scanExport(row -> {
+                try {
+                    rowWriter.writeValue(generator, row);
+                    generator.writeRaw('\n');
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        out.flush();
+    }
+
+    private void writeCsv(final OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        transactionTemplate.executeWithoutResult(status -> photoRepository.scanExport(row -> {
+            try {
+                writeCsvRow(writer, row);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        writer.flush();
+    }
+
+    static void writeCsvRow(final Writer writer, final PhotoExportRow row) throws IOException {
+        final Object[] values = {row.id(), row.filename(), row.originalFilename(), row.fileSize(), row.mimeType(),
+                row.gpsLatitude(), row.gpsLongitude(),
+                row.takenAt(), row.uploadedAt(), row.ratingAvg(), row.ratingCount(),
+                row.rating1Count(), row.rating2Count(), row.rating3Count(), row.rating4Count(), row.rating5Count(),
+                row.userId(), row.userEmail()};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            if (values[i] instanceof String text) {
+                writer.write(csvField(text));
+            } else if (values[i] instanceof BigDecimal number) {
+                writer.write(number.toPlainString());
+            } else if (values[i] != null) {
+                writer.write(values[i].toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quotes a text field when needed (RFC 4180); text that a spreadsheet would read as a formula
+     * is prefixed with an apostrophe.
+     */
+    static String csvField(final String value) {
+        String field = value;
+        if (!field.isEmpty() && "=+-@\t\r".indexOf(field.charAt(0)) >= 0) {
+            field = "'" + field;
+        }
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
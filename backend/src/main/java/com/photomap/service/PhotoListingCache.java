@@ -0,0 +1,108 @@
+package com.photomap.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Listing pages shared between users: recently served pages are kept, keyed by filters, sort
+ * and page or cursor, for the {@link PhotoDataVersion} they were read at. Entries must not
+ * hold per-user data; callers strip it before storing and overlay it after a hit.
+ *
+ * <p>Entries are dropped when the version moves, when they outlive their TTL (which bounds
+ * staleness from writes made on other nodes) and least recently used first once the cache is
+ * full. Hits, misses, evictions and the size are published as the Micrometer cache metrics
+ * ({@code cache.gets}, {@code cache.evictions}, {@code cache.size}) tagged
+ * {@code cache=photoListings}.
+ */
+@Component
+public class PhotoListingCache {
+
+    static final String CACHE_NAME = "photoListings";
+
+    private final PhotoDataVersion photoDataVersion;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Map<String, Entry> entries;
+
+    @Value("${photo.listing-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${photo.listing-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private record Entry(long version, long createdAtNanos, Object value) {
+    }
+
+    public PhotoListingCache(final PhotoDataVersion photoDataVersion, final MeterRegistry meterRegistry) {
+        this.photoDataVersion = photoDataVersion;
+        this.hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME).register(meterRegistry);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        Gauge.builder("cache.size", this, PhotoListingCache::size).tag("cache", CACHE_NAME).register(meterRegistry);
+    }
+
+    /**
+     * Version to store a value under; read it before running the query the value comes from,
+     * so a concurrent write leaves the entry outdated rather than wrongly current.
+     */
+    public long version() {
+        return photoDataVersion.current();
+    }
+
+    /**
+     * Cached value for the key if it is still current.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> get(final String key) {
+        final long version = photoDataVersion.current();
+        synchronized (entries) {
+            final Entry entry = entries.get(key);
+            if (entry != null && entry.version() == version && System.nanoTime() - entry.createdAtNanos() < ttlSeconds * 1_000_000_000L) {
+                hits.increment();
+                return Optional.of((T) entry.value());
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Stores a value read at {@code version}; values read before the latest write are not kept.
+     */
+    public void put(final String key, final long version, final Object value) {
+        if (maxEntries <= 0 || version != photoDataVersion.current()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(version, System.nanoTime(), value));
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
@@ -9,22 +9,28 @@ import com.photomap.model.Photo;
 import com.photomap.model.User;
 import com.photomap.repository.PhotoRepository;
 import com.photomap.repository.UserRepository;
+import com.photomap.storage.PhotoStorage;
+import com.photomap.storage.StorageArea;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.coobird.thumbnailator.Thumbnails;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Date;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -33,19 +39,24 @@ public class PhotoProcessingService {
 
     private final PhotoRepository photoRepository;
     private final UserRepository userRepository;
+    private final PhotoStorage photoStorage;
+    private final PackedThumbnailStore packedThumbnailStore;
+    private final PhotoDataVersion photoDataVersion;
+    private final PhotoSpatialIndex photoSpatialIndex;
+    private final PhotoCatalog photoCatalog;
 
     @Value("${photo.upload.directory.input}")
     private String inputDirectory;
 
-    @Value("${photo.upload.directory.original}")
-    private String originalDirectory;
-
-    @Value("${photo.upload.directory.medium}")
-    private String mediumDirectory;
-
     @Value("${photo.upload.directory.failed}")
     private String failedDirectory;
 
+    @Value("${photo.thumbnail.generation:eager}")
+    private String thumbnailGeneration;
+
+    private final SingleFlight<Long, Optional<Resource>> thumbnailGenerations = new SingleFlight<>();
+    private final SingleFlight<Long, Optional<Resource>> thumbnailPackings = new SingleFlight<>();
+
     private static final String[] ALLOWED_EXTENSIONS = {".jpg", ".jpeg", ".png"};
     private static final int THUMBNAIL_MEDIUM = 300;
     private static final double THUMBNAIL_QUALITY = 0.85;
@@ -53,8 +64,6 @@ public class PhotoProcessingService {
     @PostConstruct
     public void init() throws IOException {
         createDirectoryIfNotExists(inputDirectory);
-        createDirectoryIfNotExists(originalDirectory);
-        createDirectoryIfNotExists(mediumDirectory);
         createDirectoryIfNotExists(failedDirectory);
         log.info("Photo processing directories initialized");
     }
@@ -88,21 +97,137 @@ public class PhotoProcessingService {
 
             extractExifMetadata(file, photo);
 
-            Path originalPath = moveToDirectory(file, originalDirectory, baseFilename + extension);
-            log.info("Moved to original: {}", originalPath);
+            // Render from the local input file before it is handed to the (possibly remote) storage
+            if (isEagerThumbnailGeneration()) {
+                try (InputStream source = new FileInputStream(file)) {
+                    String mediumFilename = generateThumbnail(source, baseFilename, extension, THUMBNAIL_MEDIUM);
+                    photo.setThumbnailFilename(mediumFilename);
+                } catch (IOException e) {
+                    log.warn("Thumbnail generation failed for {}, deferring to first request: {}", filename, e.getMessage());
+                }
+            } else {
+                log.debug("Thumbnail generation deferred to first request: {}", filename);
+            }
 
-            String mediumFilename = generateThumbnail(originalPath.toFile(), mediumDirectory, baseFilename, extension, THUMBNAIL_MEDIUM);
-            photo.setThumbnailFilename(mediumFilename);
+            moveToStorage(file, StorageArea.ORIGINAL, baseFilename + extension);
+            log.info("Stored original: {}", baseFilename + extension);
 
             photoRepository.save(photo);
+            photoDataVersion.bump(photo);
+            photoSpatialIndex.add(photo);
+            photoCatalog.add(photo.getId(), photo.getTakenAt(), photo.getRatingAvg(),
+                    photo.getGpsLatitude() != null && photo.getGpsLongitude() != null);
             log.info("Photo processed successfully: id={}, filename={}", photo.getId(), filename);
 
+            if (packedThumbnailStore.isEnabled() && photo.getThumbnailFilename() != null) {
+                try {
+                    final Optional<Resource> thumbnail = photoStorage.get(StorageArea.MEDIUM, photo.getThumbnailFilename());
+                    if (thumbnail.isPresent()) {
+                        packThumbnail(photo.getId(), thumbnail.get(), photo.getThumbnailFilename());
+                    }
+                } catch (IOException e) {
+                    log.warn("Packing thumbnail failed for {}, keeping loose file: {}", filename, e.getMessage());
+                }
+            }
+
         } catch (Exception e) {
             log.error("Failed to process photo: {}", filename, e);
             moveToFailed(file, e);
         }
     }
 
+    /**
+     * Returns the medium thumbnail of a stored photo, generating it when it was skipped at
+     * ingestion or has gone missing. Concurrent calls for the same photo share one generation.
+     * Rendering runs outside any transaction; only the file name update takes a short one.
+     *
+     * @return stored thumbnail, or empty when the original file is missing as well
+     */
+    public Optional<Resource> ensureThumbnail(final Photo photo) throws IOException {
+        final Optional<Resource> existing = findThumbnail(photo);
+        if (existing.isPresent()) {
+            return existing;
+        }
+
+        return thumbnailGenerations.execute(photo.getId(), () -> {
+            final Optional<Resource> generated = photoStorage.get(StorageArea.MEDIUM, photo.getFilename());
+            if (generated.isPresent()) {
+                return generated;
+            }
+
+            final Optional<Resource> original = photoStorage.get(StorageArea.ORIGINAL, photo.getFilename());
+            if (original.isEmpty()) {
+                log.warn("Cannot generate thumbnail, original missing: {}", photo.getFilename());
+                return Optional.empty();
+            }
+
+            final String filename = photo.getFilename();
+            final int extensionIndex = filename.lastIndexOf('.');
+            final String baseFilename = extensionIndex > 0 ? filename.substring(0, extensionIndex) : filename;
+            final String extension = extensionIndex > 0 ? filename.substring(extensionIndex) : "";
+
+            final String thumbnailFilename;
+            try (InputStream source = original.get().getInputStream()) {
+                thumbnailFilename = generateThumbnail(source, baseFilename, extension, THUMBNAIL_MEDIUM);
+            }
+            photoRepository.updateThumbnailFilename(photo.getId(), thumbnailFilename);
+            photo.setThumbnailFilename(thumbnailFilename);
+            return photoStorage.get(StorageArea.MEDIUM, thumbnailFilename);
+        });
+    }
+
+    /**
+     * Returns the medium thumbnail as a resource: a memory-mapped slice of the packed store when
+     * packed storage is enabled, otherwise the stored thumbnail. Missing thumbnails are generated first.
+     */
+    public Optional<Resource> loadThumbnail(final Photo photo) throws IOException {
+        if (!packedThumbnailStore.isEnabled()) {
+            return ensureThumbnail(photo);
+        }
+
+        final Optional<Resource> packed = packedThumbnailStore.get(photo.getId());
+        if (packed.isPresent()) {
+            return packed;
+        }
+
+        // Photos ingested before packing was enabled (or generated lazily) are packed on first read
+        return thumbnailPackings.execute(photo.getId(), () -> {
+            final Optional<Resource> stored = packedThumbnailStore.get(photo.getId());
+            if (stored.isPresent()) {
+                return stored;
+            }
+            final Optional<Resource> thumbnail = ensureThumbnail(photo);
+            if (thumbnail.isEmpty()) {
+                return Optional.empty();
+            }
+            packThumbnail(photo.getId(), thumbnail.get(), thumbnailFilename(photo));
+            return packedThumbnailStore.get(photo.getId());
+        });
+    }
+
+    private void packThumbnail(final Long photoId, final Resource thumbnail, final String thumbnailFilename) throws IOException {
+        try (InputStream in = thumbnail.getInputStream()) {
+            packedThumbnailStore.put(photoId, in.readAllBytes());
+        }
+        // The packed store is local to this node; other nodes still read the shared thumbnail
+        if (!photoStorage.isShared()) {
+            photoStorage.delete(StorageArea.MEDIUM, thumbnailFilename);
+        }
+        log.debug("Packed thumbnail of photo {}", photoId);
+    }
+
+    private Optional<Resource> findThumbnail(final Photo photo) throws IOException {
+        return photoStorage.get(StorageArea.MEDIUM, thumbnailFilename(photo));
+    }
+
+    private String thumbnailFilename(final Photo photo) {
+        return photo.getThumbnailFilename() != null ? photo.getThumbnailFilename() : photo.getFilename();
+    }
+
+    private boolean isEagerThumbnailGeneration() {
+        return !"lazy".equalsIgnoreCase(thumbnailGeneration);
+    }
+
     private void extractExifMetadata(File file, Photo photo) {
         try {
             Metadata metadata = ImageMetadataReader.readMetadata(file);
@@ -127,24 +252,28 @@ public class PhotoProcessingService {
         }
     }
 
-    private String generateThumbnail(File originalFile, String targetDirectory, String baseFilename, String extension, int size) throws IOException {
+    private String generateThumbnail(InputStream source, String baseFilename, String extension, int size) throws IOException {
         String thumbnailFilename = baseFilename + extension;
-        Path thumbnailPath = Paths.get(targetDirectory, thumbnailFilename);
+        Path tempFile = Files.createTempFile("thumbnail-", extension);
 
-        Thumbnails.of(originalFile)
-                .size(size, size)
-                .outputQuality(THUMBNAIL_QUALITY)
-                .keepAspectRatio(true)
-                .toFile(thumbnailPath.toFile());
+        try {
+            Thumbnails.of(source)
+                    .size(size, size)
+                    .outputQuality(THUMBNAIL_QUALITY)
+                    .keepAspectRatio(true)
+                    .toFile(tempFile.toFile());
+
+            photoStorage.put(StorageArea.MEDIUM, thumbnailFilename, tempFile);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
 
-        log.info("Generated thumbnail: {}x{} (quality: {}) -> {}", size, size, THUMBNAIL_QUALITY, thumbnailPath);
+        log.info("Generated thumbnail: {}x{} (quality: {}) -> {}", size, size, THUMBNAIL_QUALITY, thumbnailFilename);
         return thumbnailFilename;
     }
 
-    private Path moveToDirectory(File file, String targetDirectory, String targetFilename) throws IOException {
-        Path targetPath = Paths.get(targetDirectory, targetFilename);
-        Files.move(file.toPath(), targetPath, StandardCopyOption.REPLACE_EXISTING);
-        return targetPath;
+    private void moveToStorage(File file, StorageArea area, String targetFilename) throws IOException {
+        photoStorage.put(area, targetFilename, file.toPath());
     }
 
     private void moveToFailed(File file, Exception e) {
@@ -1,26 +1,47 @@
 package com.photomap.service;
 
+import com.photomap.dto.CountedPage;
+import com.photomap.dto.MapPoints;
+import com.photomap.dto.PhotoClusterResponse;
+import com.photomap.dto.PhotoResponse;
+import com.photomap.dto.PhotoTimelineResponse;
+import com.photomap.dto.RatingResponse;
 import com.photomap.model.Photo;
 import com.photomap.model.Rating;
 import com.photomap.model.User;
+import com.photomap.repository.BoundingBox;
+import com.photomap.repository.GeoPoint;
+import com.photomap.repository.MapTile;
+import com.photomap.repository.PhotoCursor;
+import com.photomap.repository.PhotoFields;
 import com.photomap.repository.PhotoRepository;
 import com.photomap.repository.PhotoSpecification;
 import com.photomap.repository.RatingRepository;
+import com.photomap.repository.TimelineBucket;
+import com.photomap.storage.PhotoStorage;
+import com.photomap.storage.StorageArea;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -28,38 +49,333 @@ import java.util.Optional;
 public class PhotoService {
 
     private static final String ERROR_PHOTO_NOT_FOUND = "Photo not found";
+    private static final String SORT_RATING = "rating";
+    private static final String SORT_DISTANCE = "distance";
+    // Half the Earth's circumference: every point is within this distance
+    private static final double MAX_RADIUS_METERS = 20_037_509;
+    private static final int MAX_SCROLL_SIZE = 1000;
+    private static final int MAX_PHOTO_IDS = 100;
+    private static final int MAX_BATCH_RATINGS = 500;
+    private static final int MAX_CLUSTER_ZOOM = 22;
+    // Grid cells per 256px tile edge, i.e. roughly one cluster per 64px square
+    private static final int CLUSTER_CELLS_PER_TILE = 4;
+    private static final long MAX_CLUSTER_CELLS = 10_000;
+    // Points this far past a tile edge (in tile widths) are included so markers are not clipped
+    private static final double TILE_BUFFER = 64.0 / VectorTileEncoder.EXTENT;
+    // Largest id list a spatial index lookup may hand to SQL; bigger areas are filtered in SQL
+    private static final int MAX_INDEXED_IDS = 1000;
 
     private final PhotoRepository photoRepository;
     private final RatingRepository ratingRepository;
+    private final DerivedImageCache derivedImageCache;
+    private final PhotoStorage photoStorage;
+    private final PackedThumbnailStore packedThumbnailStore;
+    private final PhotoCountService photoCountService;
+    private final PhotoDataVersion photoDataVersion;
+    private final PhotoSpatialIndex photoSpatialIndex;
+    private final PhotoCatalog photoCatalog;
+    private final PhotoListingCache photoListingCache;
+    private final DatabasePlatform databasePlatform;
 
-    @Value("${photo.upload.directory.original}")
-    private String originalDirectory;
+    /**
+     * Listing page read as response rows (no entities are loaded), including the user's own rating.
+     * The spatial filters ({@code bounds}, {@code near} with {@code radiusMeters}) and the
+     * {@code distance} sort need PostGIS; sorting by distance with page size N returns the N
+     * nearest photos. A sparse {@code fields} set selects only those columns; such pages are
+     * served from the listing cache but never stored in it.
+     */
+    @Transactional(readOnly = true)
+    public Page<PhotoResponse> getPhotos(final Long userId, final Pageable pageable, final LocalDateTime dateFrom, final LocalDateTime dateTo, final Integer minRating, final Boolean hasGps,
+                                         final BoundingBox bounds, final GeoPoint near, final Double radiusMeters,
+                                         final PhotoFields fields) {
+        if (radiusMeters != null && (near == null || radiusMeters <= 0 || radiusMeters > MAX_RADIUS_METERS)) {
+            throw new IllegalArgumentException("Radius requires a point and must be between 0 and " + MAX_RADIUS_METERS + " meters");
+        }
+        final boolean byDistance = pageable.getSort().getOrderFor(SORT_DISTANCE) != null;
+        if (byDistance && near == null) {
+            throw new IllegalArgumentException("Sorting by distance requires a point");
+        }
+
+        final String key = "page;from=" + dateFrom + ";to=" + dateTo + ";minRating=" + minRating + ";gps=" + hasGps
+                + ";bbox=" + bounds + ";near=" + near + ";radius=" + radiusMeters
+                + ";sort=" + pageable.getSort() + ";page=" + pageable.getPageNumber() + ";size=" + pageable.getPageSize();
+        final long version = photoListingCache.version();
+        final Optional<Page<PhotoResponse>> cached = photoListingCache.get(key);
+        if (cached.isPresent()) {
+            return fields.contains("userRating") ? withUserRatings(cached.get(), userId) : cached.get();
+        }
+        final Page<PhotoResponse> page = findPhotos(userId, pageable, dateFrom, dateTo, minRating, hasGps, bounds, near, radiusMeters,
+                byDistance, fields);
+        // Only complete rows can be shared with requests for other fields
+        if (fields.isAll()) {
+            photoListingCache.put(key, version, page.map(PhotoService::withoutUserRating));
+        }
+        return page;
+    }
+
+    private Page<PhotoResponse> findPhotos(final Long userId, final Pageable pageable, final LocalDateTime dateFrom, final LocalDateTime dateTo,
+                                           final Integer minRating, final Boolean hasGps, final BoundingBox bounds, final GeoPoint near,
+                                           final Double radiusMeters, final boolean byDistance, final PhotoFields fields) {
+        if (bounds == null && radiusMeters == null) {
+            final Optional<PhotoCatalog.Selection> selection = photoCatalog.find(dateFrom, dateTo, minRating, hasGps, pageable);
+            if (selection.isPresent()) {
+                return new CountedPage<>(findPhotoResponsesInOrder(selection.get().ids(), userId, fields), pageable,
+                        selection.get().total(), true);
+            }
+        }
 
-    @Value("${photo.upload.directory.medium}")
-    private String mediumDirectory;
+        final Specification<Photo> filters = filterSpecification(dateFrom, dateTo, minRating, hasGps)
+                .and(inBounds(bounds, PhotoSpecification.locatedIn(bounds)))
+                .and(inRadius(near, radiusMeters));
+        final Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        final Slice<PhotoResponse> slice;
+        if (byDistance) {
+            slice = photoRepository.findPhotoResponses(filters.and(PhotoSpecification.nearestTo(near)), userId, unsorted, fields);
+        } else if (pageable.getSort().getOrderFor(SORT_RATING) != null) {
+            slice = photoRepository.findPhotoResponses(filters.and(PhotoSpecification.orderedBy(ratingSort(pageable.getSort()))),
+                    userId, unsorted, fields);
+        } else {
+            slice = photoRepository.findPhotoResponses(filters, userId, pageable, fields);
+        }
 
+        // Distance ordering never changes the total, so near only counts when it bounds a radius
+        final String signature = "from=" + dateFrom + ";to=" + dateTo + ";minRating=" + minRating + ";gps=" + hasGps
+                + ";bbox=" + bounds + ";near=" + (radiusMeters != null ? near : null) + ";radius=" + radiusMeters;
+        return toPage(slice, pageable, () -> photoCountService.count(signature, filters));
+    }
 
+    /**
+     * Overlays the viewer's own ratings on rows shared between users.
+     */
+    private Slice<PhotoResponse> withUserRatings(final Slice<PhotoResponse> rows, final Long userId) {
+        final Map<Long, Integer> ratings = getUserRatings(userId, rows.map(PhotoResponse::id).getContent());
+        return rows.map(row -> row.withUserRating(ratings.get(row.id())));
+    }
+
+    private Page<PhotoResponse> withUserRatings(final Page<PhotoResponse> rows, final Long userId) {
+        final Map<Long, Integer> ratings = getUserRatings(userId, rows.map(PhotoResponse::id).getContent());
+        return rows.map(row -> row.withUserRating(ratings.get(row.id())));
+    }
+
+    private static PhotoResponse withoutUserRating(final PhotoResponse row) {
+        return row.withUserRating(null);
+    }
+
+    /**
+     * Loads the given photos with one query, in the order of the ids; unknown ids are skipped.
+     */
     @Transactional(readOnly = true)
-    public Page<Photo> getPhotos(@SuppressWarnings("unused") final Long userId, final Pageable pageable, final LocalDateTime dateFrom, final LocalDateTime dateTo, final Integer minRating, final Boolean hasGps) {
-        Specification<Photo> spec = null;
+    public List<PhotoResponse> getPhotoResponses(final Long userId, final List<Long> ids, final PhotoFields fields) {
+        if (ids.isEmpty() || ids.size() > MAX_PHOTO_IDS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_PHOTO_IDS + " photo ids are required");
+        }
+        return findPhotoResponsesInOrder(ids.stream().distinct().toList(), userId, fields);
+    }
 
-        if (dateFrom != null) {
-            spec = PhotoSpecification.takenAfter(dateFrom);
+    /**
+     * Loads listing rows for the given ids in that order. Photos deleted in the meantime are
+     * skipped.
+     */
+    private List<PhotoResponse> findPhotoResponsesInOrder(final List<Long> ids, final Long userId, final PhotoFields fields) {
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        final Map<Long, PhotoResponse> rows = photoRepository.findPhotoResponses(PhotoSpecification.hasIdIn(ids), userId,
+                        PageRequest.of(0, ids.size()), fields)
+                .stream()
+                .collect(Collectors.toMap(PhotoResponse::id, Function.identity()));
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 
-        if (dateTo != null) {
-            spec = spec == null ? PhotoSpecification.takenBefore(dateTo) : spec.and(PhotoSpecification.takenBefore(dateTo));
+    /**
+     * Completes a slice with a total; the count is skipped when the slice itself shows the total.
+     */
+    private static <T> Page<T> toPage(final Slice<T> slice, final Pageable pageable, final Supplier<PhotoCountService.Total> total) {
+        if (pageable.getOffset() == 0 && !slice.hasNext()) {
+            return new CountedPage<>(slice.getContent(), pageable, slice.getNumberOfElements(), true);
         }
+        final PhotoCountService.Total counted = total.get();
+        return new CountedPage<>(slice.getContent(), pageable, counted.value(), counted.exact());
+    }
 
-        if (minRating != null) {
-            spec = spec == null ? PhotoSpecification.hasMinRating(minRating) : spec.and(PhotoSpecification.hasMinRating(minRating));
+    /**
+     * Keyset-paginated listing ordered by {@code sortKey} descending, then id. Fetches one extra
+     * row to detect a next slice instead of running a count query.
+     *
+     * @param after cursor returned with the previous slice, or null for the first slice
+     */
+    @Transactional(readOnly = true)
+    public Slice<PhotoResponse> scrollPhotos(final Long userId, final String sortKey, final PhotoCursor after, final int size, final LocalDateTime dateFrom, final LocalDateTime dateTo, final Integer minRating, final Boolean hasGps) {
+        PhotoCursor.requireSortKey(sortKey);
+        if (after != null && !after.sortKey().equals(sortKey)) {
+            throw new IllegalArgumentException("Cursor does not match sort: " + sortKey);
+        }
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SCROLL_SIZE);
+        }
+
+        final String key = "scroll;from=" + dateFrom + ";to=" + dateTo + ";minRating=" + minRating + ";gps=" + hasGps
+                + ";sort=" + sortKey + ";after=" + (after != null ? after.encode() : null) + ";size=" + size;
+        final long version = photoListingCache.version();
+        final Optional<Slice<PhotoResponse>> cached = photoListingCache.get(key);
+        if (cached.isPresent()) {
+            return withUserRatings(cached.get(), userId);
+        }
+
+        final Sort sort = Sort.by(Sort.Order.desc(sortKey).nullsLast(), Sort.Order.desc("id"));
+        final Specification<Photo> spec = filterSpecification(dateFrom, dateTo, minRating, hasGps)
+                .and(PhotoSpecification.after(after))
+                .and(PhotoSpecification.orderedBy(sort));
+
+        final Slice<PhotoResponse> slice = photoRepository.findPhotoResponses(spec, userId, PageRequest.of(0, size), PhotoFields.ALL);
+        photoListingCache.put(key, version, slice.map(PhotoService::withoutUserRating));
+        return slice;
+    }
+
+    /**
+     * Marker data of every geotagged photo matching the filters, without loading entities.
+     */
+    @Transactional(readOnly = true)
+    public MapPoints getMapPoints(final LocalDateTime dateFrom, final LocalDateTime dateTo, final Integer minRating) {
+        return photoRepository.findMapPoints(filterSpecification(dateFrom, dateTo, minRating, true));
+    }
+
+    /**
+     * Server-side clustering for the map: photos inside the bounding box are grouped into
+     * grid cells whose size follows the zoom level, so the response size depends on the
+     * viewport rather than on the number of photos. At high zoom most cells hold a single
+     * photo, which is then returned at its exact position.
+     */
+    @Transactional(readOnly = true)
+    public List<PhotoClusterResponse> getClusters(final BoundingBox bounds, final int zoom, final LocalDateTime dateFrom, final LocalDateTime dateTo, final Integer minRating) {
+        if (zoom < 0 || zoom > MAX_CLUSTER_ZOOM) {
+            throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_CLUSTER_ZOOM);
         }
 
-        if (hasGps != null) {
-            spec = spec == null ? PhotoSpecification.hasGps(hasGps) : spec.and(PhotoSpecification.hasGps(hasGps));
+        final double cellSize = 360.0 / ((1L << zoom) * CLUSTER_CELLS_PER_TILE);
+        final double cells = Math.ceil(bounds.width() / cellSize) * Math.ceil(bounds.height() / cellSize);
+        if (cells > MAX_CLUSTER_CELLS) {
+            throw new IllegalArgumentException("Bounding box is too large for zoom level " + zoom);
         }
 
-        return photoRepository.findAll(spec, pageable);
+        if (dateFrom == null && dateTo == null && minRating == null && photoSpatialIndex.isReady()) {
+            return clusterIndexed(bounds, cellSize);
+        }
+        final Specification<Photo> spec = filterSpecification(dateFrom, dateTo, minRating, true)
+                .and(inBounds(bounds, PhotoSpecification.withinBounds(bounds)));
+        return photoRepository.findClusters(spec, cellSize);
+    }
+
+    /**
+     * Geotagged photos matching the filters on one map tile, as a Mapbox Vector Tile.
+     */
+    @Transactional(readOnly = true)
+    public byte[] getTile(final MapTile tile, final LocalDateTime dateFrom, final LocalDateTime dateTo, final Integer minRating) {
+        final Specification<Photo> spec = filterSpecification(dateFrom, dateTo, minRating, true)
+                .and(inBounds(tile.bounds(TILE_BUFFER), PhotoSpecification.withinBounds(tile.bounds(TILE_BUFFER))));
+        return VectorTileEncoder.encode(tile, photoRepository.findMapPoints(spec));
+    }
+
+    /**
+     * Entity tag of a tile's current content. Tiles are addressed with their filters, so the tag
+     * only has to change with the data; it is taken before the tile is read, so a concurrent
+     * write can only make it outdated, never newer than the content.
+     */
+    public String getTileETag(final MapTile tile) {
+        return "\"" + Long.toHexString(photoDataVersion.epoch()) + "-" + photoDataVersion.tileVersion(tile) + "\"";
+    }
+
+    /**
+     * Photo counts per day, month or year of the capture time under the listing filters, for
+     * date pickers and gallery sections. Cached until the data version moves.
+     */
+    @Transactional(readOnly = true)
+    public PhotoTimelineResponse getTimeline(final TimelineBucket bucket, final LocalDateTime dateFrom, final LocalDateTime dateTo,
+                                             final Integer minRating, final Boolean hasGps, final BoundingBox bounds) {
+        final Specification<Photo> spec = filterSpecification(dateFrom, dateTo, minRating, hasGps)
+                .and(inBounds(bounds, PhotoSpecification.locatedIn(bounds)));
+        final String signature = "from=" + dateFrom + ";to=" + dateTo + ";minRating=" + minRating + ";gps=" + hasGps
+                + ";bbox=" + bounds;
+        return photoCountService.timeline(signature, spec, bucket);
+    }
+
+    /**
+     * Weak entity tag of the listings and photo details one user sees: they change with the
+     * photo data and carry the user's own ratings. Cheap enough to check before any query.
+     */
+    public String getViewerETag(final Long userId) {
+        return "W/\"" + Long.toHexString(photoDataVersion.epoch()) + "-" + photoDataVersion.current() + "-" + userId + "\"";
+    }
+
+    /**
+     * Entity tag of everything derived from the photo catalog, such as timelines. Taken before
+     * the data is read, like {@link #getTileETag}.
+     */
+    public String getDataETag() {
+        return "\"" + Long.toHexString(photoDataVersion.epoch()) + "-" + photoDataVersion.current() + "\"";
+    }
+
+    /**
+     * Same grid as {@link PhotoRepository#findClusters}, computed from the spatial index without
+     * touching the database.
+     */
+    private List<PhotoClusterResponse> clusterIndexed(final BoundingBox bounds, final double cellSize) {
+        final Map<Long, double[]> cells = new HashMap<>();
+        photoSpatialIndex.forEachWithin(bounds, (id, latitude, longitude) -> {
+            final long key = (long) Math.floor(latitude / cellSize) << 32 | ((long) Math.floor(longitude / cellSize) & 0xFFFFFFFFL);
+            // latitude sum, longitude sum, count, highest id
+            final double[] cell = cells.computeIfAbsent(key, k -> new double[4]);
+            cell[0] += latitude;
+            cell[1] += longitude;
+            cell[2]++;
+            cell[3] = Math.max(cell[3], id);
+            return true;
+        });
+        return cells.values().stream()
+                .map(cell -> new PhotoClusterResponse(cell[0] / cell[2], cell[1] / cell[2], (long) cell[2], (long) cell[3]))
+                .toList();
+    }
+
+    /**
+     * Restricts to the photos inside the box by id when the spatial index is built and the box
+     * holds few enough photos; otherwise {@code fallback} filters in SQL.
+     */
+    private Specification<Photo> inBounds(final BoundingBox bounds, final Specification<Photo> fallback) {
+        if (bounds == null) {
+            return fallback;
+        }
+        return photoSpatialIndex.findWithin(bounds, MAX_INDEXED_IDS)
+                .map(PhotoSpecification::hasIdIn)
+                .orElse(fallback);
+    }
+
+    private Specification<Photo> inRadius(final GeoPoint near, final Double radiusMeters) {
+        if (near == null || radiusMeters == null) {
+            return PhotoSpecification.withinRadius(near, radiusMeters);
+        }
+        return photoSpatialIndex.findWithinRadius(near, radiusMeters, MAX_INDEXED_IDS)
+                .map(PhotoSpecification::hasIdIn)
+                .orElseGet(() -> PhotoSpecification.withinRadius(near, radiusMeters));
+    }
+
+    private Specification<Photo> filterSpecification(final LocalDateTime dateFrom, final LocalDateTime dateTo, final Integer minRating, final Boolean hasGps) {
+        // Each specification matches everything when its parameter is null
+        return PhotoSpecification.takenAfter(dateFrom)
+                .and(PhotoSpecification.takenBefore(dateTo))
+                .and(PhotoSpecification.hasMinRating(minRating))
+                .and(PhotoSpecification.hasGps(hasGps));
+    }
+
+    /**
+     * Maps the {@code rating} sort key to the stored average rating; unrated photos sort last in both directions.
+     */
+    private Sort ratingSort(final Sort sort) {
+        return Sort.by(sort.stream()
+                .map(order -> SORT_RATING.equals(order.getProperty()) ? order.withProperty("ratingAvg").nullsLast() : order)
+                .toList());
     }
 
     @Transactional(readOnly = true)
@@ -67,9 +383,40 @@ public class PhotoService {
         return photoRepository.findById(photoId);
     }
 
+    /**
+     * Loads many photos in one query. Result keeps the order of the requested ids,
+     * unknown ids are skipped.
+     */
+    @Transactional(readOnly = true)
+    public List<Photo> getPhotosByIds(final List<Long> photoIds, @SuppressWarnings("unused") final Long userId) {
+        final Map<Long, Photo> photosById = photoRepository.findAllById(photoIds).stream()
+                .collect(Collectors.toMap(Photo::getId, Function.identity()));
+
+        return photoIds.stream()
+                .distinct()
+                .map(photosById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Looks up the user's own ratings for a page of photos with one query.
+     *
+     * @return rating value by photo id; photos the user has not rated are absent
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getUserRatings(final Long userId, final Collection<Long> photoIds) {
+        if (photoIds.isEmpty()) {
+            return Map.of();
+        }
+        return ratingRepository.findRatingValues(userId, photoIds).stream()
+                .collect(Collectors.toMap(RatingRepository.PhotoRatingValue::getPhotoId,
+                        RatingRepository.PhotoRatingValue::getRatingValue));
+    }
+
     @Transactional(readOnly = true)
     public Page<Photo> getPhotosForAdmin(final Pageable pageable) {
-        return photoRepository.findAll(pageable);
+        return toPage(photoRepository.findAllBy(pageable), pageable, photoCountService::countAll);
     }
 
     @Transactional
@@ -83,6 +430,9 @@ public class PhotoService {
 
         deletePhotoFiles(photo);
         photoRepository.delete(photo);
+        photoDataVersion.bump(photo);
+        photoSpatialIndex.remove(photo);
+        photoCatalog.remove(photoId);
         log.info("Photo deleted: id={}, filename={}", photoId, photo.getFilename());
     }
 
@@ -93,54 +443,124 @@ public class PhotoService {
 
         deletePhotoFiles(photo);
         photoRepository.delete(photo);
+        photoDataVersion.bump(photo);
+        photoSpatialIndex.remove(photo);
+        photoCatalog.remove(photoId);
         log.info("Photo deleted by admin: id={}, filename={}", photoId, photo.getFilename());
     }
 
+    /**
+     * Sets the user's rating of a photo and returns it with the photo's updated aggregates.
+     */
     @Transactional
-    public Rating ratePhoto(final Long photoId, final Long userId, final Integer ratingValue) {
-        final Photo photo = photoRepository.findById(photoId)
-                .orElseThrow(() -> new IllegalArgumentException(ERROR_PHOTO_NOT_FOUND));
+    public RatingResponse ratePhoto(final Long photoId, final Long userId, final Integer ratingValue) {
+        final Map<Long, Integer> ratings = new HashMap<>();
+        ratings.put(photoId, ratingValue);
+        return ratePhotos(userId, ratings).get(0);
+    }
 
-        if (ratingValue < 1 || ratingValue > 5) {
+    /**
+     * Applies the user's ratings of several photos in one transaction; an unknown photo rolls back
+     * all of them. On PostgreSQL each attempt is a single statement that upserts the ratings and
+     * updates the aggregates. Other databases read every existing rating under a lock and write it
+     * separately.
+     *
+     * @param ratings star value by photo id
+     * @return the ratings in the iteration order of {@code ratings}
+     */
+    @Transactional
+    public List<RatingResponse> ratePhotos(final Long userId, final Map<Long, Integer> ratings) {
+        if (ratings.isEmpty() || ratings.size() > MAX_BATCH_RATINGS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_BATCH_RATINGS + " ratings can be applied at once");
+        }
+        if (ratings.values().stream().anyMatch(value -> value == null || value < 1 || value > 5)) {
             throw new IllegalArgumentException("Rating must be between 1 and 5");
         }
 
-        final Optional<Rating> existingRating = ratingRepository.findByPhotoIdAndUserId(photoId, userId);
+        final List<RatingResponse> responses = databasePlatform.isPostgres()
+                ? upsertRatings(userId, ratings)
+                : ratings.entrySet().stream().map(entry -> rateWithLock(entry.getKey(), userId, entry.getValue())).toList();
+        responses.forEach(response -> photoCatalog.updateRating(response.photoId(), response.averageRating()));
+        return responses;
+    }
 
-        if (existingRating.isPresent()) {
-            final Rating rating = existingRating.get();
-            rating.setRatingValue(ratingValue);
-            return ratingRepository.save(rating);
-        } else {
+    private List<RatingResponse> upsertRatings(final Long userId, final Map<Long, Integer> ratings) {
+        final Map<Long, RatingRepository.RatingUpsert> applied = new HashMap<>();
+        Map<Long, Integer> pending = ratings;
+        // The second attempt updates first ratings that another request of the same user inserted meanwhile
+        for (int attempt = 0; attempt < 2 && !pending.isEmpty(); attempt++) {
+            ratingRepository.upsertRatings(userId, pending.keySet().toArray(Long[]::new), pending.values().toArray(Integer[]::new))
+                    .forEach(row -> applied.put(row.getPhotoId(), row));
+            pending = ratings.entrySet().stream()
+                    .filter(entry -> !applied.containsKey(entry.getKey()))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        }
+        if (!pending.isEmpty()) {
+            throw new IllegalArgumentException(ERROR_PHOTO_NOT_FOUND);
+        }
+
+        return ratings.keySet().stream().map(photoId -> {
+            final RatingRepository.RatingUpsert row = applied.get(photoId);
+            final Photo photo = new Photo();
+            photo.setId(photoId);
+            photo.setGpsLatitude(row.getGpsLatitude());
+            photo.setGpsLongitude(row.getGpsLongitude());
+            photoDataVersion.bump(photo);
+            return new RatingResponse(row.getId(), photoId, userId, row.getRating(), row.getCreatedAt(),
+                    row.getAverageRating(), row.getTotalRatings());
+        }).toList();
+    }
+
+    private RatingResponse rateWithLock(final Long photoId, final Long userId, final int ratingValue) {
+        final Photo photo = photoRepository.findById(photoId)
+                .orElseThrow(() -> new IllegalArgumentException(ERROR_PHOTO_NOT_FOUND));
+        photoDataVersion.bump(photo);
+
+        final Optional<Rating> existingRating = ratingRepository.findByPhotoIdAndUserId(photoId, userId);
+        final int previousValue = existingRating.map(Rating::getRatingValue).orElse(0);
+        final Rating rating = existingRating.orElseGet(() -> {
             final Rating newRating = new Rating();
             newRating.setPhoto(photo);
             newRating.setUser(new User());
             newRating.getUser().setId(userId);
-            newRating.setRatingValue(ratingValue);
-            return ratingRepository.save(newRating);
-        }
+            return newRating;
+        });
+        rating.setRatingValue(ratingValue);
+        final Rating saved = ratingRepository.save(rating);
+
+        final int countDelta = existingRating.isPresent() ? 0 : 1;
+        photoRepository.applyRatingChange(photoId, ratingValue - previousValue, countDelta, ratingValue, previousValue);
+        // The bulk update bypasses the loaded entity, so the new aggregates are derived from it
+        final int totalRatings = photo.getRatingCount() + countDelta;
+        return new RatingResponse(saved.getId(), photoId, userId, ratingValue, saved.getCreatedAt(),
+                (double) (photo.getRatingSum() + ratingValue - previousValue) / totalRatings, totalRatings);
     }
 
     @Transactional
     public void clearRating(final Long photoId, final Long userId) {
-        ratingRepository.findByPhotoIdAndUserId(photoId, userId)
+        final Rating rating = ratingRepository.findByPhotoIdAndUserId(photoId, userId)
                 .orElseThrow(() -> new IllegalArgumentException("Rating not found"));
 
         ratingRepository.deleteByPhotoIdAndUserId(photoId, userId);
+        photoRepository.applyRatingChange(photoId, -rating.getRatingValue(), -1, 0, rating.getRatingValue());
+        photoDataVersion.bump(rating.getPhoto());
+        photoCatalog.refreshRating(photoId);
         log.info("Rating cleared: photoId={}, userId={}", photoId, userId);
     }
 
 
     private void deletePhotoFiles(final Photo photo) throws IOException {
-        final Path originalPath = Paths.get(originalDirectory, photo.getFilename());
-        Files.deleteIfExists(originalPath);
-        log.info("Deleted original: {}", originalPath);
+        photoStorage.delete(StorageArea.ORIGINAL, photo.getFilename());
+        log.info("Deleted original: {}", photo.getFilename());
 
         if (photo.getThumbnailFilename() != null) {
-            final String filename = photo.getThumbnailFilename();
-            final Path mediumPath = Paths.get(mediumDirectory, filename);
-            Files.deleteIfExists(mediumPath);
-            log.info("Deleted thumbnail: {}", mediumPath);
+            photoStorage.delete(StorageArea.MEDIUM, photo.getThumbnailFilename());
+            log.info("Deleted thumbnail: {}", photo.getThumbnailFilename());
+        }
+
+        if (packedThumbnailStore.isEnabled()) {
+            packedThumbnailStore.delete(photo.getId());
         }
+        derivedImageCache.evictPhoto(photo.getId());
     }
 }
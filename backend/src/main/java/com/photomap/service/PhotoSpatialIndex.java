@@ -0,0 +1,399 @@
+package com.photomap.service;
+
+import com.photomap.dto.MapPoints;
+import com.photomap.model.Photo;
+import com.photomap.repository.BoundingBox;
+import com.photomap.repository.GeoPoint;
+import com.photomap.repository.PhotoRepository;
+import com.photomap.repository.PhotoSpecification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory spatial index over the location of every geotagged photo, so map and bounding box
+ * queries can find photo ids without a database round trip. Points live in a static
+ * {@link KdTree}; photos added or deleted since it was built are kept in a small overlay that
+ * is folded into a new tree once it grows. Readers work on an immutable snapshot and never
+ * block; writers are serialized.
+ *
+ * <p>The index is built when the application is ready and kept current from the write paths
+ * of this node; writes made through other nodes are caught by {@link #refresh}, which
+ * {@link PhotoDataSync} runs whenever the photo data has moved. Until the index is built every
+ * lookup reports no answer, and callers fall back to SQL.
+ */
+@Component
+@Slf4j
+public class PhotoSpatialIndex {
+
+    /**
+     * Receives points found by a query; return {@code false} to stop the search.
+     */
+    @FunctionalInterface
+    public interface PointVisitor {
+        boolean visit(long id, double latitude, double longitude);
+    }
+
+    // Overlay size (added plus removed photos) that triggers a rebuild, at least this many ...
+    private static final int MIN_REBUILD_THRESHOLD = 1024;
+    // ... or this fraction of the tree, keeping rebuild cost per write constant
+    private static final int REBUILD_DIVISOR = 8;
+    private static final int OVERLAY_INITIAL_CAPACITY = 64;
+
+    private final PhotoRepository photoRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${photo.spatial-index.enabled:true}")
+    private boolean enabled;
+
+    private volatile Snapshot snapshot = Snapshot.empty();
+    private volatile boolean ready;
+
+    public PhotoSpatialIndex(final PhotoRepository photoRepository, final PlatformTransactionManager transactionManager) {
+        this.photoRepository = photoRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Loads every geotagged photo from the database and replaces the index.
+     */
+    public synchronized void rebuild() {
+        final long start = System.nanoTime();
+        final MapPoints points = transactionTemplate.execute(status -> photoRepository.findMapPoints(PhotoSpecification.hasGps(true)));
+        final int size = points != null ? points.size() : 0;
+        final long[] ids = new long[size];
+        final double[] latitudes = new double[size];
+        final double[] longitudes = new double[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = points.id(i);
+            latitudes[i] = points.latitude(i);
+            longitudes[i] = points.longitude(i);
+        }
+        snapshot = Snapshot.of(new KdTree(ids, latitudes, longitudes, size));
+        ready = true;
+        log.info("Spatial index built: {} photos in {} ms", size, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Rebuilds the index if it no longer holds the geotagged photos of the database, e.g. after
+     * uploads or deletes made through another node. Count and id sum are compared, so writes
+     * this node has already applied do not cost a rebuild.
+     */
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        final PhotoRepository.IdSummary stored = transactionTemplate.execute(status -> photoRepository.summarizeGeotagged());
+        final Snapshot current = snapshot;
+        final long[] indexed = {0, 0};
+        final PointVisitor count = (id, latitude, longitude) -> {
+            if (!current.isRemoved(id)) {
+                indexed[0]++;
+                indexed[1] += id;
+            }
+            return true;
+        };
+        current.tree.range(-90, -180, 90, 180, count);
+        for (final int i : current.liveOverlay()) {
+            indexed[0]++;
+            indexed[1] += current.addedIds[i];
+        }
+        if (stored != null && (stored.getCount() != indexed[0] || stored.getIdSum() != indexed[1])) {
+            log.info("Spatial index out of step with the database ({} indexed, {} stored), rebuilding", indexed[0], stored.getCount());
+            rebuild();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        final Snapshot current = snapshot;
+        return current.tree.size() + current.addedCount - current.removed.length;
+    }
+
+    /**
+     * Adds a geotagged photo once the current transaction commits. Adding a photo that is
+     * already indexed has no effect.
+     */
+    public void add(final Photo photo) {
+        if (photo.getId() == null || photo.getGpsLatitude() == null || photo.getGpsLongitude() == null) {
+            return;
+        }
+        final long id = photo.getId();
+        final double latitude = photo.getGpsLatitude().doubleValue();
+        final double longitude = photo.getGpsLongitude().doubleValue();
+        TransactionHooks.afterCommit(() -> insert(id, latitude, longitude));
+    }
+
+    /**
+     * Removes a photo once the current transaction commits.
+     */
+    public void remove(final Photo photo) {
+        if (photo.getId() == null || photo.getGpsLatitude() == null || photo.getGpsLongitude() == null) {
+            return;
+        }
+        final long id = photo.getId();
+        TransactionHooks.afterCommit(() -> delete(id));
+    }
+
+    /**
+     * Ids of the photos inside the box.
+     *
+     * @return empty if the index is not built yet or more than {@code limit} photos match
+     */
+    public Optional<List<Long>> findWithin(final BoundingBox bounds, final int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        final List<Long> ids = new ArrayList<>();
+        final boolean complete = forEachWithin(bounds, (id, latitude, longitude) -> {
+            ids.add(id);
+            return ids.size() <= limit;
+        });
+        return complete ? Optional.of(ids) : Optional.empty();
+    }
+
+    /**
+     * Ids of the photos within {@code meters} (great-circle distance) of the center, nearest first.
+     *
+     * @return empty if the index is not built yet or more than {@code limit} photos match
+     */
+    public Optional<List<Long>> findWithinRadius(final GeoPoint center, final double meters, final int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        final List<Long> ids = findNearest(center, limit + 1, meters);
+        return ids.size() <= limit ? Optional.of(ids) : Optional.empty();
+    }
+
+    /**
+     * Ids of the {@code count} photos nearest to the center and at most {@code maxMeters} away,
+     * nearest first.
+     */
+    public List<Long> findNearest(final GeoPoint center, final int count, final double maxMeters) {
+        final Snapshot current = snapshot;
+        final double lat = center.latitude();
+        final double lng = center.longitude();
+
+        // Overlay points are few; they are merged into the tree's distance-ordered stream
+        final int[] order = current.liveOverlay();
+        final double[] overlayDistances = new double[order.length];
+        final Integer[] sorted = new Integer[order.length];
+        for (int i = 0; i < order.length; i++) {
+            overlayDistances[i] = KdTree.distanceMeters(lat, lng, current.addedLatitudes[order[i]], current.addedLongitudes[order[i]]);
+            sorted[i] = i;
+        }
+        Arrays.sort(sorted, (a, b) -> Double.compare(overlayDistances[a], overlayDistances[b]));
+
+        final List<Long> ids = new ArrayList<>(Math.min(count, 1024));
+        final int[] next = {0};
+        current.tree.nearest(lat, lng, maxMeters, (id, latitude, longitude) -> {
+            if (current.isRemoved(id)) {
+                return true;
+            }
+            final double distance = KdTree.distanceMeters(lat, lng, latitude, longitude);
+            while (next[0] < sorted.length && overlayDistances[sorted[next[0]]] <= distance && ids.size() < count) {
+                ids.add(current.addedIds[order[sorted[next[0]++]]]);
+            }
+            if (ids.size() < count) {
+                ids.add(id);
+            }
+            return ids.size() < count;
+        });
+        while (next[0] < sorted.length && ids.size() < count && overlayDistances[sorted[next[0]]] <= maxMeters) {
+            ids.add(current.addedIds[order[sorted[next[0]++]]]);
+        }
+        return ids;
+    }
+
+    /**
+     * Visits the photos inside the box in no particular order.
+     *
+     * @return false if the visitor stopped the search
+     */
+    public boolean forEachWithin(final BoundingBox bounds, final PointVisitor visitor) {
+        final Snapshot current = snapshot;
+        final PointVisitor live = (id, latitude, longitude) -> current.isRemoved(id) || visitor.visit(id, latitude, longitude);
+        for (final double[] range : bounds.longitudeRanges(360)) {
+            if (!current.tree.range(bounds.south(), range[0], bounds.north(), range[1], live)) {
+                return false;
+            }
+        }
+        for (final int i : current.liveOverlay()) {
+            final double latitude = current.addedLatitudes[i];
+            final double longitude = current.addedLongitudes[i];
+            if (latitude >= bounds.south() && latitude <= bounds.north() && inLongitudes(bounds, longitude)
+                    && !visitor.visit(current.addedIds[i], latitude, longitude)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean inLongitudes(final BoundingBox bounds, final double longitude) {
+        return bounds.crossesAntimeridian()
+                ? longitude >= bounds.west() || longitude <= bounds.east()
+                : longitude >= bounds.west() && longitude <= bounds.east();
+    }
+
+    synchronized void insert(final long id, final double latitude, final double longitude) {
+        final Snapshot current = snapshot;
+        if (current.contains(id, latitude, longitude)) {
+            return;
+        }
+        update(current.withAdded(id, latitude, longitude));
+    }
+
+    synchronized void delete(final long id) {
+        update(snapshot.withRemoved(id));
+    }
+
+    private void update(final Snapshot next) {
+        final int threshold = Math.max(MIN_REBUILD_THRESHOLD, next.tree.size() / REBUILD_DIVISOR);
+        snapshot = next.addedCount + next.removed.length > threshold ? next.compact() : next;
+    }
+
+    /**
+     * Immutable state of the index: the tree, photos added since it was built and the sorted
+     * ids of photos removed since (from the tree or the overlay).
+     *
+     * <p>The overlay arrays have spare capacity and are shared by the snapshots derived from one
+     * another: an insert writes the slot past {@code addedCount} and publishes a snapshot with a
+     * larger count, so older snapshots never see it. Only the writer reads {@code addedIdSet}.
+     */
+    private static final class Snapshot {
+
+        static Snapshot empty() {
+            return of(new KdTree(new long[0], new double[0], new double[0], 0));
+        }
+
+        private final KdTree tree;
+        private final long[] addedIds;
+        private final double[] addedLatitudes;
+        private final double[] addedLongitudes;
+        private final int addedCount;
+        private final Set<Long> addedIdSet;
+        private final long[] removed;
+
+        private Snapshot(final KdTree tree, final long[] addedIds, final double[] addedLatitudes, final double[] addedLongitudes,
+                         final int addedCount, final Set<Long> addedIdSet, final long[] removed) {
+            this.tree = tree;
+            this.addedIds = addedIds;
+            this.addedLatitudes = addedLatitudes;
+            this.addedLongitudes = addedLongitudes;
+            this.addedCount = addedCount;
+            this.addedIdSet = addedIdSet;
+            this.removed = removed;
+        }
+
+        static Snapshot of(final KdTree tree) {
+            return new Snapshot(tree, new long[0], new double[0], new double[0], 0, new HashSet<>(), new long[0]);
+        }
+
+        boolean isRemoved(final long id) {
+            return removed.length > 0 && Arrays.binarySearch(removed, id) >= 0;
+        }
+
+        /**
+         * Overlay positions of added photos that have not been removed again.
+         */
+        int[] liveOverlay() {
+            final int[] live = new int[addedCount];
+            int count = 0;
+            for (int i = 0; i < addedCount; i++) {
+                if (!isRemoved(addedIds[i])) {
+                    live[count++] = i;
+                }
+            }
+            return count == addedCount ? live : Arrays.copyOf(live, count);
+        }
+
+        boolean contains(final long id, final double latitude, final double longitude) {
+            if (isRemoved(id)) {
+                return false;
+            }
+            if (addedIdSet.contains(id)) {
+                return true;
+            }
+            return !tree.range(latitude, longitude, latitude, longitude, (found, lat, lng) -> found != id);
+        }
+
+        Snapshot withAdded(final long id, final double latitude, final double longitude) {
+            long[] ids = addedIds;
+            double[] latitudes = addedLatitudes;
+            double[] longitudes = addedLongitudes;
+            if (addedCount == ids.length) {
+                final int capacity = Math.max(OVERLAY_INITIAL_CAPACITY, addedCount * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+            }
+            ids[addedCount] = id;
+            latitudes[addedCount] = latitude;
+            longitudes[addedCount] = longitude;
+            addedIdSet.add(id);
+            return new Snapshot(tree, ids, latitudes, longitudes, addedCount + 1, addedIdSet, removed);
+        }
+
+        Snapshot withRemoved(final long id) {
+            final int position = Arrays.binarySearch(removed, id);
+            if (position >= 0) {
+                return this;
+            }
+            final int insertAt = -position - 1;
+            final long[] next = new long[removed.length + 1];
+            System.arraycopy(removed, 0, next, 0, insertAt);
+            next[insertAt] = id;
+            System.arraycopy(removed, insertAt, next, insertAt + 1, removed.length - insertAt);
+            return new Snapshot(tree, addedIds, addedLatitudes, addedLongitudes, addedCount, addedIdSet, next);
+        }
+
+        /**
+         * Folds the overlay into a new tree.
+         */
+        Snapshot compact() {
+            final int capacity = tree.size() + addedCount;
+            final long[] ids = new long[capacity];
+            final double[] latitudes = new double[capacity];
+            final double[] longitudes = new double[capacity];
+            final int[] size = {0};
+            tree.range(-90, -180, 90, 180, (id, latitude, longitude) -> {
+                if (!isRemoved(id)) {
+                    ids[size[0]] = id;
+                    latitudes[size[0]] = latitude;
+                    longitudes[size[0]] = longitude;
+                    size[0]++;
+                }
+                return true;
+            });
+            for (final int i : liveOverlay()) {
+                ids[size[0]] = addedIds[i];
+                latitudes[size[0]] = addedLatitudes[i];
+                longitudes[size[0]] = addedLongitudes[i];
+                size[0]++;
+            }
+            return of(new KdTree(ids, latitudes, longitudes, size[0]));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.photomap.service;
+
+import com.photomap.dto.RatingReconciliationStatus;
+import com.photomap.repository.PhotoRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomputes the rating aggregates stored on photos from the ratings table and
+ * corrects rows that drifted. Works through id ranges, one short transaction per range.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RatingReconciliationService {
+
+    private static final long BATCH_SIZE = 1000;
+
+    private final PhotoRepository photoRepository;
+    private final PhotoDataVersion photoDataVersion;
+    private final PhotoCatalog photoCatalog;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong lastScannedId = new AtomicLong();
+    private final AtomicLong correctedPhotos = new AtomicLong();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts the reconciliation in the background; calling it while a run is in progress has no effect.
+     */
+    public RatingReconciliationStatus start() {
+        if (running.compareAndSet(false, true)) {
+            lastScannedId.set(0);
+            correctedPhotos.set(0);
+            startedAt = Instant.now();
+            finishedAt = null;
+            executor.submit(this::reconcile);
+        }
+        return getStatus();
+    }
+
+    public RatingReconciliationStatus getStatus() {
+        return new RatingReconciliationStatus(
+                running.get(),
+                lastScannedId.get(),
+                correctedPhotos.get(),
+                startedAt,
+                finishedAt
+        );
+    }
+
+    void reconcile() {
+        log.info("Rating reconciliation started");
+        try {
+            final Long maxId = photoRepository.findMaxId();
+            if (maxId == null) {
+                return;
+            }
+            for (long fromId = 1; fromId <= maxId && !Thread.currentThread().isInterrupted(); fromId += BATCH_SIZE) {
+                final long toId = Math.min(fromId + BATCH_SIZE - 1, maxId);
+                final int corrected = photoRepository.reconcileRatingAggregates(fromId, toId);
+                if (corrected > 0) {
+                    correctedPhotos.addAndGet(corrected);
+                    photoDataVersion.bump();
+                }
+                lastScannedId.set(toId);
+            }
+        } catch (final RuntimeException e) {
+            log.error("Rating reconciliation aborted", e);
+        } finally {
+            if (correctedPhotos.get() > 0) {
+                photoCatalog.invalidate();
+            }
+            finishedAt = Instant.now();
+            running.set(false);
+            log.info("Rating reconciliation finished: lastScannedId={}, corrected={}",
+                    lastScannedId.get(), correctedPhotos.get());
+        }
+    }
+}
@@ -16,11 +16,16 @@ public class SettingsService {
 
     @Transactional(readOnly = true)
     public String getSetting(final String key) {
-        return appSettingsRepository.findBySettingKey(key)
+        return findSetting(key)
                 .map(AppSettings::getSettingValue)
                 .orElse(null);
     }
 
+    @Transactional(readOnly = true)
+    public Optional<AppSettings> findSetting(final String key) {
+        return appSettingsRepository.findBySettingKey(key);
+    }
+
     @Transactional
     public void updateSetting(final String key, final String value) {
         final Optional<AppSettings> existingOpt = appSettingsRepository.findBySettingKey(key);
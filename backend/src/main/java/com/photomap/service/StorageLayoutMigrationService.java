@@ -0,0 +1,135 @@
+package com.photomap.service;
+
+import com.photomap.dto.StorageMigrationStatus;
+import com.photomap.model.Photo;
+import com.photomap.repository.PhotoRepository;
+import com.photomap.storage.PhotoPathResolver;
+import com.photomap.storage.PhotoStorage;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves files stored in the legacy flat layout into the sharded layout while the
+ * application keeps serving: {@link PhotoPathResolver} finds a file in either place
+ * and each file is moved atomically.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StorageLayoutMigrationService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final PhotoRepository photoRepository;
+    private final PhotoPathResolver photoPathResolver;
+    private final PhotoStorage photoStorage;
+
+    @Value("${photo.upload.directory.original}")
+    private String originalDirectory;
+
+    @Value("${photo.upload.directory.medium}")
+    private String mediumDirectory;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong scannedPhotos = new AtomicLong();
+    private final AtomicLong movedFiles = new AtomicLong();
+    private final AtomicLong failedFiles = new AtomicLong();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts the migration in the background; calling it while a run is in progress has no effect.
+     */
+    public StorageMigrationStatus start() {
+        if (photoStorage.isShared()) {
+            throw new IllegalArgumentException("Layout migration applies to local storage only");
+        }
+        if (!photoPathResolver.isSharded()) {
+            throw new IllegalArgumentException("Storage layout is not sharded");
+        }
+
+        if (running.compareAndSet(false, true)) {
+            scannedPhotos.set(0);
+            movedFiles.set(0);
+            failedFiles.set(0);
+            startedAt = Instant.now();
+            finishedAt = null;
+            executor.submit(this::migrate);
+        }
+        return getStatus();
+    }
+
+    public StorageMigrationStatus getStatus() {
+        return new StorageMigrationStatus(
+                running.get(),
+                scannedPhotos.get(),
+                movedFiles.get(),
+                failedFiles.get(),
+                startedAt,
+                finishedAt
+        );
+    }
+
+    void migrate() {
+        log.info("Storage layout migration started");
+        try {
+            Long lastId = 0L;
+            List<Photo> batch;
+            do {
+                batch = photoRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, BATCH_SIZE));
+                for (final Photo photo : batch) {
+                    migrateFile(originalDirectory, photo.getFilename());
+                    if (photo.getThumbnailFilename() != null) {
+                        migrateFile(mediumDirectory, photo.getThumbnailFilename());
+                    }
+                    scannedPhotos.incrementAndGet();
+                    lastId = photo.getId();
+                }
+            } while (batch.size() == BATCH_SIZE && !Thread.currentThread().isInterrupted());
+        } catch (final RuntimeException e) {
+            log.error("Storage layout migration aborted", e);
+        } finally {
+            finishedAt = Instant.now();
+            running.set(false);
+            log.info("Storage layout migration finished: scanned={}, moved={}, failed={}",
+                    scannedPhotos.get(), movedFiles.get(), failedFiles.get());
+        }
+    }
+
+    private void migrateFile(final String directory, final String filename) {
+        final Path flat = Paths.get(directory, filename);
+        if (!Files.exists(flat)) {
+            return;
+        }
+        try {
+            final Path target = photoPathResolver.target(directory, filename);
+            Files.move(flat, target, StandardCopyOption.ATOMIC_MOVE);
+            movedFiles.incrementAndGet();
+        } catch (final IOException e) {
+            failedFiles.incrementAndGet();
+            log.warn("Failed to move {} into sharded layout: {}", flat, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.photomap.service;
+
+import com.photomap.model.Photo;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams the thumbnails of many photos as a single multipart/mixed response.
+ * Files are read (and generated when missing) in parallel, parts are written in
+ * the order of the given photos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailBatchService {
+
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final String PHOTO_ID_HEADER = "X-Photo-Id";
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final PhotoProcessingService photoProcessingService;
+
+    @Value("${photo.thumbnail.batch.parallelism:4}")
+    private int parallelism;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public void writeMultipart(final List<Photo> photos, final String boundary, final OutputStream out) throws IOException {
+        final List<CompletableFuture<byte[]>> reads = new ArrayList<>(photos.size());
+        for (final Photo photo : photos) {
+            reads.add(CompletableFuture.supplyAsync(() -> readThumbnail(photo), executor));
+        }
+
+        final byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < photos.size(); i++) {
+            final Photo photo = photos.get(i);
+            final byte[] content = reads.get(i).join();
+            if (content == null) {
+                continue;
+            }
+
+            out.write(delimiter);
+            out.write(CRLF);
+            writeHeader(out, "Content-Type", photo.getMimeType() != null ? photo.getMimeType() : MediaType.IMAGE_JPEG_VALUE);
+            writeHeader(out, "Content-Length", String.valueOf(content.length));
+            writeHeader(out, PHOTO_ID_HEADER, String.valueOf(photo.getId()));
+            out.write(CRLF);
+            out.write(content);
+            out.write(CRLF);
+            out.flush();
+        }
+
+        out.write(delimiter);
+        out.write("--".getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+        out.flush();
+    }
+
+    private byte[] readThumbnail(final Photo photo) {
+        try {
+            final Optional<Resource> thumbnail = photoProcessingService.loadThumbnail(photo);
+            if (thumbnail.isEmpty()) {
+                log.warn("Thumbnail unavailable for photo {}", photo.getId());
+                return null;
+            }
+            try (InputStream in = thumbnail.get().getInputStream()) {
+                return in.readAllBytes();
+            }
+        } catch (final IOException e) {
+            // One unreadable thumbnail must not break the whole batch
+            log.warn("Failed to read thumbnail for photo {}: {}", photo.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeHeader(final OutputStream out, final String name, final String value) throws IOException {
+        out.write((name + ": " + value).getBytes(StandardCharsets.US_ASCII));
+        out.write(CRLF);
+    }
+}
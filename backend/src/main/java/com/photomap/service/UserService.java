@@ -9,6 +9,7 @@ import com.photomap.model.User;
 import com.photomap.repository.PhotoRepository;
 import com.photomap.repository.UserRepository;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -17,29 +18,46 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 @Service
 public class UserService {
 
     private static final String ERROR_USER_NOT_FOUND = "User not found";
+    // Trigrams need three characters; shorter search terms match as a prefix
+    private static final int MIN_SUBSTRING_SEARCH_LENGTH = 3;
 
     private final UserRepository userRepository;
     private final PhotoRepository photoRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PhotoDataVersion photoDataVersion;
+    private final PhotoCatalog photoCatalog;
 
     public UserService(final UserRepository userRepository, final PhotoRepository photoRepository,
-                       final PasswordEncoder passwordEncoder) {
+                       final PasswordEncoder passwordEncoder, final PhotoDataVersion photoDataVersion,
+                       final PhotoCatalog photoCatalog) {
         this.userRepository = userRepository;
         this.photoRepository = photoRepository;
         this.passwordEncoder = passwordEncoder;
+        this.photoDataVersion = photoDataVersion;
+        this.photoCatalog = photoCatalog;
     }
 
+    /**
+     * Users page for the admin panel. A search term of three or more characters matches
+     * anywhere in the email, best matches first; a shorter one matches the start of the email,
+     * in email order. The requested sort only applies without a search term.
+     */
     @Transactional(readOnly = true)
     public Page<UserAdminResponse> listAllUsers(final Pageable pageable, final String searchEmail) {
         final Page<User> users;
         if (searchEmail != null && !searchEmail.trim().isEmpty()) {
-            users = userRepository.findByEmailContainingIgnoreCase(searchEmail.trim(), pageable);
+            final String term = searchEmail.trim().toLowerCase(Locale.ROOT);
+            final Pageable ranked = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+            users = term.length() < MIN_SUBSTRING_SEARCH_LENGTH
+                    ? userRepository.searchByEmailPrefix(escapeLike(term) + "%", ranked)
+                    : userRepository.searchByEmailSimilarity(term, "%" + escapeLike(term) + "%", ranked);
         } else {
             users = userRepository.findAll(pageable);
         }
@@ -85,7 +103,11 @@ public class UserService {
             throw new IllegalArgumentException("Cannot delete yourself");
         }
 
+        // Deleting the user cascades their ratings away, so the photo aggregates are corrected first
+        photoRepository.removeUserRatings(userId);
         userRepository.delete(userToDelete);
+        photoDataVersion.bump();
+        photoCatalog.invalidate();
     }
 
     @Transactional
@@ -134,4 +156,11 @@ public class UserService {
     public List<User> getInactiveUsers() {
         return userRepository.findByIsActive(false);
     }
+
+    /**
+     * Escapes LIKE wildcards with the default backslash escape character.
+     */
+    private static String escapeLike(final String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
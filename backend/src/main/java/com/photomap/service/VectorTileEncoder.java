@@ -0,0 +1,155 @@
+package com.photomap.service;
+
+import com.photomap.dto.MapPoints;
+import com.photomap.repository.MapTile;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes photo points as a Mapbox Vector Tile (specification 2.1): one {@value #LAYER} layer
+ * with a point feature per photo carrying the {@code id}, {@code rating} and {@code takenAt}
+ * attributes. The protobuf wire format is written directly, the tile schema is small enough
+ * not to need generated classes.
+ */
+public final class VectorTileEncoder {
+
+    public static final String LAYER = "photos";
+    public static final int EXTENT = 4096;
+
+    private static final int VERSION = 2;
+    private static final int WIRE_VARINT = 0;
+    private static final int WIRE_64BIT = 1;
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+    private static final int GEOMETRY_POINT = 1;
+    private static final int COMMAND_MOVE_TO_ONCE = 1 | 1 << 3;
+    private static final List<String> KEYS = List.of("id", "rating", "takenAt");
+
+    private VectorTileEncoder() {
+    }
+
+    /**
+     * @param points photos inside the tile and its buffer; points outside the tile are encoded
+     *               with coordinates beyond the extent, as the specification allows
+     */
+    public static byte[] encode(final MapTile tile, final MapPoints points) {
+        final ValueTable values = new ValueTable();
+        final ProtoWriter layer = new ProtoWriter();
+        layer.writeVarintField(15, VERSION);
+        layer.writeBytesField(1, LAYER.getBytes(StandardCharsets.UTF_8));
+
+        final int tiles = 1 << tile.z();
+        for (int i = 0; i < points.size(); i++) {
+            // Buffered points across the antimeridian are placed next to the tile, not a world away
+            double dx = MapTile.tileX(points.longitude(i), tile.z()) - tile.x();
+            if (dx > tiles / 2.0) {
+                dx -= tiles;
+            } else if (dx < -tiles / 2.0) {
+                dx += tiles;
+            }
+            final double dy = MapTile.tileY(points.latitude(i), tile.z()) - tile.y();
+
+            final ProtoWriter tags = new ProtoWriter();
+            tags.writeVarint(0);
+            tags.writeVarint(values.index(points.id(i)));
+            final Double rating = points.ratingAvg(i);
+            if (rating != null) {
+                tags.writeVarint(1);
+                tags.writeVarint(values.index(rating));
+            }
+            final Long takenAt = points.takenAt(i);
+            if (takenAt != null) {
+                tags.writeVarint(2);
+                tags.writeVarint(values.index(takenAt));
+            }
+
+            final ProtoWriter geometry = new ProtoWriter();
+            geometry.writeVarint(COMMAND_MOVE_TO_ONCE);
+            geometry.writeVarint(zigZag(Math.round(dx * EXTENT)));
+            geometry.writeVarint(zigZag(Math.round(dy * EXTENT)));
+
+            final ProtoWriter feature = new ProtoWriter();
+            feature.writeVarintField(1, points.id(i));
+            feature.writeBytesField(2, tags.toByteArray());
+            feature.writeVarintField(3, GEOMETRY_POINT);
+            feature.writeBytesField(4, geometry.toByteArray());
+            layer.writeBytesField(2, feature.toByteArray());
+        }
+
+        for (final String key : KEYS) {
+            layer.writeBytesField(3, key.getBytes(StandardCharsets.UTF_8));
+        }
+        for (final Object value : values.values) {
+            final ProtoWriter encoded = new ProtoWriter();
+            if (value instanceof Double number) {
+                encoded.writeTag(3, WIRE_64BIT);
+                encoded.writeFixed64(Double.doubleToLongBits(number));
+            } else {
+                encoded.writeVarintField(4, (Long) value);
+            }
+            layer.writeBytesField(4, encoded.toByteArray());
+        }
+        layer.writeVarintField(5, EXTENT);
+
+        final ProtoWriter encodedTile = new ProtoWriter();
+        encodedTile.writeBytesField(3, layer.toByteArray());
+        return encodedTile.toByteArray();
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Attribute values shared by the layer's features, each stored once.
+     */
+    private static final class ValueTable {
+
+        private final Map<Object, Integer> indexes = new HashMap<>();
+        private final List<Object> values = new ArrayList<>();
+
+        int index(final Object value) {
+            return indexes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+    }
+
+    private static final class ProtoWriter extends ByteArrayOutputStream {
+
+        void writeTag(final int field, final int wireType) {
+            writeVarint((long) field << 3 | wireType);
+        }
+
+        void writeVarintField(final int field, final long value) {
+            writeTag(field, WIRE_VARINT);
+            writeVarint(value);
+        }
+
+        void writeBytesField(final int field, final byte[] value) {
+            writeTag(field, WIRE_LENGTH_DELIMITED);
+            writeVarint(value.length);
+            write(value, 0, value.length);
+        }
+
+        void writeVarint(final long value) {
+            long remaining = value;
+            while ((remaining & ~0x7FL) != 0) {
+                write((int) (remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            write((int) remaining);
+        }
+
+        void writeFixed64(final long value) {
+            for (int i = 0; i < 8; i++) {
+                write((int) (value >>> (8 * i)) & 0xFF);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.photomap.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Stores photo files on the local file system (or a shared mount), one directory per area,
+ * using the layout of the {@link PhotoPathResolver}.
+ */
+@Slf4j
+public class LocalPhotoStorage implements PhotoStorage {
+
+    private final PhotoPathResolver photoPathResolver;
+    private final String originalDirectory;
+    private final String mediumDirectory;
+
+    public LocalPhotoStorage(final PhotoPathResolver photoPathResolver, final String originalDirectory, final String mediumDirectory) {
+        this.photoPathResolver = photoPathResolver;
+        this.originalDirectory = originalDirectory;
+        this.mediumDirectory = mediumDirectory;
+    }
+
+    public void init() throws IOException {
+        Files.createDirectories(Path.of(originalDirectory));
+        Files.createDirectories(Path.of(mediumDirectory));
+    }
+
+    @Override
+    public void put(final StorageArea area, final String name, final Path source) throws IOException {
+        final Path target = photoPathResolver.target(directory(area), name);
+        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        log.debug("Stored {} file: {}", area, target);
+    }
+
+    @Override
+    public Optional<Resource> get(final StorageArea area, final String name) {
+        final Path path = path(area, name);
+        return Files.exists(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+    }
+
+    @Override
+    public InputStream getRange(final StorageArea area, final String name, final long offset, final long length) throws IOException {
+        final Path path = path(area, name);
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException(path.toString());
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(Math.max(0, Math.min(length, channel.size() - offset))));
+            int read = 0;
+            while (buffer.hasRemaining() && read >= 0) {
+                read = channel.read(buffer, offset + buffer.position());
+            }
+            return new ByteArrayInputStream(Arrays.copyOf(buffer.array(), buffer.position()));
+        }
+    }
+
+    @Override
+    public boolean exists(final StorageArea area, final String name) {
+        return Files.exists(path(area, name));
+    }
+
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    @Override
+    public void delete(final StorageArea area, final String name) throws IOException {
+        final Path path = path(area, name);
+        if (Files.deleteIfExists(path)) {
+            log.info("Deleted {} file: {}", area, path);
+        }
+    }
+
+    /**
+     * Location of a stored file on disk, for callers that need direct file access.
+     */
+    public Path path(final StorageArea area, final String name) {
+        return photoPathResolver.resolve(directory(area), name);
+    }
+
+    private String directory(final StorageArea area) {
+        return switch (area) {
+            case ORIGINAL -> originalDirectory;
+            case MEDIUM -> mediumDirectory;
+        };
+    }
+}
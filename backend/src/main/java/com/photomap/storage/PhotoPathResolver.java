@@ -0,0 +1,82 @@
+package com.photomap.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Maps stored photo files to their location on disk.
+ * <p>
+ * In the {@code sharded} layout files live under two levels of hashed
+ * subdirectories ({@code <dir>/ab/cd/<name>}) so no single directory grows
+ * beyond a few thousand entries. Readers fall back to the legacy flat location
+ * ({@code <dir>/<name>}) so files not yet migrated stay reachable.
+ */
+@Component
+public class PhotoPathResolver {
+
+    public static final String LAYOUT_FLAT = "flat";
+    public static final String LAYOUT_SHARDED = "sharded";
+
+    private final String layout;
+
+    public PhotoPathResolver(@Value("${photo.storage.layout:" + LAYOUT_SHARDED + "}") final String layout) {
+        if (!LAYOUT_FLAT.equals(layout) && !LAYOUT_SHARDED.equals(layout)) {
+            throw new IllegalArgumentException("Unsupported storage layout: " + layout);
+        }
+        this.layout = layout;
+    }
+
+    public boolean isSharded() {
+        return LAYOUT_SHARDED.equals(layout);
+    }
+
+    /**
+     * Location to write a new file to, with parent directories created.
+     */
+    public Path target(final String directory, final String filename) throws IOException {
+        if (!isSharded()) {
+            return Paths.get(directory, filename);
+        }
+        final Path path = shardedPath(directory, filename);
+        Files.createDirectories(path.getParent());
+        return path;
+    }
+
+    /**
+     * Location of an existing file: sharded if present there, otherwise the legacy flat path.
+     * When the file exists in neither place the path for the configured layout is returned.
+     */
+    public Path resolve(final String directory, final String filename) {
+        final Path sharded = shardedPath(directory, filename);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        final Path flat = Paths.get(directory, filename);
+        if (Files.exists(flat) || !isSharded()) {
+            return flat;
+        }
+        return sharded;
+    }
+
+    public Path shardedPath(final String directory, final String filename) {
+        final String hash = HexFormat.of().formatHex(sha256(filename), 0, 2);
+        return Paths.get(directory, hash.substring(0, 2), hash.substring(2, 4), filename);
+    }
+
+    private static byte[] sha256(final String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.photomap.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Storage backend for photo files shared by all backend nodes.
+ * Files are addressed by area and file name; the physical location is up to the implementation.
+ */
+public interface PhotoStorage {
+
+    /**
+     * Stores a local file under the given name, replacing an existing one.
+     * The source file is consumed: moved into place or uploaded and removed.
+     */
+    void put(StorageArea area, String name, Path source) throws IOException;
+
+    /**
+     * Stored file as a resource, or empty when it does not exist.
+     */
+    Optional<Resource> get(StorageArea area, String name) throws IOException;
+
+    /**
+     * Reads {@code length} bytes starting at {@code offset} (fewer when the file ends earlier).
+     */
+    InputStream getRange(StorageArea area, String name, long offset, long length) throws IOException;
+
+    boolean exists(StorageArea area, String name) throws IOException;
+
+    /**
+     * Whether every backend node sees the same files, rather than storage local to this node.
+     */
+    boolean isShared();
+
+    void delete(StorageArea area, String name) throws IOException;
+}
@@ -0,0 +1,362 @@
+package com.photomap.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateBucketRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stores photo files in an S3-compatible bucket (AWS S3, MinIO, ...) under
+ * {@code <area>/<name>} keys, so several stateless backend nodes can share them.
+ * <p>
+ * Large files are uploaded with multipart uploads and read back with parallel
+ * range requests; parts are handed to the reader in order. Reads start with a GET of the
+ * first part, which also tells whether the object exists and how large it is.
+ */
+@Slf4j
+public class S3PhotoStorage implements PhotoStorage, AutoCloseable {
+
+    private static final int NOT_FOUND = 404;
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final long multipartThreshold;
+    private final int partSize;
+    private final int rangeParallelism;
+    private final ExecutorService rangeReaders;
+
+    /**
+     * @param rangeParallelism  range requests one reader keeps in flight
+     * @param concurrentReaders large objects read at the same time at full parallelism; the
+     *                          shared range reader pool is sized for them
+     */
+    public S3PhotoStorage(final S3Client s3Client, final String bucket, final long multipartThreshold, final int partSize,
+                          final int rangeParallelism, final int concurrentReaders) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
+        this.rangeParallelism = rangeParallelism;
+        this.rangeReaders = Executors.newFixedThreadPool(rangeParallelism * concurrentReaders);
+    }
+
+    /**
+     * Creates the bucket when it does not exist yet (convenient for a fresh MinIO).
+     */
+    public void ensureBucket() {
+        try {
+            s3Client.headBucket(HeadBucketRequest.builder().bucket(bucket).build());
+        } catch (final S3Exception e) {
+            if (e.statusCode() != NOT_FOUND) {
+                throw e;
+            }
+            s3Client.createBucket(CreateBucketRequest.builder().bucket(bucket).build());
+            log.info("Created storage bucket: {}", bucket);
+        }
+    }
+
+    @Override
+    public void put(final StorageArea area, final String name, final Path source) throws IOException {
+        final String key = key(area, name);
+        final long size = Files.size(source);
+
+        if (size < multipartThreshold) {
+            s3Client.putObject(PutObjectRequest.builder().bucket(bucket).key(key).build(), RequestBody.fromFile(source));
+        } else {
+            uploadMultipart(key, source, size);
+        }
+
+        Files.delete(source);
+        log.debug("Stored {} bytes as s3://{}/{}", size, bucket, key);
+    }
+
+    @Override
+    public Optional<Resource> get(final StorageArea area, final String name) {
+        final String key = key(area, name);
+        final ResponseBytes<GetObjectResponse> firstPart;
+        try {
+            firstPart = getRangeBytes(key, 0, partSize);
+        } catch (final S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                return Optional.empty();
+            }
+            // A range of an empty object cannot be satisfied
+            if (e.statusCode() == RANGE_NOT_SATISFIABLE) {
+                return Optional.of(new S3ObjectResource(key, new byte[0], 0));
+            }
+            throw e;
+        }
+        final byte[] bytes = firstPart.asByteArray();
+        return Optional.of(new S3ObjectResource(key, bytes, objectLength(firstPart.response(), bytes.length)));
+    }
+
+    @Override
+    public InputStream getRange(final StorageArea area, final String name, final long offset, final long length) throws IOException {
+        final String key = key(area, name);
+        try {
+            return new ByteArrayInputStream(readRange(key, offset, length));
+        } catch (final S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                throw new NoSuchFileException(key);
+            }
+            if (e.statusCode() == RANGE_NOT_SATISFIABLE) {
+                return InputStream.nullInputStream();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean exists(final StorageArea area, final String name) {
+        return head(key(area, name)).isPresent();
+    }
+
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    @Override
+    public void delete(final StorageArea area, final String name) {
+        final String key = key(area, name);
+        s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        log.info("Deleted s3://{}/{}", bucket, key);
+    }
+
+    @Override
+    public void close() {
+        rangeReaders.shutdownNow();
+        s3Client.close();
+    }
+
+    private void uploadMultipart(final String key, final Path source, final long size) throws IOException {
+        final String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .build()).uploadId();
+
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            final List<CompletedPart> parts = new ArrayList<>();
+            final ByteBuffer buffer = ByteBuffer.allocate(partSize);
+            long offset = 0;
+            int partNumber = 1;
+            while (offset < size) {
+                buffer.clear();
+                int read = 0;
+                while (buffer.hasRemaining() && read >= 0) {
+                    read = channel.read(buffer, offset + buffer.position());
+                }
+                buffer.flip();
+
+                final String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .partNumber(partNumber)
+                        .contentLength((long) buffer.remaining())
+                        .build(), RequestBody.fromByteBuffer(buffer)).eTag();
+                parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+
+                offset += buffer.limit();
+                partNumber++;
+            }
+
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+            log.debug("Uploaded s3://{}/{} in {} parts", bucket, key, parts.size());
+        } catch (final IOException | RuntimeException e) {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            throw e;
+        }
+    }
+
+    private Optional<HeadObjectResponse> head(final String key) {
+        try {
+            return Optional.of(s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build()));
+        } catch (final S3Exception e) {
+            if (e.statusCode() == NOT_FOUND) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    private byte[] readRange(final String key, final long offset, final long length) {
+        return getRangeBytes(key, offset, length).asByteArray();
+    }
+
+    private ResponseBytes<GetObjectResponse> getRangeBytes(final String key, final long offset, final long length) {
+        return s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .range("bytes=" + offset + "-" + (offset + length - 1))
+                .build());
+    }
+
+    /**
+     * Total object length from the {@code Content-Range} of a range response ({@code bytes 0-1023/4096});
+     * a server that ignored the range sent the whole object.
+     */
+    private static long objectLength(final GetObjectResponse response, final int received) {
+        final String contentRange = response.contentRange();
+        if (contentRange == null) {
+            return received;
+        }
+        return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1).trim());
+    }
+
+    private static String key(final StorageArea area, final String name) {
+        return area.name().toLowerCase(Locale.ROOT) + "/" + name;
+    }
+
+    /**
+     * Stored object with its first part already fetched; the rest of a larger object is read
+     * with parallel range requests.
+     */
+    private final class S3ObjectResource extends AbstractResource {
+
+        private final String key;
+        private final byte[] firstPart;
+        private final long length;
+
+        private S3ObjectResource(final String key, final byte[] firstPart, final long length) {
+            this.key = key;
+            this.firstPart = firstPart;
+            this.length = length;
+        }
+
+        @Override
+        public String getDescription() {
+            return "s3://" + bucket + "/" + key;
+        }
+
+        @Override
+        public long contentLength() {
+            return length;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            if (firstPart.length >= length) {
+                return new ByteArrayInputStream(firstPart);
+            }
+            return new ParallelRangeInputStream(key, firstPart, length);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof S3ObjectResource resource && key.equals(resource.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+
+    /**
+     * Reads an object as consecutive ranges, keeping up to {@code rangeParallelism} requests in flight.
+     */
+    private final class ParallelRangeInputStream extends InputStream {
+
+        private final String key;
+        private final long length;
+        private final Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+        private long nextOffset;
+        private InputStream current;
+
+        private ParallelRangeInputStream(final String key, final byte[] firstPart, final long length) {
+            this.key = key;
+            this.length = length;
+            this.current = new ByteArrayInputStream(firstPart);
+            this.nextOffset = firstPart.length;
+            fillWindow();
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int count) throws IOException {
+            int read = current.read(bytes, offset, count);
+            while (read < 0 && !pending.isEmpty()) {
+                current = new ByteArrayInputStream(nextChunk());
+                fillWindow();
+                read = current.read(bytes, offset, count);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            pending.forEach(future -> future.cancel(true));
+            pending.clear();
+        }
+
+        private byte[] nextChunk() throws IOException {
+            try {
+                return pending.removeFirst().join();
+            } catch (final CompletionException e) {
+                throw new IOException("Failed to read range of " + key, e.getCause());
+            }
+        }
+
+        private void fillWindow() {
+            while (pending.size() < rangeParallelism && nextOffset < length) {
+                final long offset = nextOffset;
+                final long rangeLength = Math.min(partSize, length - offset);
+                pending.addLast(CompletableFuture.supplyAsync(() -> readRange(key, offset, rangeLength), rangeReaders));
+                nextOffset += rangeLength;
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.photomap.storage;
+
+/**
+ * Kinds of stored photo files. Each area maps to its own directory (local) or key prefix (S3).
+ */
+public enum StorageArea {
+    ORIGINAL,
+    MEDIUM
+}
@@ -0,0 +1,12 @@
+-- Indexes for the admin user search, which matches the lower-cased email.
+-- The plain B-tree on email cannot serve LIKE '%term%' or a case-insensitive prefix,
+-- so every keystroke used to scan the whole users table.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Substring search (three characters or more), ranked by trigram similarity
+CREATE INDEX users_email_trgm_idx ON users USING GIN (lower(email) gin_trgm_ops);
+
+-- Prefix search for shorter input; the C collation lets LIKE 'ab%' use the B-tree and
+-- returns rows already in ORDER BY order
+CREATE INDEX users_email_prefix_idx ON users (lower(email) COLLATE "C");
@@ -0,0 +1,39 @@
+-- Store rating aggregates on photos so listing, sorting and min-rating filtering
+-- no longer aggregate the ratings table per request.
+-- Kept up to date by atomic UPDATEs in the rating write path; a reconciliation job
+-- (POST /api/admin/ratings/reconciliation) repairs drift.
+
+ALTER TABLE photos
+    ADD COLUMN rating_sum BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN rating_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN rating_avg DOUBLE PRECISION,
+    ADD COLUMN rating_1_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN rating_2_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN rating_3_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN rating_4_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN rating_5_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE photos p
+SET rating_sum = agg.rating_sum,
+    rating_count = agg.rating_count,
+    rating_avg = agg.rating_sum::DOUBLE PRECISION / agg.rating_count,
+    rating_1_count = agg.rating_1_count,
+    rating_2_count = agg.rating_2_count,
+    rating_3_count = agg.rating_3_count,
+    rating_4_count = agg.rating_4_count,
+    rating_5_count = agg.rating_5_count
+FROM (
+    SELECT photo_id,
+           SUM(rating) AS rating_sum,
+           COUNT(*) AS rating_count,
+           COUNT(*) FILTER (WHERE rating = 1) AS rating_1_count,
+           COUNT(*) FILTER (WHERE rating = 2) AS rating_2_count,
+           COUNT(*) FILTER (WHERE rating = 3) AS rating_3_count,
+           COUNT(*) FILTER (WHERE rating = 4) AS rating_4_count,
+           COUNT(*) FILTER (WHERE rating = 5) AS rating_5_count
+    FROM ratings
+    GROUP BY photo_id
+) agg
+WHERE p.id = agg.photo_id;
+
+CREATE INDEX photos_rating_avg_idx ON photos (rating_avg DESC NULLS LAST);
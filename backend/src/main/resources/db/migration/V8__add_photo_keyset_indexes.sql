@@ -0,0 +1,9 @@
+-- Composite indexes matching the keyset-paginated listing order
+-- (sort column DESC NULLS LAST, id DESC) so each slice is an index range scan.
+-- They supersede the single-column indexes on the same columns.
+
+CREATE INDEX photos_uploaded_at_id_idx ON photos (uploaded_at DESC, id DESC);
+CREATE INDEX photos_taken_at_id_idx ON photos (taken_at DESC NULLS LAST, id DESC);
+
+DROP INDEX photos_uploaded_at_idx;
+DROP INDEX photos_taken_at_idx;
@@ -0,0 +1,14 @@
+-- Spatial column for bounding-box, radius and nearest-neighbour queries.
+-- The composite B-tree on (gps_latitude, gps_longitude) can only range-scan on latitude;
+-- a GiST index on a geography point serves all three.
+-- Requires the PostGIS extension (postgis/postgis images ship it).
+
+CREATE EXTENSION IF NOT EXISTS postgis;
+
+-- Generated from the GPS columns, so it can never drift from them
+ALTER TABLE photos ADD COLUMN location geography(Point, 4326)
+    GENERATED ALWAYS AS (
+        ST_SetSRID(ST_MakePoint(gps_longitude::double precision, gps_latitude::double precision), 4326)::geography
+    ) STORED;
+
+CREATE INDEX photos_location_idx ON photos USING GIST (location);
@@ -0,0 +1,104 @@
+package com.photomap.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.photomap.dto.CountedPage;
+import com.photomap.dto.MapPoints;
+import com.photomap.dto.PhotoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization time of a listing page of 100 photos and of 50,000 map markers in JSON, CBOR
+ * and Smile; payload sizes are printed at setup. Run with
+ * {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=WireFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int MARKERS = 50_000;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper mapper;
+    private CountedPage<PhotoResponse> page;
+    private MapPoints points;
+
+    @Setup
+    public void setUp() throws Exception {
+        final WireFormatConfig config = new WireFormatConfig();
+        mapper = switch (format) {
+            case "cbor" -> config.cborHttpMessageConverter(builder(config)).getObjectMapper();
+            case "smile" -> config.smileHttpMessageConverter(builder(config)).getObjectMapper();
+            default -> builder(config).build();
+        };
+
+        final Random random = new Random(7);
+        final Instant start = Instant.parse("2015-01-01T00:00:00Z");
+        final List<PhotoResponse> photos = new ArrayList<>(PAGE_SIZE);
+        for (long id = 1; id <= PAGE_SIZE; id++) {
+            photos.add(new PhotoResponse(id, "2024/05/" + id + ".jpg", "IMG_" + (4000 + id) + ".JPG", 2_000_000L + random.nextInt(4_000_000),
+                    "image/jpeg", coordinate(random, 90), coordinate(random, 180),
+                    start.plusSeconds(random.nextInt(300_000_000)), start.plusSeconds(random.nextInt(300_000_000)),
+                    random.nextBoolean() ? 1 + random.nextInt(9) / 2.0 : null, random.nextInt(5), null));
+        }
+        page = new CountedPage<>(photos, PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "uploadedAt")), 25_000, true);
+
+        points = new MapPoints(MARKERS);
+        for (long id = 1; id <= MARKERS; id++) {
+            points.add(id, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                    random.nextInt(10) == 0 ? null : start.plusSeconds(random.nextInt(300_000_000)),
+                    random.nextBoolean() ? 1 + random.nextInt(9) / 2.0 : null);
+        }
+
+        System.out.printf("%n%s: photo page %,d bytes, map points %,d bytes%n",
+                format, mapper.writeValueAsBytes(page).length, mapper.writeValueAsBytes(points).length);
+    }
+
+    @Benchmark
+    public byte[] photoPage() throws Exception {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] mapPoints() throws Exception {
+        return mapper.writeValueAsBytes(points);
+    }
+
+    private static Jackson2ObjectMapperBuilder builder(final WireFormatConfig config) {
+        final Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        config.propertyFilterCustomizer().customize(builder);
+        return builder;
+    }
+
+    private static BigDecimal coordinate(final Random random, final double limit) {
+        return BigDecimal.valueOf(random.nextDouble() * 2 * limit - limit).setScale(8, RoundingMode.HALF_UP);
+    }
+}
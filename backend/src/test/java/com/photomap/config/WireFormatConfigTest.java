@@ -0,0 +1,77 @@
+package com.photomap.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.photomap.dto.MapPoints;
+import com.photomap.dto.PhotoResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WireFormatConfigTest {
+
+    private final WireFormatConfig config = new WireFormatConfig();
+
+    @Test
+    void cbor_WritesCoordinatesAsDoublesAndDatesAsText() throws Exception {
+        final ObjectMapper mapper = config.cborHttpMessageConverter(builder()).getObjectMapper();
+
+        final JsonNode photo = new CBORMapper().readTree(mapper.writeValueAsBytes(photo(1)));
+
+        assertThat(photo.get("gpsLatitude").isDouble()).isTrue();
+        assertThat(photo.get("gpsLatitude").asDouble()).isEqualTo(52.2297);
+        assertThat(photo.get("takenAt").asText()).isEqualTo("2024-05-01T10:00:00Z");
+        assertThat(photo.get("thumbnailUrl").asText()).isEqualTo("/api/photos/1/thumbnail");
+    }
+
+    @Test
+    void smile_RoundTripsMapPoints() throws Exception {
+        final ObjectMapper mapper = config.smileHttpMessageConverter(builder()).getObjectMapper();
+        final MapPoints points = new MapPoints(2);
+        points.add(3L, 52.5, 21.25, Instant.ofEpochMilli(1_700_000_000_000L), 4.5);
+        points.add(9L, -1.0, 2.0, null, null);
+
+        final JsonNode decoded = new SmileMapper().readTree(mapper.writeValueAsBytes(points));
+
+        assertThat(decoded.get("count").asInt()).isEqualTo(2);
+        assertThat(decoded.get("lat").get(1).asDouble()).isEqualTo(-1.0);
+        assertThat(decoded.get("takenAt").get(1).isNull()).isTrue();
+    }
+
+    @Test
+    void binaryFormats_AreSmallerThanJson() throws Exception {
+        final List<PhotoResponse> page = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            page.add(photo(i));
+        }
+
+        final int json = builder().build().writeValueAsBytes(page).length;
+        final int cbor = config.cborHttpMessageConverter(builder()).getObjectMapper().writeValueAsBytes(page).length;
+        final int smile = config.smileHttpMessageConverter(builder()).getObjectMapper().writeValueAsBytes(page).length;
+
+        assertThat(cbor).isLessThan(json);
+        assertThat(smile).isLessThan(json);
+    }
+
+    // Spring Boot's builder writes dates as ISO-8601 text and applies the customizers
+    private Jackson2ObjectMapperBuilder builder() {
+        final Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        config.propertyFilterCustomizer().customize(builder);
+        return builder;
+    }
+
+    private static PhotoResponse photo(final long id) {
+        return new PhotoResponse(id, "photo-" + id + ".jpg", "IMG_" + id + ".jpg", 1_048_576L, "image/jpeg",
+                new BigDecimal("52.22970000"), new BigDecimal("21.01220000"),
+                Instant.parse("2024-05-01T10:00:00Z"), Instant.parse("2024-05-02T08:30:00Z"), 4.5, 2, null);
+    }
+}
@@ -3,6 +3,8 @@ package com.photomap.controller;
 import com.photomap.dto.AppSettingsResponse;
 import com.photomap.dto.BulkDeleteResponse;
 import com.photomap.dto.OrphanedPhotoDTO;
+import com.photomap.dto.RatingReconciliationStatus;
+import com.photomap.dto.StorageMigrationStatus;
 import com.photomap.dto.UpdatePermissionsRequest;
 import com.photomap.dto.UpdateSettingsRequest;
 import com.photomap.dto.UserResponse;
@@ -11,8 +13,11 @@ import com.photomap.model.Photo;
 import com.photomap.model.Role;
 import com.photomap.model.User;
 import com.photomap.repository.PhotoRepository;
+import com.photomap.service.PhotoExportService;
 import com.photomap.service.PhotoService;
 import com.photomap.service.SettingsService;
+import com.photomap.service.RatingReconciliationService;
+import com.photomap.service.StorageLayoutMigrationService;
 import com.photomap.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,7 +30,9 @@ import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
@@ -50,6 +57,15 @@ class AdminControllerTest {
     @Mock
     private PhotoRepository photoRepository;
 
+    @Mock
+    private StorageLayoutMigrationService storageLayoutMigrationService;
+
+    @Mock
+    private RatingReconciliationService ratingReconciliationService;
+
+    @Mock
+    private PhotoExportService photoExportService;
+
     @InjectMocks
     private AdminController adminController;
 
@@ -104,6 +120,27 @@ class AdminControllerTest {
         verify(photoService).getPhotosForAdmin(any(Pageable.class));
     }
 
+    @Test
+    void exportPhotos_Csv_ShouldStreamAttachment() throws Exception {
+        final ResponseEntity<StreamingResponseBody> response = adminController.exportPhotos("CSV");
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getContentType().toString()).isEqualTo("text/csv;charset=UTF-8");
+        assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("photos.csv");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        verify(photoExportService).export(PhotoExportService.Format.CSV, out);
+    }
+
+    @Test
+    void exportPhotos_UnknownFormat_ShouldThrowException() {
+        assertThatThrownBy(() -> adminController.exportPhotos("xml"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ndjson or csv");
+        verifyNoInteractions(photoExportService);
+    }
+
     @Test
     void listAllPhotos_ShouldHandlePagination() {
         final List<Photo> photos = List.of(photo1);
@@ -298,4 +335,26 @@ class AdminControllerTest {
         verify(photoRepository).findByUserIdIsNull();
         verify(photoService, times(2)).deletePhotoByAdmin(anyLong());
     }
+
+    @Test
+    void startStorageLayoutMigration_ShouldReturnAccepted() {
+        final StorageMigrationStatus status = new StorageMigrationStatus(true, 0, 0, 0, Instant.now(), null);
+        when(storageLayoutMigrationService.start()).thenReturn(status);
+
+        final ResponseEntity<StorageMigrationStatus> response = adminController.startStorageLayoutMigration();
+
+        assertThat(response.getStatusCode().value()).isEqualTo(202);
+        assertThat(response.getBody()).isEqualTo(status);
+    }
+
+    @Test
+    void startRatingReconciliation_ShouldReturnAccepted() {
+        final RatingReconciliationStatus status = new RatingReconciliationStatus(true, 0, 0, Instant.now(), null);
+        when(ratingReconciliationService.start()).thenReturn(status);
+
+        final ResponseEntity<RatingReconciliationStatus> response = adminController.startRatingReconciliation();
+
+        assertThat(response.getStatusCode().value()).isEqualTo(202);
+        assertThat(response.getBody()).isEqualTo(status);
+    }
 }
@@ -1,9 +1,16 @@
 package com.photomap.controller;
 
-import com.photomap.model.Photo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.photomap.dto.BatchRatingRequest;
+import com.photomap.dto.MapPoints;
+import com.photomap.dto.PhotoResponse;
+import com.photomap.dto.PhotoTimelineResponse;
+import com.photomap.dto.RatingResponse;
 import com.photomap.model.Role;
 import com.photomap.model.User;
+import com.photomap.repository.PhotoFields;
 import com.photomap.repository.PhotoRepository;
+import com.photomap.repository.TimelineBucket;
 import com.photomap.repository.UserRepository;
 import com.photomap.service.PhotoService;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,16 +23,32 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -61,15 +84,15 @@ class PhotoControllerTest {
 
     @Test
     void getPhotos_WhenAuthenticationIsNull_ShouldUseFirstAdminUser() {
-        final List<Photo> photos = new ArrayList<>();
-        final Page<Photo> photoPage = new PageImpl<>(photos);
+        final Page<PhotoResponse> photoPage = new PageImpl<>(new ArrayList<>());
         final Pageable pageable = PageRequest.of(0, 20);
 
         when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
-        when(photoService.getPhotos(eq(7L), any(Pageable.class), any(), any(), any(), any()))
+        when(photoService.getViewerETag(7L)).thenReturn("W/\"a-5-7\"");
+        when(photoService.getPhotos(eq(7L), any(Pageable.class), any(), any(), any(), any(), any(), any(), any(), eq(PhotoFields.ALL)))
                 .thenReturn(photoPage);
 
-        final ResponseEntity<?> response = photoController.getPhotos(null, null, null, null, pageable, null);
+        final ResponseEntity<?> response = photoController.getPhotos(null, null, null, null, null, null, null, null, null, pageable, request(null), null);
 
         assertThat(response.getStatusCode().value()).isEqualTo(200);
     }
@@ -80,8 +103,214 @@ class PhotoControllerTest {
 
         when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> photoController.getPhotos(null, null, null, null, pageable, null))
+        assertThatThrownBy(() -> photoController.getPhotos(null, null, null, null, null, null, null, null, null, pageable, request(null), null))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Admin user not found");
     }
+
+    @Test
+    void getPhotos_MatchingETag_ReturnsNotModifiedWithoutQuery() {
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getViewerETag(7L)).thenReturn("W/\"a-5-7\"");
+
+        final ResponseEntity<?> response = photoController.getPhotos(null, null, null, null, null, null, null, null, null,
+                PageRequest.of(0, 20), request("W/\"a-5-7\""), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"a-5-7\"");
+        assertThat(response.getBody()).isNull();
+        verify(photoService, never()).getPhotos(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getPhotoById_MatchingETag_ReturnsNotModifiedWithoutQuery() {
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getViewerETag(7L)).thenReturn("W/\"a-5-7\"");
+
+        final ResponseEntity<MappingJacksonValue> response = photoController.getPhotoById(3L, null, request("W/\"a-5-7\""), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(photoService, never()).getPhotoResponses(any(), any(), any());
+    }
+
+    @Test
+    void getPhotoById_ETagAmongSeveral_ReturnsNotModifiedVaryingByAccept() {
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getViewerETag(7L)).thenReturn("W/\"a-5-7\"");
+
+        final ResponseEntity<MappingJacksonValue> response = photoController.getPhotoById(3L, null,
+                request("W/\"a-4-7\", \"a-5-7\""), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT);
+        verify(photoService, never()).getPhotoResponses(any(), any(), any());
+    }
+
+    @Test
+    void getPhotoById_StaleETag_ReturnsPhotoWithCurrentETag() {
+        final PhotoResponse photo = new PhotoResponse(3L, "photo.jpg", "photo.jpg", 1024L, "image/jpeg",
+                null, null, null, Instant.now(), null, 0, 4);
+
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getViewerETag(7L)).thenReturn("W/\"a-6-7\"");
+        when(photoService.getPhotoResponses(7L, List.of(3L), PhotoFields.ALL)).thenReturn(List.of(photo));
+
+        final ResponseEntity<MappingJacksonValue> response = photoController.getPhotoById(3L, null, request("W/\"a-5-7\""), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"a-6-7\"");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(((PhotoResponse) response.getBody().getValue()).userRating()).isEqualTo(4);
+        assertThat(response.getBody().getFilters()).isNull();
+    }
+
+    @Test
+    void getPhotos_WithIdsAndFields_SerializesOnlyRequestedFields() throws Exception {
+        final PhotoFields fields = PhotoFields.parse("thumbnailUrl,averageRating");
+        final PhotoResponse photo = new PhotoResponse(3L, null, null, null, null,
+                null, null, null, null, 4.5, null, null);
+
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getViewerETag(7L)).thenReturn("W/\"a-6-7\"");
+        when(photoService.getPhotoResponses(7L, List.of(3L, 9L), fields)).thenReturn(List.of(photo));
+
+        final ResponseEntity<MappingJacksonValue> response = photoController.getPhotos(null, null, null, null, null, null, null,
+                List.of(3L, 9L), "thumbnailUrl,averageRating", PageRequest.of(0, 20), request(null), null);
+
+        final String json = new ObjectMapper().writer(response.getBody().getFilters())
+                .writeValueAsString(((Page<?>) response.getBody().getValue()).getContent());
+        assertThat(json).isEqualTo("[{\"id\":3,\"thumbnailUrl\":\"/api/photos/3/thumbnail\",\"averageRating\":4.5}]");
+        verify(photoService, never()).getPhotos(any(), any(), any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getPhotos_IdsWithFilters_ShouldThrowException() {
+        assertThatThrownBy(() -> photoController.getPhotos(null, null, 3, null, null, null, null,
+                List.of(1L), null, PageRequest.of(0, 20), request(null), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("cannot be combined");
+    }
+
+    @Test
+    void getPhotoById_UnknownField_ShouldThrowException() {
+        assertThatThrownBy(() -> photoController.getPhotoById(3L, "thumbnailUrl,owner", request(null), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown field: owner");
+        verifyNoInteractions(photoService);
+    }
+
+    @Test
+    void getThumbnails_TooManyIds_ShouldThrowException() {
+        final List<Long> ids = LongStream.rangeClosed(1, 101).boxed().toList();
+
+        assertThatThrownBy(() -> photoController.getThumbnails(ids, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("photo ids are required");
+    }
+
+    @Test
+    void getThumbnails_ShouldStreamMultipartMixed() {
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getPhotosByIds(List.of(1L, 2L), 7L)).thenReturn(List.of());
+
+        final ResponseEntity<?> response = photoController.getThumbnails(List.of(1L, 2L), null);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getContentType()).isNotNull();
+        assertThat(response.getHeaders().getContentType().toString()).startsWith("multipart/mixed;boundary=");
+    }
+
+    @Test
+    void getMapPoints_SerializesParallelColumnArrays() throws Exception {
+        final MapPoints points = new MapPoints(2);
+        points.add(3L, 52.5, 21.25, Instant.ofEpochMilli(1_700_000_000_000L), 4.5);
+        points.add(9L, -1.0, 2.0, null, null);
+
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getMapPoints(null, null, 3)).thenReturn(points);
+
+        final ResponseEntity<MapPoints> response = photoController.getMapPoints(null, null, 3, null);
+
+        assertThat(new ObjectMapper().writeValueAsString(response.getBody())).isEqualTo(
+                "{\"count\":2,\"id\":[3,9],\"lat\":[52.5,-1.0],\"lng\":[21.25,2.0],"
+                        + "\"takenAt\":[1700000000000,null],\"ratingAvg\":[4.5,null]}");
+    }
+
+    @Test
+    void getTimeline_ReturnsCountsWithETag() {
+        final PhotoTimelineResponse timeline = new PhotoTimelineResponse("month",
+                List.of(new PhotoTimelineResponse.Bucket(LocalDate.of(2024, 5, 1), 12)), 3);
+
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getDataETag()).thenReturn("\"a-5\"");
+        when(photoService.getTimeline(TimelineBucket.MONTH, LocalDateTime.of(2024, 1, 1, 0, 0), null, null, null, null))
+                .thenReturn(timeline);
+
+        final ResponseEntity<PhotoTimelineResponse> response = photoController.getTimeline("month", "2024-01-01", null, null, null, null, request(null), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"a-5\"");
+        assertThat(response.getBody()).isEqualTo(timeline);
+    }
+
+    @Test
+    void getTimeline_MatchingETag_ReturnsNotModified() {
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getDataETag()).thenReturn("\"a-5\"");
+
+        final ResponseEntity<PhotoTimelineResponse> response = photoController.getTimeline("year", null, null, null, null, null, request("\"a-5\""), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(photoService, never()).getTimeline(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getTimeline_UnknownBucket_ShouldThrowException() {
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+
+        assertThatThrownBy(() -> photoController.getTimeline("week", null, null, null, null, null, request(null), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Bucket must be day, month or year");
+    }
+
+    @Test
+    void ratePhotos_DuplicatePhoto_KeepsLaterValueInRequestOrder() {
+        final List<RatingResponse> ratings = List.of(
+                new RatingResponse(11L, 3L, 7L, 5, Instant.parse("2024-05-01T10:00:00Z"), 5.0, 1),
+                new RatingResponse(12L, 1L, 7L, 2, Instant.parse("2024-05-01T10:00:00Z"), 3.5, 2));
+        final Map<Long, Integer> expected = new LinkedHashMap<>();
+        expected.put(3L, 5);
+        expected.put(1L, 2);
+
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.ratePhotos(7L, expected)).thenReturn(ratings);
+
+        final ResponseEntity<List<RatingResponse>> response = photoController.ratePhotos(new BatchRatingRequest(List.of(
+                new BatchRatingRequest.Item(3L, 1),
+                new BatchRatingRequest.Item(1L, 2),
+                new BatchRatingRequest.Item(3L, 5))), null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(ratings);
+    }
+
+    @Test
+    void ratePhotos_WithoutRatePermission_ShouldThrowException() {
+        adminUser.setCanRate(false);
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+
+        assertThatThrownBy(() -> photoController.ratePhotos(
+                new BatchRatingRequest(List.of(new BatchRatingRequest.Item(3L, 4))), null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("User does not have permission to rate photos");
+        verifyNoInteractions(photoService);
+    }
+
+    private static WebRequest request(final String ifNoneMatch) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/photos");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
 }
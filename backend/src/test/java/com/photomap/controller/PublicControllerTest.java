@@ -1,13 +1,23 @@
 package com.photomap.controller;
 
 import com.photomap.dto.AppSettingsResponse;
+import com.photomap.model.AppSettings;
 import com.photomap.service.SettingsService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -23,25 +33,53 @@ class PublicControllerTest {
 
     @Test
     void getPublicSettings_WithEmail_ReturnsEmail() {
-        when(settingsService.getSetting("admin_contact_email")).thenReturn("admin@example.com");
+        when(settingsService.findSetting("admin_contact_email")).thenReturn(Optional.of(setting("admin@example.com", 1000L)));
 
-        final ResponseEntity<AppSettingsResponse> response = publicController.getPublicSettings();
+        final ResponseEntity<AppSettingsResponse> response = publicController.getPublicSettings(request(null));
 
         assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getETag()).isEqualTo("W/\"1000\"");
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().adminContactEmail()).isEqualTo("admin@example.com");
-        verify(settingsService, times(1)).getSetting("admin_contact_email");
+        verify(settingsService, times(1)).findSetting("admin_contact_email");
     }
 
     @Test
     void getPublicSettings_WithoutEmail_ReturnsNullEmail() {
-        when(settingsService.getSetting("admin_contact_email")).thenReturn(null);
+        when(settingsService.findSetting("admin_contact_email")).thenReturn(Optional.empty());
 
-        final ResponseEntity<AppSettingsResponse> response = publicController.getPublicSettings();
+        final ResponseEntity<AppSettingsResponse> response = publicController.getPublicSettings(request(null));
 
         assertThat(response.getStatusCode().value()).isEqualTo(200);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().adminContactEmail()).isNull();
-        verify(settingsService, times(1)).getSetting("admin_contact_email");
+        verify(settingsService, times(1)).findSetting("admin_contact_email");
+    }
+
+    @Test
+    void getPublicSettings_Unchanged_ReturnsNotModified() {
+        when(settingsService.findSetting("admin_contact_email")).thenReturn(Optional.of(setting("admin@example.com", 1000L)));
+
+        final ResponseEntity<AppSettingsResponse> response = publicController.getPublicSettings(request("W/\"1000\""));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT);
+        assertThat(response.getBody()).isNull();
+    }
+
+    private static AppSettings setting(final String value, final long updatedAtMillis) {
+        final AppSettings setting = new AppSettings();
+        setting.setSettingKey("admin_contact_email");
+        setting.setSettingValue(value);
+        setting.setUpdatedAt(Instant.ofEpochMilli(updatedAtMillis));
+        return setting;
+    }
+
+    private static WebRequest request(final String ifNoneMatch) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/public/settings");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
     }
 }
@@ -0,0 +1,96 @@
+package com.photomap.controller;
+
+import com.photomap.model.Role;
+import com.photomap.model.User;
+import com.photomap.repository.MapTile;
+import com.photomap.repository.UserRepository;
+import com.photomap.service.PhotoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TileControllerTest {
+
+    @Mock
+    private PhotoService photoService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private TileController tileController;
+
+    private User adminUser;
+
+    @BeforeEach
+    void setUp() {
+        adminUser = new User();
+        adminUser.setId(7L);
+        adminUser.setEmail("admin@example.com");
+        adminUser.setRole(Role.ADMIN);
+    }
+
+    @Test
+    void getTile_ReturnsVectorTileWithETag() {
+        final MapTile tile = new MapTile(3, 4, 2);
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getTileETag(tile)).thenReturn("\"a-1\"");
+        when(photoService.getTile(tile, null, null, 4)).thenReturn(new byte[]{1, 2});
+
+        final ResponseEntity<byte[]> response = tileController.getTile(3, 4, 2, null, null, 4, request(null), null);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(TileController.VECTOR_TILE);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"a-1\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("no-cache");
+        assertThat(response.getBody()).containsExactly(1, 2);
+    }
+
+    @Test
+    void getTile_MatchingETag_ReturnsNotModified() {
+        final MapTile tile = new MapTile(3, 4, 2);
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+        when(photoService.getTileETag(tile)).thenReturn("\"a-1\"");
+
+        final ResponseEntity<byte[]> response = tileController.getTile(3, 4, 2, null, null, null, request("\"a-1\""), null);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(304);
+        assertThat(response.getBody()).isNull();
+        verify(photoService, never()).getTile(any(), any(), any(), any());
+    }
+
+    @Test
+    void getTile_InvalidCoordinates_ThrowsException() {
+        when(userRepository.findFirstByRole(Role.ADMIN)).thenReturn(Optional.of(adminUser));
+
+        assertThatThrownBy(() -> tileController.getTile(2, 4, 0, null, null, null, request(null), null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static WebRequest request(final String ifNoneMatch) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tiles/3/4/2.mvt");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
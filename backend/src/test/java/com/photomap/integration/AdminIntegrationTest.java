@@ -3,10 +3,15 @@ package com.photomap.integration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.photomap.dto.UpdateRoleRequest;
 import com.photomap.dto.UserResponse;
+import com.photomap.model.Photo;
+import com.photomap.model.Rating;
 import com.photomap.model.Role;
 import com.photomap.model.User;
+import com.photomap.repository.PhotoRepository;
+import com.photomap.repository.RatingRepository;
 import com.photomap.repository.UserRepository;
 import com.photomap.security.JwtTokenProvider;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +41,12 @@ class AdminIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -50,7 +61,7 @@ class AdminIntegrationTest {
 
     @BeforeEach
     void setUp() {
-        userRepository.deleteAll();
+        cleanUp();
 
         adminUser = new User();
         adminUser.setEmail("admin@example.com");
@@ -220,6 +231,32 @@ class AdminIntegrationTest {
         assertThat(userRepository.findById(userIdToDelete)).isEmpty();
     }
 
+    @Test
+    void deleteUser_WithRatings_CorrectsPhotoAggregates() throws Exception {
+        final Photo photo = new Photo();
+        photo.setFilename("rated.jpg");
+        photo.setOriginalFilename("rated.jpg");
+        photo.setFileSize(1000L);
+        photo.setMimeType("image/jpeg");
+        photo.setUser(adminUser);
+        final Photo saved = photoRepository.save(photo);
+        ratingRepository.save(rating(saved, regularUser1, 2));
+        ratingRepository.save(rating(saved, regularUser2, 4));
+        photoRepository.reconcileRatingAggregates(0L, Long.MAX_VALUE);
+
+        mockMvc.perform(delete("/api/admin/users/" + regularUser1.getId())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNoContent());
+
+        final Photo updated = photoRepository.findById(saved.getId()).orElseThrow();
+        assertThat(updated.getRatingSum()).isEqualTo(4L);
+        assertThat(updated.getRatingCount()).isEqualTo(1);
+        assertThat(updated.getRatingAvg()).isEqualTo(4.0);
+        assertThat(updated.getRating2Count()).isZero();
+        assertThat(updated.getRating4Count()).isEqualTo(1);
+        assertThat(photoRepository.reconcileRatingAggregates(0L, Long.MAX_VALUE)).isZero();
+    }
+
     @Test
     void deleteUser_WithUserToken_ReturnsForbidden() throws Exception {
         mockMvc.perform(delete("/api/admin/users/" + regularUser1.getId())
@@ -280,4 +317,19 @@ class AdminIntegrationTest {
 
         assertThat(userRepository.findById(userId)).isEmpty();
     }
+
+    @AfterEach
+    void cleanUp() {
+        ratingRepository.deleteAll();
+        photoRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private Rating rating(final Photo photo, final User user, final int value) {
+        final Rating rating = new Rating();
+        rating.setPhoto(photo);
+        rating.setUser(user);
+        rating.setRatingValue(value);
+        return rating;
+    }
 }
@@ -0,0 +1,356 @@
+package com.photomap.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.photomap.model.Photo;
+import com.photomap.model.Rating;
+import com.photomap.model.Role;
+import com.photomap.model.User;
+import com.photomap.repository.PhotoDataSummary;
+import com.photomap.repository.PhotoRepository;
+import com.photomap.repository.RatingRepository;
+import com.photomap.repository.UserRepository;
+import com.photomap.security.JwtTokenProvider;
+import com.photomap.service.PhotoDataVersion;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PhotoListQueryCountIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private PhotoDataVersion photoDataVersion;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User viewer;
+    private String viewerToken;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+
+        viewer = new User();
+        viewer.setEmail("viewer@example.com");
+        viewer.setPasswordHash("hash");
+        viewer.setRole(Role.USER);
+        viewer = userRepository.save(viewer);
+        viewerToken = jwtTokenProvider.generateToken(viewer.getEmail());
+
+        final User otherRater = new User();
+        otherRater.setEmail("rater@example.com");
+        otherRater.setPasswordHash("hash");
+        otherRater.setRole(Role.USER);
+        userRepository.save(otherRater);
+
+        for (int i = 0; i < 30; i++) {
+            final Photo photo = new Photo();
+            photo.setFilename("photo-" + i + ".jpg");
+            photo.setOriginalFilename("photo-" + i + ".jpg");
+            photo.setFileSize(1000L);
+            photo.setMimeType("image/jpeg");
+            photo.setTakenAt(Instant.now().minus(i, ChronoUnit.DAYS));
+            photo.setUser(viewer);
+            final Photo saved = photoRepository.save(photo);
+
+            ratingRepository.save(rating(saved, viewer, 1 + i % 5));
+            ratingRepository.save(rating(saved, otherRater, 5));
+        }
+        photoRepository.reconcileRatingAggregates(0L, Long.MAX_VALUE);
+        // Rows written straight through repositories do not move the version, so cached listings would survive
+        photoDataVersion.bump();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ratingRepository.deleteAll();
+        photoRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void getPhotos_QueryCountDoesNotGrowWithPageSize() throws Exception {
+        final long smallPage = countStatements(5);
+        final long largePage = countStatements(30);
+
+        // The larger page may skip the (cached) count, but never adds per-photo queries
+        assertThat(largePage).isLessThanOrEqualTo(smallPage);
+    }
+
+    @Test
+    void getPhotos_DoesNotHydratePhotoEntities() throws Exception {
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        countStatements(20);
+
+        assertThat(statistics.getEntityStatistics(Photo.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(Rating.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    void getPhotos_ReturnsCurrentUsersRating() throws Exception {
+        mockMvc.perform(get("/api/photos")
+                        .header("Authorization", "Bearer " + viewerToken)
+                        .param("size", "1")
+                        .param("sort", "takenAt,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].userRating").value(1))
+                .andExpect(jsonPath("$.content[0].averageRating").value(3.0))
+                .andExpect(jsonPath("$.content[0].totalRatings").value(2));
+    }
+
+    @Test
+    void getPhotos_AcceptCbor_ReturnsSamePageInCbor() throws Exception {
+        final byte[] body = mockMvc.perform(get("/api/photos")
+                        .header("Authorization", "Bearer " + viewerToken)
+                        .accept("application/cbor")
+                        .param("size", "1")
+                        .param("sort", "takenAt,desc"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        final JsonNode page = new CBORMapper().readTree(body);
+        assertThat(page.get("content").get(0).get("userRating").asInt()).isEqualTo(1);
+        assertThat(page.get("totalElements").asLong()).isEqualTo(30);
+    }
+
+    @Test
+    void getPhotos_NotModified_VariesByAccept() throws Exception {
+        final String eTag = mockMvc.perform(get("/api/photos")
+                        .header("Authorization", "Bearer " + viewerToken)
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/photos")
+                        .header("Authorization", "Bearer " + viewerToken)
+                        .header("If-None-Match", eTag)
+                        .param("size", "1"))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("Vary", hasItem("Accept")));
+    }
+
+    @Test
+    void getPhotos_ByIdsWithFields_ReturnsRequestedPropertiesInOrder() throws Exception {
+        final List<Long> ids = photoRepository.findAll().stream().map(Photo::getId).sorted(Comparator.reverseOrder()).toList();
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        fetchByIds(ids.subList(0, 1));
+        final long single = statistics.getPrepareStatementCount();
+        statistics.clear();
+        final String body = fetchByIds(ids.subList(0, 10));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(single);
+        assertThat(statistics.getEntityStatistics(Photo.class.getName()).getLoadCount()).isZero();
+        final JsonNode content = objectMapper.readTree(body).get("content");
+        assertThat(content).hasSize(10);
+        assertThat(content.get(0).get("id").asLong()).isEqualTo(ids.get(0));
+        assertThat(content.get(9).get("id").asLong()).isEqualTo(ids.get(9));
+        assertThat(content.get(0).has("filename")).isFalse();
+        assertThat(content.get(0).get("thumbnailUrl").asText()).isEqualTo("/api/photos/" + ids.get(0) + "/thumbnail");
+        assertThat(content.get(0).has("userRating")).isTrue();
+    }
+
+    @Test
+    void scrollPhotos_WalksAllPhotosWithCursor() throws Exception {
+        final Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        do {
+            final MockHttpServletRequestBuilder request = get("/api/photos/scroll")
+                    .header("Authorization", "Bearer " + viewerToken)
+                    .param("sort", "takenAt")
+                    .param("size", "7");
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            final JsonNode slice = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            slice.get("content").forEach(photo -> assertThat(seen.add(photo.get("id").asLong())).isTrue());
+            cursor = slice.get("nextCursor").isNull() ? null : slice.get("nextCursor").asText();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(30);
+    }
+
+    @Test
+    void exportPhotos_StreamsOwnersAndRatingsWithoutPerPhotoQueries() throws Exception {
+        final User admin = new User();
+        admin.setEmail("admin@example.com");
+        admin.setPasswordHash("hash");
+        admin.setRole(Role.ADMIN);
+        userRepository.save(admin);
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        final MvcResult started = mockMvc.perform(get("/api/admin/photos/export")
+                        .header("Authorization", "Bearer " + jwtTokenProvider.generateToken(admin.getEmail())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        final String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        final String[] lines = body.split("\n");
+        assertThat(lines).hasSize(30);
+        final JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("userEmail").asText()).isEqualTo("viewer@example.com");
+        assertThat(first.get("ratingCount").asInt()).isEqualTo(2);
+        // The admin lookup for authentication, then the export itself
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+        assertThat(statistics.getEntityStatistics(Photo.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    void ratePhotos_AppliesBatchAndReturnsUpdatedAggregates() throws Exception {
+        final List<Long> ids = photoRepository.findAll().stream().map(Photo::getId).sorted().toList();
+
+        mockMvc.perform(put("/api/photos/ratings")
+                        .header("Authorization", "Bearer " + viewerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ratings\":[{\"photoId\":" + ids.get(0) + ",\"rating\":3},"
+                                + "{\"photoId\":" + ids.get(1) + ",\"rating\":4}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].photoId").value(ids.get(0)))
+                .andExpect(jsonPath("$[0].rating").value(3))
+                .andExpect(jsonPath("$[0].averageRating").value(4.0))
+                .andExpect(jsonPath("$[0].totalRatings").value(2))
+                .andExpect(jsonPath("$[1].averageRating").value(4.5));
+
+        final Photo first = photoRepository.findById(ids.get(0)).orElseThrow();
+        assertThat(first.getRatingSum()).isEqualTo(8L);
+        assertThat(first.getRating1Count()).isZero();
+        assertThat(first.getRating3Count()).isEqualTo(1);
+    }
+
+    @Test
+    void ratePhotos_UnknownPhoto_RollsBackWholeBatch() throws Exception {
+        final Long photoId = photoRepository.findAll().stream().map(Photo::getId).min(Comparator.naturalOrder()).orElseThrow();
+
+        mockMvc.perform(put("/api/photos/ratings")
+                        .header("Authorization", "Bearer " + viewerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ratings\":[{\"photoId\":" + photoId + ",\"rating\":3},{\"photoId\":-1,\"rating\":4}]}"))
+                .andExpect(status().isNotFound());
+
+        assertThat(ratingRepository.findByPhotoId(photoId))
+                .filteredOn(rating -> rating.getUser().getId().equals(viewer.getId()))
+                .extracting(Rating::getRatingValue)
+                .containsExactly(1);
+    }
+
+    @Test
+    void summarize_MovesWithRatingChanges() throws Exception {
+        final PhotoDataSummary before = photoRepository.summarize();
+        final Long photoId = photoRepository.findAll().stream().map(Photo::getId).min(Comparator.naturalOrder()).orElseThrow();
+
+        mockMvc.perform(put("/api/photos/" + photoId + "/rating")
+                        .header("Authorization", "Bearer " + viewerToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rating\":4}"))
+                .andExpect(status().isOk());
+
+        final PhotoDataSummary after = photoRepository.summarize();
+        assertThat(before.count()).isEqualTo(30);
+        assertThat(after).isNotEqualTo(before);
+        assertThat(after.ratingSum()).isEqualTo(before.ratingSum() + 3);
+    }
+
+    @Test
+    void summarizeGeotagged_CountsOnlyPhotosWithGps() {
+        assertThat(photoRepository.summarizeGeotagged().getCount()).isZero();
+        final Photo photo = photoRepository.findAll().get(0);
+        photo.setGpsLatitude(new BigDecimal("52.2297"));
+        photo.setGpsLongitude(new BigDecimal("21.0122"));
+        photoRepository.save(photo);
+
+        final PhotoRepository.IdSummary summary = photoRepository.summarizeGeotagged();
+        assertThat(summary.getCount()).isEqualTo(1);
+        assertThat(summary.getIdSum()).isEqualTo(photo.getId());
+    }
+
+    private String fetchByIds(final List<Long> ids) throws Exception {
+        return mockMvc.perform(get("/api/photos")
+                        .header("Authorization", "Bearer " + viewerToken)
+                        .param("ids", ids.stream().map(String::valueOf).toArray(String[]::new))
+                        .param("fields", "thumbnailUrl,userRating"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private long countStatements(final int pageSize) throws Exception {
+        final Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get("/api/photos")
+                        .header("Authorization", "Bearer " + viewerToken)
+                        .param("size", String.valueOf(pageSize)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(pageSize));
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Rating rating(final Photo photo, final User user, final int value) {
+        final Rating rating = new Rating();
+        rating.setPhoto(photo);
+        rating.setUser(user);
+        rating.setRatingValue(value);
+        return rating;
+    }
+}
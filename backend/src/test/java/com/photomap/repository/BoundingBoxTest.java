@@ -0,0 +1,55 @@
+package com.photomap.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundingBoxTest {
+
+    @Test
+    void parse_WestSouthEastNorth() {
+        final BoundingBox bounds = BoundingBox.parse("14.1, 49.0,24.15,54.9");
+
+        assertEquals(new BoundingBox(14.1, 49.0, 24.15, 54.9), bounds);
+        assertFalse(bounds.crossesAntimeridian());
+        assertEquals(10.05, bounds.width(), 1e-9);
+    }
+
+    @Test
+    void width_CrossingAntimeridian_WrapsAround() {
+        final BoundingBox bounds = BoundingBox.parse("170,-20,-170,-10");
+
+        assertTrue(bounds.crossesAntimeridian());
+        assertEquals(20, bounds.width(), 1e-9);
+    }
+
+    @Test
+    void longitudeRanges_SplitsAtAntimeridianAndMaxWidth() {
+        final List<double[]> crossing = new BoundingBox(170, -20, -170, -10).longitudeRanges(90);
+        assertEquals(2, crossing.size());
+        assertArrayEquals(new double[]{170, 180}, crossing.get(0));
+        assertArrayEquals(new double[]{-180, -170}, crossing.get(1));
+
+        final List<double[]> world = new BoundingBox(-180, -90, 180, 90).longitudeRanges(90);
+        assertEquals(4, world.size());
+        assertArrayEquals(new double[]{-180, -90}, world.get(0));
+        assertArrayEquals(new double[]{90, 180}, world.get(3));
+    }
+
+    @Test
+    void parse_Malformed_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse(null));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse("1,2,3"));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse("a,2,3,4"));
+        assertThrows(IllegalArgumentException.class, () -> BoundingBox.parse("0,10,5,NaN"));
+    }
+
+    @Test
+    void constructor_OutOfRange_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundingBox(0, 10, 5, 5));
+        assertThrows(IllegalArgumentException.class, () -> new BoundingBox(0, -91, 5, 5));
+        assertThrows(IllegalArgumentException.class, () -> new BoundingBox(-181, 0, 5, 5));
+    }
+}
@@ -0,0 +1,22 @@
+package com.photomap.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoPointTest {
+
+    @Test
+    void parse_LatLng() {
+        assertEquals(new GeoPoint(52.2297, 21.0122), GeoPoint.parse("52.2297, 21.0122"));
+    }
+
+    @Test
+    void parse_Malformed_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> GeoPoint.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> GeoPoint.parse("52.2"));
+        assertThrows(IllegalArgumentException.class, () -> GeoPoint.parse("north,east"));
+        assertThrows(IllegalArgumentException.class, () -> GeoPoint.parse("91,0"));
+        assertThrows(IllegalArgumentException.class, () -> GeoPoint.parse("0,180.5"));
+    }
+}
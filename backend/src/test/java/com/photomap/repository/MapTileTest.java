@@ -0,0 +1,55 @@
+package com.photomap.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapTileTest {
+
+    @Test
+    void containing_FindsSlippyMapTile() {
+        // Warsaw
+        assertEquals(new MapTile(10, 571, 337), MapTile.containing(52.23, 21.01, 10));
+        assertEquals(new MapTile(0, 0, 0), MapTile.containing(-89.9, 179.9, 0));
+    }
+
+    @Test
+    void containing_BeyondMercatorLimit_ClampsToEdgeRow() {
+        assertEquals(0, MapTile.containing(89.9, 0, 4).y());
+        assertEquals(15, MapTile.containing(-90, 0, 4).y());
+    }
+
+    @Test
+    void bounds_WithoutBuffer_MatchesTileEdges() {
+        final BoundingBox bounds = new MapTile(1, 1, 0).bounds(0);
+
+        assertEquals(0, bounds.west(), 1e-9);
+        assertEquals(180, bounds.east(), 1e-9);
+        assertEquals(0, bounds.south(), 1e-9);
+        assertEquals(85.0511, bounds.north(), 1e-4);
+    }
+
+    @Test
+    void bounds_BufferPastAntimeridian_WrapsAround() {
+        final BoundingBox bounds = new MapTile(2, 0, 1).bounds(0.1);
+
+        assertTrue(bounds.crossesAntimeridian());
+        assertEquals(171, bounds.west(), 1e-9);
+        assertEquals(-81, bounds.east(), 1e-9);
+    }
+
+    @Test
+    void bounds_WorldTile_CoversAllLongitudes() {
+        final BoundingBox bounds = new MapTile(0, 0, 0).bounds(0.1);
+
+        assertEquals(-180, bounds.west());
+        assertEquals(180, bounds.east());
+    }
+
+    @Test
+    void constructor_OutOfRange_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new MapTile(23, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MapTile(2, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> new MapTile(2, 0, -1));
+    }
+}
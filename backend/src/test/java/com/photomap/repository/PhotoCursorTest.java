@@ -0,0 +1,36 @@
+package com.photomap.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoCursorTest {
+
+    @Test
+    void encode_RoundTripsThroughDecode() {
+        final PhotoCursor cursor = new PhotoCursor(PhotoCursor.SORT_UPLOADED_AT, Instant.parse("2025-01-02T03:04:05.123456Z"), 42L);
+
+        assertEquals(cursor, PhotoCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void encode_NullValue_RoundTrips() {
+        final PhotoCursor cursor = new PhotoCursor(PhotoCursor.SORT_TAKEN_AT, null, 7L);
+
+        assertEquals(cursor, PhotoCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decode_MalformedToken_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> PhotoCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> PhotoCursor.decode(
+                new PhotoCursor(PhotoCursor.SORT_TAKEN_AT, null, 7L).encode().substring(2)));
+    }
+
+    @Test
+    void constructor_UnsupportedSort_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new PhotoCursor("fileSize", null, 1L));
+    }
+}
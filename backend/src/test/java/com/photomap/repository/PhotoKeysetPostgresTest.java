@@ -0,0 +1,158 @@
+package com.photomap.repository;
+
+import com.photomap.model.Photo;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks against PostgreSQL with the Flyway schema that cursor slices are index range scans,
+ * not scans from the top of the index; skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+@Import(PhotoKeysetPostgresTest.StatementCapture.class)
+class PhotoKeysetPostgresTest {
+
+    private static final Instant CURSOR_VALUE = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGIS = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.4-alpine").asCompatibleSubstituteFor("postgres"));
+
+    @DynamicPropertySource
+    static void postgisProperties(final DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGIS::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGIS::getUsername);
+        registry.add("spring.datasource.password", POSTGIS::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CapturingInspector inspector;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 20; i++) {
+            final Photo photo = new Photo();
+            photo.setFilename("photo-" + i + ".jpg");
+            photo.setOriginalFilename("photo-" + i + ".jpg");
+            photo.setFileSize(100L);
+            photo.setMimeType("image/jpeg");
+            entityManager.persist(photo);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void after_UploadedAtCursor_SeeksIndexRange() {
+        final String plan = explainSlice(PhotoCursor.SORT_UPLOADED_AT, Sort.Order.desc(PhotoCursor.SORT_UPLOADED_AT));
+
+        assertTrue(plan.contains("photos_uploaded_at_id_idx"), plan);
+        assertTrue(plan.contains("Index Cond: (uploaded_at <= "), plan);
+    }
+
+    @Test
+    void after_TakenAtCursor_UsesKeysetIndex() {
+        final String plan = explainSlice(PhotoCursor.SORT_TAKEN_AT, Sort.Order.desc(PhotoCursor.SORT_TAKEN_AT).nullsLast());
+
+        assertTrue(plan.contains("photos_taken_at_id_idx"), plan);
+    }
+
+    /**
+     * Runs one cursor slice, then explains the statement Hibernate issued for it with the same
+     * parameters. The tiny table would otherwise be read sequentially.
+     */
+    private String explainSlice(final String sortKey, final Sort.Order order) {
+        final PhotoCursor cursor = new PhotoCursor(sortKey, CURSOR_VALUE, 1_000L);
+        final Sort sort = Sort.by(order, Sort.Order.desc("id"));
+        inspector.statements.clear();
+        photoRepository.findBy(PhotoSpecification.after(cursor).and(PhotoSpecification.orderedBy(sort)),
+                query -> query.limit(20).all());
+        final String sql = inspector.statements.stream()
+                .filter(statement -> statement.toLowerCase().startsWith("select"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+
+        // Parameters in statement order: sort value twice, id, then the limit
+        final List<String> parameters = List.of("'" + CURSOR_VALUE + "'", "'" + CURSOR_VALUE + "'", "1000", "20");
+        final StringBuilder bound = new StringBuilder();
+        int next = 0;
+        for (final char c : sql.toCharArray()) {
+            if (c == '?') {
+                bound.append(parameters.get(next++));
+            } else {
+                bound.append(c);
+            }
+        }
+
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL enable_bitmapscan = off");
+        jdbcTemplate.execute("SET LOCAL enable_sort = off");
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + bound, String.class));
+    }
+
+    @TestConfiguration
+    static class StatementCapture {
+
+        @Bean
+        CapturingInspector capturingInspector() {
+            return new CapturingInspector();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspectorCustomizer(final CapturingInspector inspector) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+
+    static final class CapturingInspector implements StatementInspector {
+
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(final String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.photomap.repository;
+
+import com.photomap.dto.PhotoResponse;
+import com.photomap.model.Photo;
+import com.photomap.model.Role;
+import com.photomap.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the spatial specifications against PostGIS with the Flyway schema (validated against
+ * the entity mapping); skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class PhotoSpatialPostgisTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGIS = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.4-alpine").asCompatibleSubstituteFor("postgres"));
+
+    @DynamicPropertySource
+    static void postgisProperties(final DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGIS::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGIS::getUsername);
+        registry.add("spring.datasource.password", POSTGIS::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    private Photo warsaw;
+    private Photo krakow;
+    private Photo wroclaw;
+    private Photo fijiEast;
+    private Photo fijiWest;
+
+    @BeforeEach
+    void setUp() {
+        final User user = new User();
+        user.setEmail("spatial@example.com");
+        user.setPasswordHash("hash");
+        user.setRole(Role.USER);
+        entityManager.persist(user);
+
+        warsaw = persistPhoto(user, "warsaw.jpg", 52.2297, 21.0122);
+        krakow = persistPhoto(user, "krakow.jpg", 50.0647, 19.9450);
+        wroclaw = persistPhoto(user, "wroclaw.jpg", 51.1079, 17.0385);
+        fijiEast = persistPhoto(user, "fiji-east.jpg", -17.8, 179.5);
+        fijiWest = persistPhoto(user, "fiji-west.jpg", -17.8, -179.5);
+        persistPhoto(user, "no-gps.jpg", null, null);
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void location_IsGeneratedFromGpsColumns() {
+        final Photo reloaded = entityManager.find(Photo.class, krakow.getId());
+
+        assertNotNull(reloaded.getLocation());
+        assertEquals(19.9450, reloaded.getLocation().getX(), 1e-6);
+        assertEquals(50.0647, reloaded.getLocation().getY(), 1e-6);
+    }
+
+    @Test
+    void locatedIn_ReturnsPhotosInsideBox() {
+        final List<Photo> result = photoRepository.findAll(PhotoSpecification.locatedIn(new BoundingBox(18.0, 49.0, 22.0, 53.0)));
+
+        assertEquals(List.of(warsaw.getId(), krakow.getId()), ids(result));
+    }
+
+    @Test
+    void locatedIn_CrossingAntimeridian_MatchesBothSides() {
+        final List<Photo> result = photoRepository.findAll(PhotoSpecification.locatedIn(new BoundingBox(179.0, -18.0, -179.0, -17.0)));
+
+        assertEquals(List.of(fijiEast.getId(), fijiWest.getId()), ids(result));
+    }
+
+    @Test
+    void withinRadius_UsesGeodesicDistance() {
+        final GeoPoint center = new GeoPoint(52.2297, 21.0122);
+
+        assertEquals(List.of(warsaw.getId()), ids(photoRepository.findAll(PhotoSpecification.withinRadius(center, 100_000.0))));
+        // Kraków is ~252 km from Warsaw, Wrocław ~301 km
+        assertEquals(List.of(warsaw.getId(), krakow.getId()),
+                ids(photoRepository.findAll(PhotoSpecification.withinRadius(center, 260_000.0))));
+    }
+
+    @Test
+    void nearestTo_ReturnsClosestPhotosFirst() {
+        final List<PhotoResponse> nearest = photoRepository.findPhotoResponses(
+                PhotoSpecification.nearestTo(new GeoPoint(51.1, 17.0)), null, PageRequest.of(0, 2), PhotoFields.ALL).getContent();
+
+        assertEquals(List.of(wroclaw.getId(), krakow.getId()), nearest.stream().map(PhotoResponse::id).toList());
+    }
+
+    @Test
+    void radiusQuery_IsAnsweredByGistIndex() {
+        final EntityManager em = entityManager.getEntityManager();
+        em.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+
+        @SuppressWarnings("unchecked")
+        final List<String> plan = em.createNativeQuery("""
+                EXPLAIN SELECT id FROM photos
+                WHERE ST_DWithin(location, geography(ST_SetSRID(ST_MakePoint(21.0, 52.2), 4326)), 1000)
+                """).getResultList();
+
+        assertTrue(plan.stream().anyMatch(line -> line.contains("photos_location_idx")), String.join("\n", plan));
+    }
+
+    private Photo persistPhoto(final User user, final String filename, final Double latitude, final Double longitude) {
+        final Photo photo = new Photo();
+        photo.setFilename(filename);
+        photo.setOriginalFilename(filename);
+        photo.setFileSize(100L);
+        photo.setMimeType("image/jpeg");
+        photo.setGpsLatitude(latitude != null ? BigDecimal.valueOf(latitude) : null);
+        photo.setGpsLongitude(longitude != null ? BigDecimal.valueOf(longitude) : null);
+        photo.setUser(user);
+        return entityManager.persist(photo);
+    }
+
+    private static List<Long> ids(final List<Photo> photos) {
+        return photos.stream().map(Photo::getId).sorted().toList();
+    }
+}
@@ -1,5 +1,8 @@
 package com.photomap.repository;
 
+import com.photomap.dto.MapPoints;
+import com.photomap.dto.PhotoClusterResponse;
+import com.photomap.dto.PhotoTimelineResponse;
 import com.photomap.model.Photo;
 import com.photomap.model.Rating;
 import com.photomap.model.Role;
@@ -9,13 +12,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -313,7 +319,7 @@ class PhotoSpecificationTest {
         rating3.setRatingValue(2);
         entityManager.persist(rating3);
 
-        entityManager.flush();
+        reconcileRatingAggregates();
 
         final Specification<Photo> spec = PhotoSpecification.hasMinRating(4);
 
@@ -363,7 +369,7 @@ class PhotoSpecificationTest {
         rating3.setRatingValue(3);
         entityManager.persist(rating3);
 
-        entityManager.flush();
+        reconcileRatingAggregates();
 
         // Filter minRating=4 should include photo (avg 4.33 >= 4)
         final Specification<Photo> spec4 = PhotoSpecification.hasMinRating(4);
@@ -405,7 +411,7 @@ class PhotoSpecificationTest {
         rating2.setRatingValue(5);
         entityManager.persist(rating2);
 
-        entityManager.flush();
+        reconcileRatingAggregates();
 
         // Filter minRating=5 should include photo (avg 5.0 >= 5)
         final Specification<Photo> spec = PhotoSpecification.hasMinRating(5);
@@ -439,7 +445,7 @@ class PhotoSpecificationTest {
         rating.setRatingValue(5);
         entityManager.persist(rating);
 
-        entityManager.flush();
+        reconcileRatingAggregates();
 
         // Combine: has GPS AND taken after 5 days ago AND min rating 4
         final Specification<Photo> spec = PhotoSpecification.hasGps(true)
@@ -451,4 +457,183 @@ class PhotoSpecificationTest {
         assertEquals(1, result.size());
         assertEquals(recentPhoto.getId(), result.get(0).getId());
     }
+
+    @Test
+    void applyRatingChange_UpdatesAggregatesUsedByFilter() {
+        photoRepository.applyRatingChange(oldPhoto.getId(), 5, 1, 5, 0);
+        photoRepository.applyRatingChange(oldPhoto.getId(), 3, 1, 3, 0);
+        photoRepository.applyRatingChange(oldPhoto.getId(), -2, 0, 3, 5);
+        entityManager.clear();
+
+        final Photo reloaded = entityManager.find(Photo.class, oldPhoto.getId());
+        assertEquals(6L, reloaded.getRatingSum());
+        assertEquals(2, reloaded.getRatingCount());
+        assertEquals(3.0, reloaded.getRatingAvg());
+        assertEquals(0, reloaded.getRating5Count());
+        assertEquals(2, reloaded.getRating3Count());
+
+        assertEquals(1, photoRepository.findAll(PhotoSpecification.hasMinRating(3)).size());
+        assertEquals(0, photoRepository.findAll(PhotoSpecification.hasMinRating(4)).size());
+    }
+
+    @Test
+    void reconcileRatingAggregates_CorrectsOnlyDriftedPhotos() {
+        photoRepository.applyRatingChange(recentPhoto.getId(), 4, 1, 4, 0);
+
+        assertEquals(1, photoRepository.reconcileRatingAggregates(0L, Long.MAX_VALUE));
+        assertEquals(0, photoRepository.reconcileRatingAggregates(0L, Long.MAX_VALUE));
+        entityManager.clear();
+
+        final Photo reloaded = entityManager.find(Photo.class, recentPhoto.getId());
+        assertEquals(0, reloaded.getRatingCount());
+        assertNull(reloaded.getRatingAvg());
+    }
+
+    @Test
+    void after_WalksTakenAtOrderWithTiesAndUndatedPhotos() {
+        final Photo sameTime = new Photo();
+        sameTime.setFilename("same-time.jpg");
+        sameTime.setOriginalFilename("original-same-time.jpg");
+        sameTime.setFileSize(100L);
+        sameTime.setMimeType("image/jpeg");
+        sameTime.setTakenAt(recentPhoto.getTakenAt());
+        entityManager.persist(sameTime);
+
+        final Photo undated = new Photo();
+        undated.setFilename("undated.jpg");
+        undated.setOriginalFilename("original-undated.jpg");
+        undated.setFileSize(100L);
+        undated.setMimeType("image/jpeg");
+        entityManager.persist(undated);
+        entityManager.flush();
+
+        final Sort sort = Sort.by(Sort.Order.desc(PhotoCursor.SORT_TAKEN_AT).nullsLast(), Sort.Order.desc("id"));
+        final List<Long> walked = new ArrayList<>();
+        PhotoCursor cursor = null;
+        List<Photo> slice;
+        do {
+            slice = photoRepository.findBy(PhotoSpecification.after(cursor).and(PhotoSpecification.orderedBy(sort)),
+                    query -> query.limit(2).all());
+            slice.forEach(photo -> walked.add(photo.getId()));
+            cursor = slice.isEmpty() ? null : PhotoCursor.of(PhotoCursor.SORT_TAKEN_AT, slice.get(slice.size() - 1));
+        } while (!slice.isEmpty());
+
+        assertEquals(List.of(sameTime.getId(), recentPhoto.getId(), photoWithoutGps.getId(),
+                photoWithGps.getId(), oldPhoto.getId(), undated.getId()), walked);
+    }
+
+    @Test
+    void after_WalksUploadedAtOrder() {
+        final Sort sort = Sort.by(Sort.Order.desc(PhotoCursor.SORT_UPLOADED_AT), Sort.Order.desc("id"));
+        final List<Long> expected = photoRepository.findAll(sort).stream().map(Photo::getId).toList();
+        final List<Long> walked = new ArrayList<>();
+        PhotoCursor cursor = null;
+        List<Photo> slice;
+        do {
+            slice = photoRepository.findBy(PhotoSpecification.after(cursor).and(PhotoSpecification.orderedBy(sort)),
+                    query -> query.limit(3).all());
+            slice.forEach(photo -> walked.add(photo.getId()));
+            cursor = slice.isEmpty() ? null : PhotoCursor.of(PhotoCursor.SORT_UPLOADED_AT, slice.get(slice.size() - 1));
+        } while (!slice.isEmpty());
+
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    void orderedBy_RatingDescending_PutsUnratedPhotosLast() {
+        photoRepository.applyRatingChange(oldPhoto.getId(), 3, 1, 3, 0);
+        photoRepository.applyRatingChange(recentPhoto.getId(), 5, 1, 5, 0);
+        entityManager.clear();
+
+        final Sort sort = Sort.by(Sort.Order.desc("ratingAvg").nullsLast(), Sort.Order.asc("id"));
+        final List<Photo> result = photoRepository.findAll(PhotoSpecification.orderedBy(sort));
+
+        assertEquals(List.of(recentPhoto.getId(), oldPhoto.getId(), photoWithGps.getId(), photoWithoutGps.getId()),
+                result.stream().map(Photo::getId).toList());
+    }
+
+    @Test
+    void findMapPoints_ReturnsColumnsOfGeotaggedPhotosInIdOrder() {
+        photoRepository.applyRatingChange(oldPhoto.getId(), 4, 1, 4, 0);
+        entityManager.clear();
+
+        final MapPoints points = photoRepository.findMapPoints(PhotoSpecification.hasGps(true));
+
+        assertEquals(3, points.size());
+        assertEquals(photoWithGps.getId(), points.id(0));
+        assertEquals(oldPhoto.getId(), points.id(1));
+        assertEquals(recentPhoto.getId(), points.id(2));
+        assertEquals(52.2297, points.latitude(0), 1e-9);
+        assertEquals(21.0122, points.longitude(0), 1e-9);
+        assertEquals(photoWithGps.getTakenAt().toEpochMilli(), points.takenAt(0));
+        assertNull(points.ratingAvg(0));
+        assertEquals(4.0, points.ratingAvg(1));
+    }
+
+    @Test
+    void withinBounds_ReturnsPhotosInsideBox() {
+        final List<Photo> result = photoRepository.findAll(PhotoSpecification.withinBounds(new BoundingBox(18.0, 49.0, 22.0, 53.0)));
+
+        assertEquals(List.of(photoWithGps.getId(), oldPhoto.getId()), result.stream().map(Photo::getId).sorted().toList());
+    }
+
+    @Test
+    void withinBounds_CrossingAntimeridian_MatchesBothSides() {
+        final List<Photo> result = photoRepository.findAll(PhotoSpecification.withinBounds(new BoundingBox(21.0, 50.0, 18.0, 53.0)));
+
+        assertEquals(List.of(photoWithGps.getId(), recentPhoto.getId()), result.stream().map(Photo::getId).sorted().toList());
+    }
+
+    @Test
+    void findClusters_GroupsPhotosPerGridCell() {
+        final Specification<Photo> spec = PhotoSpecification.hasGps(true);
+
+        final List<PhotoClusterResponse> coarse = photoRepository.findClusters(spec, 30.0);
+        assertEquals(1, coarse.size());
+        assertEquals(3L, coarse.get(0).count());
+        assertEquals((52.2297 + 50.0647 + 51.1079) / 3, coarse.get(0).latitude(), 1e-6);
+        assertEquals(recentPhoto.getId(), coarse.get(0).photoId());
+
+        final List<PhotoClusterResponse> fine = photoRepository.findClusters(spec, 0.5);
+        assertEquals(3, fine.size());
+        assertTrue(fine.stream().allMatch(cluster -> cluster.count() == 1));
+        assertTrue(fine.stream().anyMatch(cluster -> cluster.photoId().equals(oldPhoto.getId())
+                && Math.abs(cluster.longitude() - 19.9450) < 1e-9));
+    }
+
+    @Test
+    void findTimeline_CountsPhotosPerCapturePeriod() {
+        final Photo undated = new Photo();
+        undated.setFilename("undated.jpg");
+        undated.setOriginalFilename("original-undated.jpg");
+        undated.setFileSize(256L);
+        undated.setMimeType("image/jpeg");
+        undated.setUser(testUser);
+        entityManager.persist(undated);
+        entityManager.flush();
+
+        final PhotoTimelineResponse days = photoRepository.findTimeline(PhotoSpecification.hasGps(null), TimelineBucket.DAY);
+        assertEquals("day", days.bucket());
+        assertEquals(1, days.undatedCount());
+        assertEquals(List.of(
+                new PhotoTimelineResponse.Bucket(dayOf(oldPhoto), 1),
+                new PhotoTimelineResponse.Bucket(dayOf(photoWithGps), 1),
+                new PhotoTimelineResponse.Bucket(dayOf(photoWithoutGps), 1),
+                new PhotoTimelineResponse.Bucket(dayOf(recentPhoto), 1)), days.buckets());
+
+        final PhotoTimelineResponse years = photoRepository.findTimeline(PhotoSpecification.hasGps(true), TimelineBucket.YEAR);
+        assertEquals(0, years.undatedCount());
+        assertEquals(3, years.buckets().stream().mapToLong(PhotoTimelineResponse.Bucket::count).sum());
+        assertTrue(years.buckets().stream().allMatch(bucket -> bucket.start().getDayOfYear() == 1));
+    }
+
+    private static LocalDate dayOf(final Photo photo) {
+        return LocalDate.ofInstant(photo.getTakenAt(), ZoneId.systemDefault());
+    }
+
+    private void reconcileRatingAggregates() {
+        entityManager.flush();
+        photoRepository.reconcileRatingAggregates(0L, Long.MAX_VALUE);
+        entityManager.clear();
+    }
 }
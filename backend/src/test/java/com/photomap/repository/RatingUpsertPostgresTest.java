@@ -0,0 +1,132 @@
+package com.photomap.repository;
+
+import com.photomap.model.Photo;
+import com.photomap.model.Role;
+import com.photomap.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the single-statement rating upsert against PostgreSQL with the Flyway schema and checks the
+ * aggregates it maintains against a full recount; skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class RatingUpsertPostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGIS = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.4-alpine").asCompatibleSubstituteFor("postgres"));
+
+    @DynamicPropertySource
+    static void postgisProperties(final DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGIS::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGIS::getUsername);
+        registry.add("spring.datasource.password", POSTGIS::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RatingRepository ratingRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    private Long userId;
+    private Long otherUserId;
+    private Long firstPhotoId;
+    private Long secondPhotoId;
+
+    @BeforeEach
+    void setUp() {
+        userId = user("rater@example.com").getId();
+        otherUserId = user("other@example.com").getId();
+        firstPhotoId = photo("a.jpg").getId();
+        secondPhotoId = photo("b.jpg").getId();
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void upsertRatings_InsertsAndReturnsAggregates() {
+        final List<RatingRepository.RatingUpsert> rows = sorted(ratingRepository.upsertRatings(userId,
+                new Long[]{firstPhotoId, secondPhotoId}, new Integer[]{4, 2}));
+
+        assertEquals(2, rows.size());
+        assertNull(rows.get(0).getPreviousRating());
+        assertEquals(4, rows.get(0).getRating());
+        assertEquals(4.0, rows.get(0).getAverageRating());
+        assertEquals(1, rows.get(0).getTotalRatings());
+        assertNotNull(rows.get(0).getCreatedAt());
+        assertEquals(2.0, rows.get(1).getAverageRating());
+    }
+
+    @Test
+    void upsertRatings_UpdatesExistingRatingInPlace() {
+        ratingRepository.upsertRatings(otherUserId, new Long[]{firstPhotoId}, new Integer[]{5});
+        final RatingRepository.RatingUpsert first = ratingRepository.upsertRatings(userId, new Long[]{firstPhotoId}, new Integer[]{1}).get(0);
+
+        final RatingRepository.RatingUpsert second = ratingRepository.upsertRatings(userId, new Long[]{firstPhotoId}, new Integer[]{3}).get(0);
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(1, second.getPreviousRating());
+        assertEquals(4.0, second.getAverageRating());
+        assertEquals(2, second.getTotalRatings());
+        assertEquals(0, photoRepository.reconcileRatingAggregates(0L, Long.MAX_VALUE));
+    }
+
+    @Test
+    void upsertRatings_UnknownPhoto_IsLeftOut() {
+        final List<RatingRepository.RatingUpsert> rows = ratingRepository.upsertRatings(userId,
+                new Long[]{firstPhotoId, -1L}, new Integer[]{5, 5});
+
+        assertEquals(List.of(firstPhotoId), rows.stream().map(RatingRepository.RatingUpsert::getPhotoId).toList());
+    }
+
+    private User user(final String email) {
+        final User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        user.setRole(Role.USER);
+        return entityManager.persist(user);
+    }
+
+    private Photo photo(final String filename) {
+        final Photo photo = new Photo();
+        photo.setFilename(filename);
+        photo.setOriginalFilename(filename);
+        photo.setFileSize(1000L);
+        photo.setMimeType("image/jpeg");
+        photo.setTakenAt(Instant.parse("2024-05-01T10:00:00Z"));
+        return entityManager.persist(photo);
+    }
+
+    private static List<RatingRepository.RatingUpsert> sorted(final List<RatingRepository.RatingUpsert> rows) {
+        return rows.stream().sorted(Comparator.comparing(RatingRepository.RatingUpsert::getPhotoId)).toList();
+    }
+}
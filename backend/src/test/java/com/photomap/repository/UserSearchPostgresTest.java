@@ -0,0 +1,92 @@
+package com.photomap.repository;
+
+import com.photomap.model.Role;
+import com.photomap.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the admin user search queries against PostgreSQL with the Flyway schema, including the
+ * {@code pg_trgm} indexes; skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class UserSearchPostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGIS = new PostgreSQLContainer<>(
+            DockerImageName.parse("postgis/postgis:15-3.4-alpine").asCompatibleSubstituteFor("postgres"));
+
+    @DynamicPropertySource
+    static void postgisProperties(final DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGIS::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGIS::getUsername);
+        registry.add("spring.datasource.password", POSTGIS::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.flyway.enabled", () -> "true");
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        for (final String email : List.of("anna.nowak@example.com", "Annabelle@example.com", "jan.kowalski@example.com",
+                "an_other@example.com", "anna@x.io", "bob@annex.org")) {
+            final User user = new User();
+            user.setEmail(email);
+            user.setPasswordHash("hash");
+            user.setRole(Role.USER);
+            entityManager.persist(user);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void searchByEmailSimilarity_MatchesSubstringsBestFirst() {
+        final Page<User> users = userRepository.searchByEmailSimilarity("anna", "%anna%", PageRequest.of(0, 1));
+
+        assertEquals(3, users.getTotalElements());
+        assertEquals(List.of("anna@x.io"), users.getContent().stream().map(User::getEmail).toList());
+    }
+
+    @Test
+    void searchByEmailPrefix_MatchesStartInEmailOrder() {
+        final Page<User> users = userRepository.searchByEmailPrefix("an%", PageRequest.of(0, 20));
+
+        assertEquals(List.of("an_other@example.com", "anna.nowak@example.com", "anna@x.io", "Annabelle@example.com"),
+                users.getContent().stream().map(User::getEmail).toList());
+    }
+
+    @Test
+    void searchByEmailPrefix_EscapedWildcard_MatchesLiterally() {
+        final Page<User> users = userRepository.searchByEmailPrefix("an\\_%", PageRequest.of(0, 20));
+
+        assertEquals(List.of("an_other@example.com"), users.getContent().stream().map(User::getEmail).toList());
+    }
+}
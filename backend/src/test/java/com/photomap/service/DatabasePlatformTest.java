@@ -0,0 +1,40 @@
+package com.photomap.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DatabasePlatformTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private DatabasePlatform databasePlatform;
+
+    @Test
+    void isPostgres_LooksUpProductOnce() {
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Boolean>>any())).thenReturn(true);
+
+        assertTrue(databasePlatform.isPostgres());
+        assertTrue(databasePlatform.isPostgres());
+
+        verify(jdbcTemplate, times(1)).execute(ArgumentMatchers.<ConnectionCallback<Boolean>>any());
+    }
+
+    @Test
+    void isPostgres_OtherDatabase_ReturnsFalse() {
+        when(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<Boolean>>any())).thenReturn(false);
+
+        assertFalse(databasePlatform.isPostgres());
+    }
+}
@@ -0,0 +1,110 @@
+package com.photomap.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DerivedImageCacheTest {
+
+    private static final int ONE_MB = 1024 * 1024;
+
+    private DerivedImageCache derivedImageCache;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        derivedImageCache = new DerivedImageCache();
+        ReflectionTestUtils.setField(derivedImageCache, "derivedDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(derivedImageCache, "maxSizeMb", 2L);
+        derivedImageCache.init();
+    }
+
+    @Test
+    void put_OverCapacity_EvictsLeastRecentlyUsed() throws IOException {
+        store("1_64x64_contain.jpg", ONE_MB);
+        store("2_64x64_contain.jpg", ONE_MB);
+
+        // Touch the first entry so the second becomes the eldest
+        assertTrue(isCached("1_64x64_contain.jpg"));
+
+        store("3_64x64_contain.jpg", ONE_MB);
+
+        assertTrue(isCached("1_64x64_contain.jpg"));
+        assertFalse(isCached("2_64x64_contain.jpg"));
+        assertFalse(Files.exists(tempDir.resolve("2_64x64_contain.jpg")));
+        assertTrue(isCached("3_64x64_contain.jpg"));
+        assertEquals(2L * ONE_MB, derivedImageCache.totalBytes());
+    }
+
+    @Test
+    void evictPhoto_RemovesAllVariantsOfPhoto() throws IOException {
+        store("1_64x64_contain.jpg", 10);
+        store("1_128x128_cover.jpg", 10);
+        store("11_64x64_contain.jpg", 10);
+
+        derivedImageCache.evictPhoto(1L);
+
+        assertFalse(isCached("1_64x64_contain.jpg"));
+        assertFalse(isCached("1_128x128_cover.jpg"));
+        assertTrue(isCached("11_64x64_contain.jpg"));
+        assertEquals(10L, derivedImageCache.totalBytes());
+    }
+
+    @Test
+    void get_EvictedAfterOpening_StillReadable() throws IOException {
+        final Path tempFile = derivedImageCache.newTempFile("1_64x64_contain.jpg");
+        Files.write(tempFile, new byte[]{1, 2, 3});
+        derivedImageCache.put("1_64x64_contain.jpg", tempFile).close();
+
+        try (DerivedImageCache.CachedImage image = derivedImageCache.get("1_64x64_contain.jpg").orElseThrow()) {
+            derivedImageCache.evictPhoto(1L);
+
+            assertFalse(Files.exists(tempDir.resolve("1_64x64_contain.jpg")));
+            assertEquals(3L, image.contentLength());
+            try (InputStream inputStream = image.getInputStream()) {
+                assertArrayEquals(new byte[]{1, 2, 3}, inputStream.readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void init_RegistersExistingFilesAndDropsTempFiles() throws IOException {
+        Files.write(tempDir.resolve("5_64x64_contain.jpg"), new byte[20]);
+        Files.write(tempDir.resolve(".tmp-abc-5_128x128_contain.jpg"), new byte[20]);
+
+        derivedImageCache = new DerivedImageCache();
+        ReflectionTestUtils.setField(derivedImageCache, "derivedDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(derivedImageCache, "maxSizeMb", 2L);
+        derivedImageCache.init();
+
+        assertTrue(isCached("5_64x64_contain.jpg"));
+        assertFalse(Files.exists(tempDir.resolve(".tmp-abc-5_128x128_contain.jpg")));
+        assertEquals(20L, derivedImageCache.totalBytes());
+    }
+
+    private void store(final String name, final int size) throws IOException {
+        final Path tempFile = derivedImageCache.newTempFile(name);
+        Files.write(tempFile, new byte[size]);
+        derivedImageCache.put(name, tempFile).close();
+    }
+
+    private boolean isCached(final String name) throws IOException {
+        final Optional<DerivedImageCache.CachedImage> image = derivedImageCache.get(name);
+        if (image.isEmpty()) {
+            return false;
+        }
+        image.get().close();
+        return true;
+    }
+}
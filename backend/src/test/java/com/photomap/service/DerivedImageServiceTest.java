@@ -0,0 +1,164 @@
+package com.photomap.service;
+
+import com.photomap.model.Photo;
+import com.photomap.storage.LocalPhotoStorage;
+import com.photomap.storage.PhotoPathResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DerivedImageServiceTest {
+
+    private DerivedImageService derivedImageService;
+
+    @TempDir
+    Path tempDir;
+
+    private Path originalDir;
+    private Path mediumDir;
+    private PackedThumbnailStore packedThumbnailStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalDir = Files.createDirectories(tempDir.resolve("original"));
+        mediumDir = Files.createDirectories(tempDir.resolve("medium"));
+
+        final DerivedImageCache derivedImageCache = new DerivedImageCache();
+        ReflectionTestUtils.setField(derivedImageCache, "derivedDirectory", tempDir.resolve("derived").toString());
+        ReflectionTestUtils.setField(derivedImageCache, "maxSizeMb", 16L);
+        derivedImageCache.init();
+
+        final LocalPhotoStorage photoStorage = new LocalPhotoStorage(
+                new PhotoPathResolver(PhotoPathResolver.LAYOUT_FLAT), originalDir.toString(), mediumDir.toString());
+        packedThumbnailStore = new PackedThumbnailStore();
+        derivedImageService = new DerivedImageService(derivedImageCache, photoStorage, packedThumbnailStore);
+        ReflectionTestUtils.setField(derivedImageService, "allowedSizes", new int[]{64, 128, 256, 512});
+    }
+
+    @Test
+    void snapToAllowedSize_RoundsUpAndCapsAtLargest() {
+        assertEquals(64, derivedImageService.snapToAllowedSize(1));
+        assertEquals(128, derivedImageService.snapToAllowedSize(100));
+        assertEquals(256, derivedImageService.snapToAllowedSize(256));
+        assertEquals(512, derivedImageService.snapToAllowedSize(4000));
+    }
+
+    @Test
+    void getRendition_Contain_KeepsAspectRatioWithinSnappedBox() throws IOException {
+        final Photo photo = createPhoto(1L, 800, 400, 300, 150);
+
+        final Resource rendition = derivedImageService.getRendition(photo, 100, null, DerivedImageService.Fit.CONTAIN);
+
+        final BufferedImage image = read(rendition);
+        assertEquals(128, image.getWidth());
+        assertEquals(64, image.getHeight());
+        assertEquals("1_128x128_contain.jpg", rendition.getFilename());
+    }
+
+    @Test
+    void getRendition_Cover_FillsBoxExactly() throws IOException {
+        final Photo photo = createPhoto(2L, 800, 400, 300, 150);
+
+        final Resource rendition = derivedImageService.getRendition(photo, 200, 200, DerivedImageService.Fit.COVER);
+
+        final BufferedImage image = read(rendition);
+        assertEquals(256, image.getWidth());
+        assertEquals(256, image.getHeight());
+    }
+
+    @Test
+    void getRendition_SecondRequest_ServedFromCache() throws IOException {
+        final Photo photo = createPhoto(3L, 800, 400, 300, 150);
+
+        final Resource first = derivedImageService.getRendition(photo, 64, 64, DerivedImageService.Fit.CONTAIN);
+        read(first);
+        final Path cached = tempDir.resolve("derived").resolve("3_64x64_contain.jpg");
+        final long modified = cached.toFile().lastModified();
+        Files.delete(originalDir.resolve(photo.getFilename()));
+        Files.delete(mediumDir.resolve(photo.getThumbnailFilename()));
+
+        final Resource second = derivedImageService.getRendition(photo, 60, 60, DerivedImageService.Fit.CONTAIN);
+
+        assertEquals(first.getFilename(), second.getFilename());
+        assertEquals(64, read(second).getWidth());
+        assertEquals(modified, cached.toFile().lastModified());
+    }
+
+    @Test
+    void getRendition_LargerThanMedium_UsesOriginal() throws IOException {
+        final Photo photo = createPhoto(4L, 800, 400, 300, 150);
+
+        final Resource rendition = derivedImageService.getRendition(photo, 512, 512, DerivedImageService.Fit.CONTAIN);
+
+        final BufferedImage image = read(rendition);
+        assertEquals(512, image.getWidth());
+        assertEquals(256, image.getHeight());
+    }
+
+    @Test
+    void getRendition_PackedThumbnail_UsedInsteadOfOriginal() throws IOException {
+        ReflectionTestUtils.setField(packedThumbnailStore, "storageMode", PackedThumbnailStore.STORAGE_PACKED);
+        ReflectionTestUtils.setField(packedThumbnailStore, "packedDirectory", tempDir.resolve("packed").toString());
+        ReflectionTestUtils.setField(packedThumbnailStore, "segmentSizeMb", 1L);
+        ReflectionTestUtils.setField(packedThumbnailStore, "compactionThreshold", 0.5);
+        packedThumbnailStore.init();
+        final Photo photo = createPhoto(5L, 800, 400, 300, 150);
+        packedThumbnailStore.put(5L, Files.readAllBytes(mediumDir.resolve(photo.getThumbnailFilename())));
+        Files.delete(mediumDir.resolve(photo.getThumbnailFilename()));
+        // Without the packed thumbnail the render would need the original
+        Files.delete(originalDir.resolve(photo.getFilename()));
+
+        try {
+            final Resource rendition = derivedImageService.getRendition(photo, 100, null, DerivedImageService.Fit.CONTAIN);
+
+            assertEquals(128, read(rendition).getWidth());
+        } finally {
+            packedThumbnailStore.close();
+        }
+    }
+
+    @Test
+    void getRendition_NoDimensions_ThrowsException() {
+        final Photo photo = new Photo();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> derivedImageService.getRendition(photo, null, null, DerivedImageService.Fit.CONTAIN));
+    }
+
+    @Test
+    void fitFromParameter_UnknownValue_ThrowsException() {
+        assertEquals(DerivedImageService.Fit.COVER, DerivedImageService.Fit.fromParameter("cover"));
+        assertThrows(IllegalArgumentException.class, () -> DerivedImageService.Fit.fromParameter("stretch"));
+    }
+
+    private BufferedImage read(final Resource rendition) throws IOException {
+        try (InputStream inputStream = rendition.getInputStream()) {
+            return ImageIO.read(inputStream);
+        }
+    }
+
+    private Photo createPhoto(final Long id, final int width, final int height,
+                              final int mediumWidth, final int mediumHeight) throws IOException {
+        final String filename = "photo-" + id + ".jpg";
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", originalDir.resolve(filename).toFile());
+        ImageIO.write(new BufferedImage(mediumWidth, mediumHeight, BufferedImage.TYPE_INT_RGB), "jpg", mediumDir.resolve(filename).toFile());
+
+        final Photo photo = new Photo();
+        photo.setId(id);
+        photo.setFilename(filename);
+        photo.setThumbnailFilename(filename);
+        photo.setMimeType("image/jpeg");
+        return photo;
+    }
+}
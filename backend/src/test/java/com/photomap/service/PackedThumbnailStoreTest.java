@@ -0,0 +1,182 @@
+package com.photomap.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedThumbnailStoreTest {
+
+    private static final int HALF_MB = 512 * 1024;
+
+    private PackedThumbnailStore store;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = openStore();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void get_ReturnsStoredBytes() throws IOException {
+        store.put(1L, bytes("first"));
+        store.put(2L, bytes("second"));
+
+        assertEquals("first", read(store.get(1L)));
+        assertEquals("second", read(store.get(2L)));
+        assertEquals(6L, store.get(2L).orElseThrow().contentLength());
+        assertTrue(store.get(3L).isEmpty());
+    }
+
+    @Test
+    void put_ExistingPhoto_ReplacesEntry() throws IOException {
+        store.put(1L, bytes("old"));
+        store.put(1L, bytes("new"));
+
+        assertEquals("new", read(store.get(1L)));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void init_ReplaysIndexFromPreviousRun() throws IOException {
+        store.put(1L, bytes("kept"));
+        store.put(2L, bytes("deleted"));
+        store.delete(2L);
+        store.close();
+
+        store = openStore();
+
+        assertEquals("kept", read(store.get(1L)));
+        assertTrue(store.get(2L).isEmpty());
+    }
+
+    @Test
+    void put_FullSegment_StartsNewSegment() throws IOException {
+        store.put(1L, filled(HALF_MB, (byte) 1));
+        store.put(2L, filled(HALF_MB, (byte) 2));
+        store.put(3L, filled(HALF_MB, (byte) 3));
+
+        assertEquals(1, store.entry(1L).orElseThrow().segment());
+        assertEquals(2, store.entry(3L).orElseThrow().segment());
+        assertTrue(Files.exists(tempDir.resolve("segment-000002.dat")));
+    }
+
+    @Test
+    void compact_MovesLiveEntriesAndRemovesSegment() throws IOException {
+        store.put(1L, filled(HALF_MB, (byte) 1));
+        store.put(2L, filled(HALF_MB, (byte) 2));
+        store.put(3L, filled(HALF_MB, (byte) 3));
+        store.delete(1L);
+
+        store.compact(1);
+
+        assertFalse(Files.exists(tempDir.resolve("segment-000001.dat")));
+        assertEquals(2, store.entry(2L).orElseThrow().segment());
+        final byte[] moved = readBytes(store.get(2L));
+        assertEquals(HALF_MB, moved.length);
+        assertTrue(allEqual(moved, (byte) 2));
+    }
+
+    @Test
+    void get_SliceTakenBeforeCompaction_StaysReadable() throws IOException {
+        store.put(1L, bytes("survivor"));
+        store.put(2L, filled(HALF_MB * 2, (byte) 2));
+        final Optional<Resource> before = store.get(1L);
+
+        store.compact(1);
+
+        assertEquals("survivor", read(before));
+        assertEquals("survivor", read(store.get(1L)));
+    }
+
+    @Test
+    void get_DuringCompaction_NeverMissesSegment() throws Exception {
+        store.put(1L, bytes("survivor"));
+        final AtomicBoolean done = new AtomicBoolean();
+        final ExecutorService reader = Executors.newSingleThreadExecutor();
+        final Future<Integer> reads = reader.submit(() -> {
+            int count = 0;
+            while (!done.get()) {
+                assertEquals("survivor", read(store.get(1L)));
+                count++;
+            }
+            return count;
+        });
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                final int segment = store.entry(1L).orElseThrow().segment();
+                // Fills the active segment so the next write starts a new one, sealing the survivor's
+                store.put(2L, filled(HALF_MB * 2, (byte) i));
+                store.compact(segment);
+            }
+        } finally {
+            done.set(true);
+            reader.shutdown();
+        }
+
+        assertTrue(reads.get() > 0);
+    }
+
+    private PackedThumbnailStore openStore() throws IOException {
+        final PackedThumbnailStore packedStore = new PackedThumbnailStore();
+        ReflectionTestUtils.setField(packedStore, "storageMode", PackedThumbnailStore.STORAGE_PACKED);
+        ReflectionTestUtils.setField(packedStore, "packedDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(packedStore, "segmentSizeMb", 1L);
+        ReflectionTestUtils.setField(packedStore, "compactionThreshold", 0.5);
+        packedStore.init();
+        return packedStore;
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] filled(final int size, final byte value) {
+        final byte[] data = new byte[size];
+        Arrays.fill(data, value);
+        return data;
+    }
+
+    private static boolean allEqual(final byte[] data, final byte value) {
+        for (final byte b : data) {
+            if (b != value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String read(final Optional<Resource> resource) throws IOException {
+        return new String(readBytes(resource), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(final Optional<Resource> resource) throws IOException {
+        try (InputStream in = resource.orElseThrow().getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.photomap.service;
+
+import com.photomap.repository.PhotoReadRepository.CatalogRowConsumer;
+import com.photomap.repository.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoCatalogTest {
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PhotoCatalog catalog;
+    // Stored rows in upload order
+    private final List<Row> rows = new ArrayList<>();
+
+    private record Row(long id, Instant takenAt, Double ratingAvg, boolean hasGps) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        final Random random = new Random(7);
+        final long start = LocalDateTime.of(2000, 1, 1, 0, 0).atZone(ZoneId.systemDefault()).toEpochSecond();
+        for (int i = 1; i <= 3000; i++) {
+            // Ids mostly follow upload order, with a few late arrivals
+            final long id = i % 97 == 0 ? i + 100_000 : i;
+            final Instant takenAt = random.nextInt(10) == 0 ? null : Instant.ofEpochSecond(start + random.nextInt(25 * 365) * 86_400L);
+            final Double ratingAvg = random.nextInt(4) == 0 ? null : 1 + random.nextInt(9) / 2.0;
+            rows.add(new Row(id, takenAt, ratingAvg, random.nextBoolean()));
+        }
+        doAnswer(invocation -> {
+            final CatalogRowConsumer consumer = invocation.getArgument(0);
+            rows.forEach(row -> consumer.accept(row.id(), row.takenAt(), row.ratingAvg(), row.hasGps()));
+            return null;
+        }).when(photoRepository).scanCatalog(any());
+
+        catalog = new PhotoCatalog(photoRepository, transactionManager);
+        ReflectionTestUtils.setField(catalog, "enabled", true);
+        catalog.reload();
+    }
+
+    @Test
+    void find_NotLoaded_ReturnsEmpty() {
+        final PhotoCatalog unloaded = new PhotoCatalog(photoRepository, transactionManager);
+
+        assertFalse(unloaded.isReady());
+        assertEquals(Optional.empty(), unloaded.find(null, null, null, null, byUploadedAt(Sort.Direction.DESC, 0)));
+    }
+
+    @Test
+    void find_UnsupportedSort_ReturnsEmpty() {
+        assertEquals(Optional.empty(), catalog.find(null, null, null, null, PageRequest.of(0, 20, Sort.by("filename"))));
+        assertEquals(Optional.empty(), catalog.find(null, null, null, null,
+                PageRequest.of(0, 20, Sort.by("rating", "uploadedAt"))));
+        assertEquals(Optional.empty(), catalog.find(null, null, null, null,
+                PageRequest.of(600, 20, Sort.by(Sort.Direction.DESC, "rating"))));
+    }
+
+    @Test
+    void find_ByUploadedAt_MatchesScan() {
+        final PhotoCatalog.Selection selection = catalog.find(null, null, null, null, byUploadedAt(Sort.Direction.DESC, 2)).orElseThrow();
+
+        final List<Long> expected = rows.stream().map(Row::id).toList();
+        final List<Long> page = new ArrayList<>();
+        for (int i = expected.size() - 41; i > expected.size() - 61; i--) {
+            page.add(expected.get(i));
+        }
+        assertEquals(page, selection.ids());
+        assertEquals(rows.size(), selection.total());
+    }
+
+    @Test
+    void find_WithFilters_MatchesScan() {
+        final LocalDateTime dateFrom = LocalDateTime.of(2005, 3, 1, 0, 0);
+        final LocalDateTime dateTo = LocalDateTime.of(2012, 6, 30, 23, 59, 59);
+        final Predicate<Row> filter = row -> row.takenAt() != null
+                && !row.takenAt().isBefore(instant(dateFrom)) && !row.takenAt().isAfter(instant(dateTo))
+                && row.ratingAvg() != null && row.ratingAvg() >= 3
+                && row.hasGps();
+
+        final PhotoCatalog.Selection selection = catalog.find(dateFrom, dateTo, 3, true, byUploadedAt(Sort.Direction.ASC, 1)).orElseThrow();
+
+        final List<Long> expected = rows.stream().filter(filter).map(Row::id).toList();
+        assertEquals(expected.size(), selection.total());
+        assertEquals(expected.subList(20, 40), selection.ids());
+    }
+
+    @Test
+    void find_WithoutGps_MatchesScan() {
+        final PhotoCatalog.Selection selection = catalog.find(null, null, null, false, byUploadedAt(Sort.Direction.ASC, 0)).orElseThrow();
+
+        assertEquals(rows.stream().filter(row -> !row.hasGps()).count(), selection.total());
+        assertEquals(rows.stream().filter(row -> !row.hasGps()).limit(20).map(Row::id).toList(), selection.ids());
+    }
+
+    @Test
+    void find_ByTakenAt_PutsUndatedLast() {
+        final List<Long> ascending = catalog.find(null, null, null, null,
+                PageRequest.of(0, rows.size(), Sort.by(Sort.Direction.ASC, "takenAt"))).orElseThrow().ids();
+        final List<Long> descending = catalog.find(null, null, null, null,
+                PageRequest.of(0, rows.size(), Sort.by(Sort.Direction.DESC, "takenAt"))).orElseThrow().ids();
+
+        final Comparator<Row> byTakenAt = Comparator.comparing(Row::takenAt, Comparator.nullsLast(Comparator.naturalOrder()));
+        assertEquals(takenAtOf(rows.stream().sorted(byTakenAt).map(Row::id).toList()), takenAtOf(ascending));
+        assertEquals(takenAtOf(rows.stream().sorted(Comparator.comparing(Row::takenAt,
+                Comparator.nullsLast(Comparator.<Instant>reverseOrder()))).map(Row::id).toList()), takenAtOf(descending));
+    }
+
+    @Test
+    void find_ByRating_MatchesScan() {
+        final Pageable pageable = PageRequest.of(3, 50, Sort.by(Sort.Direction.DESC, "rating"));
+
+        final PhotoCatalog.Selection selection = catalog.find(null, null, null, null, pageable).orElseThrow();
+
+        // Equal ratings list the newer upload first
+        final List<Integer> order = new ArrayList<>();
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing((Integer i) -> rows.get(i).ratingAvg(), Comparator.nullsLast(Comparator.<Double>reverseOrder())));
+        assertEquals(order.subList(150, 200).stream().map(i -> rows.get(i).id()).toList(), selection.ids());
+    }
+
+    @Test
+    void add_AppearsFirstByUploadedAt() {
+        catalog.add(500_000L, Instant.parse("2024-05-01T10:00:00Z"), null, true);
+
+        final PhotoCatalog.Selection selection = catalog.find(null, null, null, true, byUploadedAt(Sort.Direction.DESC, 0)).orElseThrow();
+
+        assertEquals(500_000L, selection.ids().get(0));
+        assertEquals(rows.stream().filter(Row::hasGps).count() + 1, selection.total());
+    }
+
+    @Test
+    void add_KeepsTakenAtOrder() {
+        final Instant earliest = rows.stream().map(Row::takenAt).filter(Objects::nonNull).min(Comparator.naturalOrder()).orElseThrow();
+        catalog.add(500_000L, earliest.minusSeconds(1), 4.0, false);
+
+        final List<Long> ids = catalog.find(null, null, null, null,
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.ASC, "takenAt"))).orElseThrow().ids();
+
+        assertEquals(List.of(500_000L), ids);
+    }
+
+    @Test
+    void add_OutsideTimeWindow_Reloads() {
+        rows.add(new Row(500_000L, Instant.parse("1930-01-01T00:00:00Z"), null, false));
+        catalog.add(500_000L, Instant.parse("1930-01-01T00:00:00Z"), null, false);
+
+        assertTrue(catalog.isReady());
+        assertEquals(rows.size(), catalog.find(null, null, null, null, byUploadedAt(Sort.Direction.DESC, 0)).orElseThrow().total());
+    }
+
+    @Test
+    void remove_ExcludesPhotoAcrossCompaction() {
+        final List<Long> removed = rows.stream().limit(1500).map(Row::id).toList();
+        removed.forEach(catalog::remove);
+
+        final PhotoCatalog.Selection selection = catalog.find(null, null, null, null, byUploadedAt(Sort.Direction.ASC, 0)).orElseThrow();
+
+        assertEquals(rows.size() - removed.size(), selection.total());
+        assertEquals(rows.get(1500).id(), selection.ids().get(0));
+    }
+
+    @Test
+    void add_OutOfIdOrder_IsFoundByLaterWrites() {
+        // Id 97 was never stored (its row went to 100 097), so it lands between existing ids
+        catalog.add(97L, null, null, false);
+        catalog.add(97L, null, null, false);
+        assertEquals(rows.size() + 1, catalog.find(null, null, null, null, byUploadedAt(Sort.Direction.DESC, 0)).orElseThrow().total());
+
+        catalog.remove(97L);
+        catalog.remove(100_097L);
+
+        final PhotoCatalog.Selection selection = catalog.find(null, null, null, null, byUploadedAt(Sort.Direction.DESC, 0)).orElseThrow();
+        assertEquals(rows.size() - 1, selection.total());
+        assertFalse(selection.ids().contains(97L));
+    }
+
+    @Test
+    void refresh_PicksUpRowsWrittenElsewhere() {
+        rows.add(new Row(500_000L, Instant.parse("2024-05-01T10:00:00Z"), 5.0, true));
+
+        catalog.refresh();
+
+        assertEquals(500_000L, catalog.find(null, null, null, null, byUploadedAt(Sort.Direction.DESC, 0)).orElseThrow().ids().get(0));
+    }
+
+    @Test
+    void refreshRating_UpdatesRatingFilter() {
+        final Row unrated = rows.stream().filter(row -> row.ratingAvg() == null).findFirst().orElseThrow();
+        when(photoRepository.findRatingAvg(unrated.id())).thenReturn(Optional.of(5.0));
+        final long before = catalog.find(null, null, 5, null, byUploadedAt(Sort.Direction.ASC, 0)).orElseThrow().total();
+
+        catalog.refreshRating(unrated.id());
+
+        final PhotoCatalog.Selection selection = catalog.find(null, null, 5, null, byUploadedAt(Sort.Direction.ASC, 0)).orElseThrow();
+        assertEquals(before + 1, selection.total());
+    }
+
+    @Test
+    void updateRating_SetsRatingWithoutQuery() {
+        final Row unrated = rows.stream().filter(row -> row.ratingAvg() == null).findFirst().orElseThrow();
+        final long before = catalog.find(null, null, 5, null, byUploadedAt(Sort.Direction.ASC, 0)).orElseThrow().total();
+
+        catalog.updateRating(unrated.id(), 5.0);
+
+        final PhotoCatalog.Selection selection = catalog.find(null, null, 5, null, byUploadedAt(Sort.Direction.ASC, 0)).orElseThrow();
+        assertEquals(before + 1, selection.total());
+        verify(photoRepository, never()).findRatingAvg(anyLong());
+    }
+
+    private static Pageable byUploadedAt(final Sort.Direction direction, final int page) {
+        return PageRequest.of(page, 20, Sort.by(direction, "uploadedAt"));
+    }
+
+    private static Instant instant(final LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    // Ties in capture time may list in either order, so orders are compared by capture time
+    private List<Instant> takenAtOf(final List<Long> ids) {
+        return ids.stream()
+                .map(id -> rows.stream().filter(row -> row.id() == id).findFirst().orElseThrow().takenAt())
+                .toList();
+    }
+}
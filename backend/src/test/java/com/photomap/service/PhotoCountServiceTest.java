@@ -0,0 +1,102 @@
+package com.photomap.service;
+
+import com.photomap.dto.PhotoTimelineResponse;
+import com.photomap.model.Photo;
+import com.photomap.repository.PhotoRepository;
+import com.photomap.repository.TimelineBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoCountServiceTest {
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private DatabasePlatform databasePlatform;
+
+    @Mock
+    private Specification<Photo> spec;
+
+    private final PhotoDataVersion photoDataVersion = new PhotoDataVersion();
+    private PhotoCountService countService;
+
+    @BeforeEach
+    void setUp() {
+        countService = new PhotoCountService(photoRepository, photoDataVersion, jdbcTemplate, databasePlatform);
+        ReflectionTestUtils.setField(countService, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(countService, "estimateThreshold", 1000L);
+    }
+
+    @Test
+    void count_SameSignatureAndVersion_CountsOnce() {
+        when(photoRepository.count(spec)).thenReturn(42L);
+
+        assertEquals(new PhotoCountService.Total(42, true), countService.count("gps=true", spec));
+        assertEquals(new PhotoCountService.Total(42, true), countService.count("gps=true", spec));
+
+        verify(photoRepository, times(1)).count(spec);
+    }
+
+    @Test
+    void count_VersionBumped_Recounts() {
+        when(photoRepository.count(spec)).thenReturn(42L, 43L);
+
+        countService.count("gps=true", spec);
+        photoDataVersion.bump();
+
+        assertEquals(43, countService.count("gps=true", spec).value());
+    }
+
+    @Test
+    void timeline_CachedPerBucketUntilVersionBumped() {
+        final PhotoTimelineResponse months = new PhotoTimelineResponse("month", List.of(), 0);
+        final PhotoTimelineResponse years = new PhotoTimelineResponse("year", List.of(), 0);
+        when(photoRepository.findTimeline(spec, TimelineBucket.MONTH)).thenReturn(months);
+        when(photoRepository.findTimeline(spec, TimelineBucket.YEAR)).thenReturn(years);
+
+        assertSame(months, countService.timeline("gps=true", spec, TimelineBucket.MONTH));
+        assertSame(years, countService.timeline("gps=true", spec, TimelineBucket.YEAR));
+        assertSame(months, countService.timeline("gps=true", spec, TimelineBucket.MONTH));
+        verify(photoRepository, times(1)).findTimeline(spec, TimelineBucket.MONTH);
+
+        photoDataVersion.bump();
+        countService.timeline("gps=true", spec, TimelineBucket.MONTH);
+
+        verify(photoRepository, times(2)).findTimeline(spec, TimelineBucket.MONTH);
+    }
+
+    @Test
+    void countAll_LargePostgresTable_ReturnsEstimate() {
+        when(databasePlatform.isPostgres()).thenReturn(true);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(5000L);
+
+        assertEquals(new PhotoCountService.Total(5000, false), countService.countAll());
+        verify(photoRepository, never()).count();
+    }
+
+    @Test
+    void countAll_NotPostgres_CountsExactly() {
+        when(databasePlatform.isPostgres()).thenReturn(false);
+        when(photoRepository.count()).thenReturn(7L);
+
+        assertEquals(new PhotoCountService.Total(7, true), countService.countAll());
+    }
+}
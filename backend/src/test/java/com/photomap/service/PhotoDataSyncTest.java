@@ -0,0 +1,68 @@
+package com.photomap.service;
+
+import com.photomap.repository.MapTile;
+import com.photomap.repository.PhotoDataSummary;
+import com.photomap.repository.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoDataSyncTest {
+
+    private static final Instant UPDATED = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private PhotoSpatialIndex photoSpatialIndex;
+
+    @Mock
+    private PhotoCatalog photoCatalog;
+
+    private final PhotoDataVersion photoDataVersion = new PhotoDataVersion();
+    private PhotoDataSync photoDataSync;
+
+    @BeforeEach
+    void setUp() {
+        photoDataSync = new PhotoDataSync(photoRepository, photoDataVersion, photoSpatialIndex, photoCatalog);
+    }
+
+    @Test
+    void poll_UnchangedData_KeepsVersion() {
+        when(photoRepository.summarize()).thenReturn(new PhotoDataSummary(3, 6, UPDATED, 2, 7));
+
+        photoDataSync.poll();
+        photoDataSync.poll();
+
+        assertEquals(0, photoDataVersion.current());
+        verify(photoSpatialIndex, never()).refresh();
+        verify(photoCatalog, never()).refresh();
+    }
+
+    @Test
+    void poll_WriteFromAnotherNode_BumpsVersion() {
+        when(photoRepository.summarize())
+                .thenReturn(new PhotoDataSummary(3, 6, UPDATED, 2, 7))
+                .thenReturn(new PhotoDataSummary(3, 6, UPDATED, 3, 12));
+
+        photoDataSync.poll();
+        final long tileVersion = photoDataVersion.tileVersion(new MapTile(0, 0, 0));
+        photoDataSync.poll();
+
+        assertEquals(1, photoDataVersion.current());
+        assertTrue(photoDataVersion.tileVersion(new MapTile(0, 0, 0)) > tileVersion);
+        verify(photoSpatialIndex).refresh();
+        verify(photoCatalog).refresh();
+    }
+}
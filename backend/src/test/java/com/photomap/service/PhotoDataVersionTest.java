@@ -0,0 +1,77 @@
+package com.photomap.service;
+
+import com.photomap.model.Photo;
+import com.photomap.repository.MapTile;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoDataVersionTest {
+
+    private final PhotoDataVersion photoDataVersion = new PhotoDataVersion();
+
+    @Test
+    void bumpPhoto_OnlyMovesTilesAroundIt() {
+        final MapTile warsaw = MapTile.containing(52.23, 21.01, 14);
+        final MapTile lisbon = MapTile.containing(38.72, -9.14, 14);
+
+        photoDataVersion.bump(photoAt(52.23, 21.01));
+
+        assertEquals(1, photoDataVersion.current());
+        assertEquals(1, photoDataVersion.tileVersion(warsaw));
+        assertEquals(1, photoDataVersion.tileVersion(new MapTile(0, 0, 0)));
+        assertEquals(1, photoDataVersion.tileVersion(MapTile.containing(52.23, 21.01, 3)));
+        assertEquals(0, photoDataVersion.tileVersion(lisbon));
+    }
+
+    @Test
+    void bumpPhoto_NearCellEdge_MovesNeighbouringTiles() {
+        // Just east of the antimeridian; tiles west of it show the point in their buffer
+        photoDataVersion.bump(photoAt(10, -179.99));
+
+        assertEquals(1, photoDataVersion.tileVersion(MapTile.containing(10, 179.99, 12)));
+    }
+
+    @Test
+    void bumpPhoto_WithoutGps_KeepsTileVersions() {
+        photoDataVersion.bump(new Photo());
+
+        assertEquals(1, photoDataVersion.current());
+        assertEquals(0, photoDataVersion.tileVersion(new MapTile(0, 0, 0)));
+    }
+
+    @Test
+    void bump_MovesEveryTile() {
+        photoDataVersion.bump(photoAt(52.23, 21.01));
+        photoDataVersion.bump();
+
+        assertEquals(2, photoDataVersion.tileVersion(MapTile.containing(38.72, -9.14, 14)));
+        assertEquals(2, photoDataVersion.tileVersion(MapTile.containing(52.23, 21.01, 14)));
+    }
+
+    @Test
+    void bump_InsideTransaction_WaitsForCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            photoDataVersion.bump(photoAt(52.23, 21.01));
+            assertEquals(0, photoDataVersion.current());
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            assertEquals(1, photoDataVersion.current());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static Photo photoAt(final double latitude, final double longitude) {
+        final Photo photo = new Photo();
+        photo.setGpsLatitude(BigDecimal.valueOf(latitude));
+        photo.setGpsLongitude(BigDecimal.valueOf(longitude));
+        return photo;
+    }
+}
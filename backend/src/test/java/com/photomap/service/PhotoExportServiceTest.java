@@ -0,0 +1,112 @@
+package com.photomap.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.photomap.dto.PhotoExportRow;
+import com.photomap.repository.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoExportServiceTest {
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private PhotoExportService photoExportService;
+
+    private final List<PhotoExportRow> rows = List.of(
+            new PhotoExportRow(1L, "a.jpg", "Beach, \"sunset\".jpg", 2048L, "image/jpeg",
+                    new BigDecimal("-33.86880000"), new BigDecimal("151.20930000"),
+                    Instant.parse("2024-05-01T10:00:00Z"), Instant.parse("2024-05-02T08:30:00Z"),
+                    4.5, 2, 0, 0, 0, 1, 1, 7L, "owner@example.com"),
+            new PhotoExportRow(2L, "b.png", "=HYPERLINK(\"x\").png", 512L, "image/png",
+                    null, null, null, Instant.parse("2024-06-01T00:00:00Z"),
+                    null, 0, 0, 0, 0, 0, 0, null, null));
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            final Consumer<PhotoExportRow> consumer = invocation.getArgument(0);
+            rows.forEach(consumer);
+            return null;
+        }).when(photoRepository).scanExport(any());
+
+        photoExportService = new PhotoExportService(photoRepository, objectMapper, transactionManager);
+    }
+
+    @Test
+    void export_Ndjson_WritesOneObjectPerLine() throws Exception {
+        final String[] lines = export(PhotoExportService.Format.NDJSON).split("\n", -1);
+
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        final JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1L, first.get("id").asLong());
+        assertEquals("owner@example.com", first.get("userEmail").asText());
+        assertEquals("2024-05-01T10:00:00Z", first.get("takenAt").asText());
+        assertEquals(4.5, first.get("ratingAvg").asDouble());
+        assertTrue(objectMapper.readTree(lines[1]).get("userId").isNull());
+    }
+
+    @Test
+    void export_Csv_QuotesAndNeutralizesFormulas() throws Exception {
+        final String[] lines = export(PhotoExportService.Format.CSV).split("\r\n", -1);
+
+        assertEquals(PhotoExportService.CSV_HEADER, lines[0]);
+        assertEquals("1,a.jpg,\"Beach, \"\"sunset\"\".jpg\",2048,image/jpeg,-33.86880000,151.20930000,"
+                + "2024-05-01T10:00:00Z,2024-05-02T08:30:00Z,4.5,2,0,0,0,1,1,7,owner@example.com", lines[1]);
+        assertEquals("2,b.png,\"'=HYPERLINK(\"\"x\"\").png\",512,image/png,,,,2024-06-01T00:00:00Z,,0,0,0,0,0,0,,",
+                lines[2]);
+        assertEquals("", lines[3]);
+    }
+
+    @Test
+    void export_ClientGone_RethrowsIOException() {
+        final OutputStream broken = new OutputStream() {
+            @Override
+            public void write(final int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> photoExportService.export(PhotoExportService.Format.CSV, broken));
+    }
+
+    private String export(final PhotoExportService.Format format) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        photoExportService.export(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
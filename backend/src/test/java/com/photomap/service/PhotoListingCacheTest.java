@@ -0,0 +1,80 @@
+package com.photomap.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoListingCacheTest {
+
+    private final PhotoDataVersion photoDataVersion = new PhotoDataVersion();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PhotoListingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PhotoListingCache(photoDataVersion, meterRegistry);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+    }
+
+    @Test
+    void get_StoredAtCurrentVersion_Hits() {
+        cache.put("page=0", cache.version(), "rows");
+
+        assertEquals(Optional.of("rows"), cache.get("page=0"));
+        assertEquals(Optional.empty(), cache.get("page=1"));
+        assertEquals(1, count("cache.gets", "hit"));
+        assertEquals(1, count("cache.gets", "miss"));
+    }
+
+    @Test
+    void get_VersionBumped_MissesAndEvicts() {
+        cache.put("page=0", cache.version(), "rows");
+        photoDataVersion.bump();
+
+        assertEquals(Optional.empty(), cache.get("page=0"));
+        assertEquals(0, cache.size());
+        assertEquals(1, meterRegistry.get("cache.evictions").counter().count());
+    }
+
+    @Test
+    void put_ReadBeforeLatestWrite_IsNotStored() {
+        final long version = cache.version();
+        photoDataVersion.bump();
+
+        cache.put("page=0", version, "rows");
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_Full_EvictsLeastRecentlyUsed() {
+        cache.put("page=0", cache.version(), "first");
+        cache.put("page=1", cache.version(), "second");
+        cache.get("page=0");
+        cache.put("page=2", cache.version(), "third");
+
+        assertEquals(Optional.of("first"), cache.get("page=0"));
+        assertEquals(Optional.empty(), cache.get("page=1"));
+        assertEquals(2, meterRegistry.get("cache.size").gauge().value());
+        assertEquals(1, meterRegistry.get("cache.evictions").counter().count());
+    }
+
+    @Test
+    void put_Disabled_KeepsNothing() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 0);
+
+        cache.put("page=0", cache.version(), "rows");
+
+        assertEquals(Optional.empty(), cache.get("page=0"));
+    }
+
+    private double count(final String name, final String result) {
+        return meterRegistry.get(name).tag("cache", PhotoListingCache.CACHE_NAME).tag("result", result).counter().count();
+    }
+}
@@ -4,6 +4,9 @@ import com.photomap.model.Photo;
 import com.photomap.model.User;
 import com.photomap.repository.PhotoRepository;
 import com.photomap.repository.UserRepository;
+import com.photomap.storage.LocalPhotoStorage;
+import com.photomap.storage.PhotoPathResolver;
+import com.photomap.storage.StorageArea;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,18 +16,30 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +51,18 @@ class PhotoProcessingServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private PackedThumbnailStore packedThumbnailStore;
+
+    @Mock
+    private PhotoDataVersion photoDataVersion;
+
+    @Mock
+    private PhotoCatalog photoCatalog;
+
+    @Mock
+    private PhotoSpatialIndex photoSpatialIndex;
+
     @InjectMocks
     private PhotoProcessingService photoProcessingService;
 
@@ -60,8 +87,7 @@ class PhotoProcessingServiceTest {
         Files.createDirectories(failedDir);
 
         ReflectionTestUtils.setField(photoProcessingService, "inputDirectory", inputDir.toString());
-        ReflectionTestUtils.setField(photoProcessingService, "originalDirectory", originalDir.toString());
-        ReflectionTestUtils.setField(photoProcessingService, "mediumDirectory", mediumDir.toString());
+        ReflectionTestUtils.setField(photoProcessingService, "photoStorage", createStorage(PhotoPathResolver.LAYOUT_FLAT));
         ReflectionTestUtils.setField(photoProcessingService, "failedDirectory", failedDir.toString());
     }
 
@@ -277,16 +303,64 @@ class PhotoProcessingServiceTest {
     }
 
     @Test
-    void moveToDirectory_ShouldMoveFile() throws Exception {
+    void processPhoto_ShardedLayout_ShouldStoreFilesInHashedSubdirectories() throws IOException {
+        PhotoPathResolver shardedResolver = new PhotoPathResolver(PhotoPathResolver.LAYOUT_SHARDED);
+        ReflectionTestUtils.setField(photoProcessingService, "photoStorage", createStorage(PhotoPathResolver.LAYOUT_SHARDED));
+        File testImage = createTestImage("sharded.jpg");
+
+        photoProcessingService.processPhoto(testImage);
+
+        assertFalse(Files.exists(originalDir.resolve("sharded.jpg")));
+        assertTrue(Files.exists(shardedResolver.shardedPath(originalDir.toString(), "sharded.jpg")));
+        assertTrue(Files.exists(shardedResolver.shardedPath(mediumDir.toString(), "sharded.jpg")));
+    }
+
+    @Test
+    void processPhoto_PackedStorage_ShouldMoveThumbnailIntoStore() throws IOException {
+        when(packedThumbnailStore.isEnabled()).thenReturn(true);
+        when(photoRepository.save(any(Photo.class))).thenAnswer(invocation -> {
+            Photo photo = invocation.getArgument(0);
+            photo.setId(7L);
+            return photo;
+        });
+        File testImage = createTestImage("packed.jpg");
+
+        photoProcessingService.processPhoto(testImage);
+
+        verify(packedThumbnailStore).put(eq(7L), any(byte[].class));
+        assertTrue(Files.exists(originalDir.resolve("packed.jpg")));
+        assertFalse(Files.exists(mediumDir.resolve("packed.jpg")));
+    }
+
+    @Test
+    void processPhoto_PackedStorageOverSharedStorage_ShouldKeepSharedThumbnail() throws IOException {
+        final LocalPhotoStorage sharedStorage = spy(createStorage(PhotoPathResolver.LAYOUT_FLAT));
+        doReturn(true).when(sharedStorage).isShared();
+        ReflectionTestUtils.setField(photoProcessingService, "photoStorage", sharedStorage);
+        when(packedThumbnailStore.isEnabled()).thenReturn(true);
+        when(photoRepository.save(any(Photo.class))).thenAnswer(invocation -> {
+            Photo photo = invocation.getArgument(0);
+            photo.setId(7L);
+            return photo;
+        });
+        File testImage = createTestImage("packed.jpg");
+
+        photoProcessingService.processPhoto(testImage);
+
+        verify(packedThumbnailStore).put(eq(7L), any(byte[].class));
+        assertTrue(Files.exists(mediumDir.resolve("packed.jpg")));
+    }
+
+    @Test
+    void moveToStorage_ShouldMoveFile() throws Exception {
         File testFile = inputDir.resolve("test.txt").toFile();
         Files.write(testFile.toPath(), "test content".getBytes());
 
-        Method method = PhotoProcessingService.class.getDeclaredMethod("moveToDirectory", File.class, String.class, String.class);
+        Method method = PhotoProcessingService.class.getDeclaredMethod("moveToStorage", File.class, StorageArea.class, String.class);
         method.setAccessible(true);
 
-        Path result = (Path) method.invoke(photoProcessingService, testFile, originalDir.toString(), "moved.txt");
+        method.invoke(photoProcessingService, testFile, StorageArea.ORIGINAL, "moved.txt");
 
-        assertNotNull(result);
         assertTrue(Files.exists(originalDir.resolve("moved.txt")));
         assertFalse(Files.exists(testFile.toPath()));
     }
@@ -294,18 +368,101 @@ class PhotoProcessingServiceTest {
     @Test
     void generateThumbnail_ShouldCreateThumbnail() throws Exception {
         File testImage = createTestImage("original.jpg");
-        Files.copy(testImage.toPath(), originalDir.resolve("original.jpg"));
-        File originalFile = originalDir.resolve("original.jpg").toFile();
 
-        Method method = PhotoProcessingService.class.getDeclaredMethod("generateThumbnail", File.class, String.class, String.class, String.class, int.class);
+        Method method = PhotoProcessingService.class.getDeclaredMethod("generateThumbnail", InputStream.class, String.class, String.class, int.class);
         method.setAccessible(true);
 
-        String result = (String) method.invoke(photoProcessingService, originalFile, mediumDir.toString(), "original", ".jpg", 300);
+        String result;
+        try (InputStream source = Files.newInputStream(testImage.toPath())) {
+            result = (String) method.invoke(photoProcessingService, source, "original", ".jpg", 300);
+        }
 
         assertEquals("original.jpg", result);
         assertTrue(Files.exists(mediumDir.resolve("original.jpg")));
     }
 
+    @Test
+    void processPhoto_LazyThumbnailGeneration_ShouldSkipThumbnail() throws IOException {
+        ReflectionTestUtils.setField(photoProcessingService, "thumbnailGeneration", "lazy");
+        File testImage = createTestImage("lazy.jpg");
+
+        photoProcessingService.processPhoto(testImage);
+
+        verify(photoRepository).save(argThat(photo -> photo.getThumbnailFilename() == null));
+        assertTrue(Files.exists(originalDir.resolve("lazy.jpg")));
+        assertFalse(Files.exists(mediumDir.resolve("lazy.jpg")));
+    }
+
+    @Test
+    void processPhoto_ThumbnailGenerationFails_ShouldStillSavePhoto() throws IOException {
+        File brokenImage = inputDir.resolve("broken.jpg").toFile();
+        Files.write(brokenImage.toPath(), "not an image".getBytes());
+
+        photoProcessingService.processPhoto(brokenImage);
+
+        verify(photoRepository).save(argThat(photo -> photo.getThumbnailFilename() == null));
+        assertTrue(Files.exists(originalDir.resolve("broken.jpg")));
+        assertFalse(Files.exists(failedDir.resolve("broken.jpg")));
+    }
+
+    @Test
+    void ensureThumbnail_ShouldReturnExistingThumbnail() throws IOException {
+        Files.write(mediumDir.resolve("existing.jpg"), new byte[]{1});
+        Photo photo = createStoredPhoto(1L, "existing.jpg");
+        photo.setThumbnailFilename("existing.jpg");
+
+        Optional<Resource> result = photoProcessingService.ensureThumbnail(photo);
+
+        assertEquals(mediumDir.resolve("existing.jpg"), result.orElseThrow().getFile().toPath());
+        verify(photoRepository, never()).updateThumbnailFilename(anyLong(), anyString());
+    }
+
+    @Test
+    void ensureThumbnail_ShouldReturnEmpty_WhenOriginalMissing() throws IOException {
+        Photo photo = createStoredPhoto(1L, "gone.jpg");
+
+        assertTrue(photoProcessingService.ensureThumbnail(photo).isEmpty());
+    }
+
+    @Test
+    void ensureThumbnail_ConcurrentRequests_ShouldGenerateOnce() throws Exception {
+        Files.copy(createTestImage("burst.jpg").toPath(), originalDir.resolve("burst.jpg"));
+        Photo photo = createStoredPhoto(5L, "burst.jpg");
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Optional<Resource>>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return photoProcessingService.ensureThumbnail(createStoredPhoto(5L, "burst.jpg"));
+                }));
+            }
+            start.countDown();
+
+            for (Future<Optional<Resource>> result : results) {
+                assertEquals(mediumDir.resolve("burst.jpg"), result.get(10, TimeUnit.SECONDS).orElseThrow().getFile().toPath());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(photoRepository, times(1)).updateThumbnailFilename(5L, "burst.jpg");
+        assertNull(photo.getThumbnailFilename());
+    }
+
+    private LocalPhotoStorage createStorage(String layout) {
+        return new LocalPhotoStorage(new PhotoPathResolver(layout), originalDir.toString(), mediumDir.toString());
+    }
+
+    private Photo createStoredPhoto(Long id, String filename) {
+        Photo photo = new Photo();
+        photo.setId(id);
+        photo.setFilename(filename);
+        return photo;
+    }
+
     @Test
     void extractExifMetadata_ShouldHandleImageWithoutExif() throws Exception {
         File testImage = createTestImage("no_exif.jpg");
@@ -1,15 +1,25 @@
 package com.photomap.service;
 
+import com.photomap.dto.CountedPage;
+import com.photomap.dto.PhotoClusterResponse;
+import com.photomap.dto.PhotoResponse;
+import com.photomap.dto.RatingResponse;
 import com.photomap.model.Photo;
 import com.photomap.model.Rating;
 import com.photomap.model.User;
+import com.photomap.repository.BoundingBox;
+import com.photomap.repository.GeoPoint;
+import com.photomap.repository.PhotoCursor;
+import com.photomap.repository.PhotoFields;
 import com.photomap.repository.PhotoRepository;
 import com.photomap.repository.RatingRepository;
+import com.photomap.storage.PhotoStorage;
+import com.photomap.storage.StorageArea;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.function.Executable;
-import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -17,16 +27,25 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.test.util.ReflectionTestUtils;
 
-import java.nio.file.Path;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -40,19 +59,40 @@ class PhotoServiceTest {
     @Mock
     private RatingRepository ratingRepository;
 
+    @Mock
+    private DerivedImageCache derivedImageCache;
+
+    @Mock
+    private PackedThumbnailStore packedThumbnailStore;
+
+    @Mock
+    private PhotoStorage photoStorage;
+
+    @Mock
+    private PhotoCountService photoCountService;
+
+    @Mock
+    private PhotoDataVersion photoDataVersion;
+
+    @Mock
+    private PhotoCatalog photoCatalog;
+
+    @Mock
+    private PhotoSpatialIndex photoSpatialIndex;
+
+    @Mock
+    private PhotoListingCache photoListingCache;
+
+    @Mock
+    private DatabasePlatform databasePlatform;
+
     @InjectMocks
     private PhotoService photoService;
 
-    @TempDir
-    Path tempDir;
-
     private User testUser;
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(photoService, "originalDirectory", tempDir.resolve("original").toString());
-        ReflectionTestUtils.setField(photoService, "mediumDirectory", tempDir.resolve("medium").toString());
-
         testUser = new User();
         testUser.setId(1L);
         testUser.setEmail("test@example.com");
@@ -60,44 +100,161 @@ class PhotoServiceTest {
 
     @Test
     void getPhotos_ReturnsPaginatedList() {
-        final List<Photo> photos = new ArrayList<>();
-        photos.add(createTestPhoto(1L));
-        photos.add(createTestPhoto(2L));
+        final List<PhotoResponse> photos = new ArrayList<>();
+        photos.add(createTestResponse(1L));
+        photos.add(createTestResponse(2L));
 
-        final Page<Photo> photoPage = new PageImpl<>(photos);
         final Pageable pageable = PageRequest.of(0, 20);
 
-        when(photoRepository.findAll(nullable(Specification.class), eq(pageable))).thenReturn(photoPage);
+        when(photoRepository.findPhotoResponses(any(Specification.class), eq(testUser.getId()), eq(pageable), eq(PhotoFields.ALL)))
+                .thenReturn(new SliceImpl<>(photos, pageable, false));
 
-        final Page<Photo> result = photoService.getPhotos(testUser.getId(), pageable, null, null, null, null);
+        final Page<PhotoResponse> result = photoService.getPhotos(testUser.getId(), pageable, null, null, null, null, null, null, null, PhotoFields.ALL);
 
         assertNotNull(result);
         assertEquals(2, result.getContent().size());
-        verify(photoRepository, times(1)).findAll(nullable(Specification.class), eq(pageable));
+        assertEquals(2, result.getTotalElements());
+        // A single partial first page is its own total
+        verifyNoInteractions(photoCountService);
     }
 
     @Test
     void getPhotos_WithFilters_AppliesSpecifications() {
-        final List<Photo> photos = new ArrayList<>();
-        photos.add(createTestPhoto(1L));
+        final List<PhotoResponse> photos = new ArrayList<>();
+        photos.add(createTestResponse(1L));
 
-        final Page<Photo> photoPage = new PageImpl<>(photos);
-        final Pageable pageable = PageRequest.of(0, 20);
+        final Pageable pageable = PageRequest.of(0, 1);
 
-        when(photoRepository.findAll(any(Specification.class), eq(pageable))).thenReturn(photoPage);
+        when(photoRepository.findPhotoResponses(any(Specification.class), eq(testUser.getId()), eq(pageable), eq(PhotoFields.ALL)))
+                .thenReturn(new SliceImpl<>(photos, pageable, true));
+        when(photoCountService.count(anyString(), any())).thenReturn(new PhotoCountService.Total(45, true));
 
-        final Page<Photo> result = photoService.getPhotos(
+        final Page<PhotoResponse> result = photoService.getPhotos(
                 testUser.getId(), 
                 pageable, 
                 java.time.LocalDateTime.now().minusDays(7), 
                 java.time.LocalDateTime.now(), 
                 3, 
-                true
+                true,
+                null,
+                null,
+                null,
+                PhotoFields.ALL
         );
 
         assertNotNull(result);
         assertEquals(1, result.getContent().size());
-        verify(photoRepository, times(1)).findAll(any(Specification.class), eq(pageable));
+        assertEquals(45, result.getTotalElements());
+        verify(photoCountService).count(contains("minRating=3"), any());
+    }
+
+    @Test
+    void getPhotos_SortByDistance_UsesUnsortedPageableAndRequiresPoint() {
+        final Pageable byDistance = PageRequest.of(0, 5, Sort.by("distance"));
+        final GeoPoint warsaw = new GeoPoint(52.23, 21.01);
+        when(photoRepository.findPhotoResponses(any(Specification.class), eq(testUser.getId()), eq(PageRequest.of(0, 5)), eq(PhotoFields.ALL)))
+                .thenReturn(new SliceImpl<>(List.of(createTestResponse(1L)), PageRequest.of(0, 5), false));
+
+        final Page<PhotoResponse> result = photoService.getPhotos(testUser.getId(), byDistance, null, null, null, null, null, warsaw, null, PhotoFields.ALL);
+
+        assertEquals(1, result.getTotalElements());
+        assertThrows(IllegalArgumentException.class,
+                () -> photoService.getPhotos(testUser.getId(), byDistance, null, null, null, null, null, null, null, PhotoFields.ALL));
+    }
+
+    @Test
+    void getPhotos_InvalidRadius_ThrowsException() {
+        final Pageable pageable = PageRequest.of(0, 20);
+        final GeoPoint warsaw = new GeoPoint(52.23, 21.01);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> photoService.getPhotos(testUser.getId(), pageable, null, null, null, null, null, null, 1000.0, PhotoFields.ALL));
+        assertThrows(IllegalArgumentException.class,
+                () -> photoService.getPhotos(testUser.getId(), pageable, null, null, null, null, null, warsaw, -1.0, PhotoFields.ALL));
+        verifyNoInteractions(photoRepository);
+    }
+
+    @Test
+    void getPhotos_SpatialFilters_ArePartOfCountSignature() {
+        final Pageable pageable = PageRequest.of(0, 1);
+        when(photoRepository.findPhotoResponses(any(Specification.class), eq(testUser.getId()), eq(pageable), eq(PhotoFields.ALL)))
+                .thenReturn(new SliceImpl<>(List.of(createTestResponse(1L)), pageable, true));
+        when(photoCountService.count(anyString(), any())).thenReturn(new PhotoCountService.Total(3, true));
+
+        photoService.getPhotos(testUser.getId(), pageable, null, null, null, null,
+                new BoundingBox(14, 49, 24, 55), new GeoPoint(52.23, 21.01), 5000.0, PhotoFields.ALL);
+
+        verify(photoCountService).count(contains("radius=5000.0"), any());
+        verify(photoCountService).count(contains("bbox=BoundingBox[west=14.0"), any());
+    }
+
+    @Test
+    void scrollPhotos_CursorForOtherSort_ThrowsException() {
+        final PhotoCursor cursor = new PhotoCursor(PhotoCursor.SORT_TAKEN_AT, null, 1L);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> photoService.scrollPhotos(1L, PhotoCursor.SORT_UPLOADED_AT, cursor, 20, null, null, null, null));
+        verifyNoInteractions(photoRepository);
+    }
+
+    @Test
+    void scrollPhotos_SizeOutOfRange_ThrowsException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> photoService.scrollPhotos(1L, PhotoCursor.SORT_UPLOADED_AT, null, 0, null, null, null, null));
+        verifyNoInteractions(photoRepository);
+    }
+
+    @Test
+    void getClusters_CellSizeFollowsZoom() {
+        final BoundingBox bounds = new BoundingBox(14.0, 49.0, 24.0, 55.0);
+        when(photoRepository.findClusters(any(), anyDouble())).thenReturn(List.of());
+
+        photoService.getClusters(bounds, 0, null, null, null);
+        photoService.getClusters(bounds, 3, null, null, null);
+
+        verify(photoRepository).findClusters(any(), eq(90.0));
+        verify(photoRepository).findClusters(any(), eq(11.25));
+    }
+
+    @Test
+    void getClusters_IndexBuiltAndNoFilters_ClustersInMemory() {
+        final BoundingBox bounds = new BoundingBox(0, 0, 40, 40);
+        when(photoSpatialIndex.isReady()).thenReturn(true);
+        doAnswer(invocation -> {
+            final PhotoSpatialIndex.PointVisitor visitor = invocation.getArgument(1);
+            visitor.visit(1L, 10, 10);
+            visitor.visit(4L, 20, 20);
+            visitor.visit(2L, 35, 35);
+            return true;
+        }).when(photoSpatialIndex).forEachWithin(eq(bounds), any());
+
+        final List<PhotoClusterResponse> clusters = photoService.getClusters(bounds, 2, null, null, null);
+
+        assertEquals(2, clusters.size());
+        assertTrue(clusters.contains(new PhotoClusterResponse(15.0, 15.0, 2L, 4L)));
+        assertTrue(clusters.contains(new PhotoClusterResponse(35.0, 35.0, 1L, 2L)));
+        verifyNoInteractions(photoRepository);
+    }
+
+    @Test
+    void getClusters_FewPhotosInIndex_FiltersByIds() {
+        final BoundingBox bounds = new BoundingBox(14.0, 49.0, 24.0, 55.0);
+        when(photoSpatialIndex.findWithin(bounds, 1000)).thenReturn(Optional.of(List.of(3L, 5L)));
+        when(photoRepository.findClusters(any(), anyDouble())).thenReturn(List.of());
+
+        photoService.getClusters(bounds, 5, null, null, 4);
+
+        verify(photoSpatialIndex).findWithin(bounds, 1000);
+        verify(photoRepository).findClusters(any(), anyDouble());
+    }
+
+    @Test
+    void getClusters_TooManyCellsForZoom_ThrowsException() {
+        final BoundingBox world = new BoundingBox(-180, -90, 180, 90);
+
+        assertThrows(IllegalArgumentException.class, () -> photoService.getClusters(world, 12, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> photoService.getClusters(world, 23, null, null, null));
+        verifyNoInteractions(photoRepository);
     }
 
     @Test
@@ -123,7 +280,7 @@ class PhotoServiceTest {
     }
 
     @Test
-    void deletePhoto_Success() {
+    void deletePhoto_Success() throws IOException {
         final Photo photo = createTestPhoto(1L);
         photo.setUser(testUser);
         photo.setFilename("test.jpg");
@@ -133,6 +290,8 @@ class PhotoServiceTest {
         assertDoesNotThrow(() -> photoService.deletePhoto(1L, testUser.getId()));
 
         verify(photoRepository, times(1)).delete(photo);
+        verify(photoStorage).delete(StorageArea.ORIGINAL, "test.jpg");
+        verify(derivedImageCache).evictPhoto(1L);
     }
 
     @Test
@@ -157,6 +316,8 @@ class PhotoServiceTest {
         final User photoOwner = new User();
         photoOwner.setId(2L);
         photo.setUser(photoOwner);
+        photo.setRatingSum(4L);
+        photo.setRatingCount(1);
 
         when(photoRepository.findById(1L)).thenReturn(Optional.of(photo));
         when(ratingRepository.findByPhotoIdAndUserId(1L, testUser.getId())).thenReturn(Optional.empty());
@@ -166,11 +327,15 @@ class PhotoServiceTest {
         savedRating.setRatingValue(5);
         when(ratingRepository.save(any(Rating.class))).thenReturn(savedRating);
 
-        final Rating result = photoService.ratePhoto(1L, testUser.getId(), 5);
+        final RatingResponse result = photoService.ratePhoto(1L, testUser.getId(), 5);
 
         assertNotNull(result);
-        assertEquals(5, result.getRatingValue());
+        assertEquals(5, result.rating());
+        assertEquals(4.5, result.averageRating());
+        assertEquals(2, result.totalRatings());
         verify(ratingRepository, times(1)).save(any(Rating.class));
+        verify(photoRepository).applyRatingChange(1L, 5, 1, 5, 0);
+        verify(ratingRepository, never()).upsertRatings(any(), any(), any());
     }
 
     @Test
@@ -179,6 +344,8 @@ class PhotoServiceTest {
         final User photoOwner = new User();
         photoOwner.setId(2L);
         photo.setUser(photoOwner);
+        photo.setRatingSum(3L);
+        photo.setRatingCount(1);
 
         final Rating existingRating = new Rating();
         existingRating.setId(1L);
@@ -188,38 +355,93 @@ class PhotoServiceTest {
         when(ratingRepository.findByPhotoIdAndUserId(1L, testUser.getId())).thenReturn(Optional.of(existingRating));
         when(ratingRepository.save(any(Rating.class))).thenReturn(existingRating);
 
-        final Rating result = photoService.ratePhoto(1L, testUser.getId(), 5);
+        final RatingResponse result = photoService.ratePhoto(1L, testUser.getId(), 5);
 
         assertNotNull(result);
-        assertEquals(5, result.getRatingValue());
+        assertEquals(5, result.rating());
+        assertEquals(5.0, result.averageRating());
+        assertEquals(1, result.totalRatings());
+        assertEquals(5, existingRating.getRatingValue());
         verify(ratingRepository, times(1)).save(existingRating);
+        verify(photoRepository).applyRatingChange(1L, 2, 0, 5, 3);
     }
 
     @Test
     void ratePhoto_RatingOutOfRange_ThrowsException() {
-        final Photo photo = createTestPhoto(1L);
-        final User photoOwner = new User();
-        photoOwner.setId(2L);
-        photo.setUser(photoOwner);
-
-        when(photoRepository.findById(1L)).thenReturn(Optional.of(photo));
-
         Executable rateAction = () -> photoService.ratePhoto(1L, testUser.getId(), 6);
         assertThrows(IllegalArgumentException.class, rateAction);
 
         verify(ratingRepository, never()).save(any(Rating.class));
+        verify(photoRepository, never()).applyRatingChange(any(), anyLong(), anyInt(), anyInt(), anyInt());
+    }
+
+    @Test
+    void ratePhotos_Postgres_UpsertsInOneStatement() {
+        when(databasePlatform.isPostgres()).thenReturn(true);
+        when(ratingRepository.upsertRatings(testUser.getId(), new Long[]{3L, 1L}, new Integer[]{4, 2}))
+                .thenReturn(List.of(upsert(1L, 2, null, 2.0, 1), upsert(3L, 4, 5, 4.5, 2)));
+
+        final List<RatingResponse> result = photoService.ratePhotos(testUser.getId(), ratings(3L, 4, 1L, 2));
+
+        assertEquals(List.of(3L, 1L), result.stream().map(RatingResponse::photoId).toList());
+        assertEquals(4.5, result.get(0).averageRating());
+        assertEquals(1, result.get(1).totalRatings());
+        verify(ratingRepository, times(1)).upsertRatings(any(), any(), any());
+        verify(photoDataVersion, times(2)).bump(any(Photo.class));
+        verify(photoCatalog).updateRating(3L, 4.5);
+        verify(photoCatalog).updateRating(1L, 2.0);
+        verify(photoCatalog, never()).refreshRating(anyLong());
+        verify(photoRepository, never()).findById(any());
+    }
+
+    @Test
+    void ratePhotos_PostgresConcurrentFirstRating_RetriesMissingPhoto() {
+        when(databasePlatform.isPostgres()).thenReturn(true);
+        when(ratingRepository.upsertRatings(testUser.getId(), new Long[]{1L, 2L}, new Integer[]{5, 3}))
+                .thenReturn(List.of(upsert(1L, 5, null, 5.0, 1)));
+        when(ratingRepository.upsertRatings(testUser.getId(), new Long[]{2L}, new Integer[]{3}))
+                .thenReturn(List.of(upsert(2L, 3, 4, 3.0, 1)));
+
+        final List<RatingResponse> result = photoService.ratePhotos(testUser.getId(), ratings(1L, 5, 2L, 3));
+
+        assertEquals(List.of(5, 3), result.stream().map(RatingResponse::rating).toList());
+    }
+
+    @Test
+    void ratePhotos_PostgresUnknownPhoto_ThrowsException() {
+        when(databasePlatform.isPostgres()).thenReturn(true);
+        when(ratingRepository.upsertRatings(any(), any(), any())).thenReturn(List.of());
+
+        Executable rateAction = () -> photoService.ratePhotos(testUser.getId(), ratings(99L, 5));
+        assertThrows(IllegalArgumentException.class, rateAction);
+
+        verify(ratingRepository, times(2)).upsertRatings(any(), any(), any());
+        verify(photoCatalog, never()).updateRating(anyLong(), any());
+    }
+
+    @Test
+    void ratePhotos_TooMany_ThrowsException() {
+        final Map<Long, Integer> ratings = new LinkedHashMap<>();
+        LongStream.rangeClosed(1, 501).forEach(id -> ratings.put(id, 5));
+
+        assertThrows(IllegalArgumentException.class, () -> photoService.ratePhotos(testUser.getId(), ratings));
+        assertThrows(IllegalArgumentException.class, () -> photoService.ratePhotos(testUser.getId(), Map.of()));
+
+        verifyNoInteractions(ratingRepository);
     }
 
     @Test
     void clearRating_Success() {
         final Rating rating = new Rating();
         rating.setId(1L);
+        rating.setRatingValue(4);
 
         when(ratingRepository.findByPhotoIdAndUserId(1L, testUser.getId())).thenReturn(Optional.of(rating));
 
         assertDoesNotThrow(() -> photoService.clearRating(1L, testUser.getId()));
 
         verify(ratingRepository, times(1)).deleteByPhotoIdAndUserId(1L, testUser.getId());
+        verify(photoRepository).applyRatingChange(1L, -4, -1, 0, 4);
     }
 
     @Test
@@ -232,20 +454,31 @@ class PhotoServiceTest {
         verify(ratingRepository, never()).deleteByPhotoIdAndUserId(any(), any());
     }
 
+    @Test
+    void getPhotosByIds_KeepsRequestedOrderAndSkipsUnknown() {
+        when(photoRepository.findAllById(List.of(3L, 1L, 99L, 3L)))
+                .thenReturn(List.of(createTestPhoto(1L), createTestPhoto(3L)));
+
+        final List<Photo> result = photoService.getPhotosByIds(List.of(3L, 1L, 99L, 3L), testUser.getId());
+
+        assertEquals(List.of(3L, 1L), result.stream().map(Photo::getId).toList());
+    }
+
     @Test
     void getPhotosForAdmin_Success() {
-        final Pageable pageable = PageRequest.of(0, 20);
+        final Pageable pageable = PageRequest.of(0, 1);
         final Photo photo = createTestPhoto(1L);
         final List<Photo> photos = List.of(photo);
-        final Page<Photo> photoPage = new PageImpl<>(photos);
 
-        when(photoRepository.findAll(pageable)).thenReturn(photoPage);
+        when(photoRepository.findAllBy(pageable)).thenReturn(new SliceImpl<>(photos, pageable, true));
+        when(photoCountService.countAll()).thenReturn(new PhotoCountService.Total(250_000, false));
 
         final Page<Photo> result = photoService.getPhotosForAdmin(pageable);
 
         assertNotNull(result);
-        assertEquals(1, result.getTotalElements());
-        verify(photoRepository, times(1)).findAll(pageable);
+        assertEquals(250_000, result.getTotalElements());
+        assertFalse(((CountedPage<Photo>) result).isTotalExact());
+        verify(photoRepository, never()).findAll(pageable);
     }
 
     @Test
@@ -268,6 +501,86 @@ class PhotoServiceTest {
         verify(photoRepository, never()).delete(any(Photo.class));
     }
 
+    @Test
+    void getPhotos_CachedPage_OverlaysViewerRatings() {
+        final Pageable pageable = PageRequest.of(0, 20);
+        final Page<PhotoResponse> shared = new PageImpl<>(List.of(createTestResponse(1L), createTestResponse(2L)), pageable, 2);
+        final RatingRepository.PhotoRatingValue rating = mock(RatingRepository.PhotoRatingValue.class);
+        when(rating.getPhotoId()).thenReturn(2L);
+        when(rating.getRatingValue()).thenReturn(4);
+
+        when(photoListingCache.get(anyString())).thenReturn(Optional.of(shared));
+        when(ratingRepository.findRatingValues(testUser.getId(), List.of(1L, 2L))).thenReturn(List.of(rating));
+
+        final Page<PhotoResponse> result = photoService.getPhotos(testUser.getId(), pageable, null, null, null, null, null, null, null, PhotoFields.ALL);
+
+        assertEquals(2, result.getTotalElements());
+        assertNull(result.getContent().get(0).userRating());
+        assertEquals(4, result.getContent().get(1).userRating());
+        verify(photoRepository, never()).findPhotoResponses(any(), any(), any(), any());
+    }
+
+    @Test
+    void getPhotos_Miss_StoresPageWithoutViewerRatings() {
+        final Pageable pageable = PageRequest.of(0, 20);
+        final PhotoResponse rated = createTestResponse(1L).withUserRating(5);
+        when(photoListingCache.version()).thenReturn(7L);
+        when(photoRepository.findPhotoResponses(any(Specification.class), eq(testUser.getId()), eq(pageable), eq(PhotoFields.ALL)))
+                .thenReturn(new SliceImpl<>(List.of(rated), pageable, false));
+
+        final Page<PhotoResponse> result = photoService.getPhotos(testUser.getId(), pageable, null, null, null, null, null, null, null, PhotoFields.ALL);
+
+        assertEquals(5, result.getContent().get(0).userRating());
+        final ArgumentCaptor<Page<PhotoResponse>> stored = ArgumentCaptor.forClass(Page.class);
+        verify(photoListingCache).put(anyString(), eq(7L), stored.capture());
+        assertNull(stored.getValue().getContent().get(0).userRating());
+        assertEquals(1, stored.getValue().getTotalElements());
+    }
+
+    @Test
+    void getPhotos_SparseFields_SkipsViewerRatingsAndIsNotStored() {
+        final Pageable pageable = PageRequest.of(0, 20);
+        final PhotoFields fields = PhotoFields.parse("thumbnailUrl,averageRating");
+        when(photoListingCache.get(anyString())).thenReturn(Optional.empty());
+        when(photoRepository.findPhotoResponses(any(Specification.class), eq(testUser.getId()), eq(pageable), eq(fields)))
+                .thenReturn(new SliceImpl<>(List.of(createTestResponse(1L)), pageable, false));
+
+        photoService.getPhotos(testUser.getId(), pageable, null, null, null, null, null, null, null, fields);
+
+        verify(photoListingCache, never()).put(anyString(), anyLong(), any());
+
+        when(photoListingCache.get(anyString())).thenReturn(Optional.of(new PageImpl<>(List.of(createTestResponse(1L)), pageable, 1)));
+        photoService.getPhotos(testUser.getId(), pageable, null, null, null, null, null, null, null, fields);
+
+        verifyNoInteractions(ratingRepository);
+    }
+
+    @Test
+    void getPhotoResponses_KeepsRequestedOrderInOneQuery() {
+        final PhotoFields fields = PhotoFields.parse("userRating");
+        when(photoRepository.findPhotoResponses(any(Specification.class), eq(testUser.getId()), eq(PageRequest.of(0, 3)), eq(fields)))
+                .thenReturn(new SliceImpl<>(List.of(createTestResponse(1L), createTestResponse(3L))));
+
+        final List<PhotoResponse> result = photoService.getPhotoResponses(testUser.getId(), List.of(3L, 2L, 1L, 3L), fields);
+
+        assertEquals(List.of(3L, 1L), result.stream().map(PhotoResponse::id).toList());
+        verify(photoRepository).findPhotoResponses(any(), any(), any(), any());
+    }
+
+    @Test
+    void getPhotoResponses_TooManyIds_ThrowsException() {
+        final List<Long> ids = LongStream.rangeClosed(1, 101).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> photoService.getPhotoResponses(testUser.getId(), ids, PhotoFields.ALL));
+        assertThrows(IllegalArgumentException.class, () -> photoService.getPhotoResponses(testUser.getId(), List.of(), PhotoFields.ALL));
+        verifyNoInteractions(photoRepository);
+    }
+
+    private PhotoResponse createTestResponse(final Long id) {
+        return new PhotoResponse(id, "test.jpg", "original.jpg", 1024L, "image/jpeg",
+                null, null, null, Instant.now(), null, 0, null);
+    }
+
     private Photo createTestPhoto(final Long id) {
         final Photo photo = new Photo();
         photo.setId(id);
@@ -277,4 +590,62 @@ class PhotoServiceTest {
         photo.setMimeType("image/jpeg");
         return photo;
     }
+
+    private static Map<Long, Integer> ratings(final Object... photoIdsAndValues) {
+        final Map<Long, Integer> ratings = new LinkedHashMap<>();
+        for (int i = 0; i < photoIdsAndValues.length; i += 2) {
+            ratings.put((Long) photoIdsAndValues[i], (Integer) photoIdsAndValues[i + 1]);
+        }
+        return ratings;
+    }
+
+    private static RatingRepository.RatingUpsert upsert(final Long photoId, final Integer rating, final Integer previousRating,
+                                                        final Double averageRating, final Integer totalRatings) {
+        return new RatingRepository.RatingUpsert() {
+            @Override
+            public Long getId() {
+                return photoId * 10;
+            }
+
+            @Override
+            public Long getPhotoId() {
+                return photoId;
+            }
+
+            @Override
+            public Integer getRating() {
+                return rating;
+            }
+
+            @Override
+            public Instant getCreatedAt() {
+                return Instant.parse("2024-05-01T10:00:00Z");
+            }
+
+            @Override
+            public Integer getPreviousRating() {
+                return previousRating;
+            }
+
+            @Override
+            public Double getAverageRating() {
+                return averageRating;
+            }
+
+            @Override
+            public Integer getTotalRatings() {
+                return totalRatings;
+            }
+
+            @Override
+            public BigDecimal getGpsLatitude() {
+                return new BigDecimal("52.22970000");
+            }
+
+            @Override
+            public BigDecimal getGpsLongitude() {
+                return new BigDecimal("21.01220000");
+            }
+        };
+    }
 }
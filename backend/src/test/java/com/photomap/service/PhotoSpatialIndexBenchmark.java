@@ -0,0 +1,93 @@
+package com.photomap.service;
+
+import com.photomap.dto.MapPoints;
+import com.photomap.repository.BoundingBox;
+import com.photomap.repository.GeoPoint;
+import com.photomap.repository.PhotoRepository;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+
+/**
+ * Query latency of {@link PhotoSpatialIndex} over one million photos clustered around a few
+ * hundred places, as a real library is. Run with {@code mvn -Pbenchmark test-compile exec:exec}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PhotoSpatialIndexBenchmark {
+
+    private static final int PHOTOS = 1_000_000;
+    private static final int PLACES = 500;
+
+    private PhotoSpatialIndex index;
+    private BoundingBox cityViewport;
+    private BoundingBox streetViewport;
+    private GeoPoint center;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(7);
+        final double[][] places = new double[PLACES][];
+        for (int i = 0; i < PLACES; i++) {
+            places[i] = new double[]{random.nextDouble() * 120 - 60, random.nextDouble() * 360 - 180};
+        }
+        final MapPoints points = new MapPoints(PHOTOS);
+        for (int i = 1; i <= PHOTOS; i++) {
+            final double[] place = places[random.nextInt(PLACES)];
+            points.add(i, clamp(place[0] + random.nextGaussian() * 0.05, 90), clamp(place[1] + random.nextGaussian() * 0.05, 180), null, null);
+        }
+
+        final PhotoRepository photoRepository = Mockito.mock(PhotoRepository.class);
+        Mockito.when(photoRepository.findMapPoints(any())).thenReturn(points);
+        index = new PhotoSpatialIndex(photoRepository, Mockito.mock(PlatformTransactionManager.class));
+        index.rebuild();
+
+        center = new GeoPoint(places[0][0], places[0][1]);
+        cityViewport = new BoundingBox(center.longitude() - 0.05, center.latitude() - 0.03, center.longitude() + 0.05, center.latitude() + 0.03);
+        streetViewport = new BoundingBox(center.longitude() - 0.003, center.latitude() - 0.002, center.longitude() + 0.003, center.latitude() + 0.002);
+    }
+
+    @Benchmark
+    public Optional<List<Long>> boundingBoxCity() {
+        return index.findWithin(cityViewport, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public Optional<List<Long>> boundingBoxStreet() {
+        return index.findWithin(streetViewport, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Long> nearest10() {
+        return index.findNearest(center, 10, Double.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Long> nearest100() {
+        return index.findNearest(center, 100, Double.MAX_VALUE);
+    }
+
+    private static double clamp(final double value, final double limit) {
+        return Math.max(-limit, Math.min(limit, value));
+    }
+}
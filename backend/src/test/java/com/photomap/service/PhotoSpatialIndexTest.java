@@ -0,0 +1,208 @@
+package com.photomap.service;
+
+import com.photomap.dto.MapPoints;
+import com.photomap.model.Photo;
+import com.photomap.repository.BoundingBox;
+import com.photomap.repository.GeoPoint;
+import com.photomap.repository.PhotoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PhotoSpatialIndexTest {
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PhotoSpatialIndex index;
+    private final List<double[]> points = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        final Random random = new Random(42);
+        final MapPoints stored = new MapPoints(5000);
+        for (int i = 1; i <= 5000; i++) {
+            final double latitude = random.nextDouble() * 170 - 85;
+            final double longitude = random.nextDouble() * 360 - 180;
+            stored.add(i, latitude, longitude, null, null);
+            points.add(new double[]{i, latitude, longitude});
+        }
+        when(photoRepository.findMapPoints(any())).thenReturn(stored);
+
+        index = new PhotoSpatialIndex(photoRepository, transactionManager);
+        index.rebuild();
+    }
+
+    @Test
+    void findWithin_MatchesLinearScan() {
+        final BoundingBox bounds = new BoundingBox(10, 40, 30, 55);
+
+        final List<Long> found = index.findWithin(bounds, 1000).orElseThrow();
+
+        assertEquals(scan(bounds), sorted(found));
+    }
+
+    @Test
+    void findWithin_CrossingAntimeridian_MatchesLinearScan() {
+        final BoundingBox bounds = new BoundingBox(170, -30, -170, 10);
+
+        assertEquals(scan(bounds), sorted(index.findWithin(bounds, 1000).orElseThrow()));
+    }
+
+    @Test
+    void findWithin_MoreThanLimit_ReturnsEmpty() {
+        assertEquals(Optional.empty(), index.findWithin(new BoundingBox(-180, -90, 180, 90), 1000));
+    }
+
+    @Test
+    void findWithin_NotBuilt_ReturnsEmpty() {
+        final PhotoSpatialIndex unbuilt = new PhotoSpatialIndex(photoRepository, transactionManager);
+
+        assertFalse(unbuilt.isReady());
+        assertEquals(Optional.empty(), unbuilt.findWithin(new BoundingBox(0, 0, 1, 1), 10));
+    }
+
+    @Test
+    void findNearest_OrderedByGreatCircleDistance() {
+        final GeoPoint center = new GeoPoint(52.23, 21.01);
+        final List<Long> expected = points.stream()
+                .sorted(Comparator.comparingDouble(p -> KdTree.distanceMeters(center.latitude(), center.longitude(), p[1], p[2])))
+                .limit(25)
+                .map(p -> (long) p[0])
+                .toList();
+
+        assertEquals(expected, index.findNearest(center, 25, Double.MAX_VALUE));
+    }
+
+    @Test
+    void findNearest_AcrossAntimeridian_FindsPointOnOtherSide() {
+        index.insert(10_001, 0, 179.999);
+
+        assertEquals(List.of(10_001L), index.findNearest(new GeoPoint(0, -179.999), 1, 1000));
+    }
+
+    @Test
+    void findWithinRadius_MatchesLinearScan() {
+        final GeoPoint center = new GeoPoint(-10, 100);
+        final double meters = 500_000;
+        final List<Long> expected = points.stream()
+                .filter(p -> KdTree.distanceMeters(center.latitude(), center.longitude(), p[1], p[2]) <= meters)
+                .map(p -> (long) p[0])
+                .sorted()
+                .toList();
+
+        assertEquals(expected, sorted(index.findWithinRadius(center, meters, 1000).orElseThrow()));
+    }
+
+    @Test
+    void addAndRemove_UpdateResults() {
+        final BoundingBox bounds = new BoundingBox(0.5, 0.5, 0.6, 0.6);
+        final List<Long> before = index.findWithin(bounds, 1000).orElseThrow();
+
+        index.add(photo(20_000L, 0.55, 0.55));
+        index.add(photo(20_000L, 0.55, 0.55));
+        assertEquals(before.size() + 1, index.findWithin(bounds, 1000).orElseThrow().size());
+        assertEquals(20_000L, index.findNearest(new GeoPoint(0.55, 0.55), 1, 1).get(0));
+
+        index.remove(photo(20_000L, 0.55, 0.55));
+        index.remove(photo(1L, points.get(0)[1], points.get(0)[2]));
+        assertEquals(before, index.findWithin(bounds, 1000).orElseThrow());
+        assertEquals(4999, index.size());
+        assertFalse(index.findNearest(new GeoPoint(points.get(0)[1], points.get(0)[2]), 1, 1000).contains(1L));
+    }
+
+    @Test
+    void manyUpdates_FoldOverlayIntoTree() {
+        IntStream.rangeClosed(1, 1500).forEach(i -> index.insert(100_000 + i, i / 100.0, -i / 100.0));
+        IntStream.rangeClosed(1, 1000).forEach(index::delete);
+
+        assertEquals(5500, index.size());
+        final BoundingBox bounds = new BoundingBox(-10, 0, 0, 10);
+        final List<Long> found = sorted(index.findWithin(bounds, 10_000).orElseThrow());
+        final List<Long> expected = new ArrayList<>(scan(bounds).stream().filter(id -> id > 1000).toList());
+        IntStream.rangeClosed(1, 1000).forEach(i -> expected.add(100_000L + i));
+
+        assertEquals(sorted(expected), found);
+    }
+
+    @Test
+    void refresh_InStepWithDatabase_KeepsIndex() {
+        index.insert(20_000L, 0.55, 0.55);
+        index.delete(1L);
+        when(photoRepository.summarizeGeotagged()).thenReturn(summary(5000, 12_502_500L - 1 + 20_000));
+
+        index.refresh();
+
+        verify(photoRepository, times(1)).findMapPoints(any());
+    }
+
+    @Test
+    void refresh_WrittenThroughAnotherNode_Rebuilds() {
+        index.insert(20_000L, 0.55, 0.55);
+        when(photoRepository.summarizeGeotagged()).thenReturn(summary(5000, 12_502_500L));
+
+        index.refresh();
+
+        verify(photoRepository, times(2)).findMapPoints(any());
+        assertEquals(5000, index.size());
+        assertTrue(index.findNearest(new GeoPoint(0.55, 0.55), 1, 1).isEmpty());
+    }
+
+    private List<Long> scan(final BoundingBox bounds) {
+        return points.stream()
+                .filter(p -> p[1] >= bounds.south() && p[1] <= bounds.north())
+                .filter(p -> bounds.crossesAntimeridian()
+                        ? p[2] >= bounds.west() || p[2] <= bounds.east()
+                        : p[2] >= bounds.west() && p[2] <= bounds.east())
+                .map(p -> (long) p[0])
+                .sorted()
+                .toList();
+    }
+
+    private static List<Long> sorted(final List<Long> ids) {
+        return ids.stream().sorted().toList();
+    }
+
+    private static PhotoRepository.IdSummary summary(final long count, final long idSum) {
+        return new PhotoRepository.IdSummary() {
+            @Override
+            public long getCount() {
+                return count;
+            }
+
+            @Override
+            public long getIdSum() {
+                return idSum;
+            }
+        };
+    }
+
+    private static Photo photo(final Long id, final double latitude, final double longitude) {
+        final Photo photo = new Photo();
+        photo.setId(id);
+        photo.setGpsLatitude(BigDecimal.valueOf(latitude));
+        photo.setGpsLongitude(BigDecimal.valueOf(longitude));
+        return photo;
+    }
+}
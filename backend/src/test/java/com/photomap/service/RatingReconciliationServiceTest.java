@@ -0,0 +1,57 @@
+package com.photomap.service;
+
+import com.photomap.dto.RatingReconciliationStatus;
+import com.photomap.repository.PhotoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RatingReconciliationServiceTest {
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @Mock
+    private PhotoDataVersion photoDataVersion;
+
+    @Mock
+    private PhotoCatalog photoCatalog;
+
+    @InjectMocks
+    private RatingReconciliationService reconciliationService;
+
+    @Test
+    void reconcile_ProcessesIdRangesUpToMaxId() {
+        when(photoRepository.findMaxId()).thenReturn(2500L);
+        when(photoRepository.reconcileRatingAggregates(1L, 1000L)).thenReturn(2);
+        when(photoRepository.reconcileRatingAggregates(1001L, 2000L)).thenReturn(0);
+        when(photoRepository.reconcileRatingAggregates(2001L, 2500L)).thenReturn(1);
+
+        reconciliationService.reconcile();
+
+        final RatingReconciliationStatus status = reconciliationService.getStatus();
+        assertFalse(status.running());
+        assertEquals(2500, status.lastScannedId());
+        assertEquals(3, status.correctedPhotos());
+        assertNotNull(status.finishedAt());
+        verify(photoCatalog).invalidate();
+    }
+
+    @Test
+    void reconcile_NoPhotos_DoesNothing() {
+        when(photoRepository.findMaxId()).thenReturn(null);
+
+        reconciliationService.reconcile();
+
+        verify(photoRepository, never()).reconcileRatingAggregates(anyLong(), anyLong());
+        assertEquals(0, reconciliationService.getStatus().correctedPhotos());
+        verify(photoCatalog, never()).invalidate();
+    }
+}
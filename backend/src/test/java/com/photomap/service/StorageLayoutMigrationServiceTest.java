@@ -0,0 +1,112 @@
+package com.photomap.service;
+
+import com.photomap.dto.StorageMigrationStatus;
+import com.photomap.model.Photo;
+import com.photomap.repository.PhotoRepository;
+import com.photomap.storage.LocalPhotoStorage;
+import com.photomap.storage.PhotoPathResolver;
+import com.photomap.storage.PhotoStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StorageLayoutMigrationServiceTest {
+
+    @Mock
+    private PhotoRepository photoRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private final PhotoPathResolver photoPathResolver = new PhotoPathResolver(PhotoPathResolver.LAYOUT_SHARDED);
+    private StorageLayoutMigrationService migrationService;
+    private Path originalDir;
+    private Path mediumDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        originalDir = Files.createDirectories(tempDir.resolve("original"));
+        mediumDir = Files.createDirectories(tempDir.resolve("medium"));
+
+        final LocalPhotoStorage photoStorage = new LocalPhotoStorage(photoPathResolver, originalDir.toString(), mediumDir.toString());
+        migrationService = new StorageLayoutMigrationService(photoRepository, photoPathResolver, photoStorage);
+        ReflectionTestUtils.setField(migrationService, "originalDirectory", originalDir.toString());
+        ReflectionTestUtils.setField(migrationService, "mediumDirectory", mediumDir.toString());
+    }
+
+    @Test
+    void migrate_MovesFlatFilesIntoShardedLayout() throws IOException {
+        Files.writeString(originalDir.resolve("a.jpg"), "original");
+        Files.writeString(mediumDir.resolve("a.jpg"), "medium");
+
+        final Photo photo = new Photo();
+        photo.setId(1L);
+        photo.setFilename("a.jpg");
+        photo.setThumbnailFilename("a.jpg");
+        when(photoRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(List.of(photo));
+
+        migrationService.migrate();
+
+        assertFalse(Files.exists(originalDir.resolve("a.jpg")));
+        assertEquals("original", Files.readString(photoPathResolver.shardedPath(originalDir.toString(), "a.jpg")));
+        assertEquals("medium", Files.readString(photoPathResolver.shardedPath(mediumDir.toString(), "a.jpg")));
+
+        final StorageMigrationStatus status = migrationService.getStatus();
+        assertFalse(status.running());
+        assertEquals(1, status.scannedPhotos());
+        assertEquals(2, status.movedFiles());
+        assertNotNull(status.finishedAt());
+    }
+
+    @Test
+    void migrate_AlreadyShardedFile_IsLeftInPlace() throws IOException {
+        final Path sharded = photoPathResolver.target(originalDir.toString(), "b.jpg");
+        Files.writeString(sharded, "original");
+
+        final Photo photo = new Photo();
+        photo.setId(2L);
+        photo.setFilename("b.jpg");
+        when(photoRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(List.of(photo));
+
+        migrationService.migrate();
+
+        assertTrue(Files.exists(sharded));
+        assertEquals(0, migrationService.getStatus().movedFiles());
+    }
+
+    @Test
+    void start_FlatLayout_ThrowsException() {
+        final PhotoPathResolver flatResolver = new PhotoPathResolver(PhotoPathResolver.LAYOUT_FLAT);
+        final StorageLayoutMigrationService flatMigration = new StorageLayoutMigrationService(photoRepository, flatResolver,
+                new LocalPhotoStorage(flatResolver, originalDir.toString(), mediumDir.toString()));
+
+        assertThrows(IllegalArgumentException.class, flatMigration::start);
+    }
+
+    @Test
+    void start_SharedStorage_ThrowsException() {
+        final PhotoStorage sharedStorage = mock(PhotoStorage.class);
+        when(sharedStorage.isShared()).thenReturn(true);
+        final StorageLayoutMigrationService remoteMigration =
+                new StorageLayoutMigrationService(photoRepository, photoPathResolver, sharedStorage);
+
+        assertThrows(IllegalArgumentException.class, remoteMigration::start);
+    }
+}
@@ -0,0 +1,101 @@
+package com.photomap.service;
+
+import com.photomap.model.Photo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+class ThumbnailBatchServiceTest {
+
+    private ThumbnailBatchService thumbnailBatchService;
+    private PhotoProcessingService photoProcessingService;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        photoProcessingService = Mockito.mock(PhotoProcessingService.class);
+        thumbnailBatchService = new ThumbnailBatchService(photoProcessingService);
+        ReflectionTestUtils.setField(thumbnailBatchService, "parallelism", 2);
+        thumbnailBatchService.init();
+
+        when(photoProcessingService.loadThumbnail(any(Photo.class))).thenAnswer(invocation -> {
+            final Photo photo = invocation.getArgument(0);
+            final Path path = tempDir.resolve(photo.getThumbnailFilename());
+            return Files.exists(path) ? Optional.of(new FileSystemResource(path)) : Optional.empty();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailBatchService.shutdown();
+    }
+
+    @Test
+    void writeMultipart_WritesPartsInRequestedOrder() throws IOException {
+        Files.writeString(tempDir.resolve("a.jpg"), "AAA");
+        Files.writeString(tempDir.resolve("b.jpg"), "BBBB");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        thumbnailBatchService.writeMultipart(List.of(createPhoto(2L, "b.jpg"), createPhoto(1L, "a.jpg")), "xyz", out);
+
+        final String body = out.toString(StandardCharsets.US_ASCII);
+        assertEquals("--xyz\r\n"
+                + "Content-Type: image/jpeg\r\nContent-Length: 4\r\nX-Photo-Id: 2\r\n\r\nBBBB\r\n"
+                + "--xyz\r\n"
+                + "Content-Type: image/jpeg\r\nContent-Length: 3\r\nX-Photo-Id: 1\r\n\r\nAAA\r\n"
+                + "--xyz--\r\n", body);
+    }
+
+    @Test
+    void writeMultipart_MissingThumbnail_SkipsPart() throws IOException {
+        Files.writeString(tempDir.resolve("a.jpg"), "AAA");
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        thumbnailBatchService.writeMultipart(List.of(createPhoto(1L, "a.jpg"), createPhoto(2L, "missing.jpg")), "xyz", out);
+
+        final String body = out.toString(StandardCharsets.US_ASCII);
+        assertTrue(body.contains("X-Photo-Id: 1"));
+        assertFalse(body.contains("X-Photo-Id: 2"));
+        assertTrue(body.endsWith("--xyz--\r\n"));
+    }
+
+    @Test
+    void writeMultipart_UnreadableThumbnail_SkipsPart() throws IOException {
+        Files.writeString(tempDir.resolve("a.jpg"), "AAA");
+        Files.createDirectories(tempDir.resolve("dir.jpg"));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        thumbnailBatchService.writeMultipart(List.of(createPhoto(1L, "dir.jpg"), createPhoto(2L, "a.jpg")), "xyz", out);
+
+        final String body = out.toString(StandardCharsets.US_ASCII);
+        assertFalse(body.contains("X-Photo-Id: 1"));
+        assertTrue(body.contains("X-Photo-Id: 2"));
+    }
+
+    private Photo createPhoto(final Long id, final String thumbnailFilename) {
+        final Photo photo = new Photo();
+        photo.setId(id);
+        photo.setFilename("original-" + id + ".jpg");
+        photo.setThumbnailFilename(thumbnailFilename);
+        photo.setMimeType("image/jpeg");
+        return photo;
+    }
+}
@@ -18,6 +18,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -52,6 +53,12 @@ class UserServiceTest {
     @Mock
     private SecurityContext securityContext;
 
+    @Mock
+    private PhotoDataVersion photoDataVersion;
+
+    @Mock
+    private PhotoCatalog photoCatalog;
+
     @InjectMocks
     private UserService userService;
 
@@ -96,22 +103,34 @@ class UserServiceTest {
     }
 
     @Test
-    void listAllUsers_WithSearchEmail_FiltersUsers() {
-        Pageable pageable = PageRequest.of(0, 20);
+    void listAllUsers_WithSearchEmail_RanksSubstringMatches() {
+        Pageable pageable = PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
         Page<User> userPage = new PageImpl<>(List.of(user1));
 
-        when(userRepository.findByEmailContainingIgnoreCase("user1", pageable)).thenReturn(userPage);
+        when(userRepository.searchByEmailSimilarity("user1", "%user1%", PageRequest.of(1, 20))).thenReturn(userPage);
         when(photoRepository.countByUserId(1L)).thenReturn(5L);
 
-        Page<UserAdminResponse> result = userService.listAllUsers(pageable, "user1");
+        Page<UserAdminResponse> result = userService.listAllUsers(pageable, " User1 ");
 
         assertThat(result).isNotNull();
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent().get(0).email()).isEqualTo("user1@example.com");
-        verify(userRepository).findByEmailContainingIgnoreCase("user1", pageable);
         verify(photoRepository).countByUserId(1L);
     }
 
+    @Test
+    void listAllUsers_WithShortSearchEmail_MatchesPrefix() {
+        Pageable pageable = PageRequest.of(0, 20);
+        Page<User> userPage = new PageImpl<>(List.of(user1));
+
+        when(userRepository.searchByEmailPrefix("u\\_%", pageable)).thenReturn(userPage);
+
+        Page<UserAdminResponse> result = userService.listAllUsers(pageable, "u_");
+
+        assertThat(result.getContent()).hasSize(1);
+        verify(userRepository, never()).searchByEmailSimilarity(any(), any(), any());
+    }
+
     @Test
     void listAllUsers_WithEmptySearchEmail_ReturnsAllUsers() {
         Pageable pageable = PageRequest.of(0, 20);
@@ -174,7 +193,9 @@ class UserServiceTest {
         userService.deleteUser(1L);
 
         verify(userRepository).findById(1L);
+        verify(photoRepository).removeUserRatings(1L);
         verify(userRepository).delete(user1);
+        verify(photoCatalog).invalidate();
     }
 
     @Test
@@ -198,6 +219,7 @@ class UserServiceTest {
                 .hasMessage("Cannot delete yourself");
 
         verify(userRepository).findById(1L);
+        verify(photoRepository, never()).removeUserRatings(any());
         verify(userRepository, never()).delete(any(User.class));
     }
 
@@ -0,0 +1,126 @@
+package com.photomap.service;
+
+import com.photomap.dto.MapPoints;
+import com.photomap.repository.MapTile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VectorTileEncoderTest {
+
+    @Test
+    void encode_WritesPhotosLayerWithPointFeatures() {
+        final MapPoints points = new MapPoints(2);
+        // Center of the north-east quarter of the world and a point left of the tile
+        points.add(5L, 66.51326044311186, 90, Instant.ofEpochMilli(1_700_000_000_000L), 4.5);
+        points.add(6L, 66.51326044311186, -0.5, null, null);
+
+        final Message tile = new Message(VectorTileEncoder.encode(new MapTile(1, 1, 0), points));
+        final Message layer = new Message(tile.bytes(3).get(0));
+
+        assertEquals(2, layer.varint(15).get(0));
+        assertEquals("photos", new String(layer.bytes(1).get(0), StandardCharsets.UTF_8));
+        assertEquals(4096, layer.varint(5).get(0));
+        assertEquals(List.of("id", "rating", "takenAt"), layer.bytes(3).stream().map(b -> new String(b, StandardCharsets.UTF_8)).toList());
+
+        final List<byte[]> features = layer.bytes(2);
+        assertEquals(2, features.size());
+
+        final Message first = new Message(features.get(0));
+        assertEquals(5L, first.varint(1).get(0));
+        assertEquals(1L, first.varint(3).get(0));
+        assertEquals(List.of(9L, zigZag(2048), zigZag(2048)), packed(first.bytes(4).get(0)));
+        final List<Long> tags = packed(first.bytes(2).get(0));
+        assertEquals(6, tags.size());
+
+        final List<Message> values = layer.bytes(4).stream().map(Message::new).toList();
+        assertEquals(5L, values.get(tags.get(1).intValue()).varint(4).get(0));
+        assertEquals(4.5, values.get(tags.get(3).intValue()).fixed64(3), 1e-9);
+        assertEquals(1_700_000_000_000L, values.get(tags.get(5).intValue()).varint(4).get(0));
+
+        final Message second = new Message(features.get(1));
+        assertEquals(2, packed(second.bytes(2).get(0)).size());
+        final List<Long> geometry = packed(second.bytes(4).get(0));
+        assertEquals(zigZag(-11), geometry.get(1));
+    }
+
+    @Test
+    void encode_NoPoints_WritesEmptyLayer() {
+        final Message tile = new Message(VectorTileEncoder.encode(new MapTile(0, 0, 0), new MapPoints(0)));
+        final Message layer = new Message(tile.bytes(3).get(0));
+
+        assertTrue(layer.bytes(2).isEmpty());
+        assertEquals("photos", new String(layer.bytes(1).get(0), StandardCharsets.UTF_8));
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static List<Long> packed(final byte[] data) {
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        final List<Long> values = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            values.add(readVarint(buffer));
+        }
+        return values;
+    }
+
+    private static long readVarint(final ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Minimal protobuf reader: the fields of one message grouped by number.
+     */
+    private static final class Message {
+
+        private final List<long[]> varints = new ArrayList<>();
+        private final List<Object[]> delimited = new ArrayList<>();
+
+        Message(final byte[] data) {
+            final ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining()) {
+                final long key = readVarint(buffer);
+                final int field = (int) (key >>> 3);
+                switch ((int) (key & 7)) {
+                    case 0 -> varints.add(new long[]{field, readVarint(buffer)});
+                    case 1 -> varints.add(new long[]{field, buffer.getLong()});
+                    case 2 -> {
+                        final byte[] bytes = new byte[(int) readVarint(buffer)];
+                        buffer.get(bytes);
+                        delimited.add(new Object[]{field, bytes});
+                    }
+                    default -> fail("Unexpected wire type " + (key & 7));
+                }
+            }
+        }
+
+        List<Long> varint(final int field) {
+            return varints.stream().filter(v -> v[0] == field).map(v -> v[1]).toList();
+        }
+
+        double fixed64(final int field) {
+            return Double.longBitsToDouble(varint(field).get(0));
+        }
+
+        List<byte[]> bytes(final int field) {
+            return delimited.stream().filter(d -> (int) d[0] == field).map(d -> (byte[]) d[1]).toList();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.photomap.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalPhotoStorageTest {
+
+    private final PhotoPathResolver photoPathResolver = new PhotoPathResolver(PhotoPathResolver.LAYOUT_SHARDED);
+    private LocalPhotoStorage storage;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new LocalPhotoStorage(photoPathResolver,
+                tempDir.resolve("original").toString(), tempDir.resolve("medium").toString());
+        storage.init();
+    }
+
+    @Test
+    void put_MovesSourceIntoAreaDirectory() throws IOException {
+        final Path source = Files.writeString(tempDir.resolve("upload.jpg"), "content");
+
+        storage.put(StorageArea.MEDIUM, "a.jpg", source);
+
+        assertFalse(Files.exists(source));
+        assertTrue(storage.exists(StorageArea.MEDIUM, "a.jpg"));
+        assertFalse(storage.exists(StorageArea.ORIGINAL, "a.jpg"));
+        assertEquals(photoPathResolver.shardedPath(tempDir.resolve("medium").toString(), "a.jpg"),
+                storage.path(StorageArea.MEDIUM, "a.jpg"));
+    }
+
+    @Test
+    void get_ReturnsStoredContent() throws IOException {
+        storage.put(StorageArea.ORIGINAL, "a.jpg", Files.writeString(tempDir.resolve("upload.jpg"), "content"));
+
+        final Optional<Resource> resource = storage.get(StorageArea.ORIGINAL, "a.jpg");
+
+        assertEquals(7L, resource.orElseThrow().contentLength());
+        try (InputStream in = resource.get().getInputStream()) {
+            assertEquals("content", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertTrue(storage.get(StorageArea.ORIGINAL, "missing.jpg").isEmpty());
+    }
+
+    @Test
+    void getRange_ReturnsRequestedBytes() throws IOException {
+        storage.put(StorageArea.ORIGINAL, "a.jpg", Files.writeString(tempDir.resolve("upload.jpg"), "0123456789"));
+
+        try (InputStream in = storage.getRange(StorageArea.ORIGINAL, "a.jpg", 2, 3)) {
+            assertEquals("234", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream in = storage.getRange(StorageArea.ORIGINAL, "a.jpg", 8, 10)) {
+            assertEquals("89", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertThrows(NoSuchFileException.class, () -> storage.getRange(StorageArea.ORIGINAL, "missing.jpg", 0, 1));
+    }
+
+    @Test
+    void delete_RemovesFile() throws IOException {
+        storage.put(StorageArea.ORIGINAL, "a.jpg", Files.writeString(tempDir.resolve("upload.jpg"), "content"));
+
+        storage.delete(StorageArea.ORIGINAL, "a.jpg");
+        storage.delete(StorageArea.ORIGINAL, "a.jpg");
+
+        assertFalse(storage.exists(StorageArea.ORIGINAL, "a.jpg"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.photomap.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoPathResolverTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PhotoPathResolver shardedResolver = new PhotoPathResolver(PhotoPathResolver.LAYOUT_SHARDED);
+    private final PhotoPathResolver flatResolver = new PhotoPathResolver(PhotoPathResolver.LAYOUT_FLAT);
+
+    @Test
+    void shardedPath_UsesTwoHashedLevels() {
+        final Path path = shardedResolver.shardedPath(tempDir.toString(), "1_photo.jpg");
+
+        final Path relative = tempDir.relativize(path);
+        assertEquals(3, relative.getNameCount());
+        assertTrue(relative.getName(0).toString().matches("[0-9a-f]{2}"));
+        assertTrue(relative.getName(1).toString().matches("[0-9a-f]{2}"));
+        assertEquals("1_photo.jpg", relative.getFileName().toString());
+        assertEquals(path, shardedResolver.shardedPath(tempDir.toString(), "1_photo.jpg"));
+    }
+
+    @Test
+    void target_Sharded_CreatesParentDirectories() throws IOException {
+        final Path target = shardedResolver.target(tempDir.toString(), "new.jpg");
+
+        assertTrue(Files.isDirectory(target.getParent()));
+        assertNotEquals(tempDir, target.getParent());
+    }
+
+    @Test
+    void target_Flat_WritesIntoDirectory() throws IOException {
+        assertEquals(tempDir.resolve("new.jpg"), flatResolver.target(tempDir.toString(), "new.jpg"));
+    }
+
+    @Test
+    void resolve_FallsBackToLegacyFlatFile() throws IOException {
+        Files.writeString(tempDir.resolve("legacy.jpg"), "x");
+
+        assertEquals(tempDir.resolve("legacy.jpg"), shardedResolver.resolve(tempDir.toString(), "legacy.jpg"));
+    }
+
+    @Test
+    void resolve_PrefersShardedFile() throws IOException {
+        final Path sharded = shardedResolver.target(tempDir.toString(), "moved.jpg");
+        Files.writeString(sharded, "x");
+
+        assertEquals(sharded, shardedResolver.resolve(tempDir.toString(), "moved.jpg"));
+        assertEquals(sharded, flatResolver.resolve(tempDir.toString(), "moved.jpg"));
+    }
+
+    @Test
+    void resolve_MissingFile_ReturnsPathForConfiguredLayout() {
+        assertEquals(shardedResolver.shardedPath(tempDir.toString(), "missing.jpg"),
+                shardedResolver.resolve(tempDir.toString(), "missing.jpg"));
+        assertEquals(tempDir.resolve("missing.jpg"), flatResolver.resolve(tempDir.toString(), "missing.jpg"));
+    }
+
+    @Test
+    void constructor_UnknownLayout_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new PhotoPathResolver("nested"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.photomap.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the S3 storage against a real MinIO server; skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class S3PhotoStorageMinioTest {
+
+    // S3 requires every part but the last to be at least 5 MB
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    @Container
+    private static final MinIOContainer MINIO = new MinIOContainer("minio/minio:RELEASE.2024-10-13T13-34-11Z");
+
+    private S3PhotoStorage storage;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        final S3Client s3Client = S3Client.builder()
+                .endpointOverride(URI.create(MINIO.getS3URL()))
+                .region(Region.US_EAST_1)
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(MINIO.getUserName(), MINIO.getPassword())))
+                .build();
+        storage = new S3PhotoStorage(s3Client, "photos", PART_SIZE, PART_SIZE, 4, 2);
+        storage.ensureBucket();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+    }
+
+    @Test
+    void put_MultipartUpload_ReadsBackWithParallelRanges() throws IOException {
+        final byte[] content = new byte[2 * PART_SIZE + 4321];
+        new Random(42).nextBytes(content);
+
+        storage.put(StorageArea.ORIGINAL, "large.jpg", Files.write(tempDir.resolve("large.jpg"), content));
+
+        try (InputStream in = storage.get(StorageArea.ORIGINAL, "large.jpg").orElseThrow().getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        try (InputStream in = storage.getRange(StorageArea.ORIGINAL, "large.jpg", PART_SIZE - 2, 4)) {
+            final byte[] expected = {content[PART_SIZE - 2], content[PART_SIZE - 1], content[PART_SIZE], content[PART_SIZE + 1]};
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void delete_RemovesObject() throws IOException {
+        storage.put(StorageArea.MEDIUM, "small.jpg", Files.writeString(tempDir.resolve("small.jpg"), "thumbnail"));
+        assertTrue(storage.exists(StorageArea.MEDIUM, "small.jpg"));
+
+        storage.delete(StorageArea.MEDIUM, "small.jpg");
+
+        assertFalse(storage.exists(StorageArea.MEDIUM, "small.jpg"));
+        assertTrue(storage.get(StorageArea.MEDIUM, "small.jpg").isEmpty());
+    }
+}
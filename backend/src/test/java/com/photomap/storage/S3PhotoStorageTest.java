@@ -0,0 +1,173 @@
+package com.photomap.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class S3PhotoStorageTest {
+
+    private static final int PART_SIZE = 1024;
+
+    private S3Client s3Client;
+    private S3PhotoStorage storage;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        storage = new S3PhotoStorage(s3Client, "photos", 4L * PART_SIZE, PART_SIZE, 3, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.close();
+    }
+
+    @Test
+    void put_SmallFile_UsesSingleRequest() throws IOException {
+        final Path source = Files.write(tempDir.resolve("small.jpg"), new byte[100]);
+
+        storage.put(StorageArea.ORIGINAL, "a.jpg", source);
+
+        verify(s3Client).putObject(argThatKey("original/a.jpg"), any(RequestBody.class));
+        verify(s3Client, never()).createMultipartUpload(any(CreateMultipartUploadRequest.class));
+        assertFalse(Files.exists(source));
+    }
+
+    @Test
+    void put_LargeFile_UploadsParts() throws IOException {
+        final Path source = Files.write(tempDir.resolve("large.jpg"), new byte[4 * PART_SIZE + 10]);
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenReturn(UploadPartResponse.builder().eTag("etag").build());
+
+        storage.put(StorageArea.MEDIUM, "b.jpg", source);
+
+        verify(s3Client, times(5)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        verify(s3Client).completeMultipartUpload(argThat((CompleteMultipartUploadRequest request) ->
+                request.uploadId().equals("upload-1") && request.multipartUpload().parts().size() == 5));
+        assertFalse(Files.exists(source));
+    }
+
+    @Test
+    void get_MissingObject_ReturnsEmpty() {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+        when(s3Client.headObject(any(HeadObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(404).build());
+
+        assertTrue(storage.get(StorageArea.ORIGINAL, "missing.jpg").isEmpty());
+        assertFalse(storage.exists(StorageArea.ORIGINAL, "missing.jpg"));
+    }
+
+    @Test
+    void get_SmallObject_ReadsWithSingleGet() throws IOException {
+        stubObject("0123456789".getBytes());
+
+        final Resource resource = storage.get(StorageArea.MEDIUM, "small.jpg").orElseThrow();
+
+        assertEquals(10, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            assertEquals("0123456789", new String(in.readAllBytes()));
+        }
+        verify(s3Client, times(1)).getObjectAsBytes(any(GetObjectRequest.class));
+        verify(s3Client, never()).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    void get_EmptyObject_ReturnsEmptyResource() throws IOException {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenThrow(S3Exception.builder().statusCode(416).build());
+
+        final Resource resource = storage.get(StorageArea.MEDIUM, "empty.jpg").orElseThrow();
+
+        assertEquals(0, resource.contentLength());
+        try (InputStream in = resource.getInputStream()) {
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void get_LargeObject_ReadsRangesInOrder() throws IOException {
+        final byte[] content = new byte[5 * PART_SIZE + 123];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 251);
+        }
+        stubObject(content);
+
+        final Optional<Resource> resource = storage.get(StorageArea.ORIGINAL, "big.jpg");
+
+        assertEquals(content.length, resource.orElseThrow().contentLength());
+        try (InputStream in = resource.get().getInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        verify(s3Client, times(6)).getObjectAsBytes(any(GetObjectRequest.class));
+    }
+
+    @Test
+    void getRange_RequestsByteRange() throws IOException {
+        stubObject("0123456789".getBytes());
+
+        try (InputStream in = storage.getRange(StorageArea.ORIGINAL, "a.jpg", 3, 4)) {
+            assertEquals("3456", new String(in.readAllBytes()));
+        }
+        verify(s3Client).getObjectAsBytes(argThat((GetObjectRequest request) -> "bytes=3-6".equals(request.range())));
+        verify(s3Client, never()).headObject(any(HeadObjectRequest.class));
+    }
+
+    @Test
+    void getRange_MissingObject_ThrowsNoSuchFile() {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().statusCode(404).build());
+
+        assertThrows(NoSuchFileException.class, () -> storage.getRange(StorageArea.ORIGINAL, "missing.jpg", 0, 4));
+    }
+
+    private void stubObject(final byte[] content) {
+        when(s3Client.getObjectAsBytes(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            final GetObjectRequest request = invocation.getArgument(0);
+            final String[] range = request.range().substring("bytes=".length()).split("-");
+            final int from = Integer.parseInt(range[0]);
+            final int to = Math.min(Integer.parseInt(range[1]) + 1, content.length);
+            final GetObjectResponse response = GetObjectResponse.builder()
+                    .contentRange("bytes " + from + "-" + (to - 1) + "/" + content.length)
+                    .build();
+            return ResponseBytes.fromByteArray(response, Arrays.copyOfRange(content, from, to));
+        });
+    }
+
+    private static PutObjectRequest argThatKey(final String key) {
+        return argThat(request -> key.equals(request.key()) && "photos".equals(request.bucket()));
+    }
+}
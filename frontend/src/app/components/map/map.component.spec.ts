@@ -7,7 +7,7 @@ import { FilterService } from '../../services/filter.service';
 import { PhotoViewerService } from '../../services/photo-viewer.service';
 import { HttpClient } from '@angular/common/http';
 import L from 'leaflet';
-import { Photo } from '../../models/photo.model';
+import { Photo, PhotoCluster } from '../../models/photo.model';
 
 describe('MapComponent', () => {
   let component: MapComponent;
@@ -54,8 +54,20 @@ describe('MapComponent', () => {
     }
   ];
 
+  const mockClusters: PhotoCluster[] = [
+    { latitude: 52.2297, longitude: 21.0122, count: 1, photoId: 1 },
+    { latitude: 50.1, longitude: 19.9, count: 25, photoId: 2 }
+  ];
+
+  const createMapElement = (): HTMLDivElement => {
+    const mapDiv = document.createElement('div');
+    mapDiv.id = 'map';
+    document.body.appendChild(mapDiv);
+    return mapDiv;
+  };
+
   beforeEach(async () => {
-    const photoServiceSpy = jasmine.createSpyObj('PhotoService', ['getAllPhotos']);
+    const photoServiceSpy = jasmine.createSpyObj('PhotoService', ['getClusters', 'getPhotoById']);
     const filterServiceSpy = jasmine.createSpyObj('FilterService', ['currentFilters'], {
       filters$: of({})
     });
@@ -80,6 +92,7 @@ describe('MapComponent', () => {
     httpClient = TestBed.inject(HttpClient) as jasmine.SpyObj<HttpClient>;
 
     filterService.currentFilters.and.returnValue({});
+    photoService.getClusters.and.returnValue(of([]));
   });
 
   afterEach(() => {
@@ -108,81 +121,104 @@ describe('MapComponent', () => {
     expect(component).toBeTruthy();
   });
 
-  it('should load photos on init with GPS filter', () => {
-    photoService.getAllPhotos.and.returnValue(of({
-      content: mockPhotos,
-      totalElements: 2,
-      totalPages: 1,
-      page: { number: 0, size: 10000, totalElements: 2, totalPages: 1 }
-    }));
-    httpClient.get.and.returnValue(of(new Blob()));
+  it('should load clusters for the visible area once the map exists', fakeAsync(() => {
+    const mapDiv = createMapElement();
+    filterService.currentFilters.and.returnValue({ minRating: 3 });
+    photoService.getClusters.and.returnValue(of(mockClusters));
 
     component.ngOnInit();
+    expect(photoService.getClusters).not.toHaveBeenCalled();
 
-    expect(photoService.getAllPhotos).toHaveBeenCalledWith(jasmine.objectContaining({
-      hasGps: true,
-      size: 10000
-    }));
-  });
+    component.ngAfterViewInit();
+    tick(250);
+
+    expect(photoService.getClusters).toHaveBeenCalledWith(jasmine.any(String), 6, jasmine.objectContaining({ minRating: 3 }));
+    const bbox = photoService.getClusters.calls.mostRecent().args[0].split(',').map(Number);
+    expect(bbox.length).toBe(4);
+    expect(bbox[0]).toBeLessThanOrEqual(bbox[2]);
+    expect(bbox[1]).toBeLessThanOrEqual(bbox[3]);
+    expect(component.clusters()).toEqual(mockClusters);
+
+    component.ngOnDestroy();
+    component['map'] = undefined;
+    document.body.removeChild(mapDiv);
+  }));
 
   it('should set loading state when loading photos', fakeAsync(() => {
-    photoService.getAllPhotos.and.returnValue(of({
-      content: mockPhotos,
-      totalElements: 2,
-      totalPages: 1,
-      page: { number: 0, size: 10000, totalElements: 2, totalPages: 1 }
-    }).pipe(delay(0)));
-    httpClient.get.and.returnValue(of(new Blob()).pipe(delay(0)));
+    const mapDiv = createMapElement();
+    component.ngAfterViewInit();
+    tick(250);
+    photoService.getClusters.and.returnValue(of(mockClusters).pipe(delay(0)));
 
-    expect(component.loading()).toBe(false);
     component.loadPhotos();
     expect(component.loading()).toBe(true);
     tick();
     expect(component.loading()).toBe(false);
+
+    component.ngOnDestroy();
+    component['map'] = undefined;
+    document.body.removeChild(mapDiv);
   }));
 
-  it('should handle photo loading error', () => {
-    const errorResponse = { status: 500, statusText: 'Server Error' };
-    photoService.getAllPhotos.and.returnValue(throwError(() => errorResponse));
+  it('should handle photo loading error', fakeAsync(() => {
+    const mapDiv = createMapElement();
+    photoService.getClusters.and.returnValue(throwError(() => ({ status: 500, statusText: 'Server Error' })));
 
-    component.loadPhotos();
+    component.ngAfterViewInit();
+    tick(250);
 
     expect(component.errorMessage()).toBe('Failed to load photos. Please try again.');
     expect(component.loading()).toBe(false);
-  });
 
-  it('should load thumbnails for photos', fakeAsync(() => {
+    component.ngOnDestroy();
+    component['map'] = undefined;
+    document.body.removeChild(mapDiv);
+  }));
+
+  it('should not load thumbnails before a popup is opened', fakeAsync(() => {
+    const mapDiv = createMapElement();
+    photoService.getClusters.and.returnValue(of(mockClusters));
+
+    component.ngAfterViewInit();
+    tick(250);
+
+    expect(httpClient.get).not.toHaveBeenCalled();
+    expect(photoService.getPhotoById).not.toHaveBeenCalled();
+
+    component.ngOnDestroy();
+    component['map'] = undefined;
+    document.body.removeChild(mapDiv);
+  }));
+
+  it('should load photo details and thumbnail when popup opens', fakeAsync(() => {
     const mockBlob = new Blob(['test'], { type: 'image/jpeg' });
-    photoService.getAllPhotos.and.returnValue(of({
-      content: mockPhotos,
-      totalElements: 2,
-      totalPages: 1,
-      page: { number: 0, size: 10000, totalElements: 2, totalPages: 1 }
-    }));
+    photoService.getPhotoById.and.returnValue(of(mockPhotos[0]));
     httpClient.get.and.returnValue(of(mockBlob));
+    const popup = L.popup();
 
-    component.loadPhotos();
+    component['loadPopupContent'](popup, 1);
     tick();
 
-    expect(httpClient.get).toHaveBeenCalledTimes(2);
+    expect(photoService.getPhotoById).toHaveBeenCalledWith(1);
     expect(httpClient.get).toHaveBeenCalledWith('/api/photos/1/thumbnail', jasmine.objectContaining({ responseType: 'blob' }));
-    expect(httpClient.get).toHaveBeenCalledWith('/api/photos/2/thumbnail', jasmine.objectContaining({ responseType: 'blob' }));
-    expect(component.loading()).toBe(false);
+    expect(popup.getContent() as string).toContain('test1.jpg');
+    expect(popup.getContent() as string).toContain('data-photo-id="1"');
+
+    component['loadPopupContent'](popup, 1);
+    expect(photoService.getPhotoById).toHaveBeenCalledTimes(1);
+    expect(httpClient.get).toHaveBeenCalledTimes(1);
   }));
 
   it('should handle thumbnail loading error gracefully', fakeAsync(() => {
-    photoService.getAllPhotos.and.returnValue(of({
-      content: mockPhotos,
-      totalElements: 2,
-      totalPages: 1,
-      page: { number: 0, size: 10000, totalElements: 2, totalPages: 1 }
-    }));
+    photoService.getPhotoById.and.returnValue(of(mockPhotos[0]));
     httpClient.get.and.returnValue(throwError(() => ({ status: 404 })));
+    const popup = L.popup();
 
-    component.loadPhotos();
+    component['loadPopupContent'](popup, 1);
     tick();
 
-    expect(component.loading()).toBe(false);
+    expect(popup.getContent() as string).toContain('test1.jpg');
+    expect(popup.getContent() as string).toContain('background: #e5e7eb');
   }));
 
   it('should initialize map on AfterViewInit', fakeAsync(() => {
@@ -238,23 +274,26 @@ describe('MapComponent', () => {
     document.body.removeChild(mapDiv);
   }));
 
-  it('should update markers on map', fakeAsync(() => {
-    const mapDiv = document.createElement('div');
-    mapDiv.id = 'map';
-    document.body.appendChild(mapDiv);
+  it('should render single photos as markers and groups as cluster icons', fakeAsync(() => {
+    const mapDiv = createMapElement();
 
     component.ngAfterViewInit();
     tick(250);
-    component.photos.set(mockPhotos);
+    component.clusters.set(mockClusters);
 
-    const markerClusterGroup = component['markerClusterGroup'];
-    spyOn(markerClusterGroup!, 'clearLayers');
-    spyOn(markerClusterGroup!, 'addLayer');
+    const clusterLayer = component['clusterLayer'];
+    spyOn(clusterLayer!, 'clearLayers').and.callThrough();
+    spyOn(clusterLayer!, 'addLayer').and.callThrough();
 
     component.updateMarkers();
 
-    expect(markerClusterGroup!.clearLayers).toHaveBeenCalled();
-    expect(markerClusterGroup!.addLayer).toHaveBeenCalledTimes(2);
+    expect(clusterLayer!.clearLayers).toHaveBeenCalled();
+    expect(clusterLayer!.addLayer).toHaveBeenCalledTimes(2);
+    const markers = (clusterLayer!.addLayer as jasmine.Spy).calls.allArgs().map(args => args[0] as L.Marker);
+    expect(markers[0].getPopup()).toBeDefined();
+    expect(markers[1].getPopup()).toBeUndefined();
+    expect((markers[1].options.icon as L.DivIcon).options.html).toContain('25');
+    expect((markers[1].options.icon as L.DivIcon).options.className).toContain('marker-cluster-medium');
 
     flush();
     component.ngOnDestroy();
@@ -262,27 +301,41 @@ describe('MapComponent', () => {
     document.body.removeChild(mapDiv);
   }));
 
-  it('should filter photos without GPS coordinates', fakeAsync(() => {
-    const mapDiv = document.createElement('div');
-    mapDiv.id = 'map';
-    document.body.appendChild(mapDiv);
+  it('should zoom in when a cluster is clicked', fakeAsync(() => {
+    const mapDiv = createMapElement();
 
     component.ngAfterViewInit();
     tick(250);
+    const map = component['map']!;
+    spyOn(map, 'setView').and.callThrough();
+
+    const marker = component['createClusterMarker'](mockClusters[1]);
+    marker.fire('click');
 
-    const photosWithoutGPS: Photo[] = [
-      { ...mockPhotos[0], gpsLatitude: undefined, gpsLongitude: undefined }
-    ];
-    component.photos.set(photosWithoutGPS);
+    expect(map.setView).toHaveBeenCalledWith([50.1, 19.9], 8);
 
-    const markerClusterGroup = component['markerClusterGroup'];
-    spyOn(markerClusterGroup!, 'clearLayers');
-    spyOn(markerClusterGroup!, 'addLayer');
+    flush();
+    component.ngOnDestroy();
+    component['map'] = undefined;
+    document.body.removeChild(mapDiv);
+  }));
+
+  it('should not add markers when there are no clusters', fakeAsync(() => {
+    const mapDiv = createMapElement();
+
+    component.ngAfterViewInit();
+    tick(250);
+
+    component.clusters.set([]);
+
+    const clusterLayer = component['clusterLayer'];
+    spyOn(clusterLayer!, 'clearLayers');
+    spyOn(clusterLayer!, 'addLayer');
 
     component.updateMarkers();
 
-    expect(markerClusterGroup!.clearLayers).toHaveBeenCalled();
-    expect(markerClusterGroup!.addLayer).not.toHaveBeenCalled();
+    expect(clusterLayer!.clearLayers).toHaveBeenCalled();
+    expect(clusterLayer!.addLayer).not.toHaveBeenCalled();
 
     component.ngOnDestroy();
     component['map'] = undefined;
@@ -290,10 +343,11 @@ describe('MapComponent', () => {
   }));
 
   it('should open photo viewer on photo click', () => {
-    component.photos.set(mockPhotos);
+    component.clusters.set(mockClusters);
+    component['loadedPhotos'].set(1, mockPhotos[0]);
     component.onPhotoClick(1);
 
-    expect(photoViewerService.openViewer).toHaveBeenCalledWith(mockPhotos, 1, '/map');
+    expect(photoViewerService.openViewer).toHaveBeenCalledWith([mockPhotos[0], { id: 2 }], 1, '/map');
   });
 
   it('should display rating with user rating indicator', () => {
@@ -341,7 +395,8 @@ describe('MapComponent', () => {
     expect(popupContent).not.toContain('<img');
   });
 
-  it('should subscribe to filter changes on init', fakeAsync(() => {
+  it('should reload clusters on filter changes', fakeAsync(() => {
+    const mapDiv = createMapElement();
     let filterCallback: any;
     const filters$ = {
       subscribe: jasmine.createSpy('subscribe').and.callFake((callback: any) => {
@@ -355,38 +410,29 @@ describe('MapComponent', () => {
       configurable: true
     });
 
-    photoService.getAllPhotos.and.returnValue(of({
-      content: [],
-      totalElements: 0,
-      totalPages: 0,
-      page: { number: 0, size: 10000, totalElements: 0, totalPages: 0 }
-    }));
-
     component.ngOnInit();
-    tick();
+    component.ngAfterViewInit();
+    tick(250);
 
     expect(filters$.subscribe).toHaveBeenCalled();
-    expect(photoService.getAllPhotos).toHaveBeenCalledTimes(1);
+    const callsBefore = photoService.getClusters.calls.count();
+    expect(callsBefore).toBeGreaterThan(0);
 
     filterCallback({});
     tick();
-    expect(photoService.getAllPhotos).toHaveBeenCalledTimes(2);
-  }));
+    expect(photoService.getClusters).toHaveBeenCalledTimes(callsBefore + 1);
 
-  it('should handle empty photos array when loading thumbnails', fakeAsync(() => {
-    photoService.getAllPhotos.and.returnValue(of({
-      content: [],
-      totalElements: 0,
-      totalPages: 0,
-      page: { number: 0, size: 10000, totalElements: 0, totalPages: 0 }
-    }));
+    component.ngOnDestroy();
+    component['map'] = undefined;
+    document.body.removeChild(mapDiv);
+  }));
 
+  it('should not request clusters before the map exists', () => {
     component.loadPhotos();
-    tick();
 
+    expect(photoService.getClusters).not.toHaveBeenCalled();
     expect(component.loading()).toBe(false);
-    expect(httpClient.get).not.toHaveBeenCalled();
-  }));
+  });
 
   it('should use singular "rating" for single rating count', () => {
     const photo = {
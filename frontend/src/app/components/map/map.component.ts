@@ -1,9 +1,9 @@
 import { Component, OnInit, AfterViewInit, OnDestroy, signal } from '@angular/core';
 import { CommonModule } from '@angular/common';
 import { HttpClient } from '@angular/common/http';
+import { Subscription, catchError, forkJoin, of } from 'rxjs';
 import L from 'leaflet';
-import 'leaflet.markercluster';
-import { Photo } from '../../models/photo.model';
+import { Photo, PhotoCluster } from '../../models/photo.model';
 import { PhotoService } from '../../services/photo.service';
 import { FilterService } from '../../services/filter.service';
 import { PhotoViewerService } from '../../services/photo-viewer.service';
@@ -18,11 +18,13 @@ import { FilterFabComponent } from '../filter-fab/filter-fab.component';
 })
 export class MapComponent implements OnInit, AfterViewInit, OnDestroy {
   private map?: L.Map;
-  private markerClusterGroup?: L.MarkerClusterGroup;
+  private clusterLayer?: L.LayerGroup;
+  private clustersSubscription?: Subscription;
   private resizeObserver?: ResizeObserver;
   private readonly thumbnailUrls = new Map<number, string>();
+  private readonly loadedPhotos = new Map<number, Photo>();
 
-  photos = signal<Photo[]>([]);
+  clusters = signal<PhotoCluster[]>([]);
   loading = signal(false);
   errorMessage = signal<string | null>(null);
 
@@ -40,6 +42,8 @@ export class MapComponent implements OnInit, AfterViewInit, OnDestroy {
       URL.revokeObjectURL(url);
     }
     this.thumbnailUrls.clear();
+    this.loadedPhotos.clear();
+    this.clustersSubscription?.unsubscribe();
 
     if (this.resizeObserver) {
       this.resizeObserver.disconnect();
@@ -66,8 +70,6 @@ export class MapComponent implements OnInit, AfterViewInit, OnDestroy {
   }
 
   ngOnInit(): void {
-    this.loadPhotos();
-
     this.filterService.filters$.subscribe(() => {
       this.loadPhotos();
     });
@@ -77,72 +79,44 @@ export class MapComponent implements OnInit, AfterViewInit, OnDestroy {
     this.initMap();
   }
 
+  /**
+   * Loads server-side clusters for the visible area; called on filter changes and after every pan or zoom.
+   */
   loadPhotos(): void {
-    this.loading.set(true);
-    this.errorMessage.set(null);
-
-    const filters = { ...this.filterService.currentFilters(), hasGps: true, size: 10000 };
-
-    this.photoService.getAllPhotos(filters).subscribe({
-      next: (response) => {
-        this.photos.set(response.content);
-        this.loadThumbnails();
-      },
-      error: (error) => {
-        console.error('Error loading photos:', error);
-        this.errorMessage.set('Failed to load photos. Please try again.');
-        this.loading.set(false);
-      }
-    });
-  }
-
-  private loadThumbnails(): void {
-    for (const url of this.thumbnailUrls.values()) {
-      URL.revokeObjectURL(url);
-    }
-    this.thumbnailUrls.clear();
-
-    const photos = this.photos();
-    if (photos.length === 0) {
-      this.loading.set(false);
-      if (this.map) {
-        this.updateMarkers();
-      }
+    if (!this.map) {
       return;
     }
 
-    let loadedCount = 0;
-    const totalCount = photos.length;
-
-    for (const photo of photos) {
-      this.http.get(`/api/photos/${photo.id}/thumbnail`, {
-        responseType: 'blob'
-      }).subscribe({
-        next: (blob) => {
-          const objectUrl = URL.createObjectURL(blob);
-          this.thumbnailUrls.set(photo.id, objectUrl);
-          loadedCount++;
-
-          if (loadedCount === totalCount) {
-            this.loading.set(false);
-            if (this.map) {
-              this.updateMarkers();
-            }
-          }
+    this.loading.set(true);
+    this.errorMessage.set(null);
+    this.clustersSubscription?.unsubscribe();
+
+    this.clustersSubscription = this.photoService
+      .getClusters(this.toBbox(this.map.getBounds()), this.map.getZoom(), this.filterService.currentFilters())
+      .subscribe({
+        next: (clusters) => {
+          this.clusters.set(clusters);
+          this.loading.set(false);
+          this.updateMarkers();
         },
         error: (error) => {
-          console.error(`Error loading thumbnail for photo ${photo.id}:`, error);
-          loadedCount++;
-
-          if (loadedCount === totalCount) {
-            this.loading.set(false);
-            if (this.map) {
-              this.updateMarkers();
-            }
-          }
+          console.error('Error loading photos:', error);
+          this.errorMessage.set('Failed to load photos. Please try again.');
+          this.loading.set(false);
         }
       });
+  }
+
+  private toBbox(bounds: L.LatLngBounds): string {
+    const south = Math.max(bounds.getSouth(), -90);
+    const north = Math.min(bounds.getNorth(), 90);
+    if (bounds.getEast() - bounds.getWest() >= 360) {
+      return `-180,${south},180,${north}`;
     }
+    // West greater than east after wrapping means the view crosses the antimeridian
+    const west = L.Util.wrapNum(bounds.getWest(), [-180, 180], true);
+    const east = L.Util.wrapNum(bounds.getEast(), [-180, 180], true);
+    return `${west},${south},${east},${north}`;
   }
 
   initMap(): void {
@@ -161,8 +135,8 @@ export class MapComponent implements OnInit, AfterViewInit, OnDestroy {
       attribution: '© OpenStreetMap contributors'
     }).addTo(this.map);
 
-    this.markerClusterGroup = L.markerClusterGroup();
-    this.map.addLayer(this.markerClusterGroup);
+    this.clusterLayer = L.layerGroup().addTo(this.map);
+    this.map.on('moveend', () => this.loadPhotos());
 
     this.resizeObserver = new ResizeObserver(() => {
       if (this.map) {
@@ -177,40 +151,99 @@ export class MapComponent implements OnInit, AfterViewInit, OnDestroy {
       }
     }, 200);
 
-    if (this.photos().length > 0 && !this.loading()) {
-      this.updateMarkers();
-    }
+    this.loadPhotos();
   }
 
   updateMarkers(): void {
-    if (!this.map || !this.markerClusterGroup) {
+    if (!this.map || !this.clusterLayer) {
       return;
     }
 
-    this.markerClusterGroup.clearLayers();
-
-    const photosWithGps = this.photos().filter(p => p.gpsLatitude && p.gpsLongitude);
+    this.clusterLayer.clearLayers();
 
-    if (photosWithGps.length === 0) {
-      return;
+    const atMaxZoom = this.map.getZoom() >= this.map.getMaxZoom();
+    for (const cluster of this.clusters()) {
+      if (cluster.count === 1 || atMaxZoom) {
+        this.clusterLayer.addLayer(this.createPhotoMarker(cluster));
+      } else {
+        this.clusterLayer.addLayer(this.createClusterMarker(cluster));
+      }
     }
+  }
 
-    for (const photo of photosWithGps) {
-      const marker = L.marker([photo.gpsLatitude!, photo.gpsLongitude!]);
-      const thumbnailUrl = this.thumbnailUrls.get(photo.id) || '';
-      const popupContent = this.createPopupContent(photo, thumbnailUrl);
-      const popup = L.popup().setContent(popupContent);
+  private createPhotoMarker(cluster: PhotoCluster): L.Marker {
+    const marker = L.marker([cluster.latitude, cluster.longitude]);
+    const popup = L.popup().setContent(this.createPlaceholderContent());
 
-      popup.on('add', () => {
-        this.attachPopupClickHandler(popup);
-      });
+    popup.on('add', () => {
+      this.loadPopupContent(popup, cluster.photoId);
+    });
+
+    marker.bindPopup(popup);
+    return marker;
+  }
+
+  private createClusterMarker(cluster: PhotoCluster): L.Marker {
+    // Reuses the leaflet.markercluster stylesheet so clusters look as before
+    const sizeClass = cluster.count < 10 ? 'small' : cluster.count < 100 ? 'medium' : 'large';
+    const marker = L.marker([cluster.latitude, cluster.longitude], {
+      icon: L.divIcon({
+        html: `<div><span>${cluster.count}</span></div>`,
+        className: `marker-cluster marker-cluster-${sizeClass}`,
+        iconSize: L.point(40, 40)
+      })
+    });
+
+    marker.on('click', () => {
+      if (this.map) {
+        this.map.setView([cluster.latitude, cluster.longitude], Math.min(this.map.getZoom() + 2, this.map.getMaxZoom()));
+      }
+    });
+    return marker;
+  }
 
-      marker.bindPopup(popup);
-      this.markerClusterGroup.addLayer(marker);
+  /**
+   * Popup details and thumbnail are fetched when a popup is first opened,
+   * so loading the map only transfers cluster positions.
+   */
+  private loadPopupContent(popup: L.Popup, photoId: number): void {
+    const photo = this.loadedPhotos.get(photoId);
+    const thumbnailUrl = this.thumbnailUrls.get(photoId);
+    if (photo && thumbnailUrl !== undefined) {
+      popup.setContent(this.createPopupContent(photo, thumbnailUrl));
+      this.attachPopupClickHandler(popup);
+      return;
     }
 
-    const bounds = L.latLngBounds(photosWithGps.map(p => [p.gpsLatitude!, p.gpsLongitude!]));
-    this.map.fitBounds(bounds, { padding: [50, 50] });
+    forkJoin({
+      photo: photo ? of(photo) : this.photoService.getPhotoById(photoId),
+      thumbnail: this.http.get(`/api/photos/${photoId}/thumbnail`, { responseType: 'blob' }).pipe(
+        catchError((error) => {
+          console.error(`Error loading thumbnail for photo ${photoId}:`, error);
+          return of(null);
+        })
+      )
+    }).subscribe({
+      next: ({ photo: loaded, thumbnail }) => {
+        const url = thumbnail ? URL.createObjectURL(thumbnail) : '';
+        this.loadedPhotos.set(photoId, loaded);
+        this.thumbnailUrls.set(photoId, url);
+        popup.setContent(this.createPopupContent(loaded, url));
+        this.attachPopupClickHandler(popup);
+      },
+      error: (error) => {
+        console.error(`Error loading photo ${photoId}:`, error);
+      }
+    });
+  }
+
+  private createPlaceholderContent(): string {
+    return `
+      <div style="text-align: center; min-width: 150px;">
+        <div style="width: 128px; height: 96px; background: #e5e7eb; border-radius: 4px;"></div>
+        <div style="margin-top: 4px; color: #666; font-size: 14px;">Loading...</div>
+      </div>
+    `;
   }
 
   private getRatingDisplay(photo: Photo): string {
@@ -273,7 +306,7 @@ export class MapComponent implements OnInit, AfterViewInit, OnDestroy {
   }
 
   onPhotoClick(photoId: number): void {
-    const photos = this.photos();
+    const photos = this.clusters().map(cluster => this.loadedPhotos.get(cluster.photoId) ?? { id: cluster.photoId });
     this.photoViewerService.openViewer(photos, photoId, '/map');
   }
 }
@@ -83,7 +83,9 @@ describe('PhotoCardComponent', () => {
         photoId: 1,
         userId: 1,
         rating: 5,
-        createdAt: '2024-01-01T00:00:00Z'
+        createdAt: '2024-01-01T00:00:00Z',
+        averageRating: 5,
+        totalRatings: 1
       };
       photoServiceSpy.ratePhoto.and.returnValue(of(mockRating));
 
@@ -3,8 +3,7 @@ import { CommonModule } from '@angular/common';
 import { HttpClient } from '@angular/common/http';
 import { DomSanitizer, SafeUrl } from '@angular/platform-browser';
 import { Subject, takeUntil } from 'rxjs';
-import { PhotoViewerService, ViewerState } from '../../services/photo-viewer.service';
-import { Photo } from '../../models/photo.model';
+import { PhotoViewerService, ViewerPhoto, ViewerState } from '../../services/photo-viewer.service';
 
 @Component({
   selector: 'app-photo-viewer',
@@ -17,7 +16,7 @@ export class PhotoViewerComponent implements OnInit, OnDestroy {
   private readonly destroy$ = new Subject<void>();
 
   viewerState: ViewerState | null = null;
-  currentPhoto: Photo | null = null;
+  currentPhoto: ViewerPhoto | null = null;
   imageUrl: SafeUrl | null = null;
   isFullscreen: boolean = false;
   isImageLoading: boolean = false;
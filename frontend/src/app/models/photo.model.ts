@@ -21,12 +21,18 @@ export interface RatingRequest {
   rating: number;
 }
 
+export interface BatchRatingRequest {
+  ratings: { photoId: number; rating: number }[];
+}
+
 export interface RatingResponse {
   id: number;
   photoId: number;
   userId: number;
   rating: number;
   createdAt: string;
+  averageRating: number;
+  totalRatings: number;
 }
 
 export interface PageInfo {
@@ -51,6 +57,44 @@ export interface PhotoFilters {
   sort?: string;
 }
 
+/**
+ * Map markers in columnar form: index i of every array describes the same photo.
+ * takenAt is in epoch milliseconds.
+ */
+export interface MapPoints {
+  count: number;
+  id: number[];
+  lat: number[];
+  lng: number[];
+  takenAt: (number | null)[];
+  ratingAvg: (number | null)[];
+}
+
+/**
+ * Photos grouped server-side for the visible map area; count 1 is a single photo at its exact position.
+ */
+export interface PhotoCluster {
+  latitude: number;
+  longitude: number;
+  count: number;
+  photoId: number;
+}
+
+export type TimelineBucket = 'day' | 'month' | 'year';
+
+// Properties that can be requested with the `fields` parameter; `id` is always returned
+export type PhotoField = 'id' | 'filename' | 'originalFilename' | 'thumbnailUrl' | 'fileSize' | 'mimeType'
+  | 'gpsLatitude' | 'gpsLongitude' | 'takenAt' | 'uploadedAt' | 'averageRating' | 'totalRatings' | 'userRating';
+
+/**
+ * Photo counts per capture period, oldest first; periods without photos are left out.
+ */
+export interface PhotoTimeline {
+  bucket: TimelineBucket;
+  buckets: { start: string; count: number }[];
+  undatedCount: number;
+}
+
 export interface PhotoAdmin extends Photo {
   userId?: number;
   userEmail?: string;
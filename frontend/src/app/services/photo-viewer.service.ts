@@ -3,9 +3,12 @@ import { Router } from '@angular/router';
 import { BehaviorSubject, Observable } from 'rxjs';
 import { Photo } from '../models/photo.model';
 
+/** Only the id is required; the map opens the viewer before photo details are loaded. */
+export type ViewerPhoto = Pick<Photo, 'id'> & Partial<Photo>;
+
 export interface ViewerState {
   isOpen: boolean;
-  photos: Photo[];
+  photos: ViewerPhoto[];
   currentIndex: number;
   sourceRoute: string;
 }
@@ -26,7 +29,7 @@ export class PhotoViewerService {
 
   constructor(private readonly router: Router) {}
 
-  openViewer(photos: Photo[], photoId: number, sourceRoute: string): void {
+  openViewer(photos: ViewerPhoto[], photoId: number, sourceRoute: string): void {
     const currentIndex = photos.findIndex(p => p.id === photoId);
     
     if (currentIndex === -1) {
@@ -1,7 +1,7 @@
 import { TestBed } from '@angular/core/testing';
 import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
 import { PhotoService } from './photo.service';
-import { Photo, PageResponse, RatingResponse } from '../models/photo.model';
+import { Photo, PageResponse, RatingResponse, MapPoints, PhotoCluster } from '../models/photo.model';
 
 describe('PhotoService', () => {
   let service: PhotoService;
@@ -102,6 +102,51 @@ describe('PhotoService', () => {
     });
   });
 
+  describe('getMapPoints', () => {
+    it('should fetch columnar map points with filters', (done) => {
+      const mockPoints: MapPoints = {
+        count: 1,
+        id: [1],
+        lat: [52.2297],
+        lng: [21.0122],
+        takenAt: [null],
+        ratingAvg: [4.5]
+      };
+
+      service.getMapPoints({ dateFrom: '2024-01-01', minRating: 3 }).subscribe(points => {
+        expect(points).toEqual(mockPoints);
+        done();
+      });
+
+      const req = httpMock.expectOne(req => req.url === `${baseUrl}/map-points`);
+      expect(req.request.method).toBe('GET');
+      expect(req.request.params.get('dateFrom')).toBe('2024-01-01');
+      expect(req.request.params.get('minRating')).toBe('3');
+      expect(req.request.params.has('hasGps')).toBe(false);
+      req.flush(mockPoints);
+    });
+  });
+
+  describe('getClusters', () => {
+    it('should fetch clusters for bounding box and zoom', (done) => {
+      const mockClusters: PhotoCluster[] = [
+        { latitude: 52.2, longitude: 21.0, count: 12, photoId: 7 }
+      ];
+
+      service.getClusters('14,49,24,55', 6, { minRating: 4 }).subscribe(clusters => {
+        expect(clusters).toEqual(mockClusters);
+        done();
+      });
+
+      const req = httpMock.expectOne(req => req.url === `${baseUrl}/clusters`);
+      expect(req.request.method).toBe('GET');
+      expect(req.request.params.get('bbox')).toBe('14,49,24,55');
+      expect(req.request.params.get('zoom')).toBe('6');
+      expect(req.request.params.get('minRating')).toBe('4');
+      req.flush(mockClusters);
+    });
+  });
+
   describe('getPhotoById', () => {
     it('should fetch single photo by id', (done) => {
       service.getPhotoById(1).subscribe(photo => {
@@ -154,7 +199,9 @@ describe('PhotoService', () => {
         photoId: 1,
         userId: 1,
         rating: 5,
-        createdAt: '2024-01-01T00:00:00Z'
+        createdAt: '2024-01-01T00:00:00Z',
+        averageRating: 5,
+        totalRatings: 1
       };
 
       service.ratePhoto(1, 5).subscribe(response => {
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { BehaviorSubject, Observable, tap } from 'rxjs';
-import { Photo, PageResponse, RatingRequest, RatingResponse, PhotoFilters } from '../models/photo.model';
+import { Photo, PageResponse, RatingRequest, BatchRatingRequest, RatingResponse, PhotoFilters, MapPoints, PhotoCluster, PhotoTimeline, TimelineBucket, PhotoField } from '../models/photo.model';
 import { AppSettings } from '../models/settings.model';
 
 @Injectable({
@@ -34,10 +34,54 @@ export class PhotoService {
     );
   }
 
+  getMapPoints(filters?: PhotoFilters): Observable<MapPoints> {
+    let params = new HttpParams();
+
+    if (filters) {
+      if (filters.dateFrom) params = params.set('dateFrom', filters.dateFrom);
+      if (filters.dateTo) params = params.set('dateTo', filters.dateTo);
+      if (filters.minRating) params = params.set('minRating', filters.minRating.toString());
+    }
+
+    return this.http.get<MapPoints>(`${this.baseUrl}/map-points`, { params });
+  }
+
+  getClusters(bbox: string, zoom: number, filters?: PhotoFilters): Observable<PhotoCluster[]> {
+    let params = new HttpParams().set('bbox', bbox).set('zoom', zoom.toString());
+
+    if (filters) {
+      if (filters.dateFrom) params = params.set('dateFrom', filters.dateFrom);
+      if (filters.dateTo) params = params.set('dateTo', filters.dateTo);
+      if (filters.minRating) params = params.set('minRating', filters.minRating.toString());
+    }
+
+    return this.http.get<PhotoCluster[]>(`${this.baseUrl}/clusters`, { params });
+  }
+
+  getTimeline(bucket: TimelineBucket, filters?: PhotoFilters): Observable<PhotoTimeline> {
+    let params = new HttpParams().set('bucket', bucket);
+
+    if (filters) {
+      if (filters.dateFrom) params = params.set('dateFrom', filters.dateFrom);
+      if (filters.dateTo) params = params.set('dateTo', filters.dateTo);
+      if (filters.minRating) params = params.set('minRating', filters.minRating.toString());
+      if (filters.hasGps !== undefined) params = params.set('hasGps', filters.hasGps.toString());
+    }
+
+    return this.http.get<PhotoTimeline>(`${this.baseUrl}/timeline`, { params });
+  }
+
   getPhotoById(id: number): Observable<Photo> {
     return this.http.get<Photo>(`${this.baseUrl}/${id}`);
   }
 
+  getPhotosByIds(ids: number[], fields?: PhotoField[]): Observable<PageResponse<Partial<Photo>>> {
+    let params = new HttpParams().set('ids', ids.join(','));
+    if (fields?.length) params = params.set('fields', fields.join(','));
+
+    return this.http.get<PageResponse<Partial<Photo>>>(this.baseUrl, { params });
+  }
+
   uploadPhoto(file: File): Observable<Photo> {
     const formData = new FormData();
     formData.append('file', file);
@@ -57,6 +101,13 @@ export class PhotoService {
     );
   }
 
+  ratePhotos(ratings: BatchRatingRequest['ratings']): Observable<RatingResponse[]> {
+    const request: BatchRatingRequest = { ratings };
+    return this.http.put<RatingResponse[]>(`${this.baseUrl}/ratings`, request).pipe(
+      tap(responses => this.applyRatings(responses))
+    );
+  }
+
   clearRating(photoId: number): Observable<void> {
     return this.http.delete<void>(`${this.baseUrl}/${photoId}/rating`).pipe(
       tap(() => this.refreshPhoto(photoId))
@@ -91,6 +142,20 @@ export class PhotoService {
     });
   }
 
+  // Batch responses carry the new aggregates, so photos are updated without refetching them
+  private applyRatings(responses: RatingResponse[]): void {
+    const ratings = new Map(responses.map(response => [response.photoId, response]));
+    const updatedPhotos = this.photosSubject.value
+      .map(photo => {
+        const rating = ratings.get(photo.id);
+        return rating
+          ? { ...photo, userRating: rating.rating, averageRating: rating.averageRating, totalRatings: rating.totalRatings }
+          : photo;
+      })
+      .filter(photo => !ratings.has(photo.id) || !this.currentFilters || this.photoMatchesFilters(photo, this.currentFilters));
+    this.photosSubject.next(updatedPhotos);
+  }
+
   private photoMatchesFilters(photo: Photo, filters: PhotoFilters): boolean {
     return this.matchesMinRating(photo, filters.minRating) &&
            this.matchesGpsFilter(photo, filters.hasGps) &&
@@ -155,7 +155,7 @@ delete_uploads() {
 
     if [ "$DRY_RUN" = true ]; then
         log_info "[DRY-RUN] Would delete files from:"
-        for dir in input original medium failed; do
+        for dir in input original medium failed derived packed; do
             local dir_path="$UPLOADS_DIR/$dir"
             if [ -d "$dir_path" ]; then
                 local count=$(find "$dir_path" -type f | wc -l)
@@ -166,10 +166,11 @@ delete_uploads() {
     fi
 
     # Delete files from all subdirectories
-    for dir in input original medium failed; do
+    for dir in input original medium failed derived packed; do
         local dir_path="$UPLOADS_DIR/$dir"
         if [ -d "$dir_path" ]; then
-            rm -f "$dir_path"/*
+            # Sharded layout keeps files in hashed subdirectories (ab/cd/<file>)
+            find "$dir_path" -mindepth 1 -delete
             log_success "Deleted files from $dir/"
         fi
     done